@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Authentication type used to access the SAP OData service.
+ */
+public enum AuthenticationType {
+
+  BASIC("basic"),
+  OAUTH2_CLIENT_CREDENTIALS("oauth2ClientCredentials"),
+  OAUTH2_SAML_BEARER("oauth2SamlBearer");
+
+  private static final Map<String, AuthenticationType> byValue = Arrays.stream(values())
+    .collect(Collectors.toMap(AuthenticationType::getValue, Function.identity()));
+
+  private final String value;
+
+  AuthenticationType(String value) {
+    this.value = value;
+  }
+
+  @Nullable
+  public static AuthenticationType fromValue(String value) {
+    return byValue.get(value);
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Defines how geospatial properties are output. 'record' outputs nested records of coordinates, while 'wkt' and 'wkb'
+ * output Well-Known Text strings and Well-Known Binary bytes, which are smaller and understood by most spatial tools.
+ */
+public enum GeospatialFormat {
+
+  RECORD("record"),
+  WKT("wkt"),
+  WKB("wkb");
+
+  private static final Map<String, GeospatialFormat> byValue = Arrays.stream(values())
+    .collect(Collectors.toMap(GeospatialFormat::getValue, Function.identity()));
+
+  private final String value;
+
+  GeospatialFormat(String value) {
+    this.value = value;
+  }
+
+  @Nullable
+  public static GeospatialFormat fromValue(String value) {
+    return byValue.get(value);
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Defines which entities are read when the number of records is limited. The first entities are read with '$top' and
+ * paging stops once the limit is reached, while a sample is read as windows of entities spread over the whole entity
+ * set.
+ */
+public enum LimitMode {
+
+  FIRST("first"),
+  SAMPLE("sample");
+
+  private static final Map<String, LimitMode> byValue = Arrays.stream(values())
+    .collect(Collectors.toMap(LimitMode::getValue, Function.identity()));
+
+  private final String value;
+
+  LimitMode(String value) {
+    this.value = value;
+  }
+
+  @Nullable
+  public static LimitMode fromValue(String value) {
+    return byValue.get(value);
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
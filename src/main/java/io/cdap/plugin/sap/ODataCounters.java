@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+/**
+ * Hadoop counters updated by {@link ODataEntityRecordReader}.
+ */
+public enum ODataCounters {
+
+  /**
+   * Number of response body bytes received from the OData service over the network.
+   */
+  COMPRESSED_BYTES,
+
+  /**
+   * Number of response body bytes after decoding. Equals to {@link #COMPRESSED_BYTES} if responses are not compressed.
+   */
+  UNCOMPRESSED_BYTES
+}
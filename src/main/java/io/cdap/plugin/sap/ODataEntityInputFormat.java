@@ -15,28 +15,204 @@
  */
 package io.cdap.plugin.sap;
 
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.cdap.plugin.sap.odata.Aggregation;
+import io.cdap.plugin.sap.odata.FilterCondition;
+import io.cdap.plugin.sap.odata.GenericODataClient;
 import io.cdap.plugin.sap.odata.ODataEntity;
-import org.apache.hadoop.io.NullWritable;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.QueryOptions;
+import io.cdap.plugin.sap.split.CategorySplitPlanner;
+import io.cdap.plugin.sap.split.KeySplitPlanner;
+import io.cdap.plugin.sap.split.SplitCheckpointStore;
+import io.cdap.plugin.sap.split.SplitPlanner;
+import io.cdap.plugin.sap.split.SplitStatistics;
+import io.cdap.plugin.sap.split.SplitStatisticsStore;
+import io.cdap.plugin.sap.split.StatisticsSplitPlanner;
+import io.cdap.plugin.sap.split.TimeSplitPlanner;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
- * InputFormat for mapreduce job, which provides a single split of data.
+ * InputFormat for mapreduce job, which provides a single split of every entity set of every service or multiple splits
+ * planned according to the split mode. If a split statistics store is configured, splits are planned from the
+ * statistics of the previous run whenever they are fresh.
  */
 public class ODataEntityInputFormat extends InputFormat {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ODataEntityInputFormat.class);
+  private static final Gson gson = new GsonBuilder().create();
+
+  /**
+   * Maximum age of split checkpoints, older checkpoints are left by runs that failed completely.
+   */
+  static final long CHECKPOINT_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
   @Override
-  public List<InputSplit> getSplits(JobContext jobContext) {
-    return Collections.singletonList(new NoOpSplit());
+  public List<InputSplit> getSplits(JobContext jobContext) throws IOException {
+    Configuration conf = jobContext.getConfiguration();
+    String configJson = conf.get(ODataEntryInputFormatProvider.PROPERTY_CONFIG_JSON);
+    SapODataConfig config = gson.fromJson(configJson, SapODataConfig.class);
+    if (config.isResumeFailedSplits()) {
+      LOG.warn("Resuming failed splits is enabled. Records read by failed task attempts are lost unless every sink "
+                 + "keeps the records written by failed attempts.");
+      new SplitCheckpointStore(new Path(config.getCheckpointDirectory()), conf)
+        .deleteExpired(CHECKPOINT_MAX_AGE_MILLIS);
+    }
+    if (!config.isSplit() && !config.isMultipleEntitySets() && !config.isMultipleServices()) {
+      return Collections.singletonList(new NoOpSplit());
+    }
+
+    // splits of all services are planned at once, so that all services are read concurrently
+    List<InputSplit> splits = new ArrayList<>();
+    for (ODataService service : config.getServices()) {
+      // a single client shares the service metadata and connections among all entity sets
+      GenericODataClient client = new GenericODataClient(service.getUrl(), config.getUser(), config.getPassword(),
+                                                         config.getOAuth2Credentials());
+      for (String entitySetName : config.getResourcePaths()) {
+        List<String> filters = config.isSplit()
+          ? planSplits(config, client, service, entitySetName, conf) : Collections.emptyList();
+        LOG.info("Planned {} splits of '{}' entity set of '{}' service.", Math.max(filters.size(), 1), entitySetName,
+                 service);
+        if (filters.isEmpty()) {
+          filters = Collections.singletonList(null);
+        }
+        String planId = UUID.randomUUID().toString();
+        for (int i = 0; i < filters.size(); i++) {
+          splits.add(new ODataSplit(service, entitySetName, filters.get(i), planId, i, filters.size()));
+        }
+      }
+    }
+    return splits;
+  }
+
+  private static List<String> planSplits(SapODataConfig config, GenericODataClient client, ODataService service,
+                                         String entitySetName, Configuration conf) throws IOException {
+    Integer splitCount = null;
+    SplitStatisticsStore store = createStatisticsStore(config, service, entitySetName, conf);
+    if (store != null) {
+      List<SplitStatistics> statistics = store.readLatest(TimeUnit.HOURS.toMillis(config.getStatisticsMaxAge()));
+      if (statistics != null) {
+        StatisticsSplitPlanner planner = new StatisticsSplitPlanner(
+          statistics, TimeUnit.SECONDS.toMillis(config.getTargetSplitDuration()));
+        LOG.info("Statistics of the previous run of '{}' entity set: {}.", entitySetName, planner);
+        if (planner.isReusable()) {
+          return planner.plan();
+        }
+        splitCount = planner.getSplitCount();
+      }
+    }
+    return createSplitPlanner(config, client, entitySetName, getQuery(config, service, client, entitySetName),
+                              splitCount).plan();
+  }
+
+  /**
+   * @return query options sent to the service for the entity set: the query options of the service, with the
+   * structured filter conditions compiled for the entity type and OData version of the service added to '$filter',
+   * the aggregation applied and '$top' limited to the maximum number of records unless a sample is read.
+   * @throws IllegalArgumentException if the filter conditions are not valid for the entity type.
+   */
+  @Nullable
+  static String getQuery(SapODataConfig config, ODataService service, GenericODataClient client,
+                         String entitySetName) {
+    String query = service.getQuery(config.getQuery());
+    List<FilterCondition> conditions = config.getFilterConditions();
+    Aggregation aggregation = config.getAggregation();
+    if (!conditions.isEmpty() || !aggregation.isEmpty()) {
+      ODataVersion version = client.getODataVersion();
+      if (!conditions.isEmpty()) {
+        String filter = FilterCondition.toFilter(conditions, version, client.getEntitySetType(entitySetName));
+        query = QueryOptions.parse(query).addFilter(filter).toString();
+      }
+      // filters of splits are not added afterwards, since aggregation can not be used with splits
+      query = aggregation.isEmpty() ? query : aggregation.apply(version, query);
+    }
+    if (config.getMaxRecords() == 0 || config.getLimitMode() == LimitMode.SAMPLE) {
+      return query;
+    }
+    QueryOptions options = QueryOptions.parse(query);
+    Long top = options.getLong(QueryOptions.TOP);
+    long limit = top == null ? config.getMaxRecords() : Math.min(top, config.getMaxRecords());
+    return options.set(QueryOptions.TOP, Long.toString(limit)).toString();
+  }
+
+  /**
+   * @param query      query options sent to the service.
+   * @param splitCount number of key or category splits derived from statistics, {@code null} to use the configured
+   *                   one.
+   */
+  private static SplitPlanner createSplitPlanner(SapODataConfig config, GenericODataClient client,
+                                                 String entitySetName, @Nullable String query,
+                                                 @Nullable Integer splitCount) {
+    switch (config.getSplitMode()) {
+      case TIME:
+        return new TimeSplitPlanner(client, entitySetName, query, config.getSplitProperty(),
+                                    config.getSplitInterval(), config.getSplitStart(), config.getSplitEnd());
+      case KEY:
+        return new KeySplitPlanner(client, entitySetName, query, config.getSplitProperty(),
+                                   splitCount == null ? config.getSplitCount() : splitCount);
+      case CATEGORY:
+        return new CategorySplitPlanner(client, entitySetName, query, config.getSplitProperty(),
+                                        config.getSplitValues(),
+                                        splitCount == null ? config.getSplitCount() : splitCount);
+      default:
+        throw new IllegalArgumentException(String.format("Unsupported split mode: '%s'.",
+                                                         config.getSplitMode().getValue()));
+    }
+  }
+
+  /**
+   * Statistics are kept separately for every combination of service, entity set, query and split settings, since
+   * splits of one combination are meaningless for another.
+   *
+   * @return store of split statistics of the entity set of the service or {@code null} if the store is not
+   * configured.
+   * @throws IOException if the file system of the store cannot be accessed.
+   */
+  @Nullable
+  static SplitStatisticsStore createStatisticsStore(SapODataConfig config, ODataService service, String entitySetName,
+                                                    Configuration conf) throws IOException {
+    if (Strings.isNullOrEmpty(config.getStatisticsDirectory())) {
+      return null;
+    }
+    List<String> parts = new ArrayList<>(Arrays.asList(
+      service.getName(), entitySetName, Strings.nullToEmpty(config.getQuery()),
+      config.getSplitMode().getValue(), Strings.nullToEmpty(config.getSplitProperty()),
+      config.getSplitInterval().getValue(), String.valueOf(config.getSplitStart()),
+      String.valueOf(config.getSplitEnd()), String.valueOf(config.getSplitCount()),
+      String.join(",", config.getSplitValues())));
+    // appended only if specified, so that statistics of runs without filter conditions remain valid
+    if (!Strings.isNullOrEmpty(config.getFilters())) {
+      parts.add(config.getFilters());
+    }
+    String source = String.join("\n", parts);
+    String hash = Hashing.sha256().hashString(source, StandardCharsets.UTF_8).toString().substring(0, 16);
+    String name = entitySetName.replaceAll("[^A-Za-z0-9_]", "_") + "-" + hash;
+    return new SplitStatisticsStore(new Path(config.getStatisticsDirectory(), name), conf);
   }
 
   @Override
-  public RecordReader<NullWritable, ODataEntity> createRecordReader(
+  public RecordReader<ODataEntityKey, ODataEntity> createRecordReader(
     InputSplit inputSplit, TaskAttemptContext taskAttemptContext) {
     return new ODataEntityRecordReader();
   }
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+/**
+ * Key of the entities read by {@link ODataEntityRecordReader}, which identifies the service and the entity set an
+ * entity was read from.
+ */
+public class ODataEntityKey {
+
+  private final ODataService service;
+  private final String entitySetName;
+
+  public ODataEntityKey(ODataService service, String entitySetName) {
+    this.service = service;
+    this.entitySetName = entitySetName;
+  }
+
+  public ODataService getService() {
+    return service;
+  }
+
+  public String getEntitySetName() {
+    return entitySetName;
+  }
+}
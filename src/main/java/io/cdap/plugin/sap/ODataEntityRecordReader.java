@@ -15,28 +15,93 @@
  */
 package io.cdap.plugin.sap;
 
+import com.google.common.collect.Iterators;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.sap.odata.Aggregation;
+import io.cdap.plugin.sap.odata.EntityType;
 import io.cdap.plugin.sap.odata.GenericODataClient;
 import io.cdap.plugin.sap.odata.ODataEntity;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.PagePosition;
+import io.cdap.plugin.sap.odata.PagingEntityIterator;
+import io.cdap.plugin.sap.odata.QueryOptions;
+import io.cdap.plugin.sap.odata.SamplingIterator;
+import io.cdap.plugin.sap.odata.TransferStatistics;
+import io.cdap.plugin.sap.split.SplitCheckpoint;
+import io.cdap.plugin.sap.split.SplitCheckpointStore;
+import io.cdap.plugin.sap.split.SplitStatistics;
+import io.cdap.plugin.sap.split.SplitStatisticsStore;
+import io.cdap.plugin.sap.transformer.ODataEntryToRecordTransformer;
+import io.cdap.plugin.sap.transformer.ODataJsonRecordParser;
+import io.cdap.plugin.sap.transformer.ParallelTransformIterator;
+import io.cdap.plugin.sap.transformer.RecordODataEntity;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.Instant;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import javax.annotation.Nullable;
 
 /**
- * RecordReader implementation, which reads OData entries
+ * RecordReader implementation, which reads OData entries. The key identifies the service and the entity set an entry
+ * belongs to. If resuming failed splits is enabled, the position of the split is checkpointed each time a page is
+ * started, and a retried attempt resumes reading from the page of the last checkpoint. If multiple transform threads
+ * are configured, pages are read and parsed by a separate thread and entities are converted to records by a pool of
+ * worker threads. If the number of records is limited, reading stops once the limit is reached, or a sample is read as
+ * windows spread over the entity set.
  */
-public class ODataEntityRecordReader extends RecordReader<NullWritable, ODataEntity> {
+public class ODataEntityRecordReader extends RecordReader<ODataEntityKey, ODataEntity> {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ODataEntityRecordReader.class);
   private static final Gson gson = new GsonBuilder().create();
+  private static final Type SCHEMAS_TYPE = new TypeToken<Map<String, String>>() { }.getType();
 
+  /**
+   * Number of records read between updates of the byte counters.
+   */
+  private static final int COUNTERS_UPDATE_INTERVAL = 1000;
+
+  /**
+   * Maximum number of entities converted by a worker thread at once.
+   */
+  private static final int TRANSFORM_BATCH_SIZE = 256;
+
+  private ODataEntityKey key;
   private Iterator<ODataEntity> iterator;
+  private PagingEntityIterator<?> pages;
+  private ParallelTransformIterator parallelTransform;
   private ODataEntity value;
+  private TransferStatistics transferStatistics;
+  private Counter compressedBytesCounter;
+  private Counter uncompressedBytesCounter;
+  private long reportedCompressedBytes;
+  private long reportedUncompressedBytes;
+  private long recordsRead;
+  private ODataSplit split;
+  private SplitStatisticsStore statisticsStore;
+  private long startMillis;
+  private boolean finished;
+  private SplitCheckpointStore checkpointStore;
+  private String checkpointName;
+  private String query;
+  private int pageSize;
+  private PagePosition checkpointPosition;
+  private boolean resumed;
+  private long recordLimit = Long.MAX_VALUE;
 
   /**
    * Initialize an iterator and config.
@@ -45,27 +110,176 @@ public class ODataEntityRecordReader extends RecordReader<NullWritable, ODataEnt
    * @param taskAttemptContext task context
    */
   @Override
-  public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) {
+  public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) throws IOException {
+    startMillis = System.currentTimeMillis();
     Configuration conf = taskAttemptContext.getConfiguration();
     String configJson = conf.get(ODataEntryInputFormatProvider.PROPERTY_CONFIG_JSON);
     SapODataConfig config = gson.fromJson(configJson, SapODataConfig.class);
 
-    GenericODataClient client = new GenericODataClient(config.getUrl(), config.getUser(), config.getPassword());
-    iterator = client.queryEntitySet(config.getResourcePath(), config.getQuery());
+    ODataService service = config.getServices().get(0);
+    String name = config.getResourcePath();
+    String filter = null;
+    if (inputSplit instanceof ODataSplit) {
+      split = (ODataSplit) inputSplit;
+      service = split.getService();
+      name = split.getEntitySetName();
+      filter = split.getFilter();
+      if (config.isSplit()) {
+        statisticsStore = ODataEntityInputFormat.createStatisticsStore(config, service, name, conf);
+      }
+    }
+    key = new ODataEntityKey(service, name);
+    pageSize = config.getPageSize();
+
+    GenericODataClient client = new GenericODataClient(service.getUrl(), config.getUser(), config.getPassword(),
+                                                       config.getOAuth2Credentials());
+    query = QueryOptions.parse(ODataEntityInputFormat.getQuery(config, service, client, name)).addFilter(filter)
+      .toString();
+    transferStatistics = client.getTransferStatistics();
+    compressedBytesCounter = taskAttemptContext.getCounter(ODataCounters.COMPRESSED_BYTES);
+    uncompressedBytesCounter = taskAttemptContext.getCounter(ODataCounters.UNCOMPRESSED_BYTES);
+    if (config.getMaxRecords() > 0 && config.getLimitMode() == LimitMode.SAMPLE) {
+      // windows are placed at random, so a retried attempt reads another sample instead of resuming
+      iterator = new SamplingIterator(client, name, query, pageSize, config.getMaxRecords(), new Random());
+      return;
+    }
+    PagePosition start = null;
+    if (config.isResumeFailedSplits()) {
+      start = readCheckpoint(config.getCheckpointDirectory(), taskAttemptContext);
+    }
+    if (config.getMaxRecords() > 0) {
+      // entities of the pages preceding the checkpoint count towards the limit
+      recordLimit = config.getMaxRecords() - (start == null ? 0 : start.getOffset());
+    }
+    // a value that cannot be parsed directly fails the whole page, so it cannot be skipped or sent to error
+    if (config.isDirectJsonParsing() && config.getErrorHandling() == ErrorHandling.FAIL) {
+      Map<String, String> schemas = gson.fromJson(conf.get(ODataEntryInputFormatProvider.PROPERTY_SCHEMAS_JSON),
+                                                  SCHEMAS_TYPE);
+      iterator = queryEntitySetJson(client, name, query, pageSize, Schema.parseJson(schemas.get(name)), start,
+                                    config.getStringDictionarySize(), config.getAggregation());
+    }
+    if (iterator == null) {
+      PagingEntityIterator<ODataEntity> entities = client.queryEntitySet(name, query, pageSize, start);
+      pages = entities;
+      iterator = entities;
+      if (config.getTransformThreads() > 1) {
+        Map<String, String> schemas = gson.fromJson(conf.get(ODataEntryInputFormatProvider.PROPERTY_SCHEMAS_JSON),
+                                                    SCHEMAS_TYPE);
+        Schema schema = Schema.parseJson(schemas.get(name));
+        parallelTransform = new ParallelTransformIterator(
+          entities, () -> new ODataEntryToRecordTransformer(schema, config.getStringDictionarySize()),
+          config.getTransformThreads(), TRANSFORM_BATCH_SIZE);
+        iterator = parallelTransform;
+      }
+    }
+  }
+
+  /**
+   * Opens the checkpoint store and reads the checkpoint written by a previous attempt of the task.
+   *
+   * @return position of the page to resume reading from or {@code null} if the split is read from the beginning.
+   */
+  @Nullable
+  private PagePosition readCheckpoint(String directory, TaskAttemptContext taskAttemptContext) throws IOException {
+    checkpointStore = new SplitCheckpointStore(new Path(directory), taskAttemptContext.getConfiguration());
+    // all attempts of a task read the same split
+    checkpointName = taskAttemptContext.getTaskAttemptID().getTaskID().toString();
+    SplitCheckpoint checkpoint = checkpointStore.read(checkpointName,
+                                                      ODataEntityInputFormat.CHECKPOINT_MAX_AGE_MILLIS);
+    if (checkpoint == null
+      || !checkpoint.isOf(key.getService().getName(), key.getEntitySetName(), query, pageSize)) {
+      return null;
+    }
+    LOG.warn("Resuming split of '{}' entity set from page '{}' checkpointed at {}. {} records read by the failed "
+               + "attempt are not read again and are lost unless every sink kept them.", key.getEntitySetName(),
+             checkpoint.getPosition(), Instant.ofEpochMilli(checkpoint.getTimestamp()),
+             checkpoint.getPosition().getOffset());
+    resumed = true;
+    checkpointPosition = checkpoint.getPosition();
+    return checkpointPosition;
+  }
+
+  /**
+   * Queries the entity set parsing JSON payload directly into records.
+   *
+   * @return iterator over entities holding parsed records or {@code null} if direct parsing is not applicable to the
+   * service or schema.
+   */
+  @Nullable
+  private Iterator<ODataEntity> queryEntitySetJson(GenericODataClient client, String entitySetName,
+                                                   @Nullable String query, int pageSize, Schema schema,
+                                                   @Nullable PagePosition start, int stringDictionarySize,
+                                                   Aggregation aggregation) {
+    if (client.getODataVersion() != ODataVersion.V4) {
+      LOG.info("Direct JSON parsing is supported for OData V4 services only, falling back to the regular parsing.");
+      return null;
+    }
+    // aggregated entities consist of the group-by properties and the aggregates
+    EntityType entityType = aggregation.getOutputType(ODataVersion.V4, client.getEntitySetType(entitySetName));
+    if (!ODataJsonRecordParser.isSupported(schema, entityType)) {
+      LOG.info("Schema contains fields that cannot be parsed directly, falling back to the regular parsing.");
+      return null;
+    }
+    PagingEntityIterator<StructuredRecord> records = client.queryEntitySetJson(
+      entitySetName, query, pageSize, new ODataJsonRecordParser(schema, entityType, stringDictionarySize), start);
+    pages = records;
+    return Iterators.transform(records, RecordODataEntity::new);
   }
 
   @Override
   public boolean nextKeyValue() {
-    if (!iterator.hasNext()) {
+    // once the limit is reached, the next page is not requested even if the service ignores '$top'
+    if (recordsRead >= recordLimit || !iterator.hasNext()) {
+      updateCounters();
+      finished = true;
+      if (checkpointStore != null) {
+        deleteCheckpoint();
+      }
       return false;
     }
     value = iterator.next();
+    if (++recordsRead % COUNTERS_UPDATE_INTERVAL == 0) {
+      updateCounters();
+    }
+    // all entities of the preceding pages are processed once an entity of a new page is requested
+    if (checkpointStore != null && getPagePosition() != checkpointPosition) {
+      writeCheckpoint();
+    }
     return true;
   }
 
+  /**
+   * @return position of the page of the entity last returned, parallel conversion reads pages ahead of it.
+   */
+  @Nullable
+  private PagePosition getPagePosition() {
+    return parallelTransform == null ? pages.getPagePosition() : parallelTransform.getPagePosition();
+  }
+
+  private void writeCheckpoint() {
+    SplitCheckpoint checkpoint = new SplitCheckpoint(key.getService().getName(), key.getEntitySetName(), query,
+                                                     pageSize, getPagePosition(), System.currentTimeMillis());
+    // a failed write is not retried for the remaining entities of the page, but with the next page
+    checkpointPosition = checkpoint.getPosition();
+    try {
+      checkpointStore.write(checkpointName, checkpoint);
+    } catch (IOException e) {
+      // a missing checkpoint only makes a retried attempt read more pages again
+      LOG.warn("Unable to write checkpoint of task {}: {}", checkpointName, e.getMessage(), e);
+    }
+  }
+
+  private void deleteCheckpoint() {
+    try {
+      checkpointStore.delete(checkpointName);
+    } catch (IOException e) {
+      LOG.warn("Unable to delete checkpoint of task {}: {}", checkpointName, e.getMessage(), e);
+    }
+  }
+
   @Override
-  public NullWritable getCurrentKey() {
-    return null;
+  public ODataEntityKey getCurrentKey() {
+    return key;
   }
 
   @Override
@@ -81,5 +295,42 @@ public class ODataEntityRecordReader extends RecordReader<NullWritable, ODataEnt
 
   @Override
   public void close() throws IOException {
+    if (parallelTransform != null) {
+      parallelTransform.close();
+    }
+    if (transferStatistics != null) {
+      updateCounters();
+    }
+    // statistics of partially read splits would mislead the planning of the next run
+    if (statisticsStore != null && finished && !resumed) {
+      writeStatistics();
+    }
+  }
+
+  private void writeStatistics() {
+    long now = System.currentTimeMillis();
+    SplitStatistics statistics = new SplitStatistics(split.getPlanId(), split.getSplitIndex(), split.getSplitCount(),
+                                                     split.getFilter(), now, recordsRead,
+                                                     transferStatistics.getCompressedBytes(),
+                                                     transferStatistics.getPages(),
+                                                     transferStatistics.getPageMillis(), now - startMillis);
+    try {
+      statisticsStore.write(statistics);
+    } catch (IOException e) {
+      // statistics are an optimization of the next run and must not fail the current one
+      LOG.warn("Unable to write statistics of split {}: {}", split.getSplitIndex(), e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Increments byte counters by the number of bytes transferred since the last update.
+   */
+  private void updateCounters() {
+    long compressedBytes = transferStatistics.getCompressedBytes();
+    long uncompressedBytes = transferStatistics.getUncompressedBytes();
+    compressedBytesCounter.increment(compressedBytes - reportedCompressedBytes);
+    uncompressedBytesCounter.increment(uncompressedBytes - reportedUncompressedBytes);
+    reportedCompressedBytes = compressedBytes;
+    reportedUncompressedBytes = uncompressedBytes;
   }
 }
@@ -17,9 +17,11 @@
 package io.cdap.plugin.sap;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import io.cdap.cdap.api.data.batch.InputFormatProvider;
+import io.cdap.cdap.api.data.schema.Schema;
 
 import java.util.Map;
 
@@ -28,13 +30,19 @@ import java.util.Map;
  */
 public class ODataEntryInputFormatProvider implements InputFormatProvider {
   public static final String PROPERTY_CONFIG_JSON = "cdap.sap.odata.config";
+  public static final String PROPERTY_SCHEMAS_JSON = "cdap.sap.odata.schemas";
   private static final Gson gson = new GsonBuilder().create();
 
   private final Map<String, String> conf;
 
-  public ODataEntryInputFormatProvider(SapODataConfig config) {
+  /**
+   * @param config  source configuration.
+   * @param schemas record schemas by entity set name.
+   */
+  public ODataEntryInputFormatProvider(SapODataConfig config, Map<String, Schema> schemas) {
     this.conf = new ImmutableMap.Builder<String, String>()
       .put(PROPERTY_CONFIG_JSON, gson.toJson(config))
+      .put(PROPERTY_SCHEMAS_JSON, gson.toJson(Maps.transformValues(schemas, Schema::toString)))
       .build();
   }
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import io.cdap.plugin.sap.odata.QueryOptions;
+
+import javax.annotation.Nullable;
+
+/**
+ * One of the OData services read by the source: a service URL, optionally combined with an SAP client which is sent
+ * as the 'sap-client' query option. Records read from the service are tagged with its name when multiple services
+ * are read.
+ */
+public class ODataService {
+
+  public static final String SAP_CLIENT_OPTION = "sap-client";
+
+  private final String url;
+  private final String sapClient;
+
+  public ODataService(String url, @Nullable String sapClient) {
+    this.url = url;
+    this.sapClient = sapClient;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  @Nullable
+  public String getSapClient() {
+    return sapClient;
+  }
+
+  /**
+   * @return service URL, followed by the SAP client if one is specified, e.g.
+   * "http://eccsvrname:8000/sap/opu/odata/sap/zgw100_dd02l_so_srv/?sap-client=100".
+   */
+  public String getName() {
+    return sapClient == null ? url : url + "?" + SAP_CLIENT_OPTION + "=" + sapClient;
+  }
+
+  /**
+   * @param query OData query options, can be {@code null}.
+   * @return query options to send to this service.
+   */
+  @Nullable
+  public String getQuery(@Nullable String query) {
+    return sapClient == null ? query : QueryOptions.parse(query).set(SAP_CLIENT_OPTION, sapClient).toString();
+  }
+
+  @Override
+  public String toString() {
+    return getName();
+  }
+}
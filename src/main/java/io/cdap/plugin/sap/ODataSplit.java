@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * A split of an entity set of one of the services, defined by a '$filter' expression combined with the query options
+ * of the source. Also identifies the split within its plan, so split statistics of a run can be told apart.
+ */
+public class ODataSplit extends InputSplit implements Writable {
+
+  private String serviceUrl;
+  private String sapClient;
+  private String entitySetName;
+  private String filter;
+  private String planId;
+  private int splitIndex;
+  private int splitCount;
+
+  // used by mapreduce
+  public ODataSplit() {
+  }
+
+  public ODataSplit(ODataService service, String entitySetName, @Nullable String filter, String planId,
+                    int splitIndex, int splitCount) {
+    this.serviceUrl = service.getUrl();
+    this.sapClient = service.getSapClient();
+    this.entitySetName = entitySetName;
+    this.filter = filter;
+    this.planId = planId;
+    this.splitIndex = splitIndex;
+    this.splitCount = splitCount;
+  }
+
+  public ODataService getService() {
+    return new ODataService(serviceUrl, sapClient);
+  }
+
+  public String getEntitySetName() {
+    return entitySetName;
+  }
+
+  /**
+   * @return '$filter' expression of the split, {@code null} if the split reads the whole entity set.
+   */
+  @Nullable
+  public String getFilter() {
+    return filter;
+  }
+
+  public String getPlanId() {
+    return planId;
+  }
+
+  public int getSplitIndex() {
+    return splitIndex;
+  }
+
+  public int getSplitCount() {
+    return splitCount;
+  }
+
+  @Override
+  public void readFields(DataInput dataInput) throws IOException {
+    serviceUrl = dataInput.readUTF();
+    sapClient = dataInput.readBoolean() ? dataInput.readUTF() : null;
+    entitySetName = dataInput.readUTF();
+    filter = dataInput.readBoolean() ? dataInput.readUTF() : null;
+    planId = dataInput.readUTF();
+    splitIndex = dataInput.readInt();
+    splitCount = dataInput.readInt();
+  }
+
+  @Override
+  public void write(DataOutput dataOutput) throws IOException {
+    dataOutput.writeUTF(serviceUrl);
+    dataOutput.writeBoolean(sapClient != null);
+    if (sapClient != null) {
+      dataOutput.writeUTF(sapClient);
+    }
+    dataOutput.writeUTF(entitySetName);
+    dataOutput.writeBoolean(filter != null);
+    if (filter != null) {
+      dataOutput.writeUTF(filter);
+    }
+    dataOutput.writeUTF(planId);
+    dataOutput.writeInt(splitIndex);
+    dataOutput.writeInt(splitCount);
+  }
+
+  @Override
+  public long getLength() {
+    return 0;
+  }
+
+  @Override
+  public String[] getLocations() {
+    return new String[0];
+  }
+}
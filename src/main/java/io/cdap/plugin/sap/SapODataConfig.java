@@ -27,12 +27,21 @@ import io.cdap.cdap.api.plugin.PluginConfig;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.plugin.common.Constants;
 import io.cdap.plugin.common.IdUtils;
+import io.cdap.plugin.sap.odata.Aggregation;
+import io.cdap.plugin.sap.odata.FilterCondition;
+import io.cdap.plugin.sap.odata.OAuth2Credentials;
+import io.cdap.plugin.sap.odata.QueryOptions;
+import io.cdap.plugin.sap.split.TimeInterval;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -43,6 +52,11 @@ import javax.annotation.Nullable;
 public class SapODataConfig extends PluginConfig {
 
   private static final String QUESTION_MARK = "?";
+  private static final String DEFAULT_ENTITY_SET_FIELD = "entitySet";
+  private static final String DEFAULT_ORIGIN_FIELD = "origin";
+  private static final int DEFAULT_SPLIT_COUNT = 10;
+  private static final int DEFAULT_TARGET_SPLIT_DURATION = 600;
+  private static final int DEFAULT_STATISTICS_MAX_AGE = 24;
 
   private static final Set<Schema.Type> SUPPORTED_SIMPLE_TYPES = ImmutableSet.of(Schema.Type.BOOLEAN, Schema.Type.INT,
                                                                                  Schema.Type.FLOAT, Schema.Type.DOUBLE,
@@ -59,21 +73,234 @@ public class SapODataConfig extends PluginConfig {
   private String referenceName;
 
   @Name(SapODataConstants.ODATA_SERVICE_URL)
-  @Description("Root URL of the SAP OData service.")
+  @Description("Root URL of the SAP OData service. Multiple comma-separated URLs of services exposing the same "
+    + "entity sets, e.g. on different SAP systems, can be read by a single source, in which case each record is "
+    + "tagged with the service it was read from.")
   @Macro
   private String url;
 
+  @Name(SapODataConstants.SAP_CLIENTS)
+  @Description("Comma-separated SAP clients to read from each of the services, sent as the 'sap-client' query "
+    + "option. The same credentials are used for all clients. If not specified, the default client of the service "
+    + "is read.")
+  @Macro
+  @Nullable
+  private String sapClients;
+
+  @Name(SapODataConstants.ORIGIN_FIELD)
+  @Description("Name of the field which holds the service URL and SAP client a record was read from when multiple "
+    + "services or clients are read. Defaults to 'origin'.")
+  @Macro
+  @Nullable
+  private String originField;
+
   @Name(SapODataConstants.RESOURCE_PATH)
-  @Description("Path of the SAP OData entity.")
+  @Description("Path of the SAP OData entity. Multiple comma-separated entity sets of the same service can be "
+    + "read by a single source, in which case each record is tagged with the name of its entity set.")
   @Macro
   private String resourcePath;
 
+  @Name(SapODataConstants.ENTITY_SET_FIELD)
+  @Description("Name of the field which holds the entity set name of a record when multiple entity sets are read. "
+    + "Defaults to 'entitySet'.")
+  @Macro
+  @Nullable
+  private String entitySetField;
+
   @Name(SapODataConstants.QUERY)
   @Description("OData query options to filter the data.")
   @Macro
   @Nullable
   private String query;
 
+  @Name(SapODataConstants.FILTERS)
+  @Description("Conditions on entity properties, separated by ';', such as 'CompanyCode eq 1000'. Supported operators "
+    + "are 'eq', 'ne', 'gt', 'ge', 'lt' and 'le'. Values are written without quotes and are formatted according to "
+    + "the type of the property. Conditions are combined using 'and' with the '$filter' query option.")
+  @Macro
+  @Nullable
+  private String filters;
+
+  @Name(SapODataConstants.GROUP_BY)
+  @Description("Comma-separated properties to group the entities by. If group-by properties or aggregates are "
+    + "specified, the service aggregates the entities and returns a single entity per group.")
+  @Macro
+  @Nullable
+  private String groupBy;
+
+  @Name(SapODataConstants.AGGREGATES)
+  @Description("Comma-separated aggregates computed for every group, such as 'Amount with sum as TotalAmount' or "
+    + "'count as Items'. Supported methods are 'sum', 'min', 'max', 'average' and 'countdistinct'. OData V2 services "
+    + "must be SAP analytical services, which aggregate measures using the aggregation defined by the service, so "
+    + "their aggregates are plain measure names, such as 'Amount'.")
+  @Macro
+  @Nullable
+  private String aggregates;
+
+  @Name(SapODataConstants.MAX_RECORDS)
+  @Description("Maximum number of records read from every entity set of every service. Reading stops once the limit "
+    + "is reached, e.g. to preview the data. Can not be used with splits.")
+  @Macro
+  @Nullable
+  private Integer maxRecords;
+
+  @Name(SapODataConstants.LIMIT_MODE)
+  @Description("Entities read if the number of records is limited. 'first' reads the first entities using '$top', "
+    + "'sample' reads windows of entities at random positions spread over the whole entity set. Defaults to 'first'.")
+  @Macro
+  @Nullable
+  private String limitMode;
+
+  @Name(SapODataConstants.PAGE_SIZE)
+  @Description("Maximum number of entities per page. Sent as 'Prefer: odata.maxpagesize' to OData V4 services, "
+    + "OData V2 services are paged using '$top' and '$skip' query options. If not specified, the service chooses the "
+    + "page size.")
+  @Macro
+  @Nullable
+  private Integer pageSize;
+
+  @Name(SapODataConstants.DIRECT_JSON_PARSING)
+  @Description("Whether to parse OData V4 JSON payload directly into records, bypassing the Olingo object model. "
+    + "Ignored for OData V2 services and for schemas with geospatial or stream fields.")
+  @Macro
+  @Nullable
+  private Boolean directJsonParsing;
+
+  @Name(SapODataConstants.TYPED_DATE_TIME_OFFSET)
+  @Description("Whether 'Edm.DateTimeOffset' properties are output as records of the UTC timestamp and the offset in "
+    + "minutes instead of ISO 8601 strings.")
+  @Macro
+  @Nullable
+  private Boolean typedDateTimeOffset;
+
+  @Name(SapODataConstants.GEOSPATIAL_FORMAT)
+  @Description("How geospatial properties are output: 'record' outputs records of coordinates, 'wkt' outputs "
+    + "Well-Known Text strings and 'wkb' outputs Well-Known Binary bytes.")
+  @Macro
+  @Nullable
+  private String geospatialFormat;
+
+  @Name(SapODataConstants.STRING_DICTIONARY_SIZE)
+  @Description("Maximum number of distinct values of a string field which are deduplicated, so that records share "
+    + "a single instance of repeated values such as currency or status codes. Fields with more distinct values are "
+    + "no longer deduplicated. If not specified, values are not deduplicated.")
+  @Macro
+  @Nullable
+  private Integer stringDictionarySize;
+
+  @Name(SapODataConstants.TRANSFORM_THREADS)
+  @Description("Number of threads which convert entities to records while a separate thread reads and parses the "
+    + "response, records are output in the order of the response. If not specified, entities are read and converted "
+    + "one by one by the thread which outputs the records.")
+  @Macro
+  @Nullable
+  private Integer transformThreads;
+
+  @Name(SapODataConstants.ERROR_HANDLING)
+  @Description("How entities with a property value which cannot be converted to its field are handled: 'fail' "
+    + "fails the pipeline, 'skip' skips the entity and 'send-to-error' sends an error record with the entity key, "
+    + "field name and value to the error port. Defaults to 'fail'.")
+  @Macro
+  @Nullable
+  private String errorHandling;
+
+  @Name(SapODataConstants.VALIDATION_MODE)
+  @Description("How the connection is validated: 'full' fetches the service metadata to validate the entity types, "
+    + "'light' fetches the service document to validate the entity set names and uses the output schema as is. "
+    + "Metadata is still fetched in light mode if the schema is not specified, multiple entity sets are read or "
+    + "entity keys are needed for error records. Defaults to 'full'.")
+  @Macro
+  @Nullable
+  private String validationMode;
+
+  @Name(SapODataConstants.SPLIT_MODE)
+  @Description("How the entity set is partitioned into splits read in parallel: 'none', 'time', 'key' "
+    + "or 'category'. Defaults to 'none'.")
+  @Macro
+  @Nullable
+  private String splitMode;
+
+  @Name(SapODataConstants.SPLIT_PROPERTY)
+  @Description("Name of the property the entity set is partitioned by. For the 'time' split mode, it must be a "
+    + "date or date-time property. For the 'key' split mode, it must be a property of a string, "
+    + "numeric, boolean, GUID, date or date-time type. For the 'category' split mode, it should be a property with "
+    + "few distinct values, such as company code.")
+  @Macro
+  @Nullable
+  private String splitProperty;
+
+  @Name(SapODataConstants.SPLIT_INTERVAL)
+  @Description("Calendar interval of a single time-sliced split: 'day', 'week' or 'month'. Defaults to 'month'.")
+  @Macro
+  @Nullable
+  private String splitInterval;
+
+  @Name(SapODataConstants.SPLIT_START)
+  @Description("First date to read in 'yyyy-MM-dd' format (inclusive). If not specified, the minimum value of the "
+    + "split property is used.")
+  @Macro
+  @Nullable
+  private String splitStart;
+
+  @Name(SapODataConstants.SPLIT_END)
+  @Description("Date to read up to in 'yyyy-MM-dd' format (exclusive). If not specified, the maximum value of the "
+    + "split property is used.")
+  @Macro
+  @Nullable
+  private String splitEnd;
+
+  @Name(SapODataConstants.SPLIT_COUNT)
+  @Description("Desired number of key or category splits. Splits are planned so that they hold roughly the same "
+    + "number of entities. Defaults to 10.")
+  @Macro
+  @Nullable
+  private Integer splitCount;
+
+  @Name(SapODataConstants.SPLIT_VALUES)
+  @Description("Comma-separated values of the split property for the 'category' split mode, date values in "
+    + "'yyyy-MM-dd' format. If not specified, distinct values are discovered when the splits are planned.")
+  @Macro
+  @Nullable
+  private String splitValues;
+
+  @Name(SapODataConstants.STATISTICS_DIRECTORY)
+  @Description("Directory where statistics of read splits are stored, e.g. 'hdfs:///sap/statistics'. If specified, "
+    + "splits are planned from the statistics of the previous run to meet the target split duration, without "
+    + "querying the service.")
+  @Macro
+  @Nullable
+  private String statisticsDirectory;
+
+  @Name(SapODataConstants.TARGET_SPLIT_DURATION)
+  @Description("Target duration of reading a single split in seconds, used when split statistics are available. "
+    + "Defaults to 600.")
+  @Macro
+  @Nullable
+  private Integer targetSplitDuration;
+
+  @Name(SapODataConstants.STATISTICS_MAX_AGE)
+  @Description("Maximum age of split statistics in hours. Older statistics are ignored and deleted. Defaults to 24.")
+  @Macro
+  @Nullable
+  private Integer statisticsMaxAge;
+
+  @Name(SapODataConstants.CHECKPOINT_DIRECTORY)
+  @Description("Directory where the position of every split being read is checkpointed at page boundaries, e.g. "
+    + "'hdfs:///sap/checkpoints'. Required if and only if resuming failed splits is enabled.")
+  @Macro
+  @Nullable
+  private String checkpointDirectory;
+
+  @Name(SapODataConstants.RESUME_FAILED_SPLITS)
+  @Description("WARNING: enabling this loses records with most sinks. If enabled, a retried task attempt resumes "
+    + "reading its split from the last checkpoint instead of the beginning, so records read by the failed attempt "
+    + "are not read again. Enable only if every sink keeps records written by failed task attempts. Sinks that "
+    + "commit only the output of successful attempts, such as file, BigQuery and database sinks, lose them. "
+    + "Defaults to false.")
+  @Macro
+  @Nullable
+  private Boolean resumeFailedSplits;
+
   @Name(SapODataConstants.USERNAME)
   @Description("Username for basic authentication.")
   @Macro
@@ -86,19 +313,98 @@ public class SapODataConfig extends PluginConfig {
   @Nullable
   private String password;
 
+  @Name(SapODataConstants.AUTHENTICATION_TYPE)
+  @Description("Authentication type: 'basic', 'oauth2ClientCredentials' or 'oauth2SamlBearer'. Defaults to 'basic'.")
+  @Macro
+  @Nullable
+  private String authenticationType;
+
+  @Name(SapODataConstants.OAUTH2_TOKEN_URL)
+  @Description("URL of the OAuth 2.0 token endpoint.")
+  @Macro
+  @Nullable
+  private String tokenUrl;
+
+  @Name(SapODataConstants.OAUTH2_CLIENT_ID)
+  @Description("OAuth 2.0 client ID.")
+  @Macro
+  @Nullable
+  private String clientId;
+
+  @Name(SapODataConstants.OAUTH2_CLIENT_SECRET)
+  @Description("OAuth 2.0 client secret.")
+  @Macro
+  @Nullable
+  private String clientSecret;
+
+  @Name(SapODataConstants.OAUTH2_SCOPE)
+  @Description("Space-separated OAuth 2.0 scopes to request.")
+  @Macro
+  @Nullable
+  private String scope;
+
+  @Name(SapODataConstants.OAUTH2_SAML_ASSERTION)
+  @Description("Base64url-encoded SAML 2.0 assertion exchanged for an access token by the SAML bearer grant.")
+  @Macro
+  @Nullable
+  private String samlAssertion;
+
   @Name(SapODataConstants.SCHEMA)
   @Description("Schema of records output by the source.")
   @Nullable
   private String schema;
 
-  public SapODataConfig(String referenceName, String url, String resourcePath, String query, String user,
-                        String password, String schema) {
+  public SapODataConfig(String referenceName, String url, String sapClients, String originField,
+                        String resourcePath, String entitySetField, String query, String filters, String groupBy,
+                        String aggregates, Integer maxRecords, String limitMode, Integer pageSize,
+                        Boolean directJsonParsing, Boolean typedDateTimeOffset, String geospatialFormat,
+                        Integer stringDictionarySize, Integer transformThreads, String errorHandling,
+                        String validationMode, String splitMode, String splitProperty, String splitInterval,
+                        String splitStart, String splitEnd, Integer splitCount, String splitValues,
+                        String statisticsDirectory, Integer targetSplitDuration, Integer statisticsMaxAge,
+                        String checkpointDirectory, Boolean resumeFailedSplits, String user, String password,
+                        String authenticationType, String tokenUrl, String clientId, String clientSecret,
+                        String scope, String samlAssertion, String schema) {
     this.referenceName = referenceName;
     this.url = url;
+    this.sapClients = sapClients;
+    this.originField = originField;
     this.resourcePath = resourcePath;
+    this.entitySetField = entitySetField;
     this.query = query;
+    this.filters = filters;
+    this.groupBy = groupBy;
+    this.aggregates = aggregates;
+    this.maxRecords = maxRecords;
+    this.limitMode = limitMode;
+    this.pageSize = pageSize;
+    this.directJsonParsing = directJsonParsing;
+    this.typedDateTimeOffset = typedDateTimeOffset;
+    this.geospatialFormat = geospatialFormat;
+    this.stringDictionarySize = stringDictionarySize;
+    this.transformThreads = transformThreads;
+    this.errorHandling = errorHandling;
+    this.validationMode = validationMode;
+    this.splitMode = splitMode;
+    this.splitProperty = splitProperty;
+    this.splitInterval = splitInterval;
+    this.splitStart = splitStart;
+    this.splitEnd = splitEnd;
+    this.splitCount = splitCount;
+    this.splitValues = splitValues;
+    this.statisticsDirectory = statisticsDirectory;
+    this.targetSplitDuration = targetSplitDuration;
+    this.statisticsMaxAge = statisticsMaxAge;
+    this.checkpointDirectory = checkpointDirectory;
+    this.resumeFailedSplits = resumeFailedSplits;
     this.user = user;
     this.password = password;
+    this.authenticationType = authenticationType;
+    this.tokenUrl = tokenUrl;
+    this.clientId = clientId;
+    this.clientSecret = clientSecret;
+    this.scope = scope;
+    this.samlAssertion = samlAssertion;
     this.schema = schema;
   }
 
@@ -110,10 +416,80 @@ public class SapODataConfig extends PluginConfig {
     return url;
   }
 
+  @Nullable
+  public String getSapClients() {
+    return sapClients;
+  }
+
+  /**
+   * @return services to read, one for every combination of a service URL and an SAP client.
+   */
+  public List<ODataService> getServices() {
+    List<String> clients = splitList(sapClients);
+    List<ODataService> services = new ArrayList<>();
+    for (String serviceUrl : splitList(url)) {
+      if (clients.isEmpty()) {
+        services.add(new ODataService(serviceUrl, null));
+      }
+      for (String client : clients) {
+        services.add(new ODataService(serviceUrl, client));
+      }
+    }
+    return services;
+  }
+
+  /**
+   * @return {@code true} if multiple services or SAP clients are read and records are tagged with their origin.
+   */
+  public boolean isMultipleServices() {
+    return getServices().size() > 1;
+  }
+
+  /**
+   * @return name of the field holding the origin service of a record, {@code origin} if not specified.
+   */
+  public String getOriginField() {
+    return Strings.isNullOrEmpty(originField) ? DEFAULT_ORIGIN_FIELD : originField;
+  }
+
   public String getResourcePath() {
     return resourcePath;
   }
 
+  /**
+   * @return names of the entity sets to read.
+   */
+  public List<String> getResourcePaths() {
+    return splitList(resourcePath);
+  }
+
+  /**
+   * @return trimmed non-empty elements of a comma-separated list, empty if the list is {@code null}.
+   */
+  private static List<String> splitList(@Nullable String list) {
+    if (Strings.isNullOrEmpty(list)) {
+      return Collections.emptyList();
+    }
+    return Arrays.stream(list.split(","))
+      .map(String::trim)
+      .filter(element -> !element.isEmpty())
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * @return {@code true} if multiple entity sets are read and records are tagged with their entity set name.
+   */
+  public boolean isMultipleEntitySets() {
+    return getResourcePaths().size() > 1;
+  }
+
+  /**
+   * @return name of the field holding the entity set name, {@code entitySet} if not specified.
+   */
+  public String getEntitySetField() {
+    return Strings.isNullOrEmpty(entitySetField) ? DEFAULT_ENTITY_SET_FIELD : entitySetField;
+  }
+
   /**
    * Returns OData query. All leading question marks will be removed.
    * For example, for the user-provided query "???$top=2&$select=By?yerName,Surnam?"
@@ -133,6 +509,66 @@ public class SapODataConfig extends PluginConfig {
     return query;
   }
 
+  @Nullable
+  public String getFilters() {
+    return filters;
+  }
+
+  /**
+   * @return structured filter conditions, empty if there are none.
+   * @throws IllegalArgumentException if any of the conditions is malformed.
+   */
+  public List<FilterCondition> getFilterConditions() {
+    return FilterCondition.parseAll(filters);
+  }
+
+  @Nullable
+  public String getGroupBy() {
+    return groupBy;
+  }
+
+  @Nullable
+  public String getAggregates() {
+    return aggregates;
+  }
+
+  /**
+   * @return aggregation pushed down to the service, empty if entities are read as they are.
+   * @throws IllegalArgumentException if an aggregate is malformed.
+   */
+  public Aggregation getAggregation() {
+    return Aggregation.parse(groupBy, aggregates);
+  }
+
+  /**
+   * @return maximum number of records read from every entity set of every service, {@code 0} if not limited.
+   */
+  public int getMaxRecords() {
+    return maxRecords == null ? 0 : maxRecords;
+  }
+
+  /**
+   * @return limit mode, {@link LimitMode#FIRST} if not specified.
+   * @throws IllegalArgumentException if the limit mode is not supported.
+   */
+  public LimitMode getLimitMode() {
+    if (Strings.isNullOrEmpty(limitMode)) {
+      return LimitMode.FIRST;
+    }
+    LimitMode mode = LimitMode.fromValue(limitMode);
+    if (mode == null) {
+      throw new IllegalArgumentException(String.format("Unsupported limit mode: '%s'.", limitMode));
+    }
+    return mode;
+  }
+
+  /**
+   * @return {@code true} if entity sets are split according to the split mode.
+   */
+  public boolean isSplit() {
+    return getSplitMode() != SplitMode.NONE;
+  }
+
   /**
    * An OData query can contain '$select' option. The $select option specifies a subset of properties to include in the
    * response body. For example, to get only the name and price of each product, the following query can be used:
@@ -154,6 +590,199 @@ public class SapODataConfig extends PluginConfig {
     return Arrays.asList(commaSeparatedPropertyNames.split(","));
   }
 
+  /**
+   * @return maximum number of entities per page or zero if the service chooses the page size.
+   */
+  public int getPageSize() {
+    return pageSize == null ? 0 : pageSize;
+  }
+
+  /**
+   * @return {@code true} if OData V4 JSON payload should be parsed directly into records.
+   */
+  public boolean isDirectJsonParsing() {
+    return Boolean.TRUE.equals(directJsonParsing);
+  }
+
+  /**
+   * @return {@code true} if 'Edm.DateTimeOffset' properties should be output as records instead of strings.
+   */
+  public boolean isTypedDateTimeOffset() {
+    return Boolean.TRUE.equals(typedDateTimeOffset);
+  }
+
+  /**
+   * @return geospatial format, {@link GeospatialFormat#RECORD} if not specified.
+   * @throws IllegalArgumentException if the geospatial format is not supported.
+   */
+  public GeospatialFormat getGeospatialFormat() {
+    if (Strings.isNullOrEmpty(geospatialFormat)) {
+      return GeospatialFormat.RECORD;
+    }
+    GeospatialFormat format = GeospatialFormat.fromValue(geospatialFormat);
+    if (format == null) {
+      throw new IllegalArgumentException(String.format("Unsupported geospatial format: '%s'.", geospatialFormat));
+    }
+    return format;
+  }
+
+  /**
+   * @return maximum number of distinct values of a string field which are deduplicated or zero if values are not
+   * deduplicated.
+   */
+  public int getStringDictionarySize() {
+    return stringDictionarySize == null ? 0 : stringDictionarySize;
+  }
+
+  /**
+   * @return number of threads which convert entities to records, {@code 1} if entities are converted by the thread
+   * which parses the response.
+   */
+  public int getTransformThreads() {
+    return transformThreads == null ? 1 : transformThreads;
+  }
+
+  /**
+   * @return error handling, {@link ErrorHandling#FAIL} if not specified.
+   * @throws IllegalArgumentException if the error handling is not supported.
+   */
+  public ErrorHandling getErrorHandling() {
+    if (Strings.isNullOrEmpty(errorHandling)) {
+      return ErrorHandling.FAIL;
+    }
+    ErrorHandling handling = ErrorHandling.fromValue(errorHandling);
+    if (handling == null) {
+      throw new IllegalArgumentException(String.format("Unsupported error handling: '%s'.", errorHandling));
+    }
+    return handling;
+  }
+
+  /**
+   * @return validation mode, {@link ValidationMode#FULL} if not specified.
+   * @throws IllegalArgumentException if the validation mode is not supported.
+   */
+  public ValidationMode getValidationMode() {
+    if (Strings.isNullOrEmpty(validationMode)) {
+      return ValidationMode.FULL;
+    }
+    ValidationMode mode = ValidationMode.fromValue(validationMode);
+    if (mode == null) {
+      throw new IllegalArgumentException(String.format("Unsupported validation mode: '%s'.", validationMode));
+    }
+    return mode;
+  }
+
+  /**
+   * @return split mode, {@link SplitMode#NONE} if not specified.
+   * @throws IllegalArgumentException if the split mode is not supported.
+   */
+  public SplitMode getSplitMode() {
+    if (Strings.isNullOrEmpty(splitMode)) {
+      return SplitMode.NONE;
+    }
+    SplitMode mode = SplitMode.fromValue(splitMode);
+    if (mode == null) {
+      throw new IllegalArgumentException(String.format("Unsupported split mode: '%s'.", splitMode));
+    }
+    return mode;
+  }
+
+  @Nullable
+  public String getSplitProperty() {
+    return splitProperty;
+  }
+
+  /**
+   * @return interval of a time-sliced split, {@link TimeInterval#MONTH} if not specified.
+   * @throws IllegalArgumentException if the interval is not supported.
+   */
+  public TimeInterval getSplitInterval() {
+    if (Strings.isNullOrEmpty(splitInterval)) {
+      return TimeInterval.MONTH;
+    }
+    TimeInterval interval = TimeInterval.fromValue(splitInterval);
+    if (interval == null) {
+      throw new IllegalArgumentException(String.format("Unsupported split interval: '%s'.", splitInterval));
+    }
+    return interval;
+  }
+
+  /**
+   * @return first date to read or {@code null} if not specified.
+   * @throws IllegalArgumentException if the date is not in 'yyyy-MM-dd' format.
+   */
+  @Nullable
+  public LocalDate getSplitStart() {
+    return parseDate(splitStart, "split start");
+  }
+
+  /**
+   * @return date to read up to or {@code null} if not specified.
+   * @throws IllegalArgumentException if the date is not in 'yyyy-MM-dd' format.
+   */
+  @Nullable
+  public LocalDate getSplitEnd() {
+    return parseDate(splitEnd, "split end");
+  }
+
+  /**
+   * @return desired number of key splits, {@code 10} if not specified.
+   */
+  public int getSplitCount() {
+    return splitCount == null ? DEFAULT_SPLIT_COUNT : splitCount;
+  }
+
+  /**
+   * @return values of categorical splits, empty if values are to be discovered.
+   */
+  public List<String> getSplitValues() {
+    return splitList(splitValues);
+  }
+
+  @Nullable
+  public String getStatisticsDirectory() {
+    return statisticsDirectory;
+  }
+
+  /**
+   * @return target duration of a split in seconds, {@code 600} if not specified.
+   */
+  public int getTargetSplitDuration() {
+    return targetSplitDuration == null ? DEFAULT_TARGET_SPLIT_DURATION : targetSplitDuration;
+  }
+
+  /**
+   * @return maximum age of split statistics in hours, {@code 24} if not specified.
+   */
+  public int getStatisticsMaxAge() {
+    return statisticsMaxAge == null ? DEFAULT_STATISTICS_MAX_AGE : statisticsMaxAge;
+  }
+
+  @Nullable
+  public String getCheckpointDirectory() {
+    return checkpointDirectory;
+  }
+
+  /**
+   * @return {@code true} if retried task attempts should resume reading their splits from the last checkpoint,
+   * losing records of failed attempts unless sinks keep them.
+   */
+  public boolean isResumeFailedSplits() {
+    return Boolean.TRUE.equals(resumeFailedSplits);
+  }
+
+  @Nullable
+  private static LocalDate parseDate(@Nullable String date, String displayName) {
+    if (Strings.isNullOrEmpty(date)) {
+      return null;
+    }
+    try {
+      return LocalDate.parse(date.trim());
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(String.format("Invalid %s date: '%s'.", displayName, date), e);
+    }
+  }
+
   @Nullable
   public String getUser() {
     return user;
@@ -164,6 +793,62 @@ public class SapODataConfig extends PluginConfig {
     return password;
   }
 
+  /**
+   * @return authentication type, {@link AuthenticationType#BASIC} if not specified.
+   * @throws IllegalArgumentException if the authentication type is not supported.
+   */
+  public AuthenticationType getAuthenticationType() {
+    if (Strings.isNullOrEmpty(authenticationType)) {
+      return AuthenticationType.BASIC;
+    }
+    AuthenticationType type = AuthenticationType.fromValue(authenticationType);
+    if (type == null) {
+      throw new IllegalArgumentException(String.format("Unsupported authentication type: '%s'.",
+                                                       authenticationType));
+    }
+    return type;
+  }
+
+  @Nullable
+  public String getTokenUrl() {
+    return tokenUrl;
+  }
+
+  @Nullable
+  public String getClientId() {
+    return clientId;
+  }
+
+  @Nullable
+  public String getClientSecret() {
+    return clientSecret;
+  }
+
+  @Nullable
+  public String getScope() {
+    return scope;
+  }
+
+  @Nullable
+  public String getSamlAssertion() {
+    return samlAssertion;
+  }
+
+  /**
+   * @return OAuth 2.0 credentials or {@code null} if basic authentication is used.
+   */
+  @Nullable
+  public OAuth2Credentials getOAuth2Credentials() {
+    switch (getAuthenticationType()) {
+      case OAUTH2_CLIENT_CREDENTIALS:
+        return OAuth2Credentials.clientCredentials(tokenUrl, clientId, clientSecret, scope);
+      case OAUTH2_SAML_BEARER:
+        return OAuth2Credentials.samlBearer(tokenUrl, clientId, clientSecret, scope, samlAssertion);
+      default:
+        return null;
+    }
+  }
+
   @Nullable
   public String getSchema() {
     return schema;
@@ -203,14 +888,99 @@ public class SapODataConfig extends PluginConfig {
           .withConfigProperty(Constants.Reference.REFERENCE_NAME);
       }
     }
-    if (!containsMacro(SapODataConstants.ODATA_SERVICE_URL) && Strings.isNullOrEmpty(url)) {
+    if (!containsMacro(SapODataConstants.ODATA_SERVICE_URL) && splitList(url).isEmpty()) {
       collector.addFailure("OData Service URL must be specified", "Specify valid OData Service URL")
         .withConfigProperty(SapODataConstants.ODATA_SERVICE_URL);
     }
-    if (!containsMacro(SapODataConstants.RESOURCE_PATH) && Strings.isNullOrEmpty(resourcePath)) {
+    if (!containsMacro(SapODataConstants.SAP_CLIENTS)) {
+      for (String client : splitList(sapClients)) {
+        if (!client.matches("\\d{3}")) {
+          collector.addFailure(String.format("Invalid SAP client '%s'", client),
+                               "Specify three-digit SAP clients, such as '100'")
+            .withConfigProperty(SapODataConstants.SAP_CLIENTS);
+        }
+      }
+      if (!splitList(sapClients).isEmpty() && !containsMacro(SapODataConstants.QUERY)
+        && QueryOptions.parse(getQuery()).contains(ODataService.SAP_CLIENT_OPTION)) {
+        collector.addFailure("Query options can not contain 'sap-client' when SAP clients are specified",
+                             "Remove 'sap-client' from the query options")
+          .withConfigProperty(SapODataConstants.QUERY);
+      }
+    }
+    if (!containsMacro(SapODataConstants.FILTERS)) {
+      try {
+        getFilterConditions();
+      } catch (IllegalArgumentException e) {
+        collector.addFailure(e.getMessage(), "Specify conditions such as 'CompanyCode eq 1000'")
+          .withConfigProperty(SapODataConstants.FILTERS);
+      }
+    }
+    if (!containsMacro(SapODataConstants.GROUP_BY) && !containsMacro(SapODataConstants.AGGREGATES)) {
+      validateAggregation(collector);
+    }
+    validateLimit(collector);
+    if (!containsMacro(SapODataConstants.ODATA_SERVICE_URL) && !containsMacro(SapODataConstants.SAP_CLIENTS)
+      && !containsMacro(SapODataConstants.RESOURCE_PATH) && !containsMacro(SapODataConstants.ORIGIN_FIELD)
+      && !containsMacro(SapODataConstants.ENTITY_SET_FIELD) && isMultipleServices() && isMultipleEntitySets()
+      && getOriginField().equals(getEntitySetField())) {
+      collector.addFailure("Origin field and entity set field must differ", "Specify another origin field name")
+        .withConfigProperty(SapODataConstants.ORIGIN_FIELD);
+    }
+    if (!containsMacro(SapODataConstants.RESOURCE_PATH) && getResourcePaths().isEmpty()) {
       collector.addFailure("Resource path must be specified", "Specify valid resource path")
         .withConfigProperty(SapODataConstants.RESOURCE_PATH);
     }
+    if (!containsMacro(SapODataConstants.RESOURCE_PATH) && isMultipleEntitySets() && !Strings.isNullOrEmpty(schema)) {
+      collector.addFailure("Schema can not be specified when multiple entity sets are read",
+                           "Remove the schema, records of each entity set have the schema of the entity set")
+        .withConfigProperty(SapODataConstants.SCHEMA);
+    }
+
+    if (!containsMacro(SapODataConstants.PAGE_SIZE) && pageSize != null && pageSize < 1) {
+      collector.addFailure("Page size must be a positive number", "Specify valid page size or leave it empty")
+        .withConfigProperty(SapODataConstants.PAGE_SIZE);
+    }
+
+    if (!containsMacro(SapODataConstants.STRING_DICTIONARY_SIZE) && stringDictionarySize != null
+      && stringDictionarySize < 1) {
+      collector.addFailure("String dictionary size must be a positive number",
+                           "Specify valid string dictionary size or leave it empty")
+        .withConfigProperty(SapODataConstants.STRING_DICTIONARY_SIZE);
+    }
+
+    if (!containsMacro(SapODataConstants.TRANSFORM_THREADS) && transformThreads != null && transformThreads < 1) {
+      collector.addFailure("Number of transform threads must be a positive number",
+                           "Specify valid number of transform threads or leave it empty")
+        .withConfigProperty(SapODataConstants.TRANSFORM_THREADS);
+    }
+
+    if (!containsMacro(SapODataConstants.GEOSPATIAL_FORMAT)) {
+      try {
+        getGeospatialFormat();
+      } catch (IllegalArgumentException e) {
+        collector.addFailure(e.getMessage(), "Specify 'record', 'wkt' or 'wkb'")
+          .withConfigProperty(SapODataConstants.GEOSPATIAL_FORMAT);
+      }
+    }
+    if (!containsMacro(SapODataConstants.ERROR_HANDLING)) {
+      try {
+        getErrorHandling();
+      } catch (IllegalArgumentException e) {
+        collector.addFailure(e.getMessage(), "Specify 'fail', 'skip' or 'send-to-error'")
+          .withConfigProperty(SapODataConstants.ERROR_HANDLING);
+      }
+    }
+    if (!containsMacro(SapODataConstants.VALIDATION_MODE)) {
+      try {
+        getValidationMode();
+      } catch (IllegalArgumentException e) {
+        collector.addFailure(e.getMessage(), "Specify 'full' or 'light'")
+          .withConfigProperty(SapODataConstants.VALIDATION_MODE);
+      }
+    }
+    validateSplit(collector);
+    validateCheckpoint(collector);
+    validateAuthentication(collector);
 
     if (!Strings.isNullOrEmpty(schema) && !containsMacro(SapODataConstants.SCHEMA)) {
       Schema parsedSchema = getParsedSchema();
@@ -220,6 +990,212 @@ public class SapODataConfig extends PluginConfig {
     collector.getOrThrowException();
   }
 
+  private void validateAggregation(FailureCollector collector) {
+    Aggregation aggregation;
+    try {
+      aggregation = getAggregation();
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), "Specify aggregates such as 'Amount with sum as TotalAmount'")
+        .withConfigProperty(SapODataConstants.AGGREGATES);
+      return;
+    }
+    if (aggregation.isEmpty()) {
+      return;
+    }
+    // every split would be aggregated on its own, producing partial aggregates of the same groups
+    // an invalid split mode is reported by the split validation
+    SplitMode mode = Strings.isNullOrEmpty(splitMode) ? SplitMode.NONE : SplitMode.fromValue(splitMode);
+    if (!containsMacro(SapODataConstants.SPLIT_MODE) && mode != null && mode != SplitMode.NONE) {
+      collector.addFailure("Aggregation can not be used with splits", "Set split mode to 'none'")
+        .withConfigProperty(SapODataConstants.SPLIT_MODE);
+    }
+    if (!containsMacro(SapODataConstants.QUERY)) {
+      QueryOptions options = QueryOptions.parse(getQuery());
+      if (options.contains(QueryOptions.SELECT) || options.contains(QueryOptions.APPLY)) {
+        collector.addFailure("Query options '$select' and '$apply' can not be used with aggregation",
+                             "Remove '$select' and '$apply' query options, group-by properties and aggregates "
+                               + "define the output")
+          .withConfigProperty(SapODataConstants.QUERY);
+      }
+    }
+  }
+
+  private void validateLimit(FailureCollector collector) {
+    if (!containsMacro(SapODataConstants.MAX_RECORDS) && maxRecords != null && maxRecords < 1) {
+      collector.addFailure("Maximum number of records must be a positive number",
+                           "Specify valid maximum number of records or leave it empty")
+        .withConfigProperty(SapODataConstants.MAX_RECORDS);
+    }
+    // the limit applies to the whole entity set, which splits read independently of each other
+    // an invalid split mode is reported by the split validation
+    SplitMode split = Strings.isNullOrEmpty(splitMode) ? SplitMode.NONE : SplitMode.fromValue(splitMode);
+    if (!containsMacro(SapODataConstants.MAX_RECORDS) && maxRecords != null
+      && !containsMacro(SapODataConstants.SPLIT_MODE) && split != null && split != SplitMode.NONE) {
+      collector.addFailure("Maximum number of records can not be used with splits",
+                           "Set split mode to 'none' or remove the maximum number of records")
+        .withConfigProperty(SapODataConstants.MAX_RECORDS);
+    }
+    if (containsMacro(SapODataConstants.LIMIT_MODE)) {
+      return;
+    }
+    LimitMode mode;
+    try {
+      mode = getLimitMode();
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), "Specify 'first' or 'sample'")
+        .withConfigProperty(SapODataConstants.LIMIT_MODE);
+      return;
+    }
+    if (mode != LimitMode.SAMPLE) {
+      return;
+    }
+    if (!containsMacro(SapODataConstants.MAX_RECORDS) && maxRecords == null) {
+      collector.addFailure("Maximum number of records must be specified to read a sample",
+                           "Specify the sample size as the maximum number of records")
+        .withConfigProperty(SapODataConstants.MAX_RECORDS);
+    }
+    // aggregated entities can not be counted to spread the sample
+    if (!containsMacro(SapODataConstants.GROUP_BY) && !containsMacro(SapODataConstants.AGGREGATES)
+      && (!Strings.isNullOrEmpty(groupBy) || !Strings.isNullOrEmpty(aggregates))) {
+      collector.addFailure("A sample can not be read with aggregation",
+                           "Set limit mode to 'first' or remove group-by properties and aggregates")
+        .withConfigProperty(SapODataConstants.LIMIT_MODE);
+    }
+  }
+
+  private void validateSplit(FailureCollector collector) {
+    if (containsMacro(SapODataConstants.SPLIT_MODE)) {
+      return;
+    }
+    SplitMode mode;
+    try {
+      mode = getSplitMode();
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), "Specify 'none', 'time', 'key' or 'category'")
+        .withConfigProperty(SapODataConstants.SPLIT_MODE);
+      return;
+    }
+    if (mode == SplitMode.NONE) {
+      return;
+    }
+    if (!containsMacro(SapODataConstants.QUERY)) {
+      QueryOptions options = QueryOptions.parse(getQuery());
+      if (options.contains(QueryOptions.TOP) || options.contains(QueryOptions.SKIP)) {
+        collector.addFailure("Query options '$top' and '$skip' can not be used with splits",
+                             "Remove '$top' and '$skip' query options or set split mode to 'none'")
+          .withConfigProperty(SapODataConstants.QUERY);
+      }
+    }
+    if (!containsMacro(SapODataConstants.SPLIT_PROPERTY) && Strings.isNullOrEmpty(splitProperty)) {
+      collector.addFailure("Split property must be specified", "Specify valid split property")
+        .withConfigProperty(SapODataConstants.SPLIT_PROPERTY);
+    }
+    if (mode == SplitMode.TIME) {
+      validateTimeSplit(collector);
+    }
+    if ((mode == SplitMode.KEY || mode == SplitMode.CATEGORY) && !containsMacro(SapODataConstants.SPLIT_COUNT)
+      && splitCount != null && splitCount < 1) {
+      collector.addFailure("Split count must be a positive number", "Specify valid split count or leave it empty")
+        .withConfigProperty(SapODataConstants.SPLIT_COUNT);
+    }
+    if (!containsMacro(SapODataConstants.TARGET_SPLIT_DURATION) && targetSplitDuration != null
+      && targetSplitDuration < 1) {
+      collector.addFailure("Target split duration must be a positive number",
+                           "Specify valid target split duration or leave it empty")
+        .withConfigProperty(SapODataConstants.TARGET_SPLIT_DURATION);
+    }
+    if (!containsMacro(SapODataConstants.STATISTICS_MAX_AGE) && statisticsMaxAge != null && statisticsMaxAge < 1) {
+      collector.addFailure("Statistics maximum age must be a positive number",
+                           "Specify valid statistics maximum age or leave it empty")
+        .withConfigProperty(SapODataConstants.STATISTICS_MAX_AGE);
+    }
+  }
+
+  private void validateCheckpoint(FailureCollector collector) {
+    if (containsMacro(SapODataConstants.CHECKPOINT_DIRECTORY)
+      || containsMacro(SapODataConstants.RESUME_FAILED_SPLITS)) {
+      return;
+    }
+    boolean directory = !Strings.isNullOrEmpty(checkpointDirectory);
+    if (isResumeFailedSplits() && !directory) {
+      collector.addFailure("Checkpoint directory must be specified to resume failed splits",
+                           "Specify checkpoint directory or disable resuming failed splits")
+        .withConfigProperty(SapODataConstants.CHECKPOINT_DIRECTORY);
+    }
+    // checkpoints are only used to resume, which must never be enabled implicitly
+    if (!isResumeFailedSplits() && directory) {
+      collector.addFailure("Checkpoint directory is used only if resuming failed splits is enabled",
+                           "Remove checkpoint directory or enable resuming failed splits if every sink keeps "
+                             + "records written by failed task attempts")
+        .withConfigProperty(SapODataConstants.CHECKPOINT_DIRECTORY)
+        .withConfigProperty(SapODataConstants.RESUME_FAILED_SPLITS);
+    }
+  }
+
+  private void validateTimeSplit(FailureCollector collector) {
+    if (!containsMacro(SapODataConstants.SPLIT_INTERVAL)) {
+      try {
+        getSplitInterval();
+      } catch (IllegalArgumentException e) {
+        collector.addFailure(e.getMessage(), "Specify 'day', 'week' or 'month'")
+          .withConfigProperty(SapODataConstants.SPLIT_INTERVAL);
+      }
+    }
+    LocalDate start = validateDate(SapODataConstants.SPLIT_START, this::getSplitStart, collector);
+    LocalDate end = validateDate(SapODataConstants.SPLIT_END, this::getSplitEnd, collector);
+    if (start != null && end != null && !start.isBefore(end)) {
+      collector.addFailure("Split start must be before split end", null)
+        .withConfigProperty(SapODataConstants.SPLIT_START)
+        .withConfigProperty(SapODataConstants.SPLIT_END);
+    }
+  }
+
+  @Nullable
+  private LocalDate validateDate(String propertyName, Supplier<LocalDate> date, FailureCollector collector) {
+    if (containsMacro(propertyName)) {
+      return null;
+    }
+    try {
+      return date.get();
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), "Specify date in 'yyyy-MM-dd' format")
+        .withConfigProperty(propertyName);
+      return null;
+    }
+  }
+
+  private void validateAuthentication(FailureCollector collector) {
+    if (containsMacro(SapODataConstants.AUTHENTICATION_TYPE)) {
+      return;
+    }
+    AuthenticationType type;
+    try {
+      type = getAuthenticationType();
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), "Specify 'basic', 'oauth2ClientCredentials' or 'oauth2SamlBearer'")
+        .withConfigProperty(SapODataConstants.AUTHENTICATION_TYPE);
+      return;
+    }
+    if (type == AuthenticationType.BASIC) {
+      return;
+    }
+    validateRequired(SapODataConstants.OAUTH2_TOKEN_URL, tokenUrl, "Token URL", collector);
+    validateRequired(SapODataConstants.OAUTH2_CLIENT_ID, clientId, "Client ID", collector);
+    validateRequired(SapODataConstants.OAUTH2_CLIENT_SECRET, clientSecret, "Client secret", collector);
+    if (type == AuthenticationType.OAUTH2_SAML_BEARER) {
+      validateRequired(SapODataConstants.OAUTH2_SAML_ASSERTION, samlAssertion, "SAML assertion", collector);
+    }
+  }
+
+  private void validateRequired(String propertyName, @Nullable String value, String displayName,
+                                FailureCollector collector) {
+    if (!containsMacro(propertyName) && Strings.isNullOrEmpty(value)) {
+      collector.addFailure(String.format("%s must be specified for OAuth 2.0 authentication", displayName),
+                           String.format("Specify valid %s", displayName))
+        .withConfigProperty(propertyName);
+    }
+  }
+
   private void validateSchema(Schema parsedSchema, FailureCollector collector) {
     List<Schema.Field> fields = parsedSchema.getFields();
     if (null == fields || fields.isEmpty()) {
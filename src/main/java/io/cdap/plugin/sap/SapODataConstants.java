@@ -37,16 +37,160 @@ public class SapODataConstants {
    */
   public static final String ODATA_SERVICE_URL = "url";
 
+  /**
+   * Configuration property name used to specify SAP clients to read from each of the services.
+   */
+  public static final String SAP_CLIENTS = "sapClients";
+
+  /**
+   * Configuration property name used to specify the field which holds the service a record was read from when
+   * multiple services are read.
+   */
+  public static final String ORIGIN_FIELD = "originField";
+
   /**
    * Configuration property name used to specify path of the SAP OData entity.
    */
   public static final String RESOURCE_PATH = "resourcePath";
 
+  /**
+   * Configuration property name used to specify the field which holds the entity set name when multiple entity sets
+   * are read.
+   */
+  public static final String ENTITY_SET_FIELD = "entitySetField";
+
   /**
    * Configuration property name used to specify OData query options to filter the data.
    */
   public static final String QUERY = "query";
 
+  /**
+   * Configuration property name used to specify structured filter conditions compiled to '$filter'.
+   */
+  public static final String FILTERS = "filters";
+
+  /**
+   * Configuration property name used to specify the properties to group the aggregated entities by.
+   */
+  public static final String GROUP_BY = "groupBy";
+
+  /**
+   * Configuration property name used to specify the aggregates computed by the service for every group.
+   */
+  public static final String AGGREGATES = "aggregates";
+
+  /**
+   * Configuration property name used to specify the maximum number of records read from every entity set.
+   */
+  public static final String MAX_RECORDS = "maxRecords";
+
+  /**
+   * Configuration property name used to specify whether the first entities or a sample are read if the number of
+   * records is limited.
+   */
+  public static final String LIMIT_MODE = "limitMode";
+
+  /**
+   * Configuration property name used to specify maximum number of entities per page.
+   */
+  public static final String PAGE_SIZE = "pageSize";
+
+  /**
+   * Configuration property name used to enable direct parsing of OData V4 JSON payload into records.
+   */
+  public static final String DIRECT_JSON_PARSING = "directJsonParsing";
+
+  /**
+   * Configuration property name used to output 'Edm.DateTimeOffset' properties as records instead of strings.
+   */
+  public static final String TYPED_DATE_TIME_OFFSET = "typedDateTimeOffset";
+
+  /**
+   * Configuration property name used to specify how geospatial properties are output.
+   */
+  public static final String GEOSPATIAL_FORMAT = "geospatialFormat";
+
+  /**
+   * Configuration property name used to specify the maximum number of distinct values of a deduplicated string field.
+   */
+  public static final String STRING_DICTIONARY_SIZE = "stringDictionarySize";
+
+  /**
+   * Configuration property name used to specify the number of threads which convert entities to records.
+   */
+  public static final String TRANSFORM_THREADS = "transformThreads";
+
+  /**
+   * Configuration property name used to specify how entities which cannot be converted to records are handled.
+   */
+  public static final String ERROR_HANDLING = "errorHandling";
+
+  /**
+   * Configuration property name used to specify whether the connection is validated using '$metadata' or the service
+   * document.
+   */
+  public static final String VALIDATION_MODE = "validationMode";
+
+  /**
+   * Configuration property name used to specify how the entity set is partitioned into splits.
+   */
+  public static final String SPLIT_MODE = "splitMode";
+
+  /**
+   * Configuration property name used to specify the property the entity set is partitioned by.
+   */
+  public static final String SPLIT_PROPERTY = "splitProperty";
+
+  /**
+   * Configuration property name used to specify the calendar interval of a time-sliced split.
+   */
+  public static final String SPLIT_INTERVAL = "splitInterval";
+
+  /**
+   * Configuration property name used to specify the first date of time-sliced splits.
+   */
+  public static final String SPLIT_START = "splitStart";
+
+  /**
+   * Configuration property name used to specify the end date of time-sliced splits.
+   */
+  public static final String SPLIT_END = "splitEnd";
+
+  /**
+   * Configuration property name used to specify the desired number of key splits.
+   */
+  public static final String SPLIT_COUNT = "splitCount";
+
+  /**
+   * Configuration property name used to specify the values of categorical splits.
+   */
+  public static final String SPLIT_VALUES = "splitValues";
+
+  /**
+   * Configuration property name used to specify the directory of the split statistics store.
+   */
+  public static final String STATISTICS_DIRECTORY = "statisticsDirectory";
+
+  /**
+   * Configuration property name used to specify the target duration of a split in seconds.
+   */
+  public static final String TARGET_SPLIT_DURATION = "targetSplitDuration";
+
+  /**
+   * Configuration property name used to specify the maximum age of split statistics in hours.
+   */
+  public static final String STATISTICS_MAX_AGE = "statisticsMaxAge";
+
+  /**
+   * Configuration property name used to specify the directory of split checkpoints.
+   */
+  public static final String CHECKPOINT_DIRECTORY = "checkpointDirectory";
+
+  /**
+   * Configuration property name used to specify whether retried task attempts resume reading from checkpoints.
+   */
+  public static final String RESUME_FAILED_SPLITS = "resumeFailedSplits";
+
   /**
    * Configuration property name used to specify username for basic authentication.
    */
@@ -57,6 +201,36 @@ public class SapODataConstants {
    */
   public static final String PASSWORD = "password";
 
+  /**
+   * Configuration property name used to specify authentication type.
+   */
+  public static final String AUTHENTICATION_TYPE = "authenticationType";
+
+  /**
+   * Configuration property name used to specify URL of the OAuth 2.0 token endpoint.
+   */
+  public static final String OAUTH2_TOKEN_URL = "tokenUrl";
+
+  /**
+   * Configuration property name used to specify OAuth 2.0 client ID.
+   */
+  public static final String OAUTH2_CLIENT_ID = "clientId";
+
+  /**
+   * Configuration property name used to specify OAuth 2.0 client secret.
+   */
+  public static final String OAUTH2_CLIENT_SECRET = "clientSecret";
+
+  /**
+   * Configuration property name used to specify OAuth 2.0 scopes.
+   */
+  public static final String OAUTH2_SCOPE = "scope";
+
+  /**
+   * Configuration property name used to specify SAML 2.0 assertion for the OAuth 2.0 SAML bearer grant.
+   */
+  public static final String OAUTH2_SAML_ASSERTION = "samlAssertion";
+
   /**
    * Configuration property name used to specify the schema of the entries.
    */
@@ -231,4 +405,43 @@ public class SapODataConstants {
       Schema.Field.of(EDIT_LINK_FIELD_NAME, Schema.nullableOf(Schema.of(Schema.Type.STRING))));
 
   }
+
+  /**
+   * 'Edm.DateTimeOffset' property is represented as a CDAP record with
+   * "{@value SapODataConstants.DateTimeOffset#TIMESTAMP_FIELD_NAME}" for the point in time as UTC timestamp,
+   * "{@value SapODataConstants.DateTimeOffset#OFFSET_MINUTES_FIELD_NAME}" for the offset from UTC in minutes.
+   */
+  public static class DateTimeOffset {
+    public static final String TIMESTAMP_FIELD_NAME = "timestamp";
+    public static final String OFFSET_MINUTES_FIELD_NAME = "offsetMinutes";
+
+    public static final Schema SCHEMA = Schema.recordOf(
+      "date-time-offset-record",
+      Schema.Field.of(TIMESTAMP_FIELD_NAME, Schema.of(Schema.LogicalType.TIMESTAMP_MICROS)),
+      Schema.Field.of(OFFSET_MINUTES_FIELD_NAME, Schema.of(Schema.Type.INT)));
+  }
+
+  /**
+   * Entity which cannot be converted to a record is sent to the error port as a CDAP record with
+   * "{@value SapODataConstants.ErrorRecord#ENTITY_SET_FIELD_NAME}" for the entity set name,
+   * "{@value SapODataConstants.ErrorRecord#ORIGIN_FIELD_NAME}" for the service the entity was read from,
+   * "{@value SapODataConstants.ErrorRecord#KEY_FIELD_NAME}" for the entity key,
+   * "{@value SapODataConstants.ErrorRecord#FIELD_FIELD_NAME}" for the name of the field which cannot be converted,
+   * "{@value SapODataConstants.ErrorRecord#VALUE_FIELD_NAME}" for the property value as read from the service.
+   */
+  public static class ErrorRecord {
+    public static final String ENTITY_SET_FIELD_NAME = "entitySet";
+    public static final String ORIGIN_FIELD_NAME = "origin";
+    public static final String KEY_FIELD_NAME = "key";
+    public static final String FIELD_FIELD_NAME = "field";
+    public static final String VALUE_FIELD_NAME = "value";
+
+    public static final Schema SCHEMA = Schema.recordOf(
+      "error-record",
+      Schema.Field.of(ENTITY_SET_FIELD_NAME, Schema.of(Schema.Type.STRING)),
+      Schema.Field.of(ORIGIN_FIELD_NAME, Schema.of(Schema.Type.STRING)),
+      Schema.Field.of(KEY_FIELD_NAME, Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of(FIELD_FIELD_NAME, Schema.of(Schema.Type.STRING)),
+      Schema.Field.of(VALUE_FIELD_NAME, Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+  }
 }
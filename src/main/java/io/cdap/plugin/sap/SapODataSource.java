@@ -16,6 +16,10 @@
 package io.cdap.plugin.sap;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.annotation.Plugin;
@@ -25,6 +29,7 @@ import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.FailureCollector;
+import io.cdap.cdap.etl.api.InvalidEntry;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
 import io.cdap.cdap.etl.api.StageConfigurer;
 import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
@@ -32,16 +37,29 @@ import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.api.batch.BatchSourceContext;
 import io.cdap.cdap.etl.api.validation.InvalidStageException;
 import io.cdap.plugin.common.LineageRecorder;
+import io.cdap.plugin.sap.odata.Aggregation;
 import io.cdap.plugin.sap.odata.EntityType;
+import io.cdap.plugin.sap.odata.FilterCondition;
 import io.cdap.plugin.sap.odata.GenericODataClient;
 import io.cdap.plugin.sap.odata.ODataEntity;
+import io.cdap.plugin.sap.odata.ODataVersion;
 import io.cdap.plugin.sap.odata.PropertyMetadata;
 import io.cdap.plugin.sap.odata.exception.ODataException;
+import io.cdap.plugin.sap.transformer.FieldConversionException;
 import io.cdap.plugin.sap.transformer.ODataEntryToRecordTransformer;
-import org.apache.hadoop.io.NullWritable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Plugin returns records from SAP OData service specified by URL.
@@ -49,10 +67,28 @@ import java.util.stream.Collectors;
 @Plugin(type = BatchSource.PLUGIN_TYPE)
 @Name(SapODataConstants.PLUGIN_NAME)
 @Description("Read data from SAP OData service.")
-public class SapODataSource extends BatchSource<NullWritable, ODataEntity, StructuredRecord> {
+public class SapODataSource extends BatchSource<ODataEntityKey, ODataEntity, StructuredRecord> {
+
+  private static final String OUTPUT_RECORD_NAME = "output";
+  /**
+   * Prefix of the runtime argument which passes record schemas of multiple entity sets from the driver to the tasks.
+   */
+  private static final String SCHEMAS_ARGUMENT_PREFIX = "cdap.sap.odata.schemas.";
+  /**
+   * Prefix of the runtime argument which passes key property names of the entity sets from the driver to the tasks.
+   */
+  private static final String KEYS_ARGUMENT_PREFIX = "cdap.sap.odata.keys.";
+  private static final Logger LOG = LoggerFactory.getLogger(SapODataSource.class);
+  private static final Gson gson = new GsonBuilder().create();
+  private static final Type SCHEMAS_TYPE = new TypeToken<Map<String, String>>() { }.getType();
+  private static final Type KEYS_TYPE = new TypeToken<Map<String, List<String>>>() { }.getType();
+  private static final int CONVERSION_ERROR_CODE = 1;
 
   private final SapODataConfig config;
   private ODataEntryToRecordTransformer transformer;
+  private Map<String, ODataEntryToRecordTransformer> transformers;
+  private Map<String, Schema> taggedSchemas;
+  private Map<String, List<String>> keyPropertyNames;
 
   public SapODataSource(SapODataConfig config) {
     this.config = config;
@@ -63,18 +99,22 @@ public class SapODataSource extends BatchSource<NullWritable, ODataEntity, Struc
     StageConfigurer stageConfigurer = pipelineConfigurer.getStageConfigurer();
     FailureCollector collector = stageConfigurer.getFailureCollector();
     config.validate(collector);
-    try {
-      // API call validation
-      new GenericODataClient(config.getUrl(), config.getUser(), config.getPassword())
-        .getEntitySetType(config.getResourcePath());
-    } catch (ODataException e) {
-      collector.addFailure("Unable to connect to OData Service: " + e.getMessage(), null)
-        .withStacktrace(e.getStackTrace());
-      collector.getOrThrowException();
+    Schema configuredSchema = config.getParsedSchema();
+    // the output schema is known without the metadata if it is configured or if there is no single output schema
+    if (isLightValidation() && (configuredSchema != null || config.isMultipleEntitySets())) {
+      validateEntitySets(collector);
+      pipelineConfigurer.getStageConfigurer().setOutputSchema(configuredSchema);
+      return;
     }
+    Map<String, EntityType> entityTypes = getEntityTypes(collector);
 
-    Schema schema = getSchema();
-    Schema configuredSchema = config.getParsedSchema();
+    if (config.isMultipleEntitySets()) {
+      // records of different entity sets have different schemas
+      pipelineConfigurer.getStageConfigurer().setOutputSchema(null);
+      return;
+    }
+
+    Schema schema = getTaggedSchema(getSchema(OUTPUT_RECORD_NAME, entityTypes.get(config.getResourcePath())));
     if (configuredSchema == null) {
       pipelineConfigurer.getStageConfigurer().setOutputSchema(schema);
       return;
@@ -88,55 +128,338 @@ public class SapODataSource extends BatchSource<NullWritable, ODataEntity, Struc
   public void prepareRun(BatchSourceContext context) {
     FailureCollector collector = context.getFailureCollector();
     config.validate(collector);
+    // schemas of multiple entity sets and keys of error records are taken from the metadata
+    Map<String, EntityType> entityTypes;
+    if (isLightValidation() && !config.isMultipleEntitySets() && config.getErrorHandling() == ErrorHandling.FAIL) {
+      validateEntitySets(collector);
+      entityTypes = Collections.emptyMap();
+    } else {
+      entityTypes = getEntityTypes(collector);
+    }
+
+    LineageRecorder lineageRecorder = new LineageRecorder(context, config.getReferenceName());
+    Map<String, Schema> schemas = new LinkedHashMap<>();
+    if (config.isMultipleEntitySets()) {
+      entityTypes.forEach((name, entityType) -> schemas.put(name, getSchema(name, entityType)));
+      context.getArguments().set(SCHEMAS_ARGUMENT_PREFIX + context.getStageName(),
+                                 gson.toJson(Maps.transformValues(schemas, Schema::toString)));
+    } else {
+      Schema schema = context.getOutputSchema();
+      lineageRecorder.createExternalDataset(schema);
+      schemas.put(config.getResourcePath(), getUntaggedSchema(schema));
+    }
+    String services = config.getServices().stream().map(ODataService::getName).collect(Collectors.joining("', '"));
+    schemas.forEach((entitySetName, schema) -> lineageRecorder.recordRead(
+      "Read", String.format("Read resource '%s' from OData service '%s'", entitySetName, services),
+      Preconditions.checkNotNull(schema.getFields()).stream()
+        .map(Schema.Field::getName)
+        .collect(Collectors.toList())));
+
+    if (config.getErrorHandling() != ErrorHandling.FAIL) {
+      context.getArguments().set(KEYS_ARGUMENT_PREFIX + context.getStageName(),
+                                 gson.toJson(Maps.transformValues(entityTypes, EntityType::getKeyPropertyNames)));
+    }
+    context.setInput(Input.of(config.getReferenceName(), new ODataEntryInputFormatProvider(config, schemas)));
+  }
+
+  @Override
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    super.initialize(context);
+    if (config.getErrorHandling() != ErrorHandling.FAIL) {
+      this.keyPropertyNames = gson.fromJson(
+        context.getArguments().get(KEYS_ARGUMENT_PREFIX + context.getStageName()), KEYS_TYPE);
+    }
+    if (!config.isMultipleEntitySets() && !config.isMultipleServices()) {
+      this.transformer = new ODataEntryToRecordTransformer(context.getOutputSchema(),
+                                                          config.getStringDictionarySize());
+      return;
+    }
+    this.transformers = new HashMap<>();
+    this.taggedSchemas = new HashMap<>();
+    if (!config.isMultipleEntitySets()) {
+      Schema schema = context.getOutputSchema();
+      transformers.put(config.getResourcePath(), new ODataEntryToRecordTransformer(getUntaggedSchema(schema),
+                                                                                   config.getStringDictionarySize()));
+      taggedSchemas.put(config.getResourcePath(), schema);
+      return;
+    }
+    Map<String, String> schemas = gson.fromJson(
+      context.getArguments().get(SCHEMAS_ARGUMENT_PREFIX + context.getStageName()), SCHEMAS_TYPE);
+    for (Map.Entry<String, String> entry : schemas.entrySet()) {
+      Schema schema = Schema.parseJson(entry.getValue());
+      transformers.put(entry.getKey(), new ODataEntryToRecordTransformer(schema, config.getStringDictionarySize()));
+      taggedSchemas.put(entry.getKey(), getTaggedSchema(schema));
+    }
+  }
+
+  @Override
+  public void transform(KeyValue<ODataEntityKey, ODataEntity> input, Emitter<StructuredRecord> emitter) {
+    StructuredRecord record;
+    try {
+      record = toRecord(input.getKey(), input.getValue());
+    } catch (FieldConversionException e) {
+      handleConversionError(input.getKey(), input.getValue(), e, emitter);
+      return;
+    }
+    emitter.emit(record);
+  }
+
+  private void handleConversionError(ODataEntityKey key, ODataEntity entity, FieldConversionException e,
+                                     Emitter<StructuredRecord> emitter) {
+    switch (config.getErrorHandling()) {
+      case SKIP:
+        LOG.warn("Skipping entity '{}' of '{}' entity set: {}", getEntityKey(key, entity), key.getEntitySetName(),
+                 e.getMessage());
+        break;
+      case SEND_TO_ERROR:
+        StructuredRecord error = StructuredRecord.builder(SapODataConstants.ErrorRecord.SCHEMA)
+          .set(SapODataConstants.ErrorRecord.ENTITY_SET_FIELD_NAME, key.getEntitySetName())
+          .set(SapODataConstants.ErrorRecord.ORIGIN_FIELD_NAME, key.getService().getName())
+          .set(SapODataConstants.ErrorRecord.KEY_FIELD_NAME, getEntityKey(key, entity))
+          .set(SapODataConstants.ErrorRecord.FIELD_FIELD_NAME, e.getFieldName())
+          .set(SapODataConstants.ErrorRecord.VALUE_FIELD_NAME, e.getValue() == null ? null : e.getValue().toString())
+          .build();
+        emitter.emitError(new InvalidEntry<>(CONVERSION_ERROR_CODE, e.getMessage(), error));
+        break;
+      default:
+        throw e;
+    }
+  }
+
+  /**
+   * @return entity key formatted as comma-separated 'Property=value' pairs, e.g. "SalesOrder=42,Item=10", or
+   * {@code null} if the key properties are unknown.
+   */
+  @Nullable
+  private String getEntityKey(ODataEntityKey key, ODataEntity entity) {
+    List<String> names = keyPropertyNames.get(key.getEntitySetName());
+    if (names == null || names.isEmpty()) {
+      return null;
+    }
+    return names.stream()
+      .map(name -> name + "=" + entity.getProperties().get(name))
+      .collect(Collectors.joining(","));
+  }
+
+  /**
+   * @throws FieldConversionException if a property value cannot be converted to the schema of its field.
+   */
+  private StructuredRecord toRecord(ODataEntityKey key, ODataEntity entity) {
+    if (transformer != null) {
+      return transformer.transform(entity);
+    }
+    String entitySetName = key.getEntitySetName();
+    StructuredRecord record = transformers.get(entitySetName).transform(entity);
+    Schema taggedSchema = taggedSchemas.get(entitySetName);
+    StructuredRecord.Builder builder = StructuredRecord.builder(taggedSchema);
+    for (Schema.Field field : Preconditions.checkNotNull(record.getSchema().getFields())) {
+      builder.set(field.getName(), record.get(field.getName()));
+    }
+    if (config.isMultipleEntitySets()) {
+      builder.set(config.getEntitySetField(), entitySetName);
+    }
+    // the origin field may be removed from the configured output schema
+    if (config.isMultipleServices() && taggedSchema.getField(config.getOriginField()) != null) {
+      builder.set(config.getOriginField(), key.getService().getName());
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return schema with the tag fields appended: the entity set field if multiple entity sets are read and the origin
+   * field if multiple services are read.
+   */
+  private Schema getTaggedSchema(Schema schema) {
+    List<Schema.Field> fields = new ArrayList<>(Preconditions.checkNotNull(schema.getFields()));
+    if (config.isMultipleEntitySets()) {
+      fields.add(Schema.Field.of(config.getEntitySetField(), Schema.of(Schema.Type.STRING)));
+    }
+    if (config.isMultipleServices()) {
+      fields.add(Schema.Field.of(config.getOriginField(), Schema.of(Schema.Type.STRING)));
+    }
+    return Schema.recordOf(schema.getRecordName(), fields);
+  }
+
+  /**
+   * @return schema of a single entity set without the origin field, i.e. the schema of the entity properties.
+   */
+  private Schema getUntaggedSchema(Schema schema) {
+    if (!config.isMultipleServices()) {
+      return schema;
+    }
+    List<Schema.Field> fields = Preconditions.checkNotNull(schema.getFields()).stream()
+      .filter(field -> !field.getName().equals(config.getOriginField()))
+      .collect(Collectors.toList());
+    return Schema.recordOf(schema.getRecordName(), fields);
+  }
+
+  /**
+   * Requests entity types of all entity sets to read, sharing a single metadata request per service, and validates
+   * the split property and the tag fields against them. Entity types are taken from the first service, the others
+   * are only checked to expose all of the entity sets.
+   *
+   * @return entity types by entity set name, types of the aggregated entities if aggregation is configured.
+   */
+  private Map<String, EntityType> getEntityTypes(FailureCollector collector) {
+    Map<String, EntityType> entityTypes = new LinkedHashMap<>();
     try {
       // API call validation
-      new GenericODataClient(config.getUrl(), config.getUser(), config.getPassword())
-        .getEntitySetType(config.getResourcePath());
+      for (String serviceUrl : config.getServices().stream().map(ODataService::getUrl).distinct()
+        .collect(Collectors.toList())) {
+        GenericODataClient client = new GenericODataClient(serviceUrl, config.getUser(), config.getPassword(),
+                                                           config.getOAuth2Credentials());
+        for (String entitySetName : config.getResourcePaths()) {
+          EntityType entityType = client.getEntitySetType(entitySetName);
+          if (entityTypes.containsKey(entitySetName)) {
+            continue;
+          }
+          validateSplitProperty(entityType, collector);
+          validateFilters(entityType, client.getODataVersion(), collector);
+          EntityType outputType = getOutputType(entityType, client.getODataVersion(), collector);
+          validateTagField(outputType, SapODataConstants.ENTITY_SET_FIELD, config.getEntitySetField(),
+                           config.isMultipleEntitySets(), collector);
+          validateTagField(outputType, SapODataConstants.ORIGIN_FIELD, config.getOriginField(),
+                           config.isMultipleServices(), collector);
+          entityTypes.put(entitySetName, outputType);
+        }
+      }
     } catch (ODataException e) {
       collector.addFailure("Unable to connect to OData Service: " + e.getMessage(), null)
         .withStacktrace(e.getStackTrace());
       collector.getOrThrowException();
     }
+    return entityTypes;
+  }
 
-    Schema schema = context.getOutputSchema();
-    LineageRecorder lineageRecorder = new LineageRecorder(context, config.getReferenceName());
-    lineageRecorder.createExternalDataset(schema);
-    lineageRecorder.recordRead("Read", String.format("Read resource '%s' from OData service '%s'",
-                                                     config.getResourcePath(), config.getUrl()),
-                               Preconditions.checkNotNull(schema.getFields()).stream()
-                                 .map(Schema.Field::getName)
-                                 .collect(Collectors.toList()));
+  private boolean isLightValidation() {
+    return !config.containsMacro(SapODataConstants.VALIDATION_MODE)
+      && config.getValidationMode() == ValidationMode.LIGHT;
+  }
 
-    context.setInput(Input.of(config.getReferenceName(), new ODataEntryInputFormatProvider(config)));
+  /**
+   * Requests the service document of every service and checks that all of the entity sets to read are exposed by it.
+   * Unlike {@link #getEntityTypes(FailureCollector)}, neither the entity types nor the split property are validated.
+   */
+  private void validateEntitySets(FailureCollector collector) {
+    try {
+      for (String serviceUrl : config.getServices().stream().map(ODataService::getUrl).distinct()
+        .collect(Collectors.toList())) {
+        GenericODataClient client = new GenericODataClient(serviceUrl, config.getUser(), config.getPassword(),
+                                                           config.getOAuth2Credentials());
+        Set<String> entitySetNames = client.getEntitySetNames();
+        for (String entitySetName : config.getResourcePaths()) {
+          if (!entitySetNames.contains(entitySetName)) {
+            collector.addFailure(String.format("Entity set '%s' does not exist in OData service '%s'",
+                                               entitySetName, serviceUrl),
+                                 "Specify one of the entity sets listed by the service document")
+              .withConfigProperty(SapODataConstants.RESOURCE_PATH);
+          }
+        }
+      }
+    } catch (ODataException e) {
+      collector.addFailure("Unable to connect to OData Service: " + e.getMessage(), null)
+        .withStacktrace(e.getStackTrace());
+    }
+    collector.getOrThrowException();
   }
 
-  @Override
-  public void initialize(BatchRuntimeContext context) throws Exception {
-    super.initialize(context);
-    Schema schema = context.getOutputSchema();
-    this.transformer = new ODataEntryToRecordTransformer(schema);
+  private void validateSplitProperty(EntityType entityType, FailureCollector collector) {
+    if (config.containsMacro(SapODataConstants.SPLIT_MODE) || config.containsMacro(SapODataConstants.SPLIT_PROPERTY)
+      || config.getSplitMode() == SplitMode.NONE) {
+      return;
+    }
+    boolean exists = entityType.getProperties().stream()
+      .anyMatch(p -> p.getName().equals(config.getSplitProperty()));
+    if (!exists) {
+      collector.addFailure(String.format("Split property '%s' does not exist in entity type '%s'",
+                                         config.getSplitProperty(), entityType.getName()),
+                           "Specify one of the entity type properties")
+        .withConfigProperty(SapODataConstants.SPLIT_PROPERTY);
+      collector.getOrThrowException();
+    }
   }
 
-  @Override
-  public void transform(KeyValue<NullWritable, ODataEntity> input, Emitter<StructuredRecord> emitter) {
-    ODataEntity entity = input.getValue();
-    emitter.emit(transformer.transform(entity));
+  /**
+   * Compiles the filter conditions against the entity type, so that unknown properties and values which are not
+   * valid for the type of their property are reported at design time.
+   */
+  private void validateFilters(EntityType entityType, ODataVersion version, FailureCollector collector) {
+    if (config.containsMacro(SapODataConstants.FILTERS)) {
+      return;
+    }
+    try {
+      FilterCondition.toFilter(config.getFilterConditions(), version, entityType);
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), "Specify properties of the entity type and values of their types")
+        .withConfigProperty(SapODataConstants.FILTERS);
+      collector.getOrThrowException();
+    }
+  }
+
+  /**
+   * Validates the aggregation against the entity type.
+   *
+   * @return type of the entities returned by the service: the aggregated entity type if aggregation is configured,
+   * the entity type itself otherwise.
+   */
+  private EntityType getOutputType(EntityType entityType, ODataVersion version, FailureCollector collector) {
+    if (config.containsMacro(SapODataConstants.GROUP_BY) || config.containsMacro(SapODataConstants.AGGREGATES)) {
+      return entityType;
+    }
+    Aggregation aggregation = config.getAggregation();
+    try {
+      aggregation.validate(version, entityType);
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), "Specify properties of the entity type which can be aggregated")
+        .withConfigProperty(SapODataConstants.AGGREGATES);
+      collector.getOrThrowException();
+    }
+    return aggregation.getOutputType(version, entityType);
+  }
+
+  /**
+   * @param property name of the config property of the tag field.
+   * @param tagged   whether records are tagged with the field.
+   */
+  private void validateTagField(EntityType entityType, String property, String fieldName, boolean tagged,
+                                FailureCollector collector) {
+    if (config.containsMacro(property) || !tagged) {
+      return;
+    }
+    boolean exists = entityType.getProperties().stream()
+      .anyMatch(p -> p.getName().equals(fieldName));
+    if (exists) {
+      collector.addFailure(String.format("Tag field '%s' is a property of entity type '%s'",
+                                         fieldName, entityType.getName()),
+                           "Specify a field name which is not a property of any entity type")
+        .withConfigProperty(property);
+      collector.getOrThrowException();
+    }
   }
 
   public Schema getSchema() {
-    GenericODataClient oDataClient = new GenericODataClient(config.getUrl(), config.getUser(), config.getPassword());
+    GenericODataClient oDataClient = new GenericODataClient(config.getServices().get(0).getUrl(), config.getUser(),
+                                                            config.getPassword(), config.getOAuth2Credentials());
     try {
-      EntityType entityType = oDataClient.getEntitySetType(config.getResourcePath());
-      List<Schema.Field> fields = entityType.getProperties().stream()
-        .filter(p -> config.getSelectProperties().isEmpty() || config.getSelectProperties().contains(p.getName()))
-        .map(this::getSchemaField)
-        .collect(Collectors.toList());
-      return Schema.recordOf("output", fields);
+      EntityType entityType = config.getAggregation().getOutputType(
+        oDataClient.getODataVersion(), oDataClient.getEntitySetType(config.getResourcePath()));
+      return getTaggedSchema(getSchema(OUTPUT_RECORD_NAME, entityType));
     } catch (ODataException e) {
       throw new InvalidStageException("Unable to get details about the entity type: " + e.getMessage(), e);
     }
   }
 
+  /**
+   * @param recordName name of the record, records of multiple entity sets are named after their entity set.
+   */
+  private Schema getSchema(String recordName, EntityType entityType) {
+    List<Schema.Field> fields = entityType.getProperties().stream()
+      .filter(p -> config.getSelectProperties().isEmpty() || config.getSelectProperties().contains(p.getName()))
+      .map(this::getSchemaField)
+      .collect(Collectors.toList());
+    return Schema.recordOf(recordName, fields);
+  }
+
   private Schema.Field getSchemaField(PropertyMetadata propertyMetadata) {
     Schema nonNullableSchema = convertPropertyType(propertyMetadata);
     Schema schema = propertyMetadata.isNullable() ? Schema.nullableOf(nonNullableSchema) : nonNullableSchema;
@@ -156,8 +479,9 @@ public class SapODataSource extends BatchSource<NullWritable, ODataEntity, Struc
       case "DateTime":
         return Schema.of(Schema.LogicalType.TIMESTAMP_MICROS);
       case "DateTimeOffset":
-        // Mapped to 'string' to avoid timezone information loss
-        return Schema.of(Schema.Type.STRING);
+        // Mapped to 'string' or to a record with the offset to avoid timezone information loss
+        return config.isTypedDateTimeOffset() ? SapODataConstants.DateTimeOffset.SCHEMA
+          : Schema.of(Schema.Type.STRING);
       case "Time":
         return Schema.of(Schema.LogicalType.TIME_MICROS);
       case "Decimal":
@@ -178,25 +502,25 @@ public class SapODataSource extends BatchSource<NullWritable, ODataEntity, Struc
         return Schema.of(Schema.Type.STRING);
       case "GeographyPoint":
       case "GeometryPoint":
-        return SapODataConstants.Point.SCHEMA;
+        return getGeospatialSchema(SapODataConstants.Point.SCHEMA);
       case "GeographyLineString":
       case "GeometryLineString":
-        return SapODataConstants.LineString.SCHEMA;
+        return getGeospatialSchema(SapODataConstants.LineString.SCHEMA);
       case "GeographyPolygon":
       case "GeometryPolygon":
-        return SapODataConstants.Polygon.SCHEMA;
+        return getGeospatialSchema(SapODataConstants.Polygon.SCHEMA);
       case "GeographyMultiPoint":
       case "GeometryMultiPoint":
-        return SapODataConstants.MultiPoint.SCHEMA;
+        return getGeospatialSchema(SapODataConstants.MultiPoint.SCHEMA);
       case "GeographyMultiLineString":
       case "GeometryMultiLineString":
-        return SapODataConstants.MultiLineString.SCHEMA;
+        return getGeospatialSchema(SapODataConstants.MultiLineString.SCHEMA);
       case "GeographyMultiPolygon":
       case "GeometryMultiPolygon":
-        return SapODataConstants.MultiPolygon.SCHEMA;
+        return getGeospatialSchema(SapODataConstants.MultiPolygon.SCHEMA);
       case "GeographyCollection":
       case "GeometryCollection":
-        return SapODataConstants.GeospatialCollection.SCHEMA;
+        return getGeospatialSchema(SapODataConstants.GeospatialCollection.SCHEMA);
       case "Date":
         return Schema.of(Schema.LogicalType.TIMESTAMP_MICROS);
       case "Duration":
@@ -211,4 +535,19 @@ public class SapODataSource extends BatchSource<NullWritable, ODataEntity, Struc
                                                       propertyMetadata.getName(), propertyMetadata.getEdmTypeName()));
     }
   }
+
+  /**
+   * @param recordSchema schema of the geospatial type in the 'record' format.
+   * @return schema of a geospatial property in the configured format.
+   */
+  private Schema getGeospatialSchema(Schema recordSchema) {
+    switch (config.getGeospatialFormat()) {
+      case WKT:
+        return Schema.of(Schema.Type.STRING);
+      case WKB:
+        return Schema.of(Schema.Type.BYTES);
+      default:
+        return recordSchema;
+    }
+  }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Defines how thoroughly the connection is validated when the pipeline is deployed and before it is run. Full
+ * validation fetches '$metadata' to check the entity types, light validation fetches the service document only, and
+ * the metadata is fetched only if the schema cannot be taken from the configuration.
+ */
+public enum ValidationMode {
+
+  FULL("full"),
+  LIGHT("light");
+
+  private static final Map<String, ValidationMode> byValue = Arrays.stream(values())
+    .collect(Collectors.toMap(ValidationMode::getValue, Function.identity()));
+
+  private final String value;
+
+  ValidationMode(String value) {
+    this.value = value;
+  }
+
+  @Nullable
+  public static ValidationMode fromValue(String value) {
+    return byValue.get(value);
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
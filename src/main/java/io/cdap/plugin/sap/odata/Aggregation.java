@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Aggregation of an entity set pushed down to the service: entities are grouped by the group-by properties and each
+ * group is summarized by the aggregates, e.g. "Amount with sum as TotalAmount". OData V4 services are requested with
+ * the '$apply' query option. OData V2 services must be SAP analytical services, which aggregate the measures selected
+ * with '$select' by the selected dimensions using the aggregation defined by the service. Since that aggregation can
+ * not be chosen by the request, aggregates of OData V2 services are plain measure names, e.g. "Amount".
+ */
+public class Aggregation {
+
+  /**
+   * SAP annotation which marks properties of analytical OData V2 entity types as dimensions or measures.
+   */
+  public static final String SAP_AGGREGATION_ROLE = "sap:aggregation-role";
+
+  private static final String MEASURE = "measure";
+  private static final String COUNT = "count";
+  private static final String COUNT_DISTINCT = "countdistinct";
+  private static final Set<String> METHODS = ImmutableSet.of("sum", "min", "max", "average", COUNT_DISTINCT);
+  private static final Set<String> NUMERIC_TYPES = ImmutableSet.of("Byte", "SByte", "Int16", "Int32", "Int64",
+                                                                   "Decimal", "Double", "Single");
+  private static final Set<String> COMPARABLE_TYPES = ImmutableSet.of("String", "Date", "DateTime", "DateTimeOffset",
+                                                                      "Time", "TimeOfDay");
+  private static final Set<String> INTEGER_TYPES = ImmutableSet.of("Byte", "SByte", "Int16", "Int32");
+  // maximum precision of the 'decimal' logical type of the output schema
+  private static final int MAX_DECIMAL_PRECISION = 38;
+  private static final Pattern AGGREGATE = Pattern.compile("(\\S+)\\s+with\\s+(\\S+)(?:\\s+as\\s+(\\S+))?",
+                                                           Pattern.CASE_INSENSITIVE);
+  private static final Pattern COUNT_AGGREGATE = Pattern.compile("count\\s+as\\s+(\\S+)", Pattern.CASE_INSENSITIVE);
+  private static final Pattern MEASURE_AGGREGATE = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+  private final List<String> groupBy;
+  private final List<Aggregate> aggregates;
+
+  private Aggregation(List<String> groupBy, List<Aggregate> aggregates) {
+    this.groupBy = groupBy;
+    this.aggregates = aggregates;
+  }
+
+  /**
+   * @param groupBy    comma-separated names of the properties to group by, can be {@code null}.
+   * @param aggregates comma-separated aggregates, such as "Amount with sum as TotalAmount", "count as Items" or the
+   *                   measure "Amount" of an OData V2 service, can be {@code null}.
+   * @return parsed aggregation, empty if neither group-by properties nor aggregates are specified.
+   * @throws IllegalArgumentException if an aggregate is malformed, its method is not supported or field names of the
+   *                                  output collide.
+   */
+  public static Aggregation parse(@Nullable String groupBy, @Nullable String aggregates) {
+    List<String> groupByProperties = split(groupBy);
+    Set<String> names = new LinkedHashSet<>();
+    for (String property : groupByProperties) {
+      if (!names.add(property)) {
+        throw new IllegalArgumentException(String.format("Group-by property '%s' is specified more than once.",
+                                                         property));
+      }
+    }
+    List<Aggregate> parsed = new ArrayList<>();
+    for (String aggregate : split(aggregates)) {
+      Aggregate parsedAggregate = Aggregate.parse(aggregate);
+      if (!names.add(parsedAggregate.alias)) {
+        throw new IllegalArgumentException(String.format(
+          "Alias '%s' of aggregate '%s' is already used by another output field.", parsedAggregate.alias, aggregate));
+      }
+      parsed.add(parsedAggregate);
+    }
+    return new Aggregation(groupByProperties, parsed);
+  }
+
+  private static List<String> split(@Nullable String value) {
+    if (Strings.isNullOrEmpty(value)) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(
+      Arrays.stream(value.split(","))
+        .map(String::trim)
+        .filter(element -> !element.isEmpty())
+        .collect(Collectors.toList()));
+  }
+
+  /**
+   * @return {@code true} if neither group-by properties nor aggregates are specified, i.e. entities are read as they
+   * are.
+   */
+  public boolean isEmpty() {
+    return groupBy.isEmpty() && aggregates.isEmpty();
+  }
+
+  public List<String> getGroupBy() {
+    return groupBy;
+  }
+
+  /**
+   * Checks the group-by and aggregated properties against the entity type.
+   *
+   * @param version    OData version of the service.
+   * @param entityType type of the entity set to aggregate.
+   * @throws IllegalArgumentException if a property does not exist, its type cannot be aggregated with the method or
+   *                                  the aggregation cannot be expressed for OData V2 analytical services.
+   */
+  public void validate(ODataVersion version, EntityType entityType) {
+    for (String property : groupBy) {
+      getProperty(entityType, property);
+    }
+    for (Aggregate aggregate : aggregates) {
+      aggregate.validate(version, entityType);
+    }
+  }
+
+  /**
+   * @param version OData version of the service.
+   * @param query   query options of the entity set, can be {@code null}.
+   * @return query options with the aggregation applied. For OData V4, '$filter' is moved into '$apply', so that
+   * entities are filtered before they are aggregated.
+   */
+  public String apply(ODataVersion version, @Nullable String query) {
+    QueryOptions options = QueryOptions.parse(query);
+    if (version == ODataVersion.V2) {
+      Set<String> selected = new LinkedHashSet<>(groupBy);
+      aggregates.stream()
+        .filter(aggregate -> aggregate.property != null)
+        .forEach(aggregate -> selected.add(aggregate.property));
+      return options.set(QueryOptions.SELECT, String.join(",", selected)).toString();
+    }
+    String transformation = toTransformation();
+    String filter = options.get(QueryOptions.FILTER);
+    if (!Strings.isNullOrEmpty(filter)) {
+      transformation = "filter(" + filter + ")/" + transformation;
+    }
+    return options.remove(QueryOptions.FILTER).set(QueryOptions.APPLY, transformation).toString();
+  }
+
+  /**
+   * @return '$apply' transformation, e.g. "groupby((CompanyCode),aggregate(Amount with sum as TotalAmount))".
+   */
+  private String toTransformation() {
+    String aggregate = aggregates.isEmpty() ? null : aggregates.stream()
+      .map(Aggregate::toExpression)
+      .collect(Collectors.joining(",", "aggregate(", ")"));
+    if (groupBy.isEmpty()) {
+      return aggregate;
+    }
+    String groupByList = "(" + String.join(",", groupBy) + ")";
+    return aggregate == null ? "groupby(" + groupByList + ")" : "groupby(" + groupByList + "," + aggregate + ")";
+  }
+
+  /**
+   * @param version    OData version of the service.
+   * @param entityType type of the entity set to aggregate.
+   * @return type of the aggregated entities, which consist of the group-by properties followed by the aggregates and
+   * are identified by the group-by properties. The entity type itself if the aggregation is empty.
+   */
+  public EntityType getOutputType(ODataVersion version, EntityType entityType) {
+    if (isEmpty()) {
+      return entityType;
+    }
+    List<PropertyMetadata> properties = new ArrayList<>();
+    for (String property : groupBy) {
+      properties.add(getProperty(entityType, property));
+    }
+    for (Aggregate aggregate : aggregates) {
+      properties.add(aggregate.getOutputProperty(version, entityType));
+    }
+    return new EntityType(entityType.getName(), properties, groupBy);
+  }
+
+  private static PropertyMetadata getProperty(EntityType entityType, String name) {
+    return entityType.getProperties().stream()
+      .filter(p -> p.getName().equals(name))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException(String.format(
+        "Aggregation property '%s' does not exist in entity type '%s'.", name, entityType.getName())));
+  }
+
+  /**
+   * Single aggregate of the aggregation, the property is {@code null} for the count of entities and the method is
+   * {@code null} for measures of OData V2 services.
+   */
+  private static class Aggregate {
+
+    private final String property;
+    private final String method;
+    private final String alias;
+
+    private Aggregate(@Nullable String property, @Nullable String method, String alias) {
+      this.property = property;
+      this.method = method;
+      this.alias = alias;
+    }
+
+    private static Aggregate parse(String aggregate) {
+      Matcher count = COUNT_AGGREGATE.matcher(aggregate);
+      if (count.matches()) {
+        return new Aggregate(null, COUNT, count.group(1));
+      }
+      if (MEASURE_AGGREGATE.matcher(aggregate).matches()) {
+        return new Aggregate(aggregate, null, aggregate);
+      }
+      Matcher matcher = AGGREGATE.matcher(aggregate);
+      if (!matcher.matches()) {
+        throw new IllegalArgumentException(String.format(
+          "Invalid aggregate '%s', expected '<property> with <method> as <alias>', 'count as <alias>' or '<measure>'.",
+          aggregate));
+      }
+      String method = matcher.group(2).toLowerCase();
+      if (!METHODS.contains(method)) {
+        throw new IllegalArgumentException(String.format("Unsupported aggregation method '%s' of aggregate '%s'.",
+                                                         matcher.group(2), aggregate));
+      }
+      String alias = matcher.group(3) == null ? matcher.group(1) : matcher.group(3);
+      return new Aggregate(matcher.group(1), method, alias);
+    }
+
+    private void validate(ODataVersion version, EntityType entityType) {
+      if (version == ODataVersion.V2) {
+        validateAnalytical(entityType);
+        return;
+      }
+      if (property == null) {
+        return;
+      }
+      if (method == null) {
+        throw new IllegalArgumentException(String.format(
+          "Aggregation method of property '%s' must be specified for OData V4 services, e.g. '%s with sum'.",
+          property, property));
+      }
+      String edmTypeName = getProperty(entityType, property).getEdmTypeName();
+      boolean supported;
+      switch (method) {
+        case "sum":
+        case "average":
+          supported = NUMERIC_TYPES.contains(edmTypeName);
+          break;
+        case "min":
+        case "max":
+          supported = NUMERIC_TYPES.contains(edmTypeName) || COMPARABLE_TYPES.contains(edmTypeName);
+          break;
+        default:
+          supported = true;
+      }
+      if (!supported) {
+        throw new IllegalArgumentException(String.format("Property '%s' of type 'Edm.%s' can not be aggregated "
+                                                           + "with '%s'.", property, edmTypeName, method));
+      }
+    }
+
+    /**
+     * SAP analytical services aggregate measures with the method defined by the service and keep their names, so
+     * only measures can be aggregated and they can not be counted, renamed or aggregated with another method. Any
+     * method is rejected, since the method of the service is not described by the metadata and a differing method
+     * would be silently replaced by it.
+     */
+    private void validateAnalytical(EntityType entityType) {
+      if (property == null) {
+        throw new IllegalArgumentException(String.format(
+          "Aggregation method '%s' is not supported by OData V2 services.", method));
+      }
+      if (method != null) {
+        throw new IllegalArgumentException(String.format(
+          "Aggregation method '%s' of property '%s' is not supported by OData V2 services, which aggregate measures "
+            + "using the aggregation defined by the service. Specify the measure name '%s' only.", method, property,
+          property));
+      }
+      PropertyMetadata metadata = getProperty(entityType, property);
+      if (!MEASURE.equals(metadata.getAnnotations().get(SAP_AGGREGATION_ROLE))) {
+        throw new IllegalArgumentException(String.format(
+          "Property '%s' is not a measure of entity type '%s', OData V2 services can aggregate measures of "
+            + "analytical entity types only.", property, entityType.getName()));
+      }
+    }
+
+    /**
+     * Sums of small integers are widened to 'Edm.Int64' and sums of decimals to the maximum precision, since sums
+     * exceed the precision of the summed values. Averages are 'Edm.Double', since averages of decimals have more
+     * fractional digits than the scale of the averaged values. Measures of OData V2 services keep their type.
+     */
+    private PropertyMetadata getOutputProperty(ODataVersion version, EntityType entityType) {
+      if (property == null || COUNT_DISTINCT.equals(method)) {
+        return new PropertyMetadata(alias, "Int64", false, null, null, null);
+      }
+      PropertyMetadata metadata = getProperty(entityType, property);
+      String edmTypeName = metadata.getEdmTypeName();
+      Integer precision = metadata.getPrecision();
+      Integer scale = metadata.getScale();
+      if (version == ODataVersion.V4 && "sum".equals(method)) {
+        if (INTEGER_TYPES.contains(edmTypeName)) {
+          edmTypeName = "Int64";
+        } else if ("Single".equals(edmTypeName)) {
+          edmTypeName = "Double";
+        } else if ("Decimal".equals(edmTypeName) && precision != null) {
+          precision = MAX_DECIMAL_PRECISION;
+        }
+      } else if (version == ODataVersion.V4 && "average".equals(method)) {
+        edmTypeName = "Double";
+        precision = null;
+        scale = null;
+      }
+      return new PropertyMetadata(alias, edmTypeName, true, precision, scale, metadata.getAnnotations());
+    }
+
+    private String toExpression() {
+      return property == null ? "$count as " + alias : property + " with " + method + " as " + alias;
+    }
+  }
+}
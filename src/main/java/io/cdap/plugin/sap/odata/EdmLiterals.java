@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Formats values as OData '$filter' literals of the given EDM type. Literal syntax differs between OData V2 and V4,
+ * e.g. 'datetime'2019-01-01T00:00:00'' in V2 and '2019-01-01' in V4.
+ */
+public final class EdmLiterals {
+
+  private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+  private EdmLiterals() {
+  }
+
+  /**
+   * @param version     OData version of the service.
+   * @param edmTypeName name of the EDM type without namespace, e.g. 'DateTime'.
+   * @return {@code true} if the EDM type is a date or date-time type which can be formatted by
+   * {@link #formatDateTime(ODataVersion, String, LocalDateTime)}.
+   */
+  public static boolean isDateTimeType(ODataVersion version, String edmTypeName) {
+    switch (edmTypeName) {
+      case "DateTimeOffset":
+        return true;
+      case "DateTime":
+        return version == ODataVersion.V2;
+      case "Date":
+        return version == ODataVersion.V4;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @param version     OData version of the service.
+   * @param edmTypeName name of the EDM type without namespace, e.g. 'DateTime'.
+   * @param dateTime    date-time in UTC.
+   * @return literal of the given type.
+   * @throws IllegalArgumentException if the type is not a date or date-time type of the given OData version.
+   */
+  public static String formatDateTime(ODataVersion version, String edmTypeName, LocalDateTime dateTime) {
+    if (!isDateTimeType(version, edmTypeName)) {
+      throw new IllegalArgumentException(String.format("'Edm.%s' is not a date or date-time type of OData %s.",
+                                                       edmTypeName, version));
+    }
+    String utc = DATE_TIME_FORMATTER.format(dateTime);
+    switch (edmTypeName) {
+      case "DateTime":
+        return "datetime'" + utc + "'";
+      case "Date":
+        return dateTime.toLocalDate().toString();
+      default:
+        String offsetDateTime = utc + "Z";
+        return version == ODataVersion.V2 ? "datetimeoffset'" + offsetDateTime + "'" : offsetDateTime;
+    }
+  }
+
+  /**
+   * @param version     OData version of the service.
+   * @param edmTypeName name of the EDM type without namespace, e.g. 'Int64'.
+   * @return {@code true} if values of the EDM type can be formatted by
+   * {@link #formatValue(ODataVersion, String, Object)}.
+   */
+  public static boolean isSupported(ODataVersion version, String edmTypeName) {
+    switch (edmTypeName) {
+      case "String":
+      case "Guid":
+      case "Boolean":
+      case "Byte":
+      case "SByte":
+      case "Int16":
+      case "Int32":
+      case "Int64":
+      case "Decimal":
+      case "Double":
+      case "Single":
+        return true;
+      default:
+        return isDateTimeType(version, edmTypeName);
+    }
+  }
+
+  /**
+   * Formats a property value, as read by {@link ODataClient#queryEntitySet}, as a literal of the given type.
+   *
+   * @param version     OData version of the service.
+   * @param edmTypeName name of the EDM type without namespace, e.g. 'Int64'.
+   * @param value       property value.
+   * @return literal of the given type.
+   * @throws IllegalArgumentException if values of the type can not be formatted.
+   */
+  public static String formatValue(ODataVersion version, String edmTypeName, Object value) {
+    boolean v2 = version == ODataVersion.V2;
+    switch (edmTypeName) {
+      case "String":
+        return "'" + value.toString().replace("'", "''") + "'";
+      case "Guid":
+        return v2 ? "guid'" + value + "'" : value.toString();
+      case "Boolean":
+      case "Byte":
+      case "SByte":
+      case "Int16":
+      case "Int32":
+        return value.toString();
+      case "Int64":
+        return v2 ? value + "L" : value.toString();
+      case "Decimal":
+        String decimal = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        return v2 ? decimal + "M" : decimal;
+      case "Double":
+        return v2 ? value + "d" : value.toString();
+      case "Single":
+        return v2 ? value + "f" : value.toString();
+      default:
+        return formatDateTime(version, edmTypeName, toDateTime(edmTypeName, value));
+    }
+  }
+
+  private static LocalDateTime toDateTime(String edmTypeName, Object value) {
+    if (value instanceof LocalDateTime) {
+      return (LocalDateTime) value;
+    }
+    if (value instanceof LocalDate) {
+      return ((LocalDate) value).atStartOfDay();
+    }
+    if (value instanceof Calendar && "Date".equals(edmTypeName)) {
+      // date fields are used as they are, since Olingo may parse 'Edm.Date' values in the default time zone
+      Calendar calendar = (Calendar) value;
+      return LocalDate.of(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1,
+                          calendar.get(Calendar.DAY_OF_MONTH)).atStartOfDay();
+    }
+    if (value instanceof Calendar) {
+      return LocalDateTime.ofInstant(((Calendar) value).toInstant(), ZoneOffset.UTC);
+    }
+    if (value instanceof java.sql.Date) {
+      return ((java.sql.Date) value).toLocalDate().atStartOfDay();
+    }
+    if (value instanceof Date) {
+      return LocalDateTime.ofInstant(((Date) value).toInstant(), ZoneOffset.UTC);
+    }
+    throw new IllegalArgumentException(String.format("Unable to format '%s' as 'Edm.%s' literal.", value,
+                                                     edmTypeName));
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Condition of a structured filter, such as "CompanyCode eq 1000", which is compiled to a '$filter' expression with
+ * the value formatted as a literal of the EDM type of the property. Values are written without quotes or type
+ * prefixes, 'null' compares the property with null.
+ */
+public class FilterCondition {
+
+  private static final Set<String> OPERATORS = ImmutableSet.of("eq", "ne", "gt", "ge", "lt", "le");
+  private static final String NULL = "null";
+
+  private final String property;
+  private final String operator;
+  private final String value;
+
+  private FilterCondition(String property, String operator, String value) {
+    this.property = property;
+    this.operator = operator;
+    this.value = value;
+  }
+
+  /**
+   * @param condition condition in the form of '&lt;property&gt; &lt;operator&gt; &lt;value&gt;', the value may contain
+   *                  spaces.
+   * @return parsed condition.
+   * @throws IllegalArgumentException if the condition is malformed or the operator is not supported.
+   */
+  public static FilterCondition parse(String condition) {
+    String[] parts = condition.trim().split("\\s+", 3);
+    if (parts.length < 3) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid filter condition '%s', expected '<property> <operator> <value>'.", condition));
+    }
+    String operator = parts[1].toLowerCase();
+    if (!OPERATORS.contains(operator)) {
+      throw new IllegalArgumentException(String.format("Unsupported operator '%s' of filter condition '%s'.",
+                                                       parts[1], condition));
+    }
+    if (NULL.equals(parts[2]) && !"eq".equals(operator) && !"ne".equals(operator)) {
+      throw new IllegalArgumentException(String.format("Filter condition '%s' compares with null using '%s'.",
+                                                       condition, parts[1]));
+    }
+    return new FilterCondition(parts[0], operator, parts[2]);
+  }
+
+  /**
+   * @param conditions conditions separated by ';', can be {@code null}.
+   * @return parsed conditions, empty if there are none.
+   * @throws IllegalArgumentException if any of the conditions is malformed.
+   */
+  public static List<FilterCondition> parseAll(@Nullable String conditions) {
+    List<FilterCondition> parsed = new ArrayList<>();
+    if (Strings.isNullOrEmpty(conditions)) {
+      return parsed;
+    }
+    for (String condition : conditions.split(";")) {
+      if (!condition.trim().isEmpty()) {
+        parsed.add(parse(condition));
+      }
+    }
+    return parsed;
+  }
+
+  /**
+   * Compiles the conditions to a single expression, the conditions are combined using 'and'.
+   *
+   * @param conditions conditions to compile.
+   * @param version    OData version of the service.
+   * @param entityType type of the entity set to filter.
+   * @return '$filter' expression or {@code null} if there are no conditions.
+   * @throws IllegalArgumentException if a property does not exist, cannot be filtered or a value is not valid for
+   *                                  the type of its property.
+   */
+  @Nullable
+  public static String toFilter(List<FilterCondition> conditions, ODataVersion version, EntityType entityType) {
+    if (conditions.isEmpty()) {
+      return null;
+    }
+    return conditions.stream()
+      .map(condition -> condition.toExpression(version, entityType))
+      .collect(Collectors.joining(" and "));
+  }
+
+  public String getProperty() {
+    return property;
+  }
+
+  /**
+   * @return expression of the condition with the value formatted as a literal of the type of the property.
+   * @throws IllegalArgumentException if the property does not exist, cannot be filtered or the value is not valid for
+   *                                  its type.
+   */
+  public String toExpression(ODataVersion version, EntityType entityType) {
+    PropertyMetadata metadata = entityType.getProperties().stream()
+      .filter(p -> p.getName().equals(property))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException(String.format(
+        "Filter property '%s' does not exist in entity type '%s'.", property, entityType.getName())));
+    String edmTypeName = metadata.getEdmTypeName();
+    if (!EdmLiterals.isSupported(version, edmTypeName)) {
+      throw new IllegalArgumentException(String.format("Filter property '%s' of type 'Edm.%s' can not be filtered.",
+                                                       property, edmTypeName));
+    }
+    String literal = NULL.equals(value) ? NULL : EdmLiterals.formatValue(version, edmTypeName, parseValue(edmTypeName));
+    return property + " " + operator + " " + literal;
+  }
+
+  /**
+   * @return value as the object formatted by {@link EdmLiterals#formatValue(ODataVersion, String, Object)}.
+   */
+  private Object parseValue(String edmTypeName) {
+    try {
+      switch (edmTypeName) {
+        case "String":
+          return value;
+        case "Guid":
+          return UUID.fromString(value);
+        case "Boolean":
+          if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            throw new IllegalArgumentException("Not a boolean.");
+          }
+          return Boolean.valueOf(value);
+        case "Byte":
+          return parseInteger(0, 255);
+        case "SByte":
+          return parseInteger(Byte.MIN_VALUE, Byte.MAX_VALUE);
+        case "Int16":
+          return parseInteger(Short.MIN_VALUE, Short.MAX_VALUE);
+        case "Int32":
+          return parseInteger(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        case "Int64":
+          return Long.parseLong(value);
+        case "Decimal":
+          return new BigDecimal(value);
+        case "Double":
+        case "Single":
+          return Double.parseDouble(value);
+        default:
+          return parseDateTime();
+      }
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new IllegalArgumentException(String.format("Value '%s' of filter property '%s' is not a valid 'Edm.%s'.",
+                                                       value, property, edmTypeName), e);
+    }
+  }
+
+  private long parseInteger(long min, long max) {
+    long parsed = Long.parseLong(value);
+    if (parsed < min || parsed > max) {
+      throw new IllegalArgumentException("Out of range.");
+    }
+    return parsed;
+  }
+
+  /**
+   * @return date or date-time in UTC, date-times without offset are in UTC.
+   */
+  private Object parseDateTime() {
+    if (value.length() == 10) {
+      return LocalDate.parse(value);
+    }
+    try {
+      return OffsetDateTime.parse(value).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    } catch (DateTimeParseException e) {
+      return LocalDateTime.parse(value);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return property + " " + operator + " " + value;
+  }
+}
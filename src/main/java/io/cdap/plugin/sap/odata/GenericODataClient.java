@@ -16,16 +16,36 @@
 
 package io.cdap.plugin.sap.odata;
 
+import com.google.common.base.Strings;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import io.cdap.plugin.sap.odata.exception.ODataException;
 import io.cdap.plugin.sap.odata.odata2.OData2Client;
 import io.cdap.plugin.sap.odata.odata4.OData4Client;
+import io.cdap.plugin.sap.odata.odata4.SapSessionHttpClientFactory;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataRawRequest;
 import org.apache.olingo.client.api.communication.request.retrieve.XMLMetadataRequest;
+import org.apache.olingo.client.api.communication.response.ODataRawResponse;
 import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
 import org.apache.olingo.client.api.edm.xml.XMLMetadata;
 import org.apache.olingo.client.core.ODataClientFactory;
-import org.apache.olingo.client.core.http.BasicAuthHttpClientFactory;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.odata2.api.ep.EntityProvider;
+import org.apache.olingo.odata2.api.ep.EntityProviderException;
+import org.apache.olingo.odata2.api.servicedocument.EntitySetInfo;
 
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.ws.rs.core.MediaType;
 
@@ -43,12 +63,59 @@ public class GenericODataClient extends ODataClient {
    * @param password password for basic authentication.
    */
   public GenericODataClient(String rootUrl, String username, String password) {
-    super(rootUrl, username, password);
+    this(rootUrl, username, password, null);
+  }
+
+  /**
+   * @param rootUrl           URL of the OData service. The URL must end with an external service name
+   *                          (e.g., http://eccsvrname:8000/sap/opu/odata/sap/zgw100_dd02l_so_srv/).
+   * @param username          username for basic authentication.
+   * @param password          password for basic authentication.
+   * @param oAuth2Credentials OAuth 2.0 credentials, take precedence over basic authentication if specified.
+   */
+  public GenericODataClient(String rootUrl, String username, String password,
+                            @Nullable OAuth2Credentials oAuth2Credentials) {
+    super(rootUrl, username, password, oAuth2Credentials, new SapSession(), new TransferStatistics());
   }
 
   @Override
-  public Iterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query) {
-    return getClient().queryEntitySet(entitySetName, query);
+  public PagingEntityIterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query, int pageSize,
+                                                          @Nullable PagePosition start) {
+    return getClient().queryEntitySet(entitySetName, query, pageSize, start);
+  }
+
+  @Override
+  public long countEntitySet(String entitySetName, @Nullable String query) {
+    return getClient().countEntitySet(entitySetName, query);
+  }
+
+  /**
+   * Queries the entity set and parses the JSON payload of each page with the given parser, bypassing the Olingo
+   * object model. Supported for OData V4 services only.
+   *
+   * @param entitySetName name of the entity set to query.
+   * @param query         OData query options, can be {@code null}.
+   * @param pageSize      maximum number of entities per page, {@code 0} to use the service default.
+   * @param parser        parser of the page payload.
+   * @param start         position of the page to start from, {@code null} to start from the first page.
+   * @param <T>           type of the entity representation.
+   * @return iterator over the parsed entities of all pages.
+   * @throws ODataException if the service is not an OData V4 service.
+   */
+  public <T> PagingEntityIterator<T> queryEntitySetJson(String entitySetName, @Nullable String query, int pageSize,
+                                                        JsonPageParser<T> parser, @Nullable PagePosition start) {
+    ODataClient client = getClient();
+    if (!(client instanceof OData4Client)) {
+      throw new ODataException("Direct JSON parsing is supported for OData V4 services only.");
+    }
+    return ((OData4Client) client).queryEntitySetJson(entitySetName, query, pageSize, parser, start);
+  }
+
+  /**
+   * @return OData version of the service.
+   */
+  public ODataVersion getODataVersion() {
+    return getClient() instanceof OData4Client ? ODataVersion.V4 : ODataVersion.V2;
   }
 
   @Override
@@ -56,6 +123,73 @@ public class GenericODataClient extends ODataClient {
     return getClient().getEntitySetType(entitySetName);
   }
 
+  /**
+   * Requests the service document, which lists the entity sets of the service without describing their types. Unlike
+   * '$metadata', the service document stays small for large services and does not require the OData version to be
+   * known, so it is a cheap way to check the connection, the credentials and the entity set names.
+   *
+   * @return names of the entity sets exposed by the service.
+   * @throws ODataException if the service document cannot be fetched or parsed.
+   */
+  public Set<String> getEntitySetNames() {
+    ODataRawResponse response;
+    try {
+      ODataRawRequest request = createProbeClient().getRetrieveRequestFactory().getRawRequest(new URI(rootUrl));
+      // services which do not support JSON service documents respond with AtomPub XML
+      request.setAccept(MediaType.APPLICATION_JSON);
+      response = request.execute();
+    } catch (URISyntaxException e) {
+      throw new ODataException(String.format("Invalid URL: '%s'", rootUrl), e);
+    } catch (ODataRuntimeException e) {
+      throw new ODataException("Unable to get service document: " + e.getMessage(), e);
+    }
+    String contentType = Strings.nullToEmpty(response.getContentType());
+    try (InputStream content = response.getRawResponse()) {
+      if (contentType.contains("xml")) {
+        String mediaType = contentType.split(";")[0].trim();
+        return EntityProvider.readServiceDocument(content, mediaType).getEntitySetsInfo().stream()
+          .map(EntitySetInfo::getName)
+          .collect(Collectors.toCollection(LinkedHashSet::new));
+      }
+      return parseJsonServiceDocument(new JsonParser().parse(new InputStreamReader(content, StandardCharsets.UTF_8)));
+    } catch (IOException | EntityProviderException | JsonParseException | IllegalStateException e) {
+      throw new ODataException("Unable to parse service document: " + e.getMessage(), e);
+    } finally {
+      response.close();
+    }
+  }
+
+  /**
+   * Parses OData V2 '{"d":{"EntitySets":["A"]}}' and OData V4 '{"value":[{"name":"A","kind":"EntitySet"}]}' JSON
+   * service documents. Singletons, function imports and related
+   * service documents listed by V4 services are skipped.
+   */
+  private static Set<String> parseJsonServiceDocument(JsonElement document) {
+    Set<String> entitySetNames = new LinkedHashSet<>();
+    JsonObject root = document.getAsJsonObject();
+    if (root.has("d")) {
+      for (JsonElement name : getArray(root.getAsJsonObject("d"), "EntitySets")) {
+        entitySetNames.add(name.getAsString());
+      }
+      return entitySetNames;
+    }
+    for (JsonElement element : getArray(root, "value")) {
+      JsonObject resource = element.getAsJsonObject();
+      // the kind is omitted for entity sets
+      if (resource.has("name") && (!resource.has("kind") || "EntitySet".equals(resource.get("kind").getAsString()))) {
+        entitySetNames.add(resource.get("name").getAsString());
+      }
+    }
+    return entitySetNames;
+  }
+
+  private static JsonArray getArray(JsonObject object, String name) {
+    if (!object.has(name) || !object.get(name).isJsonArray()) {
+      throw new IllegalStateException(String.format("'%s' array is missing.", name));
+    }
+    return object.getAsJsonArray(name);
+  }
+
   private ODataClient getClient() {
     if (oDataClient == null) {
       initClient();
@@ -71,23 +205,32 @@ public class GenericODataClient extends ODataClient {
     }
     switch (version) {
       case V2:
-        oDataClient = new OData2Client(rootUrl, username, password);
+        oDataClient = new OData2Client(rootUrl, username, password, oAuth2Credentials, session,
+                                       transferStatistics);
         break;
       case V4:
-        oDataClient = new OData4Client(rootUrl, username, password);
+        oDataClient = new OData4Client(rootUrl, username, password, oAuth2Credentials, session,
+                                       transferStatistics);
         break;
     }
   }
 
   private String getEdmVersion() {
-    org.apache.olingo.client.api.ODataClient client = ODataClientFactory.getClient();
-    if (isAuthRequired()) {
-      client.getConfiguration().setHttpClientFactory(new BasicAuthHttpClientFactory(username, password));
-    }
-    XMLMetadataRequest request = client.getRetrieveRequestFactory().getXMLMetadataRequest(rootUrl);
+    XMLMetadataRequest request = createProbeClient().getRetrieveRequestFactory().getXMLMetadataRequest(rootUrl);
     request.setAccept(MediaType.APPLICATION_XML);
     ODataRetrieveResponse<XMLMetadata> response = request.execute();
 
     return response.getBody().getEdmVersion();
   }
+
+  /**
+   * @return version-agnostic client for requests sent before the OData version is known.
+   */
+  private org.apache.olingo.client.api.ODataClient createProbeClient() {
+    org.apache.olingo.client.api.ODataClient client = ODataClientFactory.getClient();
+    // the session established by the probe is reused by the version-specific client
+    client.getConfiguration().setHttpClientFactory(
+      new SapSessionHttpClientFactory(username, password, oAuth2Credentials, session, transferStatistics));
+    return client;
+  }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import javax.annotation.Nullable;
+
+/**
+ * Parses entities of a single entity set page directly from the OData V4 JSON payload, bypassing the Olingo object
+ * model.
+ *
+ * @param <T> type of the entity representation.
+ */
+public interface JsonPageParser<T> {
+
+  /**
+   * Starts parsing of the page. Entities are expected to be parsed lazily, while iterating over the page.
+   *
+   * @param content JSON payload of the page.
+   * @return page entities.
+   * @throws IOException if the payload cannot be read.
+   */
+  JsonPage<T> parse(InputStream content) throws IOException;
+
+  /**
+   * Entities of a single page.
+   *
+   * @param <T> type of the entity representation.
+   */
+  interface JsonPage<T> extends Iterator<T>, Closeable {
+
+    /**
+     * @return next link of the page or {@code null} if this is the last page. Available once all entities are read.
+     */
+    @Nullable
+    String getNextLink();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * OAuth 2.0 client and grant used to obtain access tokens for the OData service. Instances are used as keys of the
+ * JVM-wide {@link OAuth2TokenCache}, so that all clients configured with the same credentials share a token.
+ */
+public class OAuth2Credentials {
+
+  /**
+   * OAuth 2.0 grant type.
+   */
+  public enum GrantType {
+    CLIENT_CREDENTIALS("client_credentials"),
+    SAML_BEARER("urn:ietf:params:oauth:grant-type:saml2-bearer");
+
+    private final String value;
+
+    GrantType(String value) {
+      this.value = value;
+    }
+
+    public String getValue() {
+      return value;
+    }
+  }
+
+  private final GrantType grantType;
+  private final String tokenUrl;
+  private final String clientId;
+  private final String clientSecret;
+  private final String scope;
+  private final String assertion;
+
+  private OAuth2Credentials(GrantType grantType, String tokenUrl, String clientId, String clientSecret,
+                            @Nullable String scope, @Nullable String assertion) {
+    this.grantType = grantType;
+    this.tokenUrl = tokenUrl;
+    this.clientId = clientId;
+    this.clientSecret = clientSecret;
+    this.scope = scope;
+    this.assertion = assertion;
+  }
+
+  /**
+   * @param tokenUrl     URL of the token endpoint.
+   * @param clientId     OAuth 2.0 client ID.
+   * @param clientSecret OAuth 2.0 client secret.
+   * @param scope        optional space-separated scopes.
+   * @return credentials for the client credentials grant.
+   */
+  public static OAuth2Credentials clientCredentials(String tokenUrl, String clientId, String clientSecret,
+                                                    @Nullable String scope) {
+    return new OAuth2Credentials(GrantType.CLIENT_CREDENTIALS, tokenUrl, clientId, clientSecret, scope, null);
+  }
+
+  /**
+   * @param tokenUrl     URL of the token endpoint.
+   * @param clientId     OAuth 2.0 client ID.
+   * @param clientSecret OAuth 2.0 client secret.
+   * @param scope        optional space-separated scopes.
+   * @param assertion    Base64url-encoded SAML 2.0 assertion.
+   * @return credentials for the SAML 2.0 bearer assertion grant.
+   */
+  public static OAuth2Credentials samlBearer(String tokenUrl, String clientId, String clientSecret,
+                                             @Nullable String scope, String assertion) {
+    return new OAuth2Credentials(GrantType.SAML_BEARER, tokenUrl, clientId, clientSecret, scope, assertion);
+  }
+
+  public GrantType getGrantType() {
+    return grantType;
+  }
+
+  public String getTokenUrl() {
+    return tokenUrl;
+  }
+
+  public String getClientId() {
+    return clientId;
+  }
+
+  public String getClientSecret() {
+    return clientSecret;
+  }
+
+  @Nullable
+  public String getScope() {
+    return scope;
+  }
+
+  @Nullable
+  public String getAssertion() {
+    return assertion;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    OAuth2Credentials that = (OAuth2Credentials) o;
+    return grantType == that.grantType
+      && tokenUrl.equals(that.tokenUrl)
+      && clientId.equals(that.clientId)
+      && clientSecret.equals(that.clientSecret)
+      && Objects.equals(scope, that.scope)
+      && Objects.equals(assertion, that.assertion);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(grantType, tokenUrl, clientId, clientSecret, scope, assertion);
+  }
+}
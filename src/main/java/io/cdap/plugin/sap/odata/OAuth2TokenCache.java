@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.cdap.plugin.sap.odata.exception.ODataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * JVM-wide cache of OAuth 2.0 access tokens. A token is fetched once per {@link OAuth2Credentials} and shared by all
+ * clients of the JVM. Once the token has lived for {@link #REFRESH_RATIO} of its lifetime, a new token is fetched in
+ * the background while the current one is still served, so that page requests do not wait for the token endpoint.
+ * Requests wait for the token endpoint only when there is no token yet or the current one has expired.
+ */
+public class OAuth2TokenCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OAuth2TokenCache.class);
+
+  /**
+   * Part of the token lifetime after which the token is refreshed in the background.
+   */
+  static final double REFRESH_RATIO = 0.75;
+
+  /**
+   * Tokens are considered expired this long before their actual expiration, to account for clock skew and the time
+   * a request takes to reach the service.
+   */
+  static final long EXPIRATION_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  /**
+   * Token lifetime assumed when the token endpoint does not return 'expires_in'.
+   */
+  static final long DEFAULT_LIFETIME_SECONDS = TimeUnit.HOURS.toSeconds(1);
+
+  private static final OAuth2TokenCache INSTANCE = new OAuth2TokenCache(OAuth2TokenCache::requestToken,
+                                                                        System::currentTimeMillis);
+
+  private final ConcurrentMap<OAuth2Credentials, Entry> entries = new ConcurrentHashMap<>();
+  private final ExecutorService refresher = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "sap-oauth2-token-refresh");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Function<OAuth2Credentials, Token> tokenEndpoint;
+  private final LongSupplier clock;
+
+  @VisibleForTesting
+  OAuth2TokenCache(Function<OAuth2Credentials, Token> tokenEndpoint, LongSupplier clock) {
+    this.tokenEndpoint = tokenEndpoint;
+    this.clock = clock;
+  }
+
+  public static OAuth2TokenCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns a valid access token for the given credentials.
+   *
+   * @param credentials OAuth 2.0 credentials.
+   * @return access token.
+   * @throws ODataException if there is no valid cached token and a new token cannot be obtained.
+   */
+  public String getAccessToken(OAuth2Credentials credentials) {
+    Entry entry = entries.computeIfAbsent(credentials, key -> new Entry());
+    CachedToken token = entry.token;
+    long now = clock.getAsLong();
+    if (token != null && now < token.expiresAt) {
+      if (now >= token.refreshAt && entry.refreshing.compareAndSet(false, true)) {
+        refresher.execute(() -> refresh(credentials, entry));
+      }
+      return token.value;
+    }
+    synchronized (entry) {
+      // another thread might have fetched the token while this one was waiting
+      token = entry.token;
+      if (token == null || clock.getAsLong() >= token.expiresAt) {
+        token = fetch(credentials);
+        entry.token = token;
+      }
+      return token.value;
+    }
+  }
+
+  /**
+   * Discards the cached token for the given credentials, for example after the service rejected it.
+   *
+   * @param credentials OAuth 2.0 credentials.
+   */
+  public void invalidate(OAuth2Credentials credentials) {
+    entries.remove(credentials);
+  }
+
+  private void refresh(OAuth2Credentials credentials, Entry entry) {
+    try {
+      CachedToken token = fetch(credentials);
+      synchronized (entry) {
+        entry.token = token;
+      }
+    } catch (RuntimeException e) {
+      // current token is still valid, the next request past the refresh point retries
+      LOG.warn("Failed to refresh OAuth 2.0 access token from '{}'.", credentials.getTokenUrl(), e);
+    } finally {
+      entry.refreshing.set(false);
+    }
+  }
+
+  private CachedToken fetch(OAuth2Credentials credentials) {
+    long requestedAt = clock.getAsLong();
+    return new CachedToken(tokenEndpoint.apply(credentials), requestedAt);
+  }
+
+  private static Token requestToken(OAuth2Credentials credentials) {
+    String url = credentials.getTokenUrl();
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+      connection.setRequestMethod(HttpMethod.POST);
+      connection.setDoOutput(true);
+      connection.setRequestProperty(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
+      connection.setRequestProperty(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED);
+      String clientCredentials = credentials.getClientId() + ":" + credentials.getClientSecret();
+      connection.setRequestProperty(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+        .encodeToString(clientCredentials.getBytes(StandardCharsets.UTF_8)));
+      try (OutputStream outputStream = connection.getOutputStream()) {
+        outputStream.write(getRequestBody(credentials).getBytes(StandardCharsets.UTF_8));
+      }
+
+      int responseCode = connection.getResponseCode();
+      boolean successful = responseCode >= 200 && responseCode < 300;
+      String body;
+      try (InputStream inputStream = successful ? connection.getInputStream() : connection.getErrorStream()) {
+        body = inputStream == null ? "" : new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8);
+      }
+      if (!successful) {
+        throw new ODataException(String.format("Unable to obtain OAuth 2.0 access token from '%s'. Response code: %d,"
+                                                 + " response: '%s'.", url, responseCode, body));
+      }
+      return parseToken(body);
+    } catch (IOException e) {
+      throw new ODataException(String.format("Unable to obtain OAuth 2.0 access token from '%s': %s", url,
+                                             e.getMessage()), e);
+    }
+  }
+
+  private static String getRequestBody(OAuth2Credentials credentials) throws UnsupportedEncodingException {
+    StringBuilder body = new StringBuilder("grant_type=")
+      .append(URLEncoder.encode(credentials.getGrantType().getValue(), StandardCharsets.UTF_8.name()))
+      .append("&client_id=")
+      .append(URLEncoder.encode(credentials.getClientId(), StandardCharsets.UTF_8.name()));
+    if (!Strings.isNullOrEmpty(credentials.getScope())) {
+      body.append("&scope=").append(URLEncoder.encode(credentials.getScope(), StandardCharsets.UTF_8.name()));
+    }
+    if (credentials.getGrantType() == OAuth2Credentials.GrantType.SAML_BEARER) {
+      body.append("&assertion=").append(URLEncoder.encode(credentials.getAssertion(), StandardCharsets.UTF_8.name()));
+    }
+    return body.toString();
+  }
+
+  @VisibleForTesting
+  static Token parseToken(String body) {
+    try {
+      JsonObject json = new JsonParser().parse(body).getAsJsonObject();
+      JsonElement accessToken = json.get("access_token");
+      if (accessToken == null || accessToken.isJsonNull()) {
+        throw new ODataException(String.format("Token endpoint response does not contain 'access_token': '%s'.",
+                                               body));
+      }
+      JsonElement expiresIn = json.get("expires_in");
+      long lifetimeSeconds = expiresIn == null || expiresIn.isJsonNull() ? DEFAULT_LIFETIME_SECONDS
+        : expiresIn.getAsLong();
+      return new Token(accessToken.getAsString(), TimeUnit.SECONDS.toMillis(lifetimeSeconds));
+    } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+      throw new ODataException(String.format("Unable to parse token endpoint response: '%s'.", body), e);
+    }
+  }
+
+  /**
+   * Cached token of a single {@link OAuth2Credentials}.
+   */
+  private static final class Entry {
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile CachedToken token;
+  }
+
+  /**
+   * Access token issued by the token endpoint.
+   */
+  @VisibleForTesting
+  static final class Token {
+    private final String value;
+    private final long lifetimeMillis;
+
+    /**
+     * @param value          access token.
+     * @param lifetimeMillis token lifetime in milliseconds.
+     */
+    Token(String value, long lifetimeMillis) {
+      this.value = value;
+      this.lifetimeMillis = lifetimeMillis;
+    }
+
+    String getValue() {
+      return value;
+    }
+
+    long getLifetimeMillis() {
+      return lifetimeMillis;
+    }
+  }
+
+  /**
+   * Access token along with the points in time it should be refreshed and it expires.
+   */
+  private static final class CachedToken {
+    private final String value;
+    private final long refreshAt;
+    private final long expiresAt;
+
+    /**
+     * @param token    issued token.
+     * @param issuedAt time in milliseconds the token was requested at.
+     */
+    private CachedToken(Token token, long issuedAt) {
+      this.value = token.value;
+      this.refreshAt = issuedAt + (long) (token.lifetimeMillis * REFRESH_RATIO);
+      this.expiresAt = issuedAt + Math.max(token.lifetimeMillis - EXPIRATION_MARGIN_MILLIS, 0);
+    }
+  }
+}
@@ -23,6 +23,8 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Iterator;
 import javax.annotation.Nullable;
 
@@ -32,6 +34,7 @@ import javax.annotation.Nullable;
 public abstract class ODataClient {
 
   protected static final String METADATA = "$metadata";
+  protected static final String COUNT = "$count";
   protected static final String SEPARATOR = "/";
   protected static final String QUERY_SEPARATOR = "?";
 
@@ -39,6 +42,22 @@ public abstract class ODataClient {
   protected final String username;
   protected final String password;
 
+  /**
+   * OAuth 2.0 credentials, {@code null} if the service is accessed using basic authentication.
+   */
+  @Nullable
+  protected final OAuth2Credentials oAuth2Credentials;
+
+  /**
+   * SAP logon session reused across all requests of this client.
+   */
+  protected final SapSession session;
+
+  /**
+   * Compressed and uncompressed byte counters of all responses received by this client.
+   */
+  protected final TransferStatistics transferStatistics;
+
   /**
    * @param rootUrl  URL of the OData service. The URL must end with an external service name
    *                 (e.g., http://eccsvrname:8000/sap/opu/odata/sap/zgw100_dd02l_so_srv/).
@@ -46,9 +65,33 @@ public abstract class ODataClient {
    * @param password password for basic authentication.
    */
   public ODataClient(String rootUrl, String username, String password) {
+    this(rootUrl, username, password, null, new SapSession(), new TransferStatistics());
+  }
+
+  /**
+   * @param rootUrl            URL of the OData service. The URL must end with an external service name
+   *                           (e.g., http://eccsvrname:8000/sap/opu/odata/sap/zgw100_dd02l_so_srv/).
+   * @param username           username for basic authentication.
+   * @param password           password for basic authentication.
+   * @param oAuth2Credentials  OAuth 2.0 credentials, take precedence over basic authentication if specified.
+   * @param session            SAP logon session to reuse.
+   * @param transferStatistics byte counters to update.
+   */
+  protected ODataClient(String rootUrl, String username, String password, @Nullable OAuth2Credentials oAuth2Credentials,
+                        SapSession session, TransferStatistics transferStatistics) {
     this.rootUrl = rootUrl;
     this.username = username;
     this.password = password;
+    this.oAuth2Credentials = oAuth2Credentials;
+    this.session = session;
+    this.transferStatistics = transferStatistics;
+  }
+
+  /**
+   * @return compressed and uncompressed byte counters of all responses received by this client.
+   */
+  public TransferStatistics getTransferStatistics() {
+    return transferStatistics;
   }
 
   /**
@@ -59,7 +102,49 @@ public abstract class ODataClient {
    * @return {@link ODataEntity} iterator for the specified entity set name.
    * @throws ODataException if the specified entity set cannot be read.
    */
-  public abstract Iterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query);
+  public Iterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query) {
+    return queryEntitySet(entitySetName, query, 0);
+  }
+
+  /**
+   * Query the specified entity set using OData query, requesting entities page by page. Pages are requested lazily
+   * while iterating, server-driven paging next links are followed.
+   *
+   * @param entitySetName entity set name.
+   * @param query         optional query such as "$top=2&$select=BuyerName&$filter=BuyerName eq 'TECUM'".
+   * @param pageSize      maximum number of entities per page or zero to let the service choose the page size.
+   * @return {@link ODataEntity} iterator for the specified entity set name.
+   * @throws ODataException if the specified entity set cannot be read.
+   */
+  public PagingEntityIterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query, int pageSize) {
+    return queryEntitySet(entitySetName, query, pageSize, null);
+  }
+
+  /**
+   * Query the specified entity set using OData query, resuming from the given page of a previous iteration of the same
+   * query.
+   *
+   * @param entitySetName entity set name.
+   * @param query         optional query such as "$top=2&$select=BuyerName&$filter=BuyerName eq 'TECUM'".
+   * @param pageSize      maximum number of entities per page or zero to let the service choose the page size.
+   * @param start         position of the page to start from, as returned by
+   *                      {@link PagingEntityIterator#getPagePosition()}, {@code null} to start from the first page.
+   * @return {@link ODataEntity} iterator for the specified entity set name.
+   * @throws ODataException if the specified entity set cannot be read.
+   */
+  public abstract PagingEntityIterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query,
+                                                                   int pageSize, @Nullable PagePosition start);
+
+  /**
+   * Counts entities of the specified entity set using the '$count' path segment.
+   *
+   * @param entitySetName entity set name.
+   * @param query         optional query such as "$filter=BuyerName eq 'TECUM'". System query options other than
+   *                      '$filter' are ignored.
+   * @return number of entities matching the query.
+   * @throws ODataException if the entities cannot be counted.
+   */
+  public abstract long countEntitySet(String entitySetName, @Nullable String query);
 
   /**
    * Get {@link EntityType} info for the specified entity set name.
@@ -89,6 +174,47 @@ public abstract class ODataClient {
     }
   }
 
+  /**
+   * Constructs a '$count' URI according to the given entity set name and optional OData query.
+   *
+   * @param entitySetName entity set name.
+   * @param query         optional OData query string, system query options other than '$filter' are ignored.
+   * @return count URI.
+   */
+  protected URI getCountURI(String entitySetName, @Nullable String query) {
+    String countQuery = QueryOptions.parse(query).removeSystemOptions(QueryOptions.FILTER).toString();
+    return getQueryURI(entitySetName + SEPARATOR + COUNT, countQuery);
+  }
+
+  /**
+   * Parses the plain text body of a '$count' response.
+   *
+   * @param body response body.
+   * @return number of entities.
+   * @throws ODataException if the body is not a number.
+   */
+  protected static long parseCount(String body) {
+    try {
+      return Long.parseLong(body.trim());
+    } catch (NumberFormatException e) {
+      throw new ODataException(String.format("Unexpected '$count' response: '%s'.", body), e);
+    }
+  }
+
+  /**
+   * Resolves a next link returned by the service, which can be relative to the service root.
+   *
+   * @param nextLink next link.
+   * @return absolute next link URI.
+   */
+  protected URI resolveNextLink(String nextLink) {
+    try {
+      return new URI(rootUrl.endsWith(SEPARATOR) ? rootUrl : rootUrl + SEPARATOR).resolve(new URI(nextLink));
+    } catch (URISyntaxException e) {
+      throw new ODataException(String.format("Invalid next link: '%s'", nextLink), e);
+    }
+  }
+
   /**
    * Constructs metadata URI.
    *
@@ -106,11 +232,25 @@ public abstract class ODataClient {
   }
 
   /**
-   * Indicates whether basic auth is required.
+   * Indicates whether authentication is required.
    *
-   * @return {@code true} if basic auth is required, {@code false} otherwise.
+   * @return {@code true} if basic auth or OAuth 2.0 is required, {@code false} otherwise.
    */
   protected boolean isAuthRequired() {
-    return !Strings.isNullOrEmpty(username) || !Strings.isNullOrEmpty(password);
+    return oAuth2Credentials != null || !Strings.isNullOrEmpty(username) || !Strings.isNullOrEmpty(password);
+  }
+
+  /**
+   * Returns value of the 'Authorization' header. OAuth 2.0 access tokens are taken from the JVM-wide
+   * {@link OAuth2TokenCache}.
+   *
+   * @return 'Bearer' header value if OAuth 2.0 credentials are specified, 'Basic' header value otherwise.
+   */
+  protected String getAuthHeaderValue() {
+    if (oAuth2Credentials != null) {
+      return "Bearer " + OAuth2TokenCache.getInstance().getAccessToken(oAuth2Credentials);
+    }
+    byte[] credentials = (username + ":" + password).getBytes(StandardCharsets.UTF_8);
+    return "Basic " + Base64.getEncoder().encodeToString(credentials);
   }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import javax.annotation.Nullable;
+
+/**
+ * Position of a page within the result of an entity set query, from which reading the query can be resumed.
+ */
+public class PagePosition {
+
+  private final String link;
+  private final long offset;
+
+  /**
+   * @param link   URI of the page, {@code null} if the page is requested by the client from the offset.
+   * @param offset number of entities of the query preceding the page.
+   */
+  public PagePosition(@Nullable String link, long offset) {
+    this.link = link;
+    this.offset = offset;
+  }
+
+  @Nullable
+  public String getLink() {
+    return link;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  @Override
+  public String toString() {
+    return link == null ? "offset " + offset : link;
+  }
+}
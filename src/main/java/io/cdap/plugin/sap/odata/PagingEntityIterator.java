@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import io.cdap.plugin.sap.odata.exception.ODataException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+
+/**
+ * An iterator over the entities of all pages of an entity set query. Pages are requested lazily, one at a time, so
+ * only a single page is kept in memory. The position of the current page is tracked, so that reading the query can be
+ * resumed from it.
+ *
+ * @param <T> type of the entity representation.
+ */
+public abstract class PagingEntityIterator<T> implements Iterator<T> {
+
+  private final TransferStatistics transferStatistics;
+  private Iterator<T> page = Collections.emptyIterator();
+  private boolean lastPage;
+  private long entities;
+  private PagePosition pagePosition;
+
+  /**
+   * @param transferStatistics statistics to count requested pages in.
+   */
+  protected PagingEntityIterator(TransferStatistics transferStatistics) {
+    this(transferStatistics, null);
+  }
+
+  /**
+   * @param transferStatistics statistics to count requested pages in.
+   * @param start              position of the page to start from, {@code null} to start from the first page.
+   */
+  protected PagingEntityIterator(TransferStatistics transferStatistics, @Nullable PagePosition start) {
+    this.transferStatistics = transferStatistics;
+    this.entities = start == null ? 0 : start.getOffset();
+    this.pagePosition = start;
+  }
+
+  /**
+   * @return position of the page of the entity last returned by {@link #next()}, or of the page about to be read if
+   * all entities of the previous pages are returned. {@code null} if no page has been requested.
+   */
+  @Nullable
+  public PagePosition getPagePosition() {
+    return pagePosition;
+  }
+
+  /**
+   * Marks the start of the page requested by {@link #nextPage()}. Pages which cannot be requested on their own are not
+   * marked, so reading is resumed from the preceding marked page.
+   *
+   * @param link URI of the page, {@code null} if the page is requested by the client from the number of entities
+   *             returned so far.
+   */
+  protected void markPage(@Nullable String link) {
+    pagePosition = new PagePosition(link, entities);
+  }
+
+  /**
+   * Requests the next page.
+   *
+   * @return entities of the next page or {@code null} if there are no more pages.
+   * @throws ODataException if the page cannot be read.
+   */
+  @Nullable
+  protected abstract Iterator<T> nextPage();
+
+  @Override
+  public boolean hasNext() {
+    // pages might be empty
+    while (!page.hasNext() && !lastPage) {
+      long start = System.currentTimeMillis();
+      Iterator<T> next = nextPage();
+      if (next == null) {
+        lastPage = true;
+      } else {
+        transferStatistics.recordPage(System.currentTimeMillis() - start);
+        page = next;
+      }
+    }
+    return page.hasNext();
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    entities++;
+    return page.next();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import com.google.common.base.Strings;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Ordered set of OData system and custom query options, such as '$filter' and '$top', parsed from a query string.
+ * Option values are kept as they are written in the query string, so that the query string can be rebuilt with some of
+ * the options changed.
+ */
+public class QueryOptions {
+
+  public static final String TOP = "$top";
+  public static final String SKIP = "$skip";
+  public static final String SKIP_TOKEN = "$skiptoken";
+  public static final String FILTER = "$filter";
+  public static final String SELECT = "$select";
+  public static final String ORDER_BY = "$orderby";
+  public static final String APPLY = "$apply";
+
+  private static final String OPTION_SEPARATOR = "&";
+  private static final String VALUE_SEPARATOR = "=";
+
+  private final Map<String, String> options;
+
+  private QueryOptions(Map<String, String> options) {
+    this.options = options;
+  }
+
+  /**
+   * @param query query string such as "$top=2&$select=BuyerName&$filter=BuyerName eq 'TECUM'".
+   * @return parsed query options, empty if the query is {@code null} or empty.
+   */
+  public static QueryOptions parse(@Nullable String query) {
+    Map<String, String> options = new LinkedHashMap<>();
+    if (!Strings.isNullOrEmpty(query)) {
+      for (String option : query.split(OPTION_SEPARATOR)) {
+        if (option.isEmpty()) {
+          continue;
+        }
+        int separatorIndex = option.indexOf(VALUE_SEPARATOR);
+        if (separatorIndex == -1) {
+          options.put(option, null);
+        } else {
+          options.put(option.substring(0, separatorIndex), option.substring(separatorIndex + 1));
+        }
+      }
+    }
+    return new QueryOptions(options);
+  }
+
+  /**
+   * @return copy of these query options, which can be changed independently.
+   */
+  public QueryOptions copy() {
+    return new QueryOptions(new LinkedHashMap<>(options));
+  }
+
+  public boolean contains(String name) {
+    return options.containsKey(name);
+  }
+
+  @Nullable
+  public String get(String name) {
+    return options.get(name);
+  }
+
+  /**
+   * @param name option name.
+   * @return option value as a number or {@code null} if the option is not specified.
+   * @throws IllegalArgumentException if the option value is not a number.
+   */
+  @Nullable
+  public Long getLong(String name) {
+    String value = options.get(name);
+    if (Strings.isNullOrEmpty(value)) {
+      return null;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("Invalid '%s' query option value: '%s'.", name, value), e);
+    }
+  }
+
+  public QueryOptions set(String name, String value) {
+    options.put(name, value);
+    return this;
+  }
+
+  /**
+   * Combines the '$filter' option with the given expression using 'and'.
+   *
+   * @param expression filter expression, ignored if {@code null} or empty.
+   * @return these query options.
+   */
+  public QueryOptions addFilter(@Nullable String expression) {
+    if (Strings.isNullOrEmpty(expression)) {
+      return this;
+    }
+    String filter = options.get(FILTER);
+    options.put(FILTER, Strings.isNullOrEmpty(filter) ? expression : "(" + filter + ") and (" + expression + ")");
+    return this;
+  }
+
+  /**
+   * Removes system query options, which start with '$', except for the retained ones. Custom query options, such as
+   * 'sap-client', are kept.
+   *
+   * @param retained names of the system query options to keep.
+   * @return these query options.
+   */
+  public QueryOptions removeSystemOptions(String... retained) {
+    Set<String> retainedNames = new HashSet<>(Arrays.asList(retained));
+    options.keySet().removeIf(name -> name.startsWith("$") && !retainedNames.contains(name));
+    return this;
+  }
+
+  public QueryOptions remove(String name) {
+    options.remove(name);
+    return this;
+  }
+
+  /**
+   * @return query string, empty if there are no options.
+   */
+  @Override
+  public String toString() {
+    return options.entrySet().stream()
+      .map(option -> option.getValue() == null ? option.getKey()
+        : option.getKey() + VALUE_SEPARATOR + option.getValue())
+      .collect(Collectors.joining(OPTION_SEPARATOR));
+  }
+}
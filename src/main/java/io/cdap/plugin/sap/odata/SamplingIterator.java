@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import javax.annotation.Nullable;
+
+/**
+ * An iterator over a random sample of an entity set, read as windows of consecutive entities spread over the whole
+ * entity set instead of scanning it. The entity set is counted with '$count' and divided into equal strata, and one
+ * window is read at a random position within each stratum with '$skip' and '$top', ordered by the entity key so that
+ * positions are stable. Windows are requested lazily, one at a time.
+ */
+public class SamplingIterator implements Iterator<ODataEntity> {
+
+  /**
+   * Maximum number of windows, more windows spread the sample more evenly at the cost of a request per window.
+   */
+  static final int MAX_WINDOWS = 10;
+
+  private final ODataClient client;
+  private final String entitySetName;
+  private final QueryOptions options;
+  private final int pageSize;
+  private final long sampleSize;
+  private final Random random;
+  private List<Window> windows;
+  private int windowIndex;
+  private Iterator<ODataEntity> window = Collections.emptyIterator();
+
+  /**
+   * @param client        client of the OData service.
+   * @param entitySetName name of the entity set to sample.
+   * @param query         query options of the source, can be {@code null}. Paging options are replaced by the
+   *                      windows.
+   * @param pageSize      maximum number of entities per page, {@code 0} to use the service default.
+   * @param sampleSize    number of entities to read, all entities are read if there are not more of them.
+   * @param random        source of the window positions.
+   */
+  public SamplingIterator(ODataClient client, String entitySetName, @Nullable String query, int pageSize,
+                          long sampleSize, Random random) {
+    this.client = client;
+    this.entitySetName = entitySetName;
+    this.options = QueryOptions.parse(query)
+      .remove(QueryOptions.TOP)
+      .remove(QueryOptions.SKIP)
+      .remove(QueryOptions.SKIP_TOKEN);
+    this.pageSize = pageSize;
+    this.sampleSize = sampleSize;
+    this.random = random;
+  }
+
+  @Override
+  public boolean hasNext() {
+    // windows might be empty if the entity set shrank since it was counted
+    while (!window.hasNext()) {
+      if (windows == null) {
+        windows = planWindows();
+      }
+      if (windowIndex == windows.size()) {
+        return false;
+      }
+      Window next = windows.get(windowIndex++);
+      QueryOptions windowOptions = options.copy()
+        .set(QueryOptions.SKIP, Long.toString(next.skip))
+        .set(QueryOptions.TOP, Long.toString(next.top));
+      window = client.queryEntitySet(entitySetName, windowOptions.toString(), pageSize);
+    }
+    return true;
+  }
+
+  @Override
+  public ODataEntity next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return window.next();
+  }
+
+  /**
+   * @return windows in ascending order of their positions, a single window if the sample covers the entity set.
+   */
+  private List<Window> planWindows() {
+    long total = client.countEntitySet(entitySetName, options.toString());
+    if (!options.contains(QueryOptions.ORDER_BY)) {
+      List<String> keys = client.getEntitySetType(entitySetName).getKeyPropertyNames();
+      if (!keys.isEmpty()) {
+        options.set(QueryOptions.ORDER_BY, String.join(",", keys));
+      }
+    }
+    long windowCount = Math.min(MAX_WINDOWS, sampleSize);
+    long windowSize = (sampleSize + windowCount - 1) / windowCount;
+    long stratumSize = total / windowCount;
+    if (stratumSize <= windowSize) {
+      return Collections.singletonList(new Window(0, Math.min(sampleSize, total)));
+    }
+    List<Window> planned = new ArrayList<>();
+    long remaining = sampleSize;
+    for (long i = 0; i < windowCount && remaining > 0; i++) {
+      long top = Math.min(windowSize, remaining);
+      long offset = (long) (random.nextDouble() * (stratumSize - top + 1));
+      planned.add(new Window(i * stratumSize + offset, top));
+      remaining -= top;
+    }
+    return planned;
+  }
+
+  /**
+   * Consecutive entities read with '$skip' and '$top'.
+   */
+  private static class Window {
+
+    private final long skip;
+    private final long top;
+
+    private Window(long skip, long top) {
+      this.skip = skip;
+      this.top = top;
+    }
+  }
+}
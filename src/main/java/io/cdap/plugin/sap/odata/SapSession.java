@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.odata;
+
+import java.net.HttpCookie;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * SAP logon session shared by the requests of an OData client. Keeps the cookies issued by SAP Gateway, such as
+ * 'SAP_SESSIONID_&lt;SID&gt;_&lt;client&gt;' and 'MYSAPSSO2', along with the CSRF token, so that subsequent page and
+ * metadata requests reuse the session instead of performing a full logon every time.
+ */
+public class SapSession {
+
+  public static final String CSRF_TOKEN_HEADER = "X-CSRF-Token";
+
+  /**
+   * Header value used to request a new CSRF token.
+   */
+  private static final String CSRF_TOKEN_FETCH = "Fetch";
+
+  /**
+   * Header value returned by SAP Gateway when the CSRF token is missing or invalid.
+   */
+  private static final String CSRF_TOKEN_REQUIRED = "Required";
+
+  private final Map<String, String> cookies = new LinkedHashMap<>();
+  private String csrfToken;
+
+  /**
+   * @return {@code true} if the session cookies were issued and requests can be sent without credentials.
+   */
+  public synchronized boolean isActive() {
+    return !cookies.isEmpty();
+  }
+
+  /**
+   * @return value of the 'Cookie' request header or {@code null} if there are no session cookies.
+   */
+  @Nullable
+  public synchronized String getCookieHeaderValue() {
+    if (cookies.isEmpty()) {
+      return null;
+    }
+    return cookies.entrySet().stream()
+      .map(cookie -> cookie.getKey() + "=" + cookie.getValue())
+      .collect(Collectors.joining("; "));
+  }
+
+  /**
+   * @return value of the 'X-CSRF-Token' request header. Requests a new token if there is no token yet.
+   */
+  public synchronized String getCsrfTokenHeaderValue() {
+    return csrfToken == null ? CSRF_TOKEN_FETCH : csrfToken;
+  }
+
+  /**
+   * Updates session state from the response headers.
+   *
+   * @param setCookieHeaders values of the 'Set-Cookie' response headers.
+   * @param csrfToken        value of the 'X-CSRF-Token' response header.
+   */
+  public synchronized void update(@Nullable List<String> setCookieHeaders, @Nullable String csrfToken) {
+    if (setCookieHeaders != null) {
+      for (String header : setCookieHeaders) {
+        updateCookies(header);
+      }
+    }
+    if (csrfToken != null && !csrfToken.isEmpty() && !CSRF_TOKEN_REQUIRED.equalsIgnoreCase(csrfToken)) {
+      this.csrfToken = csrfToken;
+    }
+  }
+
+  /**
+   * Discards session cookies and CSRF token, so that the next request performs a logon.
+   */
+  public synchronized void invalidate() {
+    cookies.clear();
+    csrfToken = null;
+  }
+
+  private void updateCookies(String setCookieHeader) {
+    List<HttpCookie> parsed;
+    try {
+      parsed = HttpCookie.parse(setCookieHeader);
+    } catch (IllegalArgumentException e) {
+      // malformed cookies are ignored, the same way as browsers do
+      return;
+    }
+    for (HttpCookie cookie : parsed) {
+      if (cookie.hasExpired()) {
+        // SAP deletes cookies on logoff by setting expiration date in the past
+        cookies.remove(cookie.getName());
+      } else {
+        cookies.put(cookie.getName(), cookie.getValue());
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Decodes compressed response bodies as a stream and counts the number of bytes received over the network, along with
+ * the number of bytes after decoding. Also counts entity set pages and the time spent requesting them. Statistics are
+ * shared by all requests of an OData client.
+ */
+public class TransferStatistics {
+
+  /**
+   * Value of the 'Accept-Encoding' request header.
+   */
+  public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final AtomicLong compressedBytes = new AtomicLong();
+  private final AtomicLong uncompressedBytes = new AtomicLong();
+  private final AtomicLong pages = new AtomicLong();
+  private final AtomicLong pageMillis = new AtomicLong();
+
+  /**
+   * @return number of response body bytes received over the network.
+   */
+  public long getCompressedBytes() {
+    return compressedBytes.get();
+  }
+
+  /**
+   * @return number of response body bytes after decoding. Equals to the number of received bytes for responses that
+   * are not compressed.
+   */
+  public long getUncompressedBytes() {
+    return uncompressedBytes.get();
+  }
+
+  /**
+   * @return number of entity set pages requested.
+   */
+  public long getPages() {
+    return pages.get();
+  }
+
+  /**
+   * @return total time in milliseconds spent requesting entity set pages, until the first entity of each page is
+   * available.
+   */
+  public long getPageMillis() {
+    return pageMillis.get();
+  }
+
+  /**
+   * Counts a requested entity set page.
+   *
+   * @param millis time in milliseconds spent requesting the page.
+   */
+  public void recordPage(long millis) {
+    pages.incrementAndGet();
+    pageMillis.addAndGet(millis);
+  }
+
+  /**
+   * Wraps the response body to decode it according to the 'Content-Encoding' header and count transferred bytes.
+   *
+   * @param content         response body as received over the network.
+   * @param contentEncoding value of the 'Content-Encoding' response header.
+   * @return decoded response body.
+   * @throws IOException if the compressed stream header cannot be read.
+   */
+  public InputStream decode(InputStream content, @Nullable String contentEncoding) throws IOException {
+    InputStream received = new CountingInputStream(content, compressedBytes);
+    String encoding = contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+    InputStream decoded;
+    switch (encoding) {
+      case "gzip":
+      case "x-gzip":
+        decoded = new GZIPInputStream(received, BUFFER_SIZE);
+        break;
+      case "deflate":
+        decoded = inflate(received);
+        break;
+      default:
+        decoded = received;
+    }
+    return new CountingInputStream(decoded, uncompressedBytes);
+  }
+
+  /**
+   * HTTP 'deflate' content coding is zlib-wrapped deflate, but some servers send raw deflate data. The zlib header is
+   * detected by its checksum.
+   */
+  private InputStream inflate(InputStream received) throws IOException {
+    BufferedInputStream buffered = new BufferedInputStream(received, BUFFER_SIZE);
+    buffered.mark(2);
+    int first = buffered.read();
+    int second = buffered.read();
+    buffered.reset();
+    boolean zlib = first != -1 && second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+    return new InflaterInputStream(buffered, new Inflater(!zlib), BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          // custom inflaters are not released by InflaterInputStream itself
+          inf.end();
+        }
+      }
+    };
+  }
+
+  /**
+   * Adds the number of read bytes to the counter.
+   */
+  private static final class CountingInputStream extends FilterInputStream {
+
+    private final AtomicLong counter;
+
+    private CountingInputStream(InputStream in, AtomicLong counter) {
+      super(in);
+      this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int result = in.read();
+      if (result != -1) {
+        counter.incrementAndGet();
+      }
+      return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int result = in.read(b, off, len);
+      if (result != -1) {
+        counter.addAndGet(result);
+      }
+      return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long result = in.skip(n);
+      counter.addAndGet(result);
+      return result;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
+}
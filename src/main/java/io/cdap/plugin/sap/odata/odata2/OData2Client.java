@@ -16,12 +16,23 @@
 
 package io.cdap.plugin.sap.odata.odata2;
 
+import com.google.common.io.ByteStreams;
+import io.cdap.plugin.sap.odata.Aggregation;
 import io.cdap.plugin.sap.odata.EntityType;
+import io.cdap.plugin.sap.odata.OAuth2Credentials;
+import io.cdap.plugin.sap.odata.OAuth2TokenCache;
 import io.cdap.plugin.sap.odata.ODataClient;
 import io.cdap.plugin.sap.odata.ODataEntity;
+import io.cdap.plugin.sap.odata.PagePosition;
+import io.cdap.plugin.sap.odata.PagingEntityIterator;
 import io.cdap.plugin.sap.odata.PropertyMetadata;
+import io.cdap.plugin.sap.odata.QueryOptions;
+import io.cdap.plugin.sap.odata.SapSession;
+import io.cdap.plugin.sap.odata.TransferStatistics;
 import io.cdap.plugin.sap.odata.exception.ODataException;
 import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmAnnotationAttribute;
+import org.apache.olingo.odata2.api.edm.EdmAnnotations;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
@@ -29,6 +40,7 @@ import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.ep.EntityProvider;
 import org.apache.olingo.odata2.api.ep.EntityProviderException;
 import org.apache.olingo.odata2.api.ep.EntityProviderReadProperties;
+import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
 import org.apache.olingo.odata2.api.ep.feed.ODataFeed;
 
 import java.io.IOException;
@@ -38,9 +50,11 @@ import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
@@ -55,6 +69,8 @@ public class OData2Client extends ODataClient {
    * Default {@link EntityProvider} settings to read an entity.
    */
   private static final EntityProviderReadProperties READ_PROPERTIES = EntityProviderReadProperties.init().build();
+  private static final String SAP_NAMESPACE = "http://www.sap.com/Protocols/SAPData";
+  private static final String AGGREGATION_ROLE_ATTRIBUTE = "aggregation-role";
 
   /**
    * Cache metadata to avoid repetitive API calls.
@@ -68,7 +84,21 @@ public class OData2Client extends ODataClient {
    * @param password password for basic authentication.
    */
   public OData2Client(String rootUrl, String username, String password) {
-    super(rootUrl, username, password);
+    this(rootUrl, username, password, null, new SapSession(), new TransferStatistics());
+  }
+
+  /**
+   * @param rootUrl            URL of the OData service. The URL must end with an external service name
+   *                           (e.g., http://eccsvrname:8000/sap/opu/odata/sap/zgw100_dd02l_so_srv/).
+   * @param username           username for basic authentication.
+   * @param password           password for basic authentication.
+   * @param oAuth2Credentials  OAuth 2.0 credentials, take precedence over basic authentication if specified.
+   * @param session            SAP logon session to reuse.
+   * @param transferStatistics byte counters to update.
+   */
+  public OData2Client(String rootUrl, String username, String password, @Nullable OAuth2Credentials oAuth2Credentials,
+                      SapSession session, TransferStatistics transferStatistics) {
+    super(rootUrl, username, password, oAuth2Credentials, session, transferStatistics);
   }
 
   /**
@@ -84,17 +114,32 @@ public class OData2Client extends ODataClient {
     return metadata;
   }
 
+  /**
+   * {@inheritDoc}
+   * OData V2 services do not support page size preferences, so if the page size is specified, pages are requested using
+   * '$top' and '$skip' query options within the range requested by the query.
+   */
   @Override
-  public Iterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query) {
-    Edm metadata = getMetadata();
-    URI queryURI = getQueryURI(entitySetName, query);
-    HttpURLConnection connection = connect(queryURI.toASCIIString(), MediaType.APPLICATION_ATOM_XML);
-    try (InputStream content = (InputStream) connection.getContent()) {
-      EdmEntitySet entitySet = metadata.getDefaultEntityContainer().getEntitySet(entitySetName);
-      ODataFeed feed = EntityProvider.readFeed(connection.getContentType(), entitySet, content, READ_PROPERTIES);
-
-      return new OData2EntityIterator(feed.getEntries().iterator());
-    } catch (IOException | EdmException | EntityProviderException e) {
+  public PagingEntityIterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query, int pageSize,
+                                                          @Nullable PagePosition start) {
+    // fail fast if the entity set does not exist
+    getEntitySet(entitySetName);
+    return new PagingIterator(entitySetName, QueryOptions.parse(query), pageSize, start);
+  }
+
+  /**
+   * Reads a single page of the entity set.
+   *
+   * @param entitySetName entity set name.
+   * @param pageURI       URI of the page.
+   * @return feed of the page entries along with the next link.
+   */
+  private ODataFeed readFeed(String entitySetName, URI pageURI) {
+    EdmEntitySet entitySet = getEntitySet(entitySetName);
+    HttpURLConnection connection = connect(pageURI.toASCIIString(), MediaType.APPLICATION_ATOM_XML);
+    try (InputStream content = getContent(connection)) {
+      return EntityProvider.readFeed(connection.getContentType(), entitySet, content, READ_PROPERTIES);
+    } catch (IOException | EntityProviderException e) {
       throw new ODataException(String.format("Unable to read '%s' entity set.", entitySetName), e);
     } finally {
       // will close the content InputStream
@@ -102,6 +147,31 @@ public class OData2Client extends ODataClient {
     }
   }
 
+  @Override
+  public long countEntitySet(String entitySetName, @Nullable String query) {
+    HttpURLConnection connection = connect(getCountURI(entitySetName, query).toASCIIString(), MediaType.TEXT_PLAIN);
+    try (InputStream content = getContent(connection)) {
+      return parseCount(new String(ByteStreams.toByteArray(content), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new ODataException(String.format("Unable to count '%s' entity set.", entitySetName), e);
+    } finally {
+      // will close the content InputStream
+      connection.disconnect();
+    }
+  }
+
+  private EdmEntitySet getEntitySet(String entitySetName) {
+    try {
+      EdmEntitySet entitySet = getMetadata().getDefaultEntityContainer().getEntitySet(entitySetName);
+      if (entitySet == null) {
+        throw new ODataException(String.format("Entity set '%s' does not exist.", entitySetName));
+      }
+      return entitySet;
+    } catch (EdmException e) {
+      throw new ODataException(String.format("Unable to read '%s' entity set.", entitySetName), e);
+    }
+  }
+
   @Override
   public EntityType getEntitySetType(String entitySetName) {
     try {
@@ -113,7 +183,7 @@ public class OData2Client extends ODataClient {
         properties.add(edmToProperty(property));
       }
 
-      return new EntityType(edmEntityType.getName(), properties);
+      return new EntityType(edmEntityType.getName(), properties, edmEntityType.getKeyPropertyNames());
     } catch (EdmException e) {
       throw new ODataException("Unable to get entity set type: " + e.getMessage(), e);
     }
@@ -125,12 +195,21 @@ public class OData2Client extends ODataClient {
     Integer precision = property.getFacets().getPrecision();
     Integer scale = property.getFacets().getScale();
 
-    return new PropertyMetadata(property.getName(), type, nullable, precision, scale, null);
+    // the aggregation role tells dimensions and measures of analytical entity types apart
+    Map<String, String> annotations = new HashMap<>();
+    EdmAnnotations edmAnnotations = property.getAnnotations();
+    EdmAnnotationAttribute aggregationRole = edmAnnotations == null ? null
+      : edmAnnotations.getAnnotationAttribute(AGGREGATION_ROLE_ATTRIBUTE, SAP_NAMESPACE);
+    if (aggregationRole != null) {
+      annotations.put(Aggregation.SAP_AGGREGATION_ROLE, aggregationRole.getText());
+    }
+
+    return new PropertyMetadata(property.getName(), type, nullable, precision, scale, annotations);
   }
 
   private void initMetadata() {
     HttpURLConnection connection = connect(getMetadataURI().toASCIIString(), MediaType.APPLICATION_XML);
-    try (InputStream content = connection.getInputStream()) {
+    try (InputStream content = getContent(connection)) {
       metadata = EntityProvider.readMetadata(content, false);
     } catch (IOException | EntityProviderException e) {
       throw new ODataException("Unable to get metadata: " + e.getMessage(), e);
@@ -140,24 +219,140 @@ public class OData2Client extends ODataClient {
     }
   }
 
+  /**
+   * Sends GET request reusing the SAP session if there is one. Logs on again if the session or the OAuth 2.0 access
+   * token has expired.
+   */
   private HttpURLConnection connect(String url, String medialType) {
     try {
-      HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-      connection.setRequestMethod(HttpMethod.GET);
-      connection.setRequestProperty(HttpHeaders.ACCEPT, medialType);
-      if (isAuthRequired()) {
-        connection.setRequestProperty(HttpHeaders.AUTHORIZATION, getAuthHeaderValue());
+      HttpURLConnection connection = openConnection(url, medialType);
+      if (connection.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED
+        && (session.isActive() || oAuth2Credentials != null)) {
+        // session or access token has expired, log on using credentials
+        connection.disconnect();
+        session.invalidate();
+        if (oAuth2Credentials != null) {
+          OAuth2TokenCache.getInstance().invalidate(oAuth2Credentials);
+        }
+        connection = openConnection(url, medialType);
       }
-      connection.connect();
+      session.update(getHeaderValues(connection, HttpHeaders.SET_COOKIE),
+                     connection.getHeaderField(SapSession.CSRF_TOKEN_HEADER));
       return connection;
     } catch (IOException e) {
       throw new ODataException(String.format("Unable to connect to '%s': %s", url, e.getMessage()), e);
     }
   }
 
-  private String getAuthHeaderValue() {
-    byte[] credentials = (username + ":" + password).getBytes(StandardCharsets.UTF_8);
-    String encoded = Base64.getEncoder().encodeToString(credentials);
-    return "Basic " + encoded;
+  private HttpURLConnection openConnection(String url, String medialType) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setRequestMethod(HttpMethod.GET);
+    connection.setRequestProperty(HttpHeaders.ACCEPT, medialType);
+    connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, TransferStatistics.ACCEPT_ENCODING);
+    connection.setRequestProperty(SapSession.CSRF_TOKEN_HEADER, session.getCsrfTokenHeaderValue());
+    String cookies = session.getCookieHeaderValue();
+    if (cookies != null) {
+      // session cookies authenticate the request, so the logon is skipped
+      connection.setRequestProperty(HttpHeaders.COOKIE, cookies);
+    }
+    // bearer tokens are sent along with every request, they are validated without a logon
+    if (oAuth2Credentials != null || (cookies == null && isAuthRequired())) {
+      connection.setRequestProperty(HttpHeaders.AUTHORIZATION, getAuthHeaderValue());
+    }
+    connection.connect();
+    return connection;
+  }
+
+  /**
+   * Returns response body decoded according to the 'Content-Encoding' header.
+   */
+  private InputStream getContent(HttpURLConnection connection) throws IOException {
+    return transferStatistics.decode(connection.getInputStream(), connection.getContentEncoding());
+  }
+
+  private List<String> getHeaderValues(HttpURLConnection connection, String headerName) {
+    return connection.getHeaderFields().entrySet().stream()
+      .filter(header -> headerName.equalsIgnoreCase(header.getKey()))
+      .flatMap(header -> header.getValue().stream())
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Requests pages of the entity set one by one. Server-driven paging next links are always followed. If the page size
+   * is specified, each page is requested with '$top' and '$skip' query options, until a page is incomplete or the
+   * number of entities requested by the original '$top' query option is read. Next links within a client-driven page
+   * are not marked as page positions, since the rest of the page could not be requested after them.
+   */
+  private class PagingIterator extends PagingEntityIterator<ODataEntity> {
+
+    private final String entitySetName;
+    private final QueryOptions options;
+    private final int pageSize;
+    private final long skip;
+    private final Long top;
+
+    private String nextLink;
+    private boolean started;
+    private long read;
+    private long requestedInPage;
+    private long readInPage;
+
+    private PagingIterator(String entitySetName, QueryOptions options, int pageSize, @Nullable PagePosition start) {
+      super(transferStatistics, start);
+      this.entitySetName = entitySetName;
+      this.options = options;
+      this.pageSize = pageSize;
+      Long skip = options.getLong(QueryOptions.SKIP);
+      this.skip = skip == null ? 0 : skip;
+      this.top = options.getLong(QueryOptions.TOP);
+      if (start != null) {
+        read = start.getOffset();
+        nextLink = start.getLink();
+        started = nextLink != null;
+      }
+    }
+
+    @Nullable
+    @Override
+    protected Iterator<ODataEntity> nextPage() {
+      URI pageURI;
+      if (nextLink != null) {
+        pageURI = resolveNextLink(nextLink);
+        if (pageSize <= 0) {
+          markPage(nextLink);
+        }
+      } else if (!started) {
+        pageURI = getQueryURI(entitySetName, getPageQuery());
+        markPage(null);
+      } else if (pageSize > 0 && readInPage == requestedInPage && (top == null || read < top)) {
+        pageURI = getQueryURI(entitySetName, getPageQuery());
+        markPage(null);
+      } else {
+        return null;
+      }
+      started = true;
+
+      ODataFeed feed = readFeed(entitySetName, pageURI);
+      List<ODataEntry> entries = feed.getEntries();
+      read += entries.size();
+      readInPage += entries.size();
+      nextLink = feed.getFeedMetadata() == null ? null : feed.getFeedMetadata().getNextLink();
+      return new OData2EntityIterator(entries.iterator());
+    }
+
+    private String getPageQuery() {
+      if (pageSize <= 0) {
+        return options.toString();
+      }
+      requestedInPage = top == null ? pageSize : Math.min(pageSize, top - read);
+      readInPage = 0;
+      QueryOptions pageOptions = options.copy()
+        .set(QueryOptions.TOP, Long.toString(requestedInPage))
+        .remove(QueryOptions.SKIP);
+      if (skip + read > 0) {
+        pageOptions.set(QueryOptions.SKIP, Long.toString(skip + read));
+      }
+      return pageOptions.toString();
+    }
   }
 }
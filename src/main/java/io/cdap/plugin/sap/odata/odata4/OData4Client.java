@@ -16,26 +16,41 @@
 
 package io.cdap.plugin.sap.odata.odata4;
 
+import com.google.common.io.ByteStreams;
 import io.cdap.plugin.sap.odata.EntityType;
+import io.cdap.plugin.sap.odata.JsonPageParser;
+import io.cdap.plugin.sap.odata.OAuth2Credentials;
 import io.cdap.plugin.sap.odata.ODataClient;
 import io.cdap.plugin.sap.odata.ODataEntity;
+import io.cdap.plugin.sap.odata.PagePosition;
+import io.cdap.plugin.sap.odata.PagingEntityIterator;
 import io.cdap.plugin.sap.odata.PropertyMetadata;
+import io.cdap.plugin.sap.odata.SapSession;
+import io.cdap.plugin.sap.odata.TransferStatistics;
+import io.cdap.plugin.sap.odata.exception.ODataException;
+import org.apache.http.HttpStatus;
+import org.apache.olingo.client.api.communication.ODataClientErrorException;
 import org.apache.olingo.client.api.communication.request.retrieve.EdmMetadataRequest;
 import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySetIteratorRequest;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataRawRequest;
+import org.apache.olingo.client.api.communication.response.ODataRawResponse;
 import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
 import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.domain.ClientEntitySet;
 import org.apache.olingo.client.api.domain.ClientEntitySetIterator;
 import org.apache.olingo.client.core.ODataClientFactory;
-import org.apache.olingo.client.core.http.BasicAuthHttpClientFactory;
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmProperty;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import javax.ws.rs.core.MediaType;
 
@@ -45,6 +60,8 @@ import javax.ws.rs.core.MediaType;
 public class OData4Client extends ODataClient {
 
   private org.apache.olingo.client.api.ODataClient client;
+  // metadata is requested once and shared by all entity sets of the service
+  private Edm edm;
 
   /**
    * @param rootUrl  URL of the OData service. The URL must end with an external service name
@@ -53,40 +70,139 @@ public class OData4Client extends ODataClient {
    * @param password password for basic authentication.
    */
   public OData4Client(String rootUrl, String username, String password) {
-    super(rootUrl, username, password);
+    this(rootUrl, username, password, null, new SapSession(), new TransferStatistics());
+  }
+
+  /**
+   * @param rootUrl            URL of the OData service. The URL must end with an external service name
+   *                           (e.g., http://eccsvrname:8000/sap/opu/odata/sap/zgw100_dd02l_so_srv/).
+   * @param username           username for basic authentication.
+   * @param password           password for basic authentication.
+   * @param oAuth2Credentials  OAuth 2.0 credentials, take precedence over basic authentication if specified.
+   * @param session            SAP logon session to reuse.
+   * @param transferStatistics byte counters to update.
+   */
+  public OData4Client(String rootUrl, String username, String password, @Nullable OAuth2Credentials oAuth2Credentials,
+                      SapSession session, TransferStatistics transferStatistics) {
+    super(rootUrl, username, password, oAuth2Credentials, session, transferStatistics);
     this.client = ODataClientFactory.getClient();
-    if (isAuthRequired()) {
-      client.getConfiguration().setHttpClientFactory(new BasicAuthHttpClientFactory(username, password));
-    }
+    client.getConfiguration().setHttpClientFactory(new SapSessionHttpClientFactory(username, password,
+                                                                                   oAuth2Credentials, session,
+                                                                                   transferStatistics));
   }
 
+  /**
+   * {@inheritDoc}
+   * The page size is sent to the service as 'Prefer: odata.maxpagesize' preference.
+   */
   @Override
-  public Iterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query) {
-    URI queryURI = getQueryURI(entitySetName, query);
-    ODataEntitySetIteratorRequest<ClientEntitySet, ClientEntity> request = client
-      .getRetrieveRequestFactory()
-      .getEntitySetIteratorRequest(queryURI);
-    request.setAccept(MediaType.APPLICATION_JSON);
-
-    ODataRetrieveResponse<ClientEntitySetIterator<ClientEntitySet, ClientEntity>> response = request.execute();
-    return new OData4EntityIterator(response.getBody());
+  public PagingEntityIterator<ODataEntity> queryEntitySet(String entitySetName, @Nullable String query, int pageSize,
+                                                          @Nullable PagePosition start) {
+    return new PagingIterator(getQueryURI(entitySetName, query), pageSize, start);
   }
 
   @Override
-  public EntityType getEntitySetType(String entitySetName) {
-    EdmMetadataRequest request = client.getRetrieveRequestFactory().getMetadataRequest(rootUrl);
-    request.setAccept(MediaType.APPLICATION_XML);
+  public long countEntitySet(String entitySetName, @Nullable String query) {
+    ODataRawResponse response = execute(() -> {
+      ODataRawRequest request = client.getRetrieveRequestFactory().getRawRequest(getCountURI(entitySetName, query));
+      request.setAccept(MediaType.TEXT_PLAIN);
+      return request.execute();
+    });
+    try (InputStream content = response.getRawResponse()) {
+      return parseCount(new String(ByteStreams.toByteArray(content), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new ODataException(String.format("Unable to count '%s' entity set.", entitySetName), e);
+    } finally {
+      response.close();
+    }
+  }
+
+  /**
+   * Queries the entity set and parses the JSON payload of each page with the given parser, bypassing the Olingo
+   * object model. Pages are requested lazily, following next links.
+   *
+   * @param entitySetName name of the entity set to query.
+   * @param query         OData query options, can be {@code null}.
+   * @param pageSize      maximum number of entities per page, {@code 0} to use the service default.
+   * @param parser        parser of the page payload.
+   * @param start         position of the page to start from, {@code null} to start from the first page.
+   * @param <T>           type of the entity representation.
+   * @return iterator over the parsed entities of all pages.
+   */
+  public <T> PagingEntityIterator<T> queryEntitySetJson(String entitySetName, @Nullable String query, int pageSize,
+                                                        JsonPageParser<T> parser, @Nullable PagePosition start) {
+    return new JsonPagingIterator<>(getQueryURI(entitySetName, query), pageSize, parser, start);
+  }
+
+  private <T> JsonPageParser.JsonPage<T> readJsonPage(URI pageURI, int pageSize, JsonPageParser<T> parser) {
+    ODataRawResponse response = execute(() -> {
+      ODataRawRequest request = client.getRetrieveRequestFactory().getRawRequest(pageURI);
+      request.setAccept(MediaType.APPLICATION_JSON);
+      if (pageSize > 0) {
+        request.setPrefer(client.newPreferences().maxPageSize(pageSize));
+      }
+      return request.execute();
+    });
+    try {
+      return parser.parse(response.getRawResponse());
+    } catch (IOException e) {
+      response.close();
+      throw new ODataException(String.format("Unable to read page '%s': %s", pageURI, e.getMessage()), e);
+    }
+  }
+
+  private ClientEntitySetIterator<ClientEntitySet, ClientEntity> readPage(URI pageURI, int pageSize) {
+    ODataRetrieveResponse<ClientEntitySetIterator<ClientEntitySet, ClientEntity>> response = execute(() -> {
+      ODataEntitySetIteratorRequest<ClientEntitySet, ClientEntity> request = client
+        .getRetrieveRequestFactory()
+        .getEntitySetIteratorRequest(pageURI);
+      request.setAccept(MediaType.APPLICATION_JSON);
+      if (pageSize > 0) {
+        request.setPrefer(client.newPreferences().maxPageSize(pageSize));
+      }
+      return request.execute();
+    });
+    return response.getBody();
+  }
+
+  /**
+   * Executes a request, created by the given supplier, once more if the OAuth 2.0 access token is rejected. The
+   * rejected token is invalidated by {@link SapSessionHttpClientFactory}, so the retried request obtains a new one.
+   * Expired sessions with basic authentication are handled by the HTTP client, which answers the challenge.
+   */
+  private <T> T execute(Supplier<T> request) {
+    try {
+      return request.get();
+    } catch (ODataClientErrorException e) {
+      if (oAuth2Credentials == null || e.getStatusLine().getStatusCode() != HttpStatus.SC_UNAUTHORIZED) {
+        throw e;
+      }
+      return request.get();
+    }
+  }
 
-    ODataRetrieveResponse<Edm> response = request.execute();
-    Edm edm = response.getBody();
-    EdmEntityType entityType = edm.getEntityContainer().getEntitySet(entitySetName).getEntityType();
+  @Override
+  public EntityType getEntitySetType(String entitySetName) {
+    EdmEntityType entityType = getEdm().getEntityContainer().getEntitySet(entitySetName).getEntityType();
     List<PropertyMetadata> properties = new ArrayList<>();
     for (String propertyName : entityType.getPropertyNames()) {
       EdmProperty property = (EdmProperty) entityType.getProperty(propertyName);
       properties.add(edmToProperty(property));
     }
 
-    return new EntityType(entityType.getName(), properties);
+    return new EntityType(entityType.getName(), properties, entityType.getKeyPredicateNames());
+  }
+
+  private Edm getEdm() {
+    if (edm == null) {
+      ODataRetrieveResponse<Edm> response = execute(() -> {
+        EdmMetadataRequest request = client.getRetrieveRequestFactory().getMetadataRequest(rootUrl);
+        request.setAccept(MediaType.APPLICATION_XML);
+        return request.execute();
+      });
+      edm = response.getBody();
+    }
+    return edm;
   }
 
   private PropertyMetadata edmToProperty(EdmProperty property) {
@@ -97,4 +213,75 @@ public class OData4Client extends ODataClient {
 
     return new PropertyMetadata(property.getName(), type, nullable, precision, scale, null);
   }
+
+  /**
+   * Requests pages of the entity set one by one, following next links.
+   */
+  private class PagingIterator extends PagingEntityIterator<ODataEntity> {
+
+    private final int pageSize;
+    private URI pageURI;
+    private ClientEntitySetIterator<ClientEntitySet, ClientEntity> page;
+
+    private PagingIterator(URI queryURI, int pageSize, @Nullable PagePosition start) {
+      super(transferStatistics, start);
+      this.pageURI = start == null || start.getLink() == null ? queryURI : resolveNextLink(start.getLink());
+      this.pageSize = pageSize;
+    }
+
+    @Nullable
+    @Override
+    protected Iterator<ODataEntity> nextPage() {
+      if (page != null) {
+        // next link is available once the page is read
+        pageURI = page.getNext();
+        page.close();
+      }
+      if (pageURI == null) {
+        return null;
+      }
+      markPage(pageURI.toString());
+      page = readPage(pageURI, pageSize);
+      return new OData4EntityIterator(page);
+    }
+  }
+
+  /**
+   * Requests raw JSON pages of the entity set one by one, following next links.
+   */
+  private class JsonPagingIterator<T> extends PagingEntityIterator<T> {
+
+    private final int pageSize;
+    private final JsonPageParser<T> parser;
+    private URI pageURI;
+    private JsonPageParser.JsonPage<T> page;
+
+    private JsonPagingIterator(URI queryURI, int pageSize, JsonPageParser<T> parser, @Nullable PagePosition start) {
+      super(transferStatistics, start);
+      this.pageURI = start == null || start.getLink() == null ? queryURI : resolveNextLink(start.getLink());
+      this.pageSize = pageSize;
+      this.parser = parser;
+    }
+
+    @Nullable
+    @Override
+    protected Iterator<T> nextPage() {
+      if (page != null) {
+        // next link is available once the page is read
+        String nextLink = page.getNextLink();
+        pageURI = nextLink == null ? null : resolveNextLink(nextLink);
+        try {
+          page.close();
+        } catch (IOException e) {
+          throw new ODataException("Unable to close page: " + e.getMessage(), e);
+        }
+      }
+      if (pageURI == null) {
+        return null;
+      }
+      markPage(pageURI.toString());
+      page = readJsonPage(pageURI, pageSize, parser);
+      return page;
+    }
+  }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.odata.odata4;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import io.cdap.plugin.sap.odata.OAuth2Credentials;
+import io.cdap.plugin.sap.odata.OAuth2TokenCache;
+import io.cdap.plugin.sap.odata.SapSession;
+import io.cdap.plugin.sap.odata.TransferStatistics;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.olingo.client.core.http.DefaultHttpClientFactory;
+import org.apache.olingo.commons.api.http.HttpMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Creates HTTP clients which reuse the {@link SapSession} cookies and CSRF token. Olingo creates a new HTTP client
+ * for every request, so the session state is kept outside of the clients. Basic authentication credentials are sent
+ * only when there is no active session, or when SAP Gateway rejects the expired session. OAuth 2.0 access tokens are
+ * taken from the JVM-wide {@link OAuth2TokenCache} and sent along with every request. Compressed responses are
+ * negotiated and decoded as a stream, updating {@link TransferStatistics}.
+ */
+public class SapSessionHttpClientFactory extends DefaultHttpClientFactory {
+
+  private final String username;
+  private final String password;
+  private final OAuth2Credentials oAuth2Credentials;
+  private final SapSession session;
+  private final TransferStatistics transferStatistics;
+  private final boolean authRequired;
+
+  /**
+   * @param username           username for basic authentication.
+   * @param password           password for basic authentication.
+   * @param oAuth2Credentials  OAuth 2.0 credentials, take precedence over basic authentication if specified.
+   * @param session            SAP logon session to reuse.
+   * @param transferStatistics byte counters to update.
+   */
+  public SapSessionHttpClientFactory(@Nullable String username, @Nullable String password,
+                                     @Nullable OAuth2Credentials oAuth2Credentials, SapSession session,
+                                     TransferStatistics transferStatistics) {
+    this.username = username;
+    this.password = password;
+    this.oAuth2Credentials = oAuth2Credentials;
+    this.session = session;
+    this.transferStatistics = transferStatistics;
+    this.authRequired = oAuth2Credentials == null
+      && (!Strings.isNullOrEmpty(username) || !Strings.isNullOrEmpty(password));
+  }
+
+  @Override
+  public DefaultHttpClient create(HttpMethod method, URI uri) {
+    DefaultHttpClient httpClient = super.create(method, uri);
+    if (authRequired) {
+      // used to log on again if SAP Gateway challenges the expired session
+      httpClient.getCredentialsProvider().setCredentials(new AuthScope(uri.getHost(), uri.getPort()),
+                                                         new UsernamePasswordCredentials(username, password));
+    }
+    httpClient.addRequestInterceptor((request, context) -> {
+      request.setHeader(HttpHeaders.ACCEPT_ENCODING, TransferStatistics.ACCEPT_ENCODING);
+      request.setHeader(SapSession.CSRF_TOKEN_HEADER, session.getCsrfTokenHeaderValue());
+      String cookies = session.getCookieHeaderValue();
+      if (cookies != null) {
+        request.setHeader(HttpHeaders.COOKIE, cookies);
+      }
+      if (oAuth2Credentials != null) {
+        request.setHeader(HttpHeaders.AUTHORIZATION,
+                          "Bearer " + OAuth2TokenCache.getInstance().getAccessToken(oAuth2Credentials));
+      } else if (cookies == null && authRequired && !request.containsHeader(HttpHeaders.AUTHORIZATION)) {
+        // preemptive authentication, saves the challenge round trip
+        request.setHeader(HttpHeaders.AUTHORIZATION, getAuthHeaderValue());
+      }
+    });
+    httpClient.addResponseInterceptor((response, context) -> {
+      if (response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
+        session.invalidate();
+        if (oAuth2Credentials != null) {
+          // the token might have been revoked, the request is retried by OData4Client and obtains a new one
+          OAuth2TokenCache.getInstance().invalidate(oAuth2Credentials);
+        }
+        return;
+      }
+      List<String> setCookieHeaders = Arrays.stream(response.getHeaders("Set-Cookie"))
+        .map(Header::getValue)
+        .collect(Collectors.toList());
+      Header csrfToken = response.getFirstHeader(SapSession.CSRF_TOKEN_HEADER);
+      session.update(setCookieHeaders, csrfToken == null ? null : csrfToken.getValue());
+
+      HttpEntity entity = response.getEntity();
+      if (entity != null) {
+        response.setEntity(new DecodingEntity(entity));
+      }
+    });
+    return httpClient;
+  }
+
+  /**
+   * Response body decoded according to the 'Content-Encoding' header.
+   */
+  private class DecodingEntity extends HttpEntityWrapper {
+
+    private DecodingEntity(HttpEntity wrappedEntity) {
+      super(wrappedEntity);
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      Header contentEncoding = super.getContentEncoding();
+      return transferStatistics.decode(super.getContent(),
+                                       contentEncoding == null ? null : contentEncoding.getValue());
+    }
+
+    @Override
+    public Header getContentEncoding() {
+      return null;
+    }
+
+    @Override
+    public long getContentLength() {
+      // decoded length is not known in advance
+      return -1;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+      try (InputStream content = getContent()) {
+        ByteStreams.copy(content, outputStream);
+      }
+    }
+  }
+
+  private String getAuthHeaderValue() {
+    String credentials = username + ":" + password;
+    return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import io.cdap.plugin.sap.odata.EdmLiterals;
+import io.cdap.plugin.sap.odata.GenericODataClient;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.PropertyMetadata;
+import io.cdap.plugin.sap.odata.QueryOptions;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Partitions the entity set by values of a low-cardinality property, such as company code or plant. Values are
+ * either configured or discovered with one single-entity probe per distinct value. Values are then counted and
+ * packed into splits of roughly the same number of entities, each split reading its values with 'eq' filters.
+ * Entities with other values, including values added after planning and empty values, are read by a separate split.
+ */
+public class CategorySplitPlanner extends PropertySplitPlanner {
+
+  /**
+   * Maximum number of distinct values, since every value adds a comparison to the filter of a split.
+   */
+  static final int MAX_VALUES = 100;
+
+  private final List<String> values;
+  private final int splitCount;
+
+  /**
+   * @param client        client of the OData service.
+   * @param entitySetName name of the entity set to partition.
+   * @param query         query options of the source, can be {@code null}.
+   * @param property      name of the property to partition by.
+   * @param values        values of the property to partition by, discovered if empty. Date and date-time values are
+   *                      in 'yyyy-MM-dd' format.
+   * @param splitCount    desired number of splits of the values.
+   */
+  public CategorySplitPlanner(GenericODataClient client, String entitySetName, @Nullable String query,
+                              String property, List<String> values, int splitCount) {
+    super(client, entitySetName, query, property);
+    this.values = values;
+    this.splitCount = splitCount;
+  }
+
+  @Override
+  public List<String> plan() {
+    PropertyMetadata metadata = getPropertyMetadata();
+    ODataVersion version = client.getODataVersion();
+    String edmTypeName = metadata.getEdmTypeName();
+    if (!EdmLiterals.isSupported(version, edmTypeName)) {
+      throw new IllegalArgumentException(String.format(
+        "Split property '%s' of type '%s' can not be used as a category.", property, edmTypeName));
+    }
+
+    Set<String> literals = values.isEmpty()
+      ? discoverValues(metadata.isNullable(), version, edmTypeName)
+      : formatValues(version, edmTypeName);
+    if (literals.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    QueryOptions options = getValueQueryOptions(false);
+    List<Category> categories = new ArrayList<>();
+    for (String literal : literals) {
+      String filter = property + " eq " + literal;
+      long count = client.countEntitySet(entitySetName, options.copy().addFilter(filter).toString());
+      if (count > 0) {
+        categories.add(new Category(literal, filter, count));
+      }
+    }
+
+    if (categories.isEmpty()) {
+      return Collections.emptyList();
+    }
+    // not counted, since values can be added after planning. Values without entities are not read by any 'eq' split,
+    // so entities added later with such values have to be read by this split.
+    String others = categories.stream()
+      .map(category -> property + " ne " + category.literal)
+      .collect(Collectors.joining(" and "));
+    List<String> filters = pack(categories);
+    filters.add(others);
+    return filters;
+  }
+
+  /**
+   * Discovers distinct values by requesting a single entity with a value that is not yet known, until there are no
+   * such entities. Neither ordering nor aggregation support of the service is required.
+   */
+  private Set<String> discoverValues(boolean nullable, ODataVersion version, String edmTypeName) {
+    Set<String> literals = new LinkedHashSet<>();
+    while (true) {
+      QueryOptions probeOptions = getValueQueryOptions(nullable);
+      for (String literal : literals) {
+        probeOptions.addFilter(property + " ne " + literal);
+      }
+      Object value = probe(probeOptions);
+      if (value == null) {
+        return literals;
+      }
+      if (literals.size() == MAX_VALUES) {
+        throw new IllegalArgumentException(String.format(
+          "Split property '%s' has more than %d distinct values. Specify split values or use the 'key' split mode.",
+          property, MAX_VALUES));
+      }
+      literals.add(EdmLiterals.formatValue(version, edmTypeName, value));
+    }
+  }
+
+  private Set<String> formatValues(ODataVersion version, String edmTypeName) {
+    Set<String> literals = new LinkedHashSet<>();
+    for (String value : values) {
+      if (EdmLiterals.isDateTimeType(version, edmTypeName)) {
+        try {
+          literals.add(EdmLiterals.formatValue(version, edmTypeName, LocalDate.parse(value)));
+        } catch (DateTimeParseException e) {
+          throw new IllegalArgumentException(String.format("Invalid split value '%s', expected 'yyyy-MM-dd' format.",
+                                                           value), e);
+        }
+      } else {
+        literals.add(EdmLiterals.formatValue(version, edmTypeName, value));
+      }
+    }
+    return literals;
+  }
+
+  /**
+   * Packs categories into at most {@link #splitCount} splits, assigning the largest category to the smallest split
+   * first.
+   */
+  private List<String> pack(List<Category> categories) {
+    categories.sort(Comparator.comparingLong((Category c) -> c.count).reversed());
+    int binCount = Math.min(splitCount, categories.size());
+    List<List<String>> bins = new ArrayList<>();
+    long[] binSizes = new long[binCount];
+    for (int i = 0; i < binCount; i++) {
+      bins.add(new ArrayList<>());
+    }
+    for (Category category : categories) {
+      int smallest = 0;
+      for (int i = 1; i < binCount; i++) {
+        if (binSizes[i] < binSizes[smallest]) {
+          smallest = i;
+        }
+      }
+      bins.get(smallest).add(category.filter);
+      binSizes[smallest] += category.count;
+    }
+    return bins.stream()
+      .map(filters -> String.join(" or ", filters))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Filter of a single value and the number of entities having the value.
+   */
+  private static final class Category {
+    private final String literal;
+    private final String filter;
+    private final long count;
+
+    private Category(String literal, String filter, long count) {
+      this.literal = literal;
+      this.filter = filter;
+      this.count = count;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import io.cdap.plugin.sap.odata.EdmLiterals;
+import io.cdap.plugin.sap.odata.GenericODataClient;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.PropertyMetadata;
+import io.cdap.plugin.sap.odata.QueryOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Partitions the entity set into ranges of a key property holding roughly the same number of entities, so skewed
+ * key distributions do not produce straggler splits. Range boundaries are the key values found at evenly spaced
+ * positions of the entity set ordered by the key, located with a '$count' request and one '$skip'/'$top' probe per
+ * boundary.
+ */
+public class KeySplitPlanner extends PropertySplitPlanner {
+
+  private final int splitCount;
+
+  /**
+   * @param client        client of the OData service.
+   * @param entitySetName name of the entity set to partition.
+   * @param query         query options of the source, can be {@code null}.
+   * @param property      name of the key property, must be of a type which can be ordered and filtered by.
+   * @param splitCount    desired number of splits.
+   */
+  public KeySplitPlanner(GenericODataClient client, String entitySetName, @Nullable String query, String property,
+                         int splitCount) {
+    super(client, entitySetName, query, property);
+    this.splitCount = splitCount;
+  }
+
+  @Override
+  public List<String> plan() {
+    PropertyMetadata metadata = getPropertyMetadata();
+    ODataVersion version = client.getODataVersion();
+    String edmTypeName = metadata.getEdmTypeName();
+    if (!EdmLiterals.isSupported(version, edmTypeName)) {
+      throw new IllegalArgumentException(String.format("Split property '%s' of type '%s' can not be used as a key.",
+                                                       property, edmTypeName));
+    }
+
+    QueryOptions options = getValueQueryOptions(metadata.isNullable());
+    long total = client.countEntitySet(entitySetName, options.toString());
+    List<String> boundaries = findBoundaries(options, total, version, edmTypeName);
+    if (boundaries.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<String> filters = new ArrayList<>();
+    filters.add(String.format("%s lt %s", property, boundaries.get(0)));
+    for (int i = 1; i < boundaries.size(); i++) {
+      filters.add(String.format("%s ge %s and %s lt %s", property, boundaries.get(i - 1), property,
+                                boundaries.get(i)));
+    }
+    filters.add(String.format("%s ge %s", property, boundaries.get(boundaries.size() - 1)));
+    if (metadata.isNullable()) {
+      filters.add(property + " eq null");
+    }
+    return filters;
+  }
+
+  /**
+   * @return distinct literals of the key values at evenly spaced positions, in ascending order.
+   */
+  private List<String> findBoundaries(QueryOptions options, long total, ODataVersion version, String edmTypeName) {
+    long count = Math.min(splitCount, total);
+    List<String> boundaries = new ArrayList<>();
+    QueryOptions ordered = options.copy().set(QueryOptions.ORDER_BY, property + " asc");
+    for (long i = 1; i < count; i++) {
+      long position = total * i / count;
+      Object value = probe(ordered.copy().set(QueryOptions.SKIP, Long.toString(position)));
+      if (value == null) {
+        // the entity set shrank since it was counted
+        break;
+      }
+      String literal = EdmLiterals.formatValue(version, edmTypeName, value);
+      // heavy hitters span several positions and collapse into a single range
+      if (boundaries.isEmpty() || !boundaries.get(boundaries.size() - 1).equals(literal)) {
+        boundaries.add(literal);
+      }
+    }
+    return boundaries;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import io.cdap.plugin.sap.odata.EntityType;
+import io.cdap.plugin.sap.odata.GenericODataClient;
+import io.cdap.plugin.sap.odata.ODataEntity;
+import io.cdap.plugin.sap.odata.PropertyMetadata;
+import io.cdap.plugin.sap.odata.QueryOptions;
+
+import java.util.Iterator;
+import javax.annotation.Nullable;
+
+/**
+ * Base class of split planners which partition the entity set by values of a single property.
+ */
+public abstract class PropertySplitPlanner implements SplitPlanner {
+
+  protected final GenericODataClient client;
+  protected final String entitySetName;
+  protected final String query;
+  protected final String property;
+
+  /**
+   * @param client        client of the OData service.
+   * @param entitySetName name of the entity set to partition.
+   * @param query         query options of the source, can be {@code null}.
+   * @param property      name of the property to partition by.
+   */
+  protected PropertySplitPlanner(GenericODataClient client, String entitySetName, @Nullable String query,
+                                 String property) {
+    this.client = client;
+    this.entitySetName = entitySetName;
+    this.query = query;
+    this.property = property;
+  }
+
+  /**
+   * @return metadata of the split property.
+   * @throws IllegalArgumentException if the entity type has no such property.
+   */
+  protected PropertyMetadata getPropertyMetadata() {
+    EntityType entityType = client.getEntitySetType(entitySetName);
+    return entityType.getProperties().stream()
+      .filter(p -> p.getName().equals(property))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException(
+        String.format("Split property '%s' does not exist in entity type '%s'.", property, entityType.getName())));
+  }
+
+  /**
+   * @param nullable whether the split property is nullable.
+   * @return query options of the source without paging options, filtered to entities having a split property value.
+   */
+  protected QueryOptions getValueQueryOptions(boolean nullable) {
+    QueryOptions options = QueryOptions.parse(query)
+      .remove(QueryOptions.TOP)
+      .remove(QueryOptions.SKIP)
+      .remove(QueryOptions.SKIP_TOKEN);
+    if (nullable) {
+      options.addFilter(property + " ne null");
+    }
+    return options;
+  }
+
+  /**
+   * Reads the split property value of the first entity returned by the probe query.
+   *
+   * @param options probe query options.
+   * @return property value or {@code null} if there are no entities.
+   */
+  @Nullable
+  protected Object probe(QueryOptions options) {
+    QueryOptions probeOptions = options.copy()
+      .set(QueryOptions.SELECT, property)
+      .set(QueryOptions.TOP, "1");
+    Iterator<ODataEntity> iterator = client.queryEntitySet(entitySetName, probeOptions.toString(), 0);
+    return iterator.hasNext() ? iterator.next().getProperties().get(property) : null;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import io.cdap.plugin.sap.odata.PagePosition;
+
+import java.util.Objects;
+
+/**
+ * Position reached by a task attempt reading a split, persisted by {@link SplitCheckpointStore}, so that the next
+ * attempt of the task resumes reading from it. The checkpoint identifies the query it was taken from, since only the
+ * same query can be resumed.
+ */
+public class SplitCheckpoint {
+
+  private final String serviceName;
+  private final String entitySetName;
+  private final String query;
+  private final int pageSize;
+  private final PagePosition position;
+  private final long timestamp;
+
+  /**
+   * @param serviceName   name of the service the split is read from.
+   * @param entitySetName name of the entity set the split is read from.
+   * @param query         query options of the split, including the split filter.
+   * @param pageSize      maximum number of entities per page.
+   * @param position      position of the page all preceding entities of which are read.
+   * @param timestamp     time the checkpoint was taken, in milliseconds since the epoch.
+   */
+  public SplitCheckpoint(String serviceName, String entitySetName, String query, int pageSize, PagePosition position,
+                         long timestamp) {
+    this.serviceName = serviceName;
+    this.entitySetName = entitySetName;
+    this.query = query;
+    this.pageSize = pageSize;
+    this.position = position;
+    this.timestamp = timestamp;
+  }
+
+  public PagePosition getPosition() {
+    return position;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * @return {@code true} if the checkpoint was taken reading the given query, so that it can be resumed.
+   */
+  public boolean isOf(String serviceName, String entitySetName, String query, int pageSize) {
+    return this.serviceName.equals(serviceName) && this.entitySetName.equals(entitySetName)
+      && Objects.equals(this.query, query) && this.pageSize == pageSize;
+  }
+}
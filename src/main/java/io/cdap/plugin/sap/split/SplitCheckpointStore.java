@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * File-backed store of split checkpoints. Every task keeps its checkpoint in its own JSON file, named after the job
+ * and the task, so all attempts of a task share the file. The directory can be on the local file system, if task
+ * attempts are retried on the same host, or on any shared Hadoop compatible file system. Checkpoints of runs that
+ * failed completely are never deleted by their tasks, so expired checkpoints are ignored and deleted.
+ */
+public class SplitCheckpointStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SplitCheckpointStore.class);
+  private static final Gson gson = new GsonBuilder().create();
+  private static final String EXTENSION = ".json";
+  // files are written under a hidden name and renamed, so partially written files are never read
+  private static final String TEMPORARY_PREFIX = ".";
+
+  private final FileSystem fileSystem;
+  private final Path directory;
+
+  /**
+   * @param directory directory of the checkpoints.
+   * @param conf      configuration used to access the file system.
+   * @throws IOException if the file system cannot be accessed.
+   */
+  public SplitCheckpointStore(Path directory, Configuration conf) throws IOException {
+    this.fileSystem = directory.getFileSystem(conf);
+    this.directory = directory;
+  }
+
+  /**
+   * Writes the checkpoint of a task, replacing its previous checkpoint.
+   *
+   * @param name       name of the task.
+   * @param checkpoint split checkpoint.
+   * @throws IOException if the checkpoint cannot be written.
+   */
+  public void write(String name, SplitCheckpoint checkpoint) throws IOException {
+    Path temporary = new Path(directory, TEMPORARY_PREFIX + name + EXTENSION);
+    try (FSDataOutputStream out = fileSystem.create(temporary, true)) {
+      out.write(gson.toJson(checkpoint).getBytes(StandardCharsets.UTF_8));
+    }
+    Path target = new Path(directory, name + EXTENSION);
+    fileSystem.delete(target, false);
+    if (!fileSystem.rename(temporary, target)) {
+      throw new IOException(String.format("Unable to rename '%s' to '%s'.", temporary, target));
+    }
+  }
+
+  /**
+   * @param name         name of the task.
+   * @param maxAgeMillis maximum age of the checkpoint, an older checkpoint is ignored and deleted.
+   * @return checkpoint written by a previous attempt of the task or {@code null} if there is none.
+   * @throws IOException if the checkpoint cannot be read.
+   */
+  @Nullable
+  public SplitCheckpoint read(String name, long maxAgeMillis) throws IOException {
+    Path path = new Path(directory, name + EXTENSION);
+    SplitCheckpoint checkpoint;
+    try (Reader reader = new InputStreamReader(fileSystem.open(path), StandardCharsets.UTF_8)) {
+      checkpoint = gson.fromJson(reader, SplitCheckpoint.class);
+    } catch (FileNotFoundException e) {
+      return null;
+    } catch (JsonParseException e) {
+      LOG.warn("Ignoring unreadable split checkpoint '{}': {}", path, e.getMessage());
+      return null;
+    }
+    if (checkpoint != null && checkpoint.getTimestamp() < System.currentTimeMillis() - maxAgeMillis) {
+      LOG.info("Deleting expired split checkpoint '{}'.", path);
+      fileSystem.delete(path, false);
+      return null;
+    }
+    return checkpoint;
+  }
+
+  /**
+   * Deletes checkpoints that were not modified within the maximum age, left by runs that failed completely.
+   *
+   * @param maxAgeMillis maximum age of checkpoints.
+   * @throws IOException if the checkpoints cannot be listed or deleted.
+   */
+  public void deleteExpired(long maxAgeMillis) throws IOException {
+    if (!fileSystem.exists(directory)) {
+      return;
+    }
+    long minTimestamp = System.currentTimeMillis() - maxAgeMillis;
+    for (FileStatus status : fileSystem.listStatus(directory)) {
+      String name = status.getPath().getName();
+      // temporary files of failed attempts are deleted as well
+      if (name.endsWith(EXTENSION) && status.getModificationTime() < minTimestamp) {
+        fileSystem.delete(status.getPath(), false);
+      }
+    }
+  }
+
+  /**
+   * Deletes the checkpoint of a task, once its split is completely read.
+   *
+   * @param name name of the task.
+   * @throws IOException if the checkpoint cannot be deleted.
+   */
+  public void delete(String name) throws IOException {
+    fileSystem.delete(new Path(directory, name + EXTENSION), false);
+  }
+}
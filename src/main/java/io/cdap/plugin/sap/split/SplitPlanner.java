@@ -0,0 +1,30 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import java.util.List;
+
+/**
+ * Partitions the entity set into splits, each one described by a '$filter' expression combined with the query
+ * options of the source.
+ */
+public interface SplitPlanner {
+
+  /**
+   * @return '$filter' expressions of the splits, empty if the entity set should be read as a single split.
+   */
+  List<String> plan();
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import javax.annotation.Nullable;
+
+/**
+ * Statistics of a single split read by a pipeline run, persisted by {@link SplitStatisticsStore} to plan splits of
+ * the following runs.
+ */
+public class SplitStatistics {
+
+  private final String planId;
+  private final int splitIndex;
+  private final int splitCount;
+  private final String filter;
+  private final long timestamp;
+  private final long rows;
+  private final long bytes;
+  private final long pages;
+  private final long pageMillis;
+  private final long durationMillis;
+
+  /**
+   * @param planId         identifier of the split plan the split belongs to.
+   * @param splitIndex     index of the split in the plan.
+   * @param splitCount     number of splits in the plan.
+   * @param filter         '$filter' expression of the split, {@code null} if the split reads the whole entity set.
+   * @param timestamp      time the split was read, in milliseconds since the epoch.
+   * @param rows           number of read entities.
+   * @param bytes          number of response body bytes received over the network.
+   * @param pages          number of requested pages.
+   * @param pageMillis     total time in milliseconds spent requesting pages.
+   * @param durationMillis time in milliseconds spent reading the split.
+   */
+  public SplitStatistics(String planId, int splitIndex, int splitCount, @Nullable String filter, long timestamp,
+                         long rows, long bytes, long pages, long pageMillis, long durationMillis) {
+    this.planId = planId;
+    this.splitIndex = splitIndex;
+    this.splitCount = splitCount;
+    this.filter = filter;
+    this.timestamp = timestamp;
+    this.rows = rows;
+    this.bytes = bytes;
+    this.pages = pages;
+    this.pageMillis = pageMillis;
+    this.durationMillis = durationMillis;
+  }
+
+  public String getPlanId() {
+    return planId;
+  }
+
+  public int getSplitIndex() {
+    return splitIndex;
+  }
+
+  public int getSplitCount() {
+    return splitCount;
+  }
+
+  @Nullable
+  public String getFilter() {
+    return filter;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  public long getPages() {
+    return pages;
+  }
+
+  public long getPageMillis() {
+    return pageMillis;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+}
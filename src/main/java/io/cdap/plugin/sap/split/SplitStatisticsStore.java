@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * File-backed store of split statistics of a single source. Every split of a run is written to its own JSON file,
+ * so tasks never contend for a file. The directory can be on any Hadoop compatible file system, which makes the
+ * statistics written by tasks on different hosts visible to the planning of the next run.
+ */
+public class SplitStatisticsStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SplitStatisticsStore.class);
+  private static final Gson gson = new GsonBuilder().create();
+  private static final String EXTENSION = ".json";
+  // files are written under a hidden name and renamed, so partially written files are never read
+  private static final String TEMPORARY_PREFIX = ".";
+
+  private final FileSystem fileSystem;
+  private final Path directory;
+
+  /**
+   * @param directory directory of the statistics of the source.
+   * @param conf      configuration used to access the file system.
+   * @throws IOException if the file system cannot be accessed.
+   */
+  public SplitStatisticsStore(Path directory, Configuration conf) throws IOException {
+    this.fileSystem = directory.getFileSystem(conf);
+    this.directory = directory;
+  }
+
+  /**
+   * Writes statistics of a split, replacing the statistics written by a previous attempt of the same split.
+   *
+   * @param statistics split statistics.
+   * @throws IOException if the statistics cannot be written.
+   */
+  public void write(SplitStatistics statistics) throws IOException {
+    String name = statistics.getPlanId() + "-" + statistics.getSplitIndex() + EXTENSION;
+    Path temporary = new Path(directory, TEMPORARY_PREFIX + name);
+    try (FSDataOutputStream out = fileSystem.create(temporary, true)) {
+      out.write(gson.toJson(statistics).getBytes(StandardCharsets.UTF_8));
+    }
+    Path target = new Path(directory, name);
+    fileSystem.delete(target, false);
+    if (!fileSystem.rename(temporary, target)) {
+      throw new IOException(String.format("Unable to rename '%s' to '%s'.", temporary, target));
+    }
+  }
+
+  /**
+   * Reads statistics of the most recent run whose splits were all read. Statistics older than the maximum age are
+   * deleted.
+   *
+   * @param maxAgeMillis maximum age of the statistics in milliseconds.
+   * @return statistics of all splits of the run ordered by split index or {@code null} if there are no fresh
+   * statistics of a complete run.
+   * @throws IOException if the statistics cannot be read.
+   */
+  @Nullable
+  public List<SplitStatistics> readLatest(long maxAgeMillis) throws IOException {
+    if (!fileSystem.exists(directory)) {
+      return null;
+    }
+    long minTimestamp = System.currentTimeMillis() - maxAgeMillis;
+    Map<String, List<SplitStatistics>> plans = new HashMap<>();
+    for (FileStatus status : fileSystem.listStatus(directory)) {
+      String name = status.getPath().getName();
+      if (!name.endsWith(EXTENSION) || name.startsWith(TEMPORARY_PREFIX)) {
+        continue;
+      }
+      if (status.getModificationTime() < minTimestamp) {
+        fileSystem.delete(status.getPath(), false);
+        continue;
+      }
+      SplitStatistics statistics = read(status.getPath());
+      if (statistics != null && statistics.getTimestamp() >= minTimestamp) {
+        plans.computeIfAbsent(statistics.getPlanId(), id -> new ArrayList<>()).add(statistics);
+      }
+    }
+
+    List<SplitStatistics> latest = null;
+    long latestTimestamp = Long.MIN_VALUE;
+    for (List<SplitStatistics> splits : plans.values()) {
+      long timestamp = splits.stream().mapToLong(SplitStatistics::getTimestamp).max().orElse(Long.MIN_VALUE);
+      if (splits.size() == splits.get(0).getSplitCount() && timestamp > latestTimestamp) {
+        latest = splits;
+        latestTimestamp = timestamp;
+      }
+    }
+    if (latest != null) {
+      latest.sort(Comparator.comparingInt(SplitStatistics::getSplitIndex));
+    }
+    return latest;
+  }
+
+  @Nullable
+  private SplitStatistics read(Path path) throws IOException {
+    try (Reader reader = new InputStreamReader(fileSystem.open(path), StandardCharsets.UTF_8)) {
+      return gson.fromJson(reader, SplitStatistics.class);
+    } catch (JsonParseException e) {
+      LOG.warn("Ignoring unreadable split statistics '{}': {}", path, e.getMessage());
+      return null;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Plans splits from the statistics of the previous run without querying the service. Consecutive splits of the
+ * previous run are merged as long as their total duration fits into the target split duration. Splits can only be
+ * merged, so the statistics are not reusable if a split of the previous run took much longer than the target.
+ */
+public class StatisticsSplitPlanner implements SplitPlanner {
+
+  /**
+   * Factor by which a split of the previous run may exceed the target duration while the statistics are reused.
+   */
+  private static final double TOLERANCE = 1.5;
+
+  private final List<SplitStatistics> statistics;
+  private final long targetDurationMillis;
+
+  /**
+   * @param statistics           statistics of all splits of the previous run ordered by split index.
+   * @param targetDurationMillis target duration of a split in milliseconds.
+   */
+  public StatisticsSplitPlanner(List<SplitStatistics> statistics, long targetDurationMillis) {
+    this.statistics = statistics;
+    this.targetDurationMillis = targetDurationMillis;
+  }
+
+  /**
+   * @return {@code true} if no split of the previous run took much longer than the target duration, so splits can
+   * be planned by merging the splits of the previous run.
+   */
+  public boolean isReusable() {
+    return statistics.stream().allMatch(s -> s.getDurationMillis() <= targetDurationMillis * TOLERANCE);
+  }
+
+  /**
+   * @return number of splits which read the entity set within the target duration each, at least {@code 1}.
+   */
+  public int getSplitCount() {
+    long totalMillis = statistics.stream().mapToLong(SplitStatistics::getDurationMillis).sum();
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (totalMillis + targetDurationMillis - 1)
+      / targetDurationMillis));
+  }
+
+  @Override
+  public List<String> plan() {
+    if (statistics.size() == 1 && statistics.get(0).getFilter() == null) {
+      // the previous run read the whole entity set as a single split
+      return Collections.emptyList();
+    }
+
+    List<String> filters = new ArrayList<>();
+    List<String> group = new ArrayList<>();
+    long groupMillis = 0;
+    for (SplitStatistics split : statistics) {
+      if (!group.isEmpty() && groupMillis + split.getDurationMillis() > targetDurationMillis) {
+        filters.add(merge(group));
+        group.clear();
+        groupMillis = 0;
+      }
+      group.add(split.getFilter());
+      groupMillis += split.getDurationMillis();
+    }
+    filters.add(merge(group));
+    return filters;
+  }
+
+  /**
+   * Splits of a plan partition the entity set, so the merged split reads every entity matching any of the filters.
+   */
+  private static String merge(List<String> filters) {
+    if (filters.size() == 1) {
+      return filters.get(0);
+    }
+    return filters.stream()
+      .map(filter -> "(" + filter + ")")
+      .collect(Collectors.joining(" or "));
+  }
+
+  @Override
+  public String toString() {
+    long rows = statistics.stream().mapToLong(SplitStatistics::getRows).sum();
+    long bytes = statistics.stream().mapToLong(SplitStatistics::getBytes).sum();
+    long pages = statistics.stream().mapToLong(SplitStatistics::getPages).sum();
+    long pageMillis = statistics.stream().mapToLong(SplitStatistics::getPageMillis).sum();
+    long durationMillis = statistics.stream().mapToLong(SplitStatistics::getDurationMillis).sum();
+    return String.format("%d splits, %d rows, %d bytes per row, %d ms per page, %d ms in total", statistics.size(),
+                         rows, rows == 0 ? 0 : bytes / rows, pages == 0 ? 0 : pageMillis / pages, durationMillis);
+  }
+}
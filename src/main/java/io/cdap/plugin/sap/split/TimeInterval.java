@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Calendar interval of a time-sliced split. Weeks start on Monday.
+ */
+public enum TimeInterval {
+
+  DAY("day") {
+    @Override
+    public LocalDate truncate(LocalDate date) {
+      return date;
+    }
+
+    @Override
+    public LocalDate next(LocalDate start) {
+      return start.plusDays(1);
+    }
+  },
+  WEEK("week") {
+    @Override
+    public LocalDate truncate(LocalDate date) {
+      return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    @Override
+    public LocalDate next(LocalDate start) {
+      return start.plusWeeks(1);
+    }
+  },
+  MONTH("month") {
+    @Override
+    public LocalDate truncate(LocalDate date) {
+      return date.withDayOfMonth(1);
+    }
+
+    @Override
+    public LocalDate next(LocalDate start) {
+      return start.plusMonths(1);
+    }
+  };
+
+  private static final Map<String, TimeInterval> byValue = Arrays.stream(values())
+    .collect(Collectors.toMap(TimeInterval::getValue, Function.identity()));
+
+  private final String value;
+
+  TimeInterval(String value) {
+    this.value = value;
+  }
+
+  @Nullable
+  public static TimeInterval fromValue(String value) {
+    return byValue.get(value);
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * @param date any date.
+   * @return start of the interval containing the date.
+   */
+  public abstract LocalDate truncate(LocalDate date);
+
+  /**
+   * @param start start of an interval.
+   * @return start of the next interval.
+   */
+  public abstract LocalDate next(LocalDate start);
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.cdap.plugin.sap.odata.EdmLiterals;
+import io.cdap.plugin.sap.odata.GenericODataClient;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.PropertyMetadata;
+import io.cdap.plugin.sap.odata.QueryOptions;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Partitions the entity set into fixed calendar intervals of a date or date-time property, such as posting date.
+ * Bounds which are not configured are taken from the minimum and maximum property values observed at plan time.
+ * Every interval becomes a split with a 'ge'/'lt' range filter, so no '$skip' paging is required.
+ */
+public class TimeSplitPlanner extends PropertySplitPlanner {
+
+  private final TimeInterval interval;
+  private final LocalDate start;
+  private final LocalDate end;
+
+  /**
+   * @param client        client of the OData service.
+   * @param entitySetName name of the entity set to partition.
+   * @param query         query options of the source, can be {@code null}.
+   * @param property      name of the date or date-time property.
+   * @param interval      length of a single split.
+   * @param start         first date to read (inclusive), {@code null} to use the minimum property value.
+   * @param end           last date to read (exclusive), {@code null} to use the maximum property value.
+   */
+  public TimeSplitPlanner(GenericODataClient client, String entitySetName, @Nullable String query, String property,
+                          TimeInterval interval, @Nullable LocalDate start, @Nullable LocalDate end) {
+    super(client, entitySetName, query, property);
+    this.interval = interval;
+    this.start = start;
+    this.end = end;
+  }
+
+  @Override
+  public List<String> plan() {
+    PropertyMetadata metadata = getPropertyMetadata();
+    ODataVersion version = client.getODataVersion();
+    String edmTypeName = metadata.getEdmTypeName();
+    if (!EdmLiterals.isDateTimeType(version, edmTypeName)) {
+      throw new IllegalArgumentException(
+        String.format("Split property '%s' must be a date or date-time property, but is of type 'Edm.%s'.",
+                      property, edmTypeName));
+    }
+
+    LocalDate from = start;
+    LocalDate to = end;
+    if (from == null || to == null) {
+      LocalDate min = from == null ? findBound(metadata, true) : from;
+      LocalDate max = to == null ? findBound(metadata, false) : to;
+      if (min == null || max == null) {
+        return emptyRange(version, edmTypeName);
+      }
+      from = from == null ? interval.truncate(min) : from;
+      to = to == null ? interval.next(interval.truncate(max)) : to;
+    }
+    if (!from.isBefore(to)) {
+      return emptyRange(version, edmTypeName);
+    }
+
+    List<String> filters = new ArrayList<>();
+    LocalDate sliceStart = from;
+    while (sliceStart.isBefore(to)) {
+      LocalDate sliceEnd = interval.next(interval.truncate(sliceStart));
+      if (sliceEnd.isAfter(to)) {
+        sliceEnd = to;
+      }
+      filters.add(rangeFilter(version, edmTypeName, sliceStart, sliceEnd));
+      sliceStart = sliceEnd;
+    }
+    if (start == null && end == null && metadata.isNullable()) {
+      // entities without value are not part of any interval
+      filters.add(property + " eq null");
+    }
+    return filters;
+  }
+
+  /**
+   * There are no property values within the bounds, a single split still has to apply the configured bounds.
+   */
+  private List<String> emptyRange(ODataVersion version, String edmTypeName) {
+    return start == null && end == null ? Collections.emptyList()
+      : Collections.singletonList(rangeFilter(version, edmTypeName, start, end));
+  }
+
+  private String rangeFilter(ODataVersion version, String edmTypeName, @Nullable LocalDate from,
+                             @Nullable LocalDate to) {
+    List<String> conditions = new ArrayList<>();
+    if (from != null) {
+      conditions.add(property + " ge " + EdmLiterals.formatDateTime(version, edmTypeName, from.atStartOfDay()));
+    }
+    if (to != null) {
+      conditions.add(property + " lt " + EdmLiterals.formatDateTime(version, edmTypeName, to.atStartOfDay()));
+    }
+    return String.join(" and ", conditions);
+  }
+
+  /**
+   * Queries the minimum or maximum value of the property.
+   *
+   * @return date of the value or {@code null} if the property has no values.
+   */
+  @Nullable
+  private LocalDate findBound(PropertyMetadata metadata, boolean minimum) {
+    QueryOptions options = getValueQueryOptions(metadata.isNullable())
+      .set(QueryOptions.ORDER_BY, property + (minimum ? " asc" : " desc"));
+    return toLocalDate(property, metadata.getEdmTypeName(), probe(options));
+  }
+
+  /**
+   * Converts a probed property value to the UTC date, matching the UTC literals of the range filters.
+   */
+  @Nullable
+  @VisibleForTesting
+  static LocalDate toLocalDate(String property, String edmTypeName, @Nullable Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Calendar && "Date".equals(edmTypeName)) {
+      // date fields are used as they are, since Olingo may parse 'Edm.Date' values in the default time zone
+      Calendar calendar = (Calendar) value;
+      return LocalDate.of(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1,
+                          calendar.get(Calendar.DAY_OF_MONTH));
+    }
+    if (value instanceof Calendar) {
+      return ((Calendar) value).toInstant().atOffset(ZoneOffset.UTC).toLocalDate();
+    }
+    if (value instanceof java.sql.Date) {
+      return ((java.sql.Date) value).toLocalDate();
+    }
+    if (value instanceof Date) {
+      return ((Date) value).toInstant().atOffset(ZoneOffset.UTC).toLocalDate();
+    }
+    throw new IllegalArgumentException(String.format("Unsupported value of split property '%s': '%s'.", property,
+                                                     value));
+  }
+}
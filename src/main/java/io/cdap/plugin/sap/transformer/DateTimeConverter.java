@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.transformer;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts date and time values produced by Olingo to epoch microseconds and nanoseconds of day arithmetically, without
+ * creating {@link java.time.Instant}, {@link java.time.ZonedDateTime} or {@link java.time.LocalDateTime} for every
+ * value.
+ */
+public final class DateTimeConverter {
+
+  private static final long MICROS_PER_SECOND = TimeUnit.SECONDS.toMicros(1);
+  private static final long MICROS_PER_MILLI = TimeUnit.MILLISECONDS.toMicros(1);
+  private static final long NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+  private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private DateTimeConverter() {
+  }
+
+  /**
+   * @return microseconds since the epoch, calendars are precise to milliseconds.
+   * @throws ArithmeticException if the value overflows a long.
+   */
+  public static long toEpochMicros(Calendar calendar) {
+    return Math.multiplyExact(calendar.getTimeInMillis(), MICROS_PER_MILLI);
+  }
+
+  /**
+   * @return microseconds since the epoch, the same as of {@link Timestamp#toInstant()}.
+   * @throws ArithmeticException if the value overflows a long.
+   */
+  public static long toEpochMicros(Timestamp timestamp) {
+    // the time of a timestamp includes the milliseconds of its nanos
+    long seconds = Math.floorDiv(timestamp.getTime(), TimeUnit.SECONDS.toMillis(1));
+    return Math.addExact(Math.multiplyExact(seconds, MICROS_PER_SECOND), timestamp.getNanos() / NANOS_PER_MICRO);
+  }
+
+  /**
+   * @return nanoseconds of day in the time zone of the calendar, the same as of
+   * {@code GregorianCalendar.toZonedDateTime().toLocalTime()}.
+   */
+  public static long toNanoOfDay(Calendar calendar) {
+    long seconds = (calendar.get(Calendar.HOUR_OF_DAY) * 60L + calendar.get(Calendar.MINUTE)) * 60L
+      + calendar.get(Calendar.SECOND);
+    return seconds * NANOS_PER_SECOND + calendar.get(Calendar.MILLISECOND) * NANOS_PER_MILLI;
+  }
+
+  /**
+   * @return nanoseconds of day in the default time zone, the same as of
+   * {@code Timestamp.toLocalDateTime().toLocalTime()}.
+   */
+  @SuppressWarnings("deprecation")
+  public static long toNanoOfDay(Timestamp timestamp) {
+    // the same fields Timestamp#toLocalDateTime() is created from
+    long seconds = (timestamp.getHours() * 60L + timestamp.getMinutes()) * 60L + timestamp.getSeconds();
+    return seconds * NANOS_PER_SECOND + timestamp.getNanos();
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.transformer;
+
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Encodes decimal values as big-endian two's-complement bytes of the unscaled value at the schema scale, which is the
+ * representation of the 'decimal' logical type. Values whose unscaled value fits in a long are scaled and encoded
+ * arithmetically, and their precision is checked against powers of ten. Other values fall back to
+ * {@link BigDecimal#setScale(int)} and {@link java.math.BigInteger#toByteArray()}, which produce the same bytes.
+ */
+public final class DecimalEncoder {
+
+  /**
+   * Maximum number of decimal digits of an unscaled value which always fits in a long.
+   */
+  private static final int MAX_LONG_DIGITS = 18;
+
+  private static final long[] LONG_POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+  private static final double[] DOUBLE_POWERS_OF_TEN = new double[MAX_LONG_DIGITS + 1];
+
+  static {
+    LONG_POWERS_OF_TEN[0] = 1;
+    DOUBLE_POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i <= MAX_LONG_DIGITS; i++) {
+      LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+      DOUBLE_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i];
+    }
+  }
+
+  /**
+   * Bound of scaled double values which are rounded arithmetically. Below 2^40 the rounding error of the scaling is
+   * below 2^-13, so a scaled value within a quarter of an integer is rounded to that integer by
+   * {@link BigDecimal} as well.
+   */
+  private static final double MAX_ROUNDED_DOUBLE = 1L << 40;
+  private static final double MAX_ROUNDING_DISTANCE = 0.25;
+
+  private DecimalEncoder() {
+  }
+
+  /**
+   * @param fieldName name of the field.
+   * @param decimal   decimal value.
+   * @param precision precision of the field schema.
+   * @param scale     scale of the field schema.
+   * @return unscaled value bytes.
+   * @throws UnexpectedFormatException if the value does not fit the precision or the scale of the schema.
+   */
+  public static byte[] encode(String fieldName, BigDecimal decimal, int precision, int scale) {
+    if (decimal.scale() > scale) {
+      throw scaleException(fieldName, decimal.scale(), scale);
+    }
+    int shift = scale - decimal.scale();
+    // precision is cheap for decimals backed by a long, and bounds the number of digits after scaling
+    if (shift <= MAX_LONG_DIGITS && decimal.precision() + shift <= MAX_LONG_DIGITS) {
+      // scaleByPowerOfTen keeps the unscaled long, unlike unscaledValue() which allocates a BigInteger
+      long unscaled = decimal.scaleByPowerOfTen(decimal.scale()).longValueExact();
+      return encodeUnscaled(fieldName, unscaled * LONG_POWERS_OF_TEN[shift], precision);
+    }
+    BigDecimal scaled = decimal.setScale(scale);
+    if (scaled.precision() > precision) {
+      throw precisionException(fieldName, scaled.precision(), precision);
+    }
+    return scaled.unscaledValue().toByteArray();
+  }
+
+  /**
+   * @param fieldName name of the field.
+   * @param value     integral value.
+   * @param precision precision of the field schema.
+   * @param scale     scale of the field schema.
+   * @return unscaled value bytes.
+   * @throws UnexpectedFormatException if the value does not fit the precision of the schema.
+   */
+  public static byte[] encode(String fieldName, long value, int precision, int scale) {
+    if (scale <= MAX_LONG_DIGITS) {
+      long factor = LONG_POWERS_OF_TEN[scale];
+      long unscaled = value * factor;
+      // the product overflows if dividing it back does not restore the value
+      if (scale == 0 || unscaled / factor == value) {
+        return encodeUnscaled(fieldName, unscaled, precision);
+      }
+    }
+    return encode(fieldName, BigDecimal.valueOf(value), precision, scale);
+  }
+
+  /**
+   * Rounds the binary value to the precision and then to the scale of the schema, half-even.
+   *
+   * @param fieldName name of the field.
+   * @param value     floating-point value.
+   * @param precision precision of the field schema.
+   * @param scale     scale of the field schema.
+   * @return unscaled value bytes.
+   * @throws UnexpectedFormatException if the value does not fit the precision of the schema.
+   */
+  public static byte[] encode(String fieldName, double value, int precision, int scale) {
+    if (scale <= MAX_LONG_DIGITS) {
+      double scaled = value * DOUBLE_POWERS_OF_TEN[scale];
+      double rounded = Math.rint(scaled);
+      if (Math.abs(scaled) < MAX_ROUNDED_DOUBLE && Math.abs(scaled - rounded) < MAX_ROUNDING_DISTANCE) {
+        return encodeUnscaled(fieldName, (long) rounded, precision);
+      }
+    }
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new UnexpectedFormatException(String.format("Field '%s' has non-finite value '%s'.", fieldName, value));
+    }
+    BigDecimal decimal = new BigDecimal(value, new MathContext(precision)).setScale(scale, RoundingMode.HALF_EVEN);
+    return encode(fieldName, decimal, precision, scale);
+  }
+
+  /**
+   * Parses a plain decimal literal, such as "-12.34", without creating a {@link BigDecimal} if its digits fit in a
+   * long.
+   *
+   * @param fieldName name of the field.
+   * @param literal   decimal literal.
+   * @param precision precision of the field schema.
+   * @param scale     scale of the field schema.
+   * @return unscaled value bytes.
+   * @throws UnexpectedFormatException if the value does not fit the precision or the scale of the schema.
+   * @throws NumberFormatException     if the literal is not a decimal number.
+   */
+  public static byte[] encode(String fieldName, String literal, int precision, int scale) {
+    int length = literal.length();
+    int index = 0;
+    boolean negative = false;
+    if (length > 0 && (literal.charAt(0) == '-' || literal.charAt(0) == '+')) {
+      negative = literal.charAt(0) == '-';
+      index++;
+    }
+    long unscaled = 0;
+    int digits = 0;
+    int fractionDigits = -1;
+    for (; index < length; index++) {
+      char c = literal.charAt(index);
+      if (c == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+      } else if (c >= '0' && c <= '9' && digits < MAX_LONG_DIGITS) {
+        unscaled = unscaled * 10 + (c - '0');
+        digits++;
+        if (fractionDigits >= 0) {
+          fractionDigits++;
+        }
+      } else {
+        // exponents and long literals are left to BigDecimal
+        return encode(fieldName, new BigDecimal(literal), precision, scale);
+      }
+    }
+    if (digits == 0) {
+      throw new NumberFormatException(String.format("Invalid decimal literal '%s'.", literal));
+    }
+    int literalScale = Math.max(fractionDigits, 0);
+    if (literalScale > scale) {
+      throw scaleException(fieldName, literalScale, scale);
+    }
+    int shift = scale - literalScale;
+    if (digits + shift > MAX_LONG_DIGITS) {
+      return encode(fieldName, new BigDecimal(literal), precision, scale);
+    }
+    unscaled *= LONG_POWERS_OF_TEN[shift];
+    return encodeUnscaled(fieldName, negative ? -unscaled : unscaled, precision);
+  }
+
+  /**
+   * Encodes the unscaled value in the minimal number of bytes, the same way as
+   * {@link java.math.BigInteger#toByteArray()}.
+   */
+  private static byte[] encodeUnscaled(String fieldName, long unscaled, int precision) {
+    if (precision <= MAX_LONG_DIGITS
+      && (unscaled >= LONG_POWERS_OF_TEN[precision] || unscaled <= -LONG_POWERS_OF_TEN[precision])) {
+      throw precisionException(fieldName, digitCount(unscaled), precision);
+    }
+    // number of bits excluding the sign bit
+    int bitLength = Long.SIZE - Long.numberOfLeadingZeros(unscaled < 0 ? ~unscaled : unscaled);
+    byte[] bytes = new byte[bitLength / Byte.SIZE + 1];
+    for (int i = bytes.length - 1; i >= 0; i--) {
+      bytes[i] = (byte) unscaled;
+      unscaled >>= Byte.SIZE;
+    }
+    return bytes;
+  }
+
+  private static int digitCount(long value) {
+    // the values checked against the precision are greater than Long.MIN_VALUE
+    long absolute = Math.abs(value);
+    int digits = 1;
+    while (digits <= MAX_LONG_DIGITS && absolute >= LONG_POWERS_OF_TEN[digits]) {
+      digits++;
+    }
+    return digits;
+  }
+
+  private static UnexpectedFormatException precisionException(String fieldName, int valuePrecision, int precision) {
+    return new UnexpectedFormatException(
+      String.format("Field '%s' has precision '%s' which is higher than schema precision '%s'.",
+                    fieldName, valuePrecision, precision));
+  }
+
+  private static UnexpectedFormatException scaleException(String fieldName, int valueScale, int scale) {
+    return new UnexpectedFormatException(
+      String.format("Field '%s' has scale '%s' which is not equal to schema scale '%s'.",
+                    fieldName, valueScale, scale));
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.transformer;
+
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Thrown when a property value of an entity cannot be converted to the schema of its field.
+ */
+public class FieldConversionException extends UnexpectedFormatException {
+
+  private final String fieldName;
+  private final Object value;
+
+  public FieldConversionException(String fieldName, @Nullable Object value, UnexpectedFormatException cause) {
+    super(cause.getMessage(), cause);
+    this.fieldName = fieldName;
+    this.value = value;
+  }
+
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  /**
+   * @return property value as read from the service.
+   */
+  @Nullable
+  public Object getValue() {
+    return value;
+  }
+}
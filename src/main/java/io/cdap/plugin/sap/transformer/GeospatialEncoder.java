@@ -0,0 +1,323 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.transformer;
+
+import org.apache.olingo.commons.api.edm.geo.ComposedGeospatial;
+import org.apache.olingo.commons.api.edm.geo.Geospatial;
+import org.apache.olingo.commons.api.edm.geo.Point;
+import org.apache.olingo.commons.api.edm.geo.Polygon;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Encodes Olingo geospatial values as Well-Known Text and Well-Known Binary (OGC Simple Features) in a single pass over
+ * the coordinates, without building intermediate records or lists. Coordinates are written as two-dimensional 'x y'
+ * pairs. The SRID is not part of either format.
+ */
+public final class GeospatialEncoder {
+
+  private static final int WKB_POINT = 1;
+  private static final int WKB_LINE_STRING = 2;
+  private static final int WKB_POLYGON = 3;
+  private static final int WKB_MULTI_POINT = 4;
+  private static final int WKB_MULTI_LINE_STRING = 5;
+  private static final int WKB_MULTI_POLYGON = 6;
+  private static final int WKB_GEOMETRY_COLLECTION = 7;
+
+  /**
+   * Little-endian (NDR) byte order marker.
+   */
+  private static final byte WKB_NDR = 1;
+
+  /**
+   * Doubles with integral values below this bound are written to WKT without the fraction.
+   */
+  private static final double MAX_INTEGRAL_WKT_COORDINATE = 1e15;
+
+  private GeospatialEncoder() {
+  }
+
+  /**
+   * @return Well-Known Text of the value, e.g. 'POINT (30.5 10)' or 'LINESTRING (30 10, 10 30)'.
+   * @throws IllegalArgumentException if the geospatial type is not supported.
+   */
+  public static String toWkt(Geospatial geospatial) {
+    StringBuilder builder = new StringBuilder();
+    appendWkt(builder, geospatial);
+    return builder.toString();
+  }
+
+  /**
+   * @return little-endian Well-Known Binary of the value.
+   * @throws IllegalArgumentException if the geospatial type is not supported.
+   */
+  public static byte[] toWkb(Geospatial geospatial) {
+    WkbWriter writer = new WkbWriter();
+    writeWkb(writer, geospatial);
+    return writer.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void appendWkt(StringBuilder builder, Geospatial geospatial) {
+    switch (geospatial.getGeoType()) {
+      case POINT:
+        builder.append("POINT (");
+        appendCoordinates(builder, (Point) geospatial);
+        builder.append(')');
+        break;
+      case LINESTRING:
+        builder.append("LINESTRING ");
+        appendPoints(builder, (ComposedGeospatial<Point>) geospatial);
+        break;
+      case POLYGON:
+        builder.append("POLYGON ");
+        appendPolygon(builder, (Polygon) geospatial);
+        break;
+      case MULTIPOINT:
+        builder.append("MULTIPOINT ");
+        appendComposed(builder, (ComposedGeospatial<Geospatial>) geospatial, GeospatialEncoder::appendPoint);
+        break;
+      case MULTILINESTRING:
+        builder.append("MULTILINESTRING ");
+        appendComposed(builder, (ComposedGeospatial<Geospatial>) geospatial,
+                       (b, g) -> appendPoints(b, (ComposedGeospatial<Point>) g));
+        break;
+      case MULTIPOLYGON:
+        builder.append("MULTIPOLYGON ");
+        appendComposed(builder, (ComposedGeospatial<Geospatial>) geospatial,
+                       (b, g) -> appendPolygon(b, (Polygon) g));
+        break;
+      case GEOSPATIALCOLLECTION:
+        builder.append("GEOMETRYCOLLECTION ");
+        appendComposed(builder, (ComposedGeospatial<Geospatial>) geospatial, GeospatialEncoder::appendWkt);
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Geospatial type '%s' is not supported.",
+                                                         geospatial.getGeoType()));
+    }
+  }
+
+  private static void appendPoint(StringBuilder builder, Geospatial point) {
+    builder.append('(');
+    appendCoordinates(builder, (Point) point);
+    builder.append(')');
+  }
+
+  /**
+   * Appends parenthesized coordinates of the points or 'EMPTY' if there are none.
+   */
+  private static void appendPoints(StringBuilder builder, ComposedGeospatial<Point> points) {
+    appendComposed(builder, points, (b, point) -> appendCoordinates(b, (Point) point));
+  }
+
+  private static void appendPolygon(StringBuilder builder, Polygon polygon) {
+    ComposedGeospatial<Point> exterior = polygon.getExterior();
+    if (isEmpty(exterior)) {
+      builder.append("EMPTY");
+      return;
+    }
+    builder.append('(');
+    appendPoints(builder, exterior);
+    for (int i = 0; i < polygon.getNumberOfInteriorRings(); i++) {
+      builder.append(", ");
+      appendPoints(builder, polygon.getInterior(i));
+    }
+    builder.append(')');
+  }
+
+  private static <T extends Geospatial> void appendComposed(StringBuilder builder, ComposedGeospatial<T> composed,
+                                                            WktAppender appender) {
+    Iterator<T> iterator = composed == null ? null : composed.iterator();
+    if (iterator == null || !iterator.hasNext()) {
+      builder.append("EMPTY");
+      return;
+    }
+    builder.append('(');
+    appender.append(builder, iterator.next());
+    while (iterator.hasNext()) {
+      builder.append(", ");
+      appender.append(builder, iterator.next());
+    }
+    builder.append(')');
+  }
+
+  private static boolean isEmpty(ComposedGeospatial<?> composed) {
+    return composed == null || composed.iterator() == null || !composed.iterator().hasNext();
+  }
+
+  private static void appendCoordinates(StringBuilder builder, Point point) {
+    appendCoordinate(builder, point.getX());
+    builder.append(' ');
+    appendCoordinate(builder, point.getY());
+  }
+
+  private static void appendCoordinate(StringBuilder builder, double value) {
+    if (value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL_WKT_COORDINATE) {
+      builder.append((long) value);
+    } else {
+      builder.append(value);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void writeWkb(WkbWriter writer, Geospatial geospatial) {
+    switch (geospatial.getGeoType()) {
+      case POINT:
+        writer.writeHeader(WKB_POINT);
+        writer.writePoint((Point) geospatial);
+        break;
+      case LINESTRING:
+        writer.writeHeader(WKB_LINE_STRING);
+        writePoints(writer, (ComposedGeospatial<Point>) geospatial);
+        break;
+      case POLYGON:
+        writer.writeHeader(WKB_POLYGON);
+        writePolygonRings(writer, (Polygon) geospatial);
+        break;
+      case MULTIPOINT:
+        writer.writeHeader(WKB_MULTI_POINT);
+        writeGeometries(writer, (ComposedGeospatial<Geospatial>) geospatial);
+        break;
+      case MULTILINESTRING:
+        writer.writeHeader(WKB_MULTI_LINE_STRING);
+        writeGeometries(writer, (ComposedGeospatial<Geospatial>) geospatial);
+        break;
+      case MULTIPOLYGON:
+        writer.writeHeader(WKB_MULTI_POLYGON);
+        writeGeometries(writer, (ComposedGeospatial<Geospatial>) geospatial);
+        break;
+      case GEOSPATIALCOLLECTION:
+        writer.writeHeader(WKB_GEOMETRY_COLLECTION);
+        writeGeometries(writer, (ComposedGeospatial<Geospatial>) geospatial);
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Geospatial type '%s' is not supported.",
+                                                         geospatial.getGeoType()));
+    }
+  }
+
+  /**
+   * Writes the number of points followed by their coordinates. The number is written in place once the points are
+   * counted, so the points are iterated only once.
+   */
+  private static void writePoints(WkbWriter writer, ComposedGeospatial<Point> points) {
+    int countPosition = writer.reserveInt();
+    int count = 0;
+    Iterator<Point> iterator = points == null ? null : points.iterator();
+    if (iterator != null) {
+      while (iterator.hasNext()) {
+        writer.writePoint(iterator.next());
+        count++;
+      }
+    }
+    writer.writeIntAt(countPosition, count);
+  }
+
+  private static void writePolygonRings(WkbWriter writer, Polygon polygon) {
+    ComposedGeospatial<Point> exterior = polygon.getExterior();
+    if (isEmpty(exterior)) {
+      writer.writeInt(0);
+      return;
+    }
+    int interiorRings = polygon.getNumberOfInteriorRings();
+    writer.writeInt(1 + interiorRings);
+    writePoints(writer, exterior);
+    for (int i = 0; i < interiorRings; i++) {
+      writePoints(writer, polygon.getInterior(i));
+    }
+  }
+
+  private static void writeGeometries(WkbWriter writer, ComposedGeospatial<Geospatial> geometries) {
+    int countPosition = writer.reserveInt();
+    int count = 0;
+    Iterator<Geospatial> iterator = geometries == null ? null : geometries.iterator();
+    if (iterator != null) {
+      while (iterator.hasNext()) {
+        writeWkb(writer, iterator.next());
+        count++;
+      }
+    }
+    writer.writeIntAt(countPosition, count);
+  }
+
+  /**
+   * Appends the WKT of a member of a composed geospatial value.
+   */
+  private interface WktAppender {
+    void append(StringBuilder builder, Geospatial geospatial);
+  }
+
+  /**
+   * Growable little-endian byte buffer.
+   */
+  private static final class WkbWriter {
+
+    private byte[] buffer = new byte[64];
+    private int size;
+
+    void writeHeader(int type) {
+      ensureCapacity(1);
+      buffer[size++] = WKB_NDR;
+      writeInt(type);
+    }
+
+    void writePoint(Point point) {
+      writeDouble(point.getX());
+      writeDouble(point.getY());
+    }
+
+    /**
+     * @return position of an int to be written later with {@link #writeIntAt(int, int)}.
+     */
+    int reserveInt() {
+      int position = size;
+      writeInt(0);
+      return position;
+    }
+
+    void writeInt(int value) {
+      ensureCapacity(Integer.BYTES);
+      writeIntAt(size, value);
+      size += Integer.BYTES;
+    }
+
+    void writeIntAt(int position, int value) {
+      buffer[position] = (byte) value;
+      buffer[position + 1] = (byte) (value >>> 8);
+      buffer[position + 2] = (byte) (value >>> 16);
+      buffer[position + 3] = (byte) (value >>> 24);
+    }
+
+    void writeDouble(double value) {
+      ensureCapacity(Double.BYTES);
+      long bits = Double.doubleToRawLongBits(value);
+      for (int i = 0; i < Double.BYTES; i++) {
+        buffer[size++] = (byte) (bits >>> (8 * i));
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int bytes) {
+      if (size + bytes > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+      }
+    }
+  }
+}
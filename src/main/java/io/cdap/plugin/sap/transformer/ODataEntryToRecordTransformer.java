@@ -40,14 +40,14 @@ import org.apache.olingo.odata2.core.edm.EdmDateTimeOffset;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.MathContext;
 import java.sql.Timestamp;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -59,9 +59,35 @@ import java.util.stream.Stream;
 public class ODataEntryToRecordTransformer {
 
   private final Schema schema;
+  private final String[] fieldNames;
+  private final Schema[] fieldSchemas;
+  private final Map<String, StringDictionary> stringDictionaries;
 
   public ODataEntryToRecordTransformer(Schema schema) {
+    this(schema, 0);
+  }
+
+  /**
+   * @param schema               output schema.
+   * @param stringDictionarySize maximum number of distinct values of a string field canonicalized by its
+   *                             {@link StringDictionary}, {@code 0} to disable the dictionaries.
+   */
+  public ODataEntryToRecordTransformer(Schema schema, int stringDictionarySize) {
     this.schema = schema;
+    List<Schema.Field> fields = schema.getFields();
+    this.fieldNames = new String[fields.size()];
+    this.fieldSchemas = new Schema[fields.size()];
+    this.stringDictionaries = new HashMap<>();
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
+      Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+      fieldNames[i] = field.getName();
+      fieldSchemas[i] = fieldSchema;
+      if (stringDictionarySize > 0 && fieldSchema.getType() == Schema.Type.STRING
+        && fieldSchema.getLogicalType() == null) {
+        stringDictionaries.put(field.getName(), new StringDictionary(stringDictionarySize));
+      }
+    }
   }
 
   /**
@@ -69,19 +95,60 @@ public class ODataEntryToRecordTransformer {
    *
    * @param oDataEntity ODataEntity to be transformed.
    * @return {@link StructuredRecord} that corresponds to the given {@link ODataEntity}.
+   * @throws FieldConversionException if a property value cannot be converted to the schema of its field.
    */
   public StructuredRecord transform(ODataEntity oDataEntity) {
+    if (oDataEntity instanceof RecordODataEntity) {
+      return ((RecordODataEntity) oDataEntity).getRecord();
+    }
     StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-    for (Schema.Field field : schema.getFields()) {
-      Schema nonNullableSchema = field.getSchema().isNullable() ?
-        field.getSchema().getNonNullable() : field.getSchema();
-      String fieldName = field.getName();
-      Object value = oDataEntity.getProperties().get(fieldName);
-      builder.set(fieldName, extractValue(fieldName, value, nonNullableSchema));
+    for (int i = 0; i < fieldNames.length; i++) {
+      setValue(builder, fieldNames[i], oDataEntity.getProperties().get(fieldNames[i]), fieldSchemas[i]);
     }
     return builder.build();
   }
 
+  /**
+   * Transforms a batch of entities column by column: the values of a field are converted for all entities of the
+   * batch before the next field, so the conversion of each field runs over the whole batch.
+   *
+   * @param oDataEntities entities to be transformed.
+   * @return records in the order of the entities.
+   * @throws FieldConversionException if a property value of any of the entities cannot be converted to the schema of
+   *                                  its field.
+   */
+  public List<StructuredRecord> transformBatch(List<ODataEntity> oDataEntities) {
+    int size = oDataEntities.size();
+    StructuredRecord.Builder[] builders = new StructuredRecord.Builder[size];
+    for (int i = 0; i < size; i++) {
+      if (!(oDataEntities.get(i) instanceof RecordODataEntity)) {
+        builders[i] = StructuredRecord.builder(schema);
+      }
+    }
+    for (int field = 0; field < fieldNames.length; field++) {
+      String fieldName = fieldNames[field];
+      Schema fieldSchema = fieldSchemas[field];
+      for (int i = 0; i < size; i++) {
+        if (builders[i] != null) {
+          setValue(builders[i], fieldName, oDataEntities.get(i).getProperties().get(fieldName), fieldSchema);
+        }
+      }
+    }
+    List<StructuredRecord> records = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      records.add(builders[i] == null ? ((RecordODataEntity) oDataEntities.get(i)).getRecord() : builders[i].build());
+    }
+    return records;
+  }
+
+  private void setValue(StructuredRecord.Builder builder, String fieldName, Object value, Schema schema) {
+    try {
+      builder.set(fieldName, extractValue(fieldName, value, schema));
+    } catch (UnexpectedFormatException e) {
+      throw new FieldConversionException(fieldName, value, e);
+    }
+  }
+
   /**
    * Extract value of EDM types according to the provided schema. Some of the EDM types can be represented by multiple
    * Java types. For more information see:
@@ -136,13 +203,20 @@ public class ODataEntryToRecordTransformer {
                         Integer.class, Long.class);
         return ((Number) value).doubleValue();
       case BYTES:
-        ensureTypeValid(fieldName, value, byte[].class);
+        ensureTypeValid(fieldName, value, byte[].class, Geospatial.class);
+        if (value instanceof Geospatial) {
+          return extractGeospatialWkb(fieldName, (Geospatial) value);
+        }
         return value;
       case LONG:
         ensureTypeValid(fieldName, value, Long.class, Byte.class, Short.class, Integer.class, BigInteger.class);
         return ((Number) value).longValue();
       case STRING:
-        ensureTypeValid(fieldName, value, String.class, UUID.class, Calendar.class, Timestamp.class, BigDecimal.class);
+        ensureTypeValid(fieldName, value, String.class, UUID.class, Calendar.class, Timestamp.class, BigDecimal.class,
+                        Geospatial.class);
+        if (value instanceof Geospatial) {
+          return extractGeospatialWkt(fieldName, (Geospatial) value);
+        }
         if (value instanceof Calendar || value instanceof Timestamp) {
           // Olingo V4 uses Timestamp for 'Edm.DateTimeOffset'
           return extractDateTimeOffset(fieldName, value);
@@ -150,12 +224,18 @@ public class ODataEntryToRecordTransformer {
         if (value instanceof BigDecimal) {
           return extractDuration(fieldName, (BigDecimal) value);
         }
+        if (value instanceof String) {
+          return extractString(fieldName, (String) value);
+        }
         return value.toString();
       case RECORD:
-        ensureTypeValid(fieldName, value, Geospatial.class, StreamProperty.class);
+        ensureTypeValid(fieldName, value, Geospatial.class, StreamProperty.class, Calendar.class, Timestamp.class);
         if (value instanceof StreamProperty) {
           return extractStream((StreamProperty) value);
         }
+        if (value instanceof Calendar || value instanceof Timestamp) {
+          return extractDateTimeOffsetRecord(value);
+        }
         return extractGeospatial(fieldName, (Geospatial) value);
       default:
         throw new UnexpectedFormatException(String.format("Field '%s' is of unsupported type '%s'", fieldName,
@@ -163,6 +243,11 @@ public class ODataEntryToRecordTransformer {
     }
   }
 
+  private String extractString(String fieldName, String value) {
+    StringDictionary dictionary = stringDictionaries.get(fieldName);
+    return dictionary == null ? value : dictionary.canonicalize(value);
+  }
+
   private StructuredRecord extractStream(StreamProperty streamProperty) {
     return StructuredRecord.builder(SapODataConstants.Stream.SCHEMA)
       .set(SapODataConstants.Stream.ETAG_FIELD_NAME, streamProperty.getMediaEtag())
@@ -196,6 +281,24 @@ public class ODataEntryToRecordTransformer {
     }
   }
 
+  private String extractGeospatialWkt(String fieldName, Geospatial geospatial) {
+    try {
+      return GeospatialEncoder.toWkt(geospatial);
+    } catch (IllegalArgumentException e) {
+      throw new UnexpectedFormatException(String.format("Field '%s' is of unsupported geospatial type '%s'.",
+                                                        fieldName, geospatial.getGeoType()), e);
+    }
+  }
+
+  private byte[] extractGeospatialWkb(String fieldName, Geospatial geospatial) {
+    try {
+      return GeospatialEncoder.toWkb(geospatial);
+    } catch (IllegalArgumentException e) {
+      throw new UnexpectedFormatException(String.format("Field '%s' is of unsupported geospatial type '%s'.",
+                                                        fieldName, geospatial.getGeoType()), e);
+    }
+  }
+
   private StructuredRecord extractGeospatialCollectionRecord(String fieldName, GeospatialCollection collection) {
     List<StructuredRecord> points = new ArrayList<>();
     List<StructuredRecord> lineStrings = new ArrayList<>();
@@ -322,6 +425,28 @@ public class ODataEntryToRecordTransformer {
       .build();
   }
 
+  /**
+   * Olingo V2 keeps the offset of 'Edm.DateTimeOffset' values as the time zone of the calendar, while Olingo V4
+   * normalizes them to UTC timestamps, so the offset of OData V4 values is zero.
+   */
+  private StructuredRecord extractDateTimeOffsetRecord(Object value) {
+    long timestamp;
+    int offsetMillis;
+    if (value instanceof Calendar) {
+      Calendar calendar = (Calendar) value;
+      timestamp = DateTimeConverter.toEpochMicros(calendar);
+      offsetMillis = calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET);
+    } else {
+      timestamp = DateTimeConverter.toEpochMicros((Timestamp) value);
+      offsetMillis = 0;
+    }
+    return StructuredRecord.builder(SapODataConstants.DateTimeOffset.SCHEMA)
+      .set(SapODataConstants.DateTimeOffset.TIMESTAMP_FIELD_NAME, timestamp)
+      .set(SapODataConstants.DateTimeOffset.OFFSET_MINUTES_FIELD_NAME,
+           (int) TimeUnit.MILLISECONDS.toMinutes(offsetMillis))
+      .build();
+  }
+
   private String extractDateTimeOffset(String fieldName, Object value) {
     try {
       return EdmDateTimeOffset.getInstance().valueToString(value, EdmLiteralKind.DEFAULT, null);
@@ -342,82 +467,59 @@ public class ODataEntryToRecordTransformer {
   }
 
   private int extractTimeMillis(Object value) {
-    long nanos = value instanceof GregorianCalendar
-      ? ((GregorianCalendar) value).toZonedDateTime().toLocalTime().toNanoOfDay()
-      : ((Timestamp) value).toLocalDateTime().toLocalTime().toNanoOfDay();
-    return Math.toIntExact(TimeUnit.NANOSECONDS.toMillis(nanos));
+    return Math.toIntExact(TimeUnit.NANOSECONDS.toMillis(extractNanoOfDay(value)));
   }
 
   private long extractTimeMicros(Object value) {
-    long nanos = value instanceof GregorianCalendar
-      ? ((GregorianCalendar) value).toZonedDateTime().toLocalTime().toNanoOfDay()
-      : ((Timestamp) value).toLocalDateTime().toLocalTime().toNanoOfDay();
-    return TimeUnit.NANOSECONDS.toMicros(nanos);
+    return TimeUnit.NANOSECONDS.toMicros(extractNanoOfDay(value));
   }
 
-  private long extractTimestampMillis(Object value) {
-    Instant instant = value instanceof Calendar ? ((Calendar) value).toInstant() : ((Timestamp) value).toInstant();
-    long millis = TimeUnit.SECONDS.toMillis(instant.getEpochSecond());
-    return Math.addExact(millis, TimeUnit.NANOSECONDS.toMillis(instant.getNano()));
+  private long extractNanoOfDay(Object value) {
+    return value instanceof GregorianCalendar
+      ? DateTimeConverter.toNanoOfDay((GregorianCalendar) value)
+      : DateTimeConverter.toNanoOfDay((Timestamp) value);
   }
 
-  private long extractTimestampMicros(Object value) {
-    Instant instant = value instanceof Calendar ? ((Calendar) value).toInstant() : ((Timestamp) value).toInstant();
-    long micros = TimeUnit.SECONDS.toMicros(instant.getEpochSecond());
-    return Math.addExact(micros, TimeUnit.NANOSECONDS.toMicros(instant.getNano()));
+  private long extractTimestampMillis(Object value) {
+    // the time of a timestamp includes the milliseconds of its nanos
+    return value instanceof Calendar ? ((Calendar) value).getTimeInMillis() : ((Timestamp) value).getTime();
   }
 
-  private byte[] extractDecimal(String fieldName, Object value, Schema schema) {
-    int schemaPrecision = schema.getPrecision();
-    int schemaScale = schema.getScale();
-    BigDecimal decimal = extractBigDecimal(value, schema);
-    if (decimal.precision() > schemaPrecision) {
-      throw new UnexpectedFormatException(
-        String.format("Field '%s' has precision '%s' which is higher than schema precision '%s'.",
-                      fieldName, decimal.precision(), schemaPrecision));
-    }
-
-    if (decimal.scale() > schemaScale) {
-      throw new UnexpectedFormatException(
-        String.format("Field '%s' has scale '%s' which is not equal to schema scale '%s'.",
-                      fieldName, decimal.scale(), schemaScale));
-    }
-
-    return decimal.setScale(schemaScale).unscaledValue().toByteArray();
+  private long extractTimestampMicros(Object value) {
+    return value instanceof Calendar
+      ? DateTimeConverter.toEpochMicros((Calendar) value)
+      : DateTimeConverter.toEpochMicros((Timestamp) value);
   }
 
   /**
-   * Extracts {@link BigDecimal} value of 'EDM.Decimal' since EDM.Decimal can be represented by multiple Java types
-   * in Olingo V4: {@link BigDecimal}, {@link BigInteger}, {@link Double}, {@link Float}, {@link Byte}, {@link Short},
-   * {@link Integer}, {@link Long}.
+   * Encodes 'EDM.Decimal' value, which can be represented by multiple Java types in Olingo V4: {@link BigDecimal},
+   * {@link BigInteger}, {@link Double}, {@link Float}, {@link Byte}, {@link Short}, {@link Integer}, {@link Long}.
    * <p>
    * For more information see:
    * <a href="https://olingo.apache.org/javadoc/odata4/org/apache/olingo/commons/api/edm/EdmPrimitiveType.html">
    * EdmPrimitiveType
    * </a>
    *
-   * @param value  'EDM.Decimal' value of one of the following Java types {@link BigDecimal}, {@link BigInteger},
-   *               {@link Double}, {@link Float}, {@link Byte}, {@link Short}, {@link Integer}, {@link Long}.
-   * @param schema field schema.
-   * @return {@link BigDecimal} representation of the provided 'EDM.Decimal' value.
+   * @param fieldName name of the field.
+   * @param value     'EDM.Decimal' value of one of the Java types listed above.
+   * @param schema    decimal field schema.
+   * @return unscaled value bytes.
    */
-  private BigDecimal extractBigDecimal(Object value, Schema schema) {
+  private byte[] extractDecimal(String fieldName, Object value, Schema schema) {
+    int precision = schema.getPrecision();
+    int scale = schema.getScale();
     if (value instanceof BigDecimal) {
-      return (BigDecimal) value;
+      return DecimalEncoder.encode(fieldName, (BigDecimal) value, precision, scale);
     }
     if (value instanceof BigInteger) {
-      return new BigDecimal((BigInteger) value);
+      return DecimalEncoder.encode(fieldName, new BigDecimal((BigInteger) value), precision, scale);
     }
     if (value instanceof Double || value instanceof Float) {
-      double doubleValue = ((Number) value).doubleValue();
-      int precision = schema.getPrecision();
-      int scale = schema.getScale();
-      return new BigDecimal(doubleValue, new MathContext(precision)).setScale(scale, BigDecimal.ROUND_HALF_EVEN);
+      return DecimalEncoder.encode(fieldName, ((Number) value).doubleValue(), precision, scale);
     }
 
     // Byte, Short, Integer, Long
-    long longValue = ((Number) value).longValue();
-    return new BigDecimal(longValue);
+    return DecimalEncoder.encode(fieldName, ((Number) value).longValue(), precision, scale);
   }
 
   private void ensureTypeValid(String fieldName, Object value, Class... expectedTypes) {
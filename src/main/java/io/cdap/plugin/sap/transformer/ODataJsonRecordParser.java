@@ -0,0 +1,371 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.transformer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.sap.SapODataConstants;
+import io.cdap.plugin.sap.odata.EntityType;
+import io.cdap.plugin.sap.odata.JsonPageParser;
+import io.cdap.plugin.sap.odata.PropertyMetadata;
+import io.cdap.plugin.sap.odata.exception.ODataException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Streams OData V4 JSON entity set pages and writes property values directly into {@link StructuredRecord} fields,
+ * skipping the intermediate Olingo object model and {@link io.cdap.plugin.sap.odata.ODataEntity} maps.
+ * Supported for schemas of primitive fields and 'Edm.DateTimeOffset' records only, see
+ * {@link #isSupported(Schema, EntityType)}.
+ */
+public class ODataJsonRecordParser implements JsonPageParser<StructuredRecord> {
+
+  private static final String VALUE = "value";
+  private static final String NEXT_LINK = "@odata.nextLink";
+  // OData 4.0 services may omit the '@' prefix of control information
+  private static final String LEGACY_NEXT_LINK = "odata.nextLink";
+
+  private final Schema schema;
+  private final Map<String, FieldReader> readers;
+
+  /**
+   * @param schema     output schema.
+   * @param entityType type of the entity set to parse.
+   * @throws IllegalArgumentException if the schema contains fields which can not be parsed directly.
+   */
+  public ODataJsonRecordParser(Schema schema, EntityType entityType) {
+    this(schema, entityType, 0);
+  }
+
+  /**
+   * @param schema               output schema.
+   * @param entityType           type of the entity set to parse.
+   * @param stringDictionarySize maximum number of distinct values of a string field canonicalized by its
+   *                             {@link StringDictionary}, {@code 0} to disable the dictionaries.
+   * @throws IllegalArgumentException if the schema contains fields which can not be parsed directly.
+   */
+  public ODataJsonRecordParser(Schema schema, EntityType entityType, int stringDictionarySize) {
+    this.schema = schema;
+    this.readers = createReaders(schema, entityType, stringDictionarySize);
+  }
+
+  /**
+   * @param schema     output schema.
+   * @param entityType type of the entity set to parse.
+   * @return {@code true} if every field of the schema can be parsed directly, {@code false} if the schema contains
+   * fields such as geospatial or stream records, which require the Olingo object model.
+   */
+  public static boolean isSupported(Schema schema, EntityType entityType) {
+    try {
+      createReaders(schema, entityType, 0);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public JsonPage<StructuredRecord> parse(InputStream content) throws IOException {
+    return new RecordPage(new JsonReader(new InputStreamReader(content, StandardCharsets.UTF_8)));
+  }
+
+  private static Map<String, FieldReader> createReaders(Schema schema, EntityType entityType,
+                                                        int stringDictionarySize) {
+    Map<String, PropertyMetadata> properties = new HashMap<>();
+    for (PropertyMetadata property : entityType.getProperties()) {
+      properties.put(property.getName(), property);
+    }
+    Map<String, FieldReader> readers = new HashMap<>();
+    for (Schema.Field field : schema.getFields()) {
+      PropertyMetadata property = properties.get(field.getName());
+      if (property == null) {
+        // not a property of the entity type, left empty as in the Olingo path
+        continue;
+      }
+      Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+      readers.put(field.getName(), createReader(field.getName(), property.getEdmTypeName(), fieldSchema,
+                                                stringDictionarySize));
+    }
+    return readers;
+  }
+
+  private static FieldReader createReader(String fieldName, String edmTypeName, Schema schema,
+                                          int stringDictionarySize) {
+    if (edmTypeName.startsWith("Geography") || edmTypeName.startsWith("Geometry")) {
+      // GeoJSON payload is converted to any of the geospatial formats by the Olingo object model
+      throw new IllegalArgumentException(String.format("Field '%s' of type '%s' can not be parsed directly",
+                                                       fieldName, edmTypeName));
+    }
+    Schema.LogicalType logicalType = schema.getLogicalType();
+    if (logicalType != null) {
+      switch (logicalType) {
+        case DECIMAL:
+          return reader -> DecimalEncoder.encode(fieldName, reader.nextString(), schema.getPrecision(),
+                                                 schema.getScale());
+        case TIMESTAMP_MILLIS:
+          return reader -> TimeUnit.MICROSECONDS.toMillis(readTimestampMicros(fieldName, edmTypeName, reader));
+        case TIMESTAMP_MICROS:
+          return reader -> readTimestampMicros(fieldName, edmTypeName, reader);
+        case TIME_MILLIS:
+          return reader -> Math.toIntExact(TimeUnit.NANOSECONDS.toMillis(readTimeNanos(fieldName, reader)));
+        case TIME_MICROS:
+          return reader -> TimeUnit.NANOSECONDS.toMicros(readTimeNanos(fieldName, reader));
+        default:
+          throw new IllegalArgumentException(String.format("Field '%s' is of unsupported type '%s'", fieldName,
+                                                           logicalType.getToken()));
+      }
+    }
+
+    switch (schema.getType()) {
+      case BOOLEAN:
+        return JsonReader::nextBoolean;
+      case INT:
+        return JsonReader::nextInt;
+      case LONG:
+        return JsonReader::nextLong;
+      case FLOAT:
+        return reader -> (float) readDouble(fieldName, reader);
+      case DOUBLE:
+        return reader -> readDouble(fieldName, reader);
+      case STRING:
+        if (stringDictionarySize > 0 && "String".equals(edmTypeName)) {
+          StringDictionary dictionary = new StringDictionary(stringDictionarySize);
+          return reader -> dictionary.canonicalize(reader.nextString());
+        }
+        // 'Edm.DateTimeOffset', 'Edm.Duration' and 'Edm.Guid' values are kept in their ISO 8601 JSON representation
+        return JsonReader::nextString;
+      case BYTES:
+        return reader -> readBinary(fieldName, reader);
+      case RECORD:
+        if ("DateTimeOffset".equals(edmTypeName)) {
+          return reader -> readDateTimeOffset(fieldName, reader);
+        }
+        // geospatial and stream records require the Olingo object model
+        throw new IllegalArgumentException(String.format("Field '%s' of type '%s' can not be parsed directly",
+                                                         fieldName, edmTypeName));
+      default:
+        throw new IllegalArgumentException(String.format("Field '%s' is of unsupported type '%s'", fieldName,
+                                                         schema.getType().name().toLowerCase()));
+    }
+  }
+
+  private static long readTimestampMicros(String fieldName, String edmTypeName, JsonReader reader)
+    throws IOException {
+    String value = reader.nextString();
+    try {
+      if ("Date".equals(edmTypeName)) {
+        return TimeUnit.DAYS.toMicros(LocalDate.parse(value).toEpochDay());
+      }
+      Instant instant = OffsetDateTime.parse(value).toInstant();
+      long micros = TimeUnit.SECONDS.toMicros(instant.getEpochSecond());
+      return Math.addExact(micros, TimeUnit.NANOSECONDS.toMicros(instant.getNano()));
+    } catch (DateTimeException e) {
+      throw new UnexpectedFormatException(String.format("Unsupported value for '%s' field: '%s'", fieldName, value), e);
+    }
+  }
+
+  private static StructuredRecord readDateTimeOffset(String fieldName, JsonReader reader) throws IOException {
+    String value = reader.nextString();
+    try {
+      OffsetDateTime dateTime = OffsetDateTime.parse(value);
+      long micros = TimeUnit.SECONDS.toMicros(dateTime.toEpochSecond());
+      return StructuredRecord.builder(SapODataConstants.DateTimeOffset.SCHEMA)
+        .set(SapODataConstants.DateTimeOffset.TIMESTAMP_FIELD_NAME,
+             Math.addExact(micros, TimeUnit.NANOSECONDS.toMicros(dateTime.getNano())))
+        .set(SapODataConstants.DateTimeOffset.OFFSET_MINUTES_FIELD_NAME,
+             (int) TimeUnit.SECONDS.toMinutes(dateTime.getOffset().getTotalSeconds()))
+        .build();
+    } catch (DateTimeException e) {
+      throw new UnexpectedFormatException(String.format("Unsupported value for '%s' field: '%s'", fieldName, value), e);
+    }
+  }
+
+  private static long readTimeNanos(String fieldName, JsonReader reader) throws IOException {
+    String value = reader.nextString();
+    try {
+      return LocalTime.parse(value).toNanoOfDay();
+    } catch (DateTimeException e) {
+      throw new UnexpectedFormatException(String.format("Unsupported value for '%s' field: '%s'", fieldName, value), e);
+    }
+  }
+
+  /**
+   * Reads 'Edm.Double' or 'Edm.Single' value, which is either a JSON number or one of the 'INF', '-INF', 'NaN'
+   * strings.
+   */
+  private static double readDouble(String fieldName, JsonReader reader) throws IOException {
+    String value = reader.nextString();
+    switch (value) {
+      case "INF":
+        return Double.POSITIVE_INFINITY;
+      case "-INF":
+        return Double.NEGATIVE_INFINITY;
+      case "NaN":
+        return Double.NaN;
+      default:
+        try {
+          return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+          throw new UnexpectedFormatException(String.format("Unsupported value for '%s' field: '%s'", fieldName,
+                                                            value), e);
+        }
+    }
+  }
+
+  /**
+   * Reads 'Edm.Binary' value. OData V4 JSON format uses base64url encoding, while some services use plain base64.
+   */
+  private static byte[] readBinary(String fieldName, JsonReader reader) throws IOException {
+    String value = reader.nextString();
+    try {
+      boolean urlSafe = value.indexOf('+') < 0 && value.indexOf('/') < 0;
+      return urlSafe ? Base64.getUrlDecoder().decode(value) : Base64.getDecoder().decode(value);
+    } catch (IllegalArgumentException e) {
+      throw new UnexpectedFormatException(String.format("Unsupported value for '%s' field: '%s'", fieldName, value), e);
+    }
+  }
+
+  /**
+   * Reads a single JSON value of a field.
+   */
+  private interface FieldReader {
+    Object read(JsonReader reader) throws IOException;
+  }
+
+  /**
+   * Entities of a single page, parsed lazily from the 'value' array.
+   */
+  private class RecordPage implements JsonPage<StructuredRecord> {
+
+    private final JsonReader reader;
+    private String nextLink;
+    private boolean inValue;
+    private boolean finished;
+
+    private RecordPage(JsonReader reader) throws IOException {
+      this.reader = reader;
+      reader.beginObject();
+      readControlInformation();
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (finished) {
+        return false;
+      }
+      try {
+        if (inValue && reader.hasNext()) {
+          return true;
+        }
+        if (inValue) {
+          reader.endArray();
+          inValue = false;
+          // next link may follow the 'value' array
+          readControlInformation();
+        }
+        reader.endObject();
+        finished = true;
+        return false;
+      } catch (IOException | IllegalStateException e) {
+        throw new ODataException("Unable to parse entity set page: " + e.getMessage(), e);
+      }
+    }
+
+    @Override
+    public StructuredRecord next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      try {
+        StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+        reader.beginObject();
+        while (reader.hasNext()) {
+          String name = reader.nextName();
+          FieldReader fieldReader = readers.get(name);
+          if (fieldReader == null) {
+            // annotations, navigation properties and properties which are not part of the schema
+            reader.skipValue();
+          } else if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+          } else {
+            builder.set(name, readValue(name, fieldReader));
+          }
+        }
+        reader.endObject();
+        return builder.build();
+      } catch (IOException | IllegalStateException e) {
+        throw new ODataException("Unable to parse entity set page: " + e.getMessage(), e);
+      }
+    }
+
+    @Nullable
+    @Override
+    public String getNextLink() {
+      return nextLink;
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+
+    private Object readValue(String name, FieldReader fieldReader) throws IOException {
+      try {
+        return fieldReader.read(reader);
+      } catch (NumberFormatException | ArithmeticException e) {
+        throw new UnexpectedFormatException(String.format("Unsupported value for '%s' field: %s", name,
+                                                          e.getMessage()), e);
+      }
+    }
+
+    /**
+     * Reads top-level members up to the start of the 'value' array or the end of the object.
+     */
+    private void readControlInformation() throws IOException {
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (VALUE.equals(name)) {
+          reader.beginArray();
+          inValue = true;
+          return;
+        }
+        if (NEXT_LINK.equals(name) || LEGACY_NEXT_LINK.equals(name)) {
+          nextLink = reader.nextString();
+        } else {
+          reader.skipValue();
+        }
+      }
+    }
+  }
+}
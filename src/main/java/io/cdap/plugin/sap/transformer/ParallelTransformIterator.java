@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.transformer;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.plugin.sap.odata.ODataEntity;
+import io.cdap.plugin.sap.odata.PagePosition;
+import io.cdap.plugin.sap.odata.PagingEntityIterator;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Iterator which reads and parses the pages on a reader thread and converts entities to records on a pool of worker
+ * threads, so the calling thread only consumes converted records. Entities are read in batches, each batch is
+ * converted by a single worker using {@link ODataEntryToRecordTransformer#transformBatch(List)} and batches are
+ * returned in the order they were read. The number of batches in flight is bounded, so reading is paused until the
+ * oldest batch is consumed once the workers or the calling thread fall behind.
+ * <p>
+ * Converted entities are returned as {@link RecordODataEntity}. Entities which cannot be converted are returned as
+ * they are, so that the transform stage converts them again and handles the error according to its policy.
+ */
+public class ParallelTransformIterator implements Iterator<ODataEntity>, Closeable {
+
+  /**
+   * Marks the end of the entities in the queue of batches.
+   */
+  private static final Future<Batch> END = CompletableFuture.completedFuture(null);
+
+  private final PagingEntityIterator<ODataEntity> entities;
+  private final ThreadLocal<ODataEntryToRecordTransformer> transformers;
+  private final int batchSize;
+  private final BlockingQueue<Future<Batch>> batches;
+  private final ExecutorService executor;
+  private final ExecutorService reader;
+  private Future<Batch> pending;
+  private Batch batch;
+  private int index;
+
+  /**
+   * @param entities     entities to convert.
+   * @param transformers creates a transformer for every worker thread, since transformers are not thread-safe.
+   * @param threads      number of worker threads.
+   * @param batchSize    maximum number of entities converted by a worker at once.
+   */
+  public ParallelTransformIterator(PagingEntityIterator<ODataEntity> entities,
+                                   Supplier<ODataEntryToRecordTransformer> transformers, int threads, int batchSize) {
+    this.entities = entities;
+    this.transformers = ThreadLocal.withInitial(transformers);
+    this.batchSize = batchSize;
+    // one batch per worker is converted while another one is waiting
+    this.batches = new ArrayBlockingQueue<>(2 * threads);
+    this.executor = Executors.newFixedThreadPool(threads, daemonThreads("sap-odata-transform"));
+    this.reader = Executors.newSingleThreadExecutor(daemonThreads("sap-odata-read"));
+    reader.submit(this::readBatches);
+  }
+
+  /**
+   * @return position of the page of the entity last returned by {@link #next()}, {@code null} if no entity has been
+   * returned.
+   * @see PagingEntityIterator#getPagePosition()
+   */
+  @Nullable
+  public PagePosition getPagePosition() {
+    return batch == null ? null : batch.position;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (batch == null || index == batch.entities.size()) {
+      // the end and read failures are kept pending, so that every further call returns false or fails again
+      if (pending == null) {
+        pending = takeBatch();
+      }
+      if (pending == END) {
+        return false;
+      }
+      batch = getBatch(pending);
+      pending = null;
+      index = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public ODataEntity next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return batch.entities.get(index++);
+  }
+
+  @Override
+  public void close() {
+    reader.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Reads batches on the reader thread and submits them for conversion, waiting while the maximum number of batches is
+   * in flight. A batch never spans multiple pages, so that its page position is the position of all of its entities.
+   * Reading ends with {@link #END} or with a failed batch if a page cannot be read.
+   */
+  private void readBatches() {
+    List<ODataEntity> read = new ArrayList<>(batchSize);
+    PagePosition position = null;
+    Future<Batch> last = END;
+    try {
+      try {
+        while (entities.hasNext()) {
+          // position of the page of the next entity is known once hasNext() requested the page
+          if (read.size() == batchSize || (!read.isEmpty() && entities.getPagePosition() != position)) {
+            submitBatch(read, position);
+            read = new ArrayList<>(batchSize);
+          }
+          position = entities.getPagePosition();
+          read.add(entities.next());
+        }
+      } catch (RuntimeException | Error e) {
+        CompletableFuture<Batch> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        last = failed;
+      }
+      // entities read before a page failed are returned before the failure
+      if (!read.isEmpty()) {
+        submitBatch(read, position);
+      }
+      batches.put(last);
+    } catch (InterruptedException e) {
+      // the iterator is closed
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void submitBatch(List<ODataEntity> read, @Nullable PagePosition position) throws InterruptedException {
+    Batch batch = new Batch(read, position);
+    batches.put(executor.submit(() -> transform(batch)));
+  }
+
+  private Future<Batch> takeBatch() {
+    try {
+      return batches.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for entities to be read.", e);
+    }
+  }
+
+  private Batch transform(Batch batch) {
+    ODataEntryToRecordTransformer transformer = transformers.get();
+    List<ODataEntity> batchEntities = batch.entities;
+    try {
+      List<StructuredRecord> records = transformer.transformBatch(batchEntities);
+      for (int i = 0; i < records.size(); i++) {
+        batchEntities.set(i, new RecordODataEntity(records.get(i)));
+      }
+      return batch;
+    } catch (FieldConversionException e) {
+      // falls back to converting entities one by one, so that only the invalid ones are left unconverted
+    }
+    for (int i = 0; i < batchEntities.size(); i++) {
+      try {
+        batchEntities.set(i, new RecordODataEntity(transformer.transform(batchEntities.get(i))));
+      } catch (FieldConversionException e) {
+        // left for the transform stage, which knows the error handling policy
+      }
+    }
+    return batch;
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static Batch getBatch(Future<Batch> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for entities to be converted.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException("Unable to convert entities: " + e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  /**
+   * Entities of a single page.
+   */
+  private static final class Batch {
+
+    private final List<ODataEntity> entities;
+    private final PagePosition position;
+
+    private Batch(List<ODataEntity> entities, @Nullable PagePosition position) {
+      this.entities = entities;
+      this.position = position;
+    }
+  }
+}
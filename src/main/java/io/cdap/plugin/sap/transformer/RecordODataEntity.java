@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.transformer;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.plugin.sap.odata.ODataEntity;
+
+import java.util.Collections;
+
+/**
+ * {@link ODataEntity} which is already transformed to a {@link StructuredRecord}, e.g. by
+ * {@link ODataJsonRecordParser}. Holds no properties.
+ */
+public class RecordODataEntity extends ODataEntity {
+
+  private final StructuredRecord record;
+
+  public RecordODataEntity(StructuredRecord record) {
+    super(Collections.emptyMap());
+    this.record = record;
+  }
+
+  public StructuredRecord getRecord() {
+    return record;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.transformer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded dictionary of the string values of a single field. Repeated values, such as currency, unit or status
+ * codes, are replaced with a single canonical instance, so records buffered downstream share the strings instead of
+ * holding a copy per record. Once the number of distinct values exceeds the maximum size, the field is considered
+ * high-cardinality: the dictionary is evicted and values are passed through as they are from then on.
+ */
+public final class StringDictionary {
+
+  private final int maxSize;
+  private Map<String, String> values;
+
+  /**
+   * @param maxSize maximum number of distinct values kept in the dictionary.
+   */
+  public StringDictionary(int maxSize) {
+    this.maxSize = maxSize;
+    this.values = new HashMap<>();
+  }
+
+  /**
+   * @return canonical instance equal to the value or the value itself if it is seen for the first time or the
+   * dictionary is evicted.
+   */
+  public String canonicalize(String value) {
+    if (values == null) {
+      return value;
+    }
+    String canonical = values.putIfAbsent(value, value);
+    if (canonical != null) {
+      return canonical;
+    }
+    if (values.size() > maxSize) {
+      values = null;
+    }
+    return value;
+  }
+
+  /**
+   * @return {@code true} if the number of distinct values exceeded the maximum size and the dictionary was evicted.
+   */
+  public boolean isEvicted() {
+    return values == null;
+  }
+}
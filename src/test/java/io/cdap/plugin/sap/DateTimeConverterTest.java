@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import io.cdap.plugin.sap.transformer.DateTimeConverter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DateTimeConverter} test. Converted values are compared with the values computed using java.time.
+ */
+public class DateTimeConverterTest {
+
+  // from 1900 to 2100, both sides of the epoch
+  private static final long MIN_MILLIS = -2208988800000L;
+  private static final long MAX_MILLIS = 4102444800000L;
+
+  @Test
+  public void testCalendar() {
+    Random random = new Random(42);
+    for (String zone : new String[] {"UTC", "Europe/Berlin", "America/New_York", "Asia/Kolkata"}) {
+      for (int i = 0; i < 10000; i++) {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone(zone));
+        calendar.setTimeInMillis(MIN_MILLIS + (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS)));
+        Assert.assertEquals(toEpochMicros(calendar.toInstant()),
+                            DateTimeConverter.toEpochMicros(calendar));
+        Assert.assertEquals(calendar.toZonedDateTime().toLocalTime().toNanoOfDay(),
+                            DateTimeConverter.toNanoOfDay(calendar));
+      }
+    }
+  }
+
+  @Test
+  public void testTimestamp() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      Timestamp timestamp = new Timestamp(MIN_MILLIS + (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS)));
+      timestamp.setNanos(random.nextInt(1000000000));
+      Assert.assertEquals(toEpochMicros(timestamp.toInstant()),
+                          DateTimeConverter.toEpochMicros(timestamp));
+      Assert.assertEquals(timestamp.toLocalDateTime().toLocalTime().toNanoOfDay(),
+                          DateTimeConverter.toNanoOfDay(timestamp));
+    }
+  }
+
+  private static long toEpochMicros(Instant instant) {
+    return TimeUnit.SECONDS.toMicros(instant.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(instant.getNano());
+  }
+}
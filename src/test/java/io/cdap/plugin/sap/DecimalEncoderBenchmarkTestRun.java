@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import io.cdap.plugin.sap.transformer.DecimalEncoder;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Compares time and allocation per value of {@link DecimalEncoder} with the {@link BigDecimal} based encoding for
+ * amount-like values. Excluded from the regular build, run it explicitly:
+ * <pre>
+ *   mvn test -Dtest=DecimalEncoderBenchmarkTestRun -Dsap.benchmark.values=10000000
+ * </pre>
+ */
+public class DecimalEncoderBenchmarkTestRun {
+
+  private static final int VALUES = Integer.getInteger("sap.benchmark.values", 1000000);
+  private static final int PRECISION = 15;
+  private static final int SCALE = 2;
+  private static final String FIELD = "Amount";
+
+  @Test
+  public void testBigDecimal() {
+    BigDecimal[] values = new BigDecimal[1024];
+    Random random = new Random(42);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = BigDecimal.valueOf(random.nextInt(100000000), SCALE);
+    }
+    run("BigDecimal", i -> values[i & 1023].setScale(SCALE).unscaledValue().toByteArray(),
+        i -> DecimalEncoder.encode(FIELD, values[i & 1023], PRECISION, SCALE));
+  }
+
+  @Test
+  public void testDouble() {
+    double[] values = new double[1024];
+    Random random = new Random(42);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt(100000000) / 100.0;
+    }
+    run("Double", i -> new BigDecimal(values[i & 1023], new MathContext(PRECISION))
+          .setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().toByteArray(),
+        i -> DecimalEncoder.encode(FIELD, values[i & 1023], PRECISION, SCALE));
+  }
+
+  @Test
+  public void testString() {
+    String[] values = new String[1024];
+    Random random = new Random(42);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = BigDecimal.valueOf(random.nextInt(100000000), SCALE).toPlainString();
+    }
+    run("String", i -> new BigDecimal(values[i & 1023]).setScale(SCALE).unscaledValue().toByteArray(),
+        i -> DecimalEncoder.encode(FIELD, values[i & 1023], PRECISION, SCALE));
+  }
+
+  private static void run(String name, IntFunction<byte[]> baseline, IntFunction<byte[]> encoder) {
+    // warm up both implementations before measuring
+    measure(baseline);
+    measure(encoder);
+    long[] baselineResult = measure(baseline);
+    long[] encoderResult = measure(encoder);
+    System.out.println(String.format("%s: BigDecimal %.1f ns/value, %.1f bytes/value; DecimalEncoder %.1f ns/value, "
+                                       + "%.1f bytes/value", name,
+                                     (double) baselineResult[0] / VALUES, (double) baselineResult[1] / VALUES,
+                                     (double) encoderResult[0] / VALUES, (double) encoderResult[1] / VALUES));
+  }
+
+  /**
+   * @return elapsed nanoseconds and allocated bytes of encoding all values.
+   */
+  private static long[] measure(IntFunction<byte[]> encoding) {
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    long checksum = 0;
+    for (int i = 0; i < VALUES; i++) {
+      checksum += encoding.apply(i).length;
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    if (checksum == 0) {
+      // keeps the results alive
+      throw new IllegalStateException("No bytes encoded");
+    }
+    return new long[] {elapsed, allocated};
+  }
+}
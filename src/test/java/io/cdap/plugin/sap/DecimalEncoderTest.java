@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+import io.cdap.plugin.sap.transformer.DecimalEncoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+/**
+ * {@link DecimalEncoder} test. Encoded bytes are compared with the bytes of {@link java.math.BigInteger#toByteArray()}.
+ */
+public class DecimalEncoderTest {
+
+  private static final String FIELD = "Amount";
+
+  @Test
+  public void testBigDecimal() {
+    for (String value : new String[] {"0", "-0.00", "1", "-1", "127", "128", "-128", "-129", "12.34", "-12.3",
+      "99999999.99", "-99999999.99", "1E+3", "0.01"}) {
+      assertEncoded(new BigDecimal(value).setScale(2), DecimalEncoder.encode(FIELD, new BigDecimal(value), 10, 2));
+      assertEncoded(new BigDecimal(value).setScale(2), DecimalEncoder.encode(FIELD, value, 10, 2));
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      BigDecimal value = BigDecimal.valueOf(random.nextLong(), 4);
+      assertEncoded(value.setScale(6), DecimalEncoder.encode(FIELD, value, 38, 6));
+      assertEncoded(value.setScale(6), DecimalEncoder.encode(FIELD, value.toPlainString(), 38, 6));
+    }
+  }
+
+  @Test
+  public void testLong() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      long value = random.nextLong() >> random.nextInt(64);
+      assertEncoded(BigDecimal.valueOf(value).setScale(3), DecimalEncoder.encode(FIELD, value, 38, 3));
+    }
+    assertEncoded(BigDecimal.valueOf(Long.MIN_VALUE).setScale(2), DecimalEncoder.encode(FIELD, Long.MIN_VALUE, 38, 2));
+  }
+
+  @Test
+  public void testDouble() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+      BigDecimal expected = new BigDecimal(value, new MathContext(15)).setScale(2, RoundingMode.HALF_EVEN);
+      assertEncoded(expected, DecimalEncoder.encode(FIELD, value, 15, 2));
+    }
+    // binary values are slightly below the half of the last digit, but are rounded to the half at the precision first
+    assertEncoded(new BigDecimal("1.00"), DecimalEncoder.encode(FIELD, 1.005, 10, 2));
+    assertEncoded(new BigDecimal("1.02"), DecimalEncoder.encode(FIELD, 1.015, 10, 2));
+    assertEncoded(new BigDecimal("12.34"), DecimalEncoder.encode(FIELD, 12.34f, 10, 2));
+  }
+
+  @Test
+  public void testPrecisionExceeded() {
+    assertPrecisionExceeded(() -> DecimalEncoder.encode(FIELD, new BigDecimal("100.00"), 4, 2));
+    // scaling to the schema scale adds digits
+    assertPrecisionExceeded(() -> DecimalEncoder.encode(FIELD, new BigDecimal("99.9"), 3, 2));
+    assertPrecisionExceeded(() -> DecimalEncoder.encode(FIELD, "-100.0", 4, 2));
+    assertPrecisionExceeded(() -> DecimalEncoder.encode(FIELD, 100, 4, 2));
+    assertPrecisionExceeded(() -> DecimalEncoder.encode(FIELD, 99.996, 4, 2));
+  }
+
+  @Test(expected = UnexpectedFormatException.class)
+  public void testScaleExceeded() {
+    DecimalEncoder.encode(FIELD, "12.345", 10, 2);
+  }
+
+  private static void assertPrecisionExceeded(Runnable encoding) {
+    try {
+      encoding.run();
+      Assert.fail("Precision is expected to be exceeded");
+    } catch (UnexpectedFormatException e) {
+      Assert.assertTrue(e.getMessage().contains("higher than schema precision"));
+    }
+  }
+
+  private static void assertEncoded(BigDecimal expected, byte[] actual) {
+    Assert.assertArrayEquals(expected.toPlainString(), expected.unscaledValue().toByteArray(), actual);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import io.cdap.plugin.sap.transformer.GeospatialEncoder;
+import org.apache.olingo.commons.api.edm.geo.Geospatial;
+import org.apache.olingo.commons.api.edm.geo.GeospatialCollection;
+import org.apache.olingo.commons.api.edm.geo.LineString;
+import org.apache.olingo.commons.api.edm.geo.MultiLineString;
+import org.apache.olingo.commons.api.edm.geo.MultiPoint;
+import org.apache.olingo.commons.api.edm.geo.MultiPolygon;
+import org.apache.olingo.commons.api.edm.geo.Point;
+import org.apache.olingo.commons.api.edm.geo.Polygon;
+import org.apache.olingo.commons.api.edm.geo.SRID;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link GeospatialEncoder} test.
+ */
+public class GeospatialEncoderTest {
+
+  private static final Geospatial.Dimension DIMENSION = Geospatial.Dimension.GEOGRAPHY;
+  private static final SRID TEST_SRID = SRID.valueOf("4326");
+
+  @Test
+  public void testPointWkt() {
+    Assert.assertEquals("POINT (30.5 -10)", GeospatialEncoder.toWkt(pointOf(30.5, -10)));
+  }
+
+  @Test
+  public void testLineStringWkt() {
+    LineString lineString = lineStringOf(pointOf(30, 10), pointOf(10, 30), pointOf(40, 40));
+    Assert.assertEquals("LINESTRING (30 10, 10 30, 40 40)", GeospatialEncoder.toWkt(lineString));
+
+    Assert.assertEquals("LINESTRING EMPTY", GeospatialEncoder.toWkt(lineStringOf()));
+  }
+
+  @Test
+  public void testPolygonWkt() {
+    Assert.assertEquals("POLYGON ((35 10, 45 45, 15 40, 35 10), (20 30, 35 35, 30 20, 20 30))",
+                        GeospatialEncoder.toWkt(polygonOf()));
+  }
+
+  @Test
+  public void testMultiWkt() {
+    MultiPoint multiPoint = new MultiPoint(DIMENSION, TEST_SRID, Arrays.asList(pointOf(10, 40), pointOf(40, 30)));
+    Assert.assertEquals("MULTIPOINT ((10 40), (40 30))", GeospatialEncoder.toWkt(multiPoint));
+
+    MultiLineString multiLineString = new MultiLineString(DIMENSION, TEST_SRID, Arrays.asList(
+      lineStringOf(pointOf(10, 10), pointOf(20, 20)), lineStringOf(pointOf(40, 40), pointOf(30, 30))));
+    Assert.assertEquals("MULTILINESTRING ((10 10, 20 20), (40 40, 30 30))",
+                        GeospatialEncoder.toWkt(multiLineString));
+
+    MultiPolygon multiPolygon = new MultiPolygon(DIMENSION, TEST_SRID, Collections.singletonList(polygonOf()));
+    Assert.assertEquals("MULTIPOLYGON (((35 10, 45 45, 15 40, 35 10), (20 30, 35 35, 30 20, 20 30)))",
+                        GeospatialEncoder.toWkt(multiPolygon));
+
+    GeospatialCollection collection = new GeospatialCollection(DIMENSION, TEST_SRID, Arrays.asList(
+      pointOf(4, 6), lineStringOf(pointOf(4, 6), pointOf(7, 10))));
+    Assert.assertEquals("GEOMETRYCOLLECTION (POINT (4 6), LINESTRING (4 6, 7 10))",
+                        GeospatialEncoder.toWkt(collection));
+  }
+
+  @Test
+  public void testPointWkb() {
+    byte[] expected = ByteBuffer.allocate(21).order(ByteOrder.LITTLE_ENDIAN)
+      .put((byte) 1).putInt(1).putDouble(30.5).putDouble(-10)
+      .array();
+    Assert.assertArrayEquals(expected, GeospatialEncoder.toWkb(pointOf(30.5, -10)));
+  }
+
+  @Test
+  public void testPolygonWkb() {
+    ByteBuffer expected = ByteBuffer.allocate(1 + 4 + 4 + 2 * (4 + 4 * 16)).order(ByteOrder.LITTLE_ENDIAN)
+      .put((byte) 1).putInt(3).putInt(2);
+    putRing(expected, 35, 10, 45, 45, 15, 40, 35, 10);
+    putRing(expected, 20, 30, 35, 35, 30, 20, 20, 30);
+    Assert.assertArrayEquals(expected.array(), GeospatialEncoder.toWkb(polygonOf()));
+  }
+
+  @Test
+  public void testMultiPointWkb() {
+    MultiPoint multiPoint = new MultiPoint(DIMENSION, TEST_SRID, Arrays.asList(pointOf(10, 40), pointOf(40, 30)));
+    byte[] expected = ByteBuffer.allocate(1 + 4 + 4 + 2 * 21).order(ByteOrder.LITTLE_ENDIAN)
+      .put((byte) 1).putInt(4).putInt(2)
+      .put((byte) 1).putInt(1).putDouble(10).putDouble(40)
+      .put((byte) 1).putInt(1).putDouble(40).putDouble(30)
+      .array();
+    Assert.assertArrayEquals(expected, GeospatialEncoder.toWkb(multiPoint));
+  }
+
+  private static void putRing(ByteBuffer buffer, double... coordinates) {
+    buffer.putInt(coordinates.length / 2);
+    for (double coordinate : coordinates) {
+      buffer.putDouble(coordinate);
+    }
+  }
+
+  private static Polygon polygonOf() {
+    List<Point> exterior = Arrays.asList(pointOf(35, 10), pointOf(45, 45), pointOf(15, 40), pointOf(35, 10));
+    List<Point> interior = Arrays.asList(pointOf(20, 30), pointOf(35, 35), pointOf(30, 20), pointOf(20, 30));
+    return new Polygon(DIMENSION, TEST_SRID, interior, exterior);
+  }
+
+  private static LineString lineStringOf(Point... points) {
+    return new LineString(DIMENSION, TEST_SRID, Arrays.asList(points));
+  }
+
+  private static Point pointOf(double x, double y) {
+    Point point = new Point(DIMENSION, TEST_SRID);
+    point.setX(x);
+    point.setY(y);
+    return point;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import com.google.gson.Gson;
+import io.cdap.plugin.sap.mock.MockGatewayServer;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.PagePosition;
+import io.cdap.plugin.sap.split.SplitCheckpoint;
+import io.cdap.plugin.sap.split.SplitCheckpointStore;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.counters.GenericCounter;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of {@link ODataEntityRecordReader} resuming a failed split from its {@link SplitCheckpointStore} checkpoint
+ * and of expiry of checkpoints.
+ */
+public class ODataEntityRecordReaderTest {
+
+  private static final String ENTITY_SET = "Items";
+  private static final long ROWS = 100;
+  private static final int PAGE_SIZE = 10;
+  private static final String TASK_ATTEMPT = "attempt_1_0001_m_000000_%d";
+  private static final long MAX_AGE = TimeUnit.HOURS.toMillis(1);
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testResumeFailedSplit() throws IOException {
+    File checkpointDirectory = temporaryFolder.newFolder();
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, ROWS).build()) {
+      SapODataConfig config = SapODataConfigBuilder.builder()
+        .setReferenceName("ref")
+        .setUrl(server.getServiceUrl())
+        .setResourcePath(ENTITY_SET)
+        .setPageSize(PAGE_SIZE)
+        .setCheckpointDirectory(checkpointDirectory.getAbsolutePath())
+        .setResumeFailedSplits(true)
+        .build();
+      ODataSplit split = new ODataSplit(config.getServices().get(0), ENTITY_SET, null, "plan", 0, 1);
+
+      // first attempt fails within the third page
+      ODataEntityRecordReader failed = new ODataEntityRecordReader();
+      failed.initialize(split, createContext(config, 0));
+      for (int i = 0; i < 25; i++) {
+        Assert.assertTrue(failed.nextKeyValue());
+      }
+      failed.close();
+
+      SplitCheckpointStore store = new SplitCheckpointStore(new Path(checkpointDirectory.toURI()),
+                                                            new Configuration());
+      String taskName = TaskAttemptID.forName(String.format(TASK_ATTEMPT, 0)).getTaskID().toString();
+      SplitCheckpoint checkpoint = store.read(taskName, MAX_AGE);
+      Assert.assertNotNull(checkpoint);
+      Assert.assertEquals(20, checkpoint.getPosition().getOffset());
+
+      // retried attempt reads the third page again and the remaining pages
+      ODataEntityRecordReader retried = new ODataEntityRecordReader();
+      retried.initialize(split, createContext(config, 1));
+      long records = 0;
+      while (retried.nextKeyValue()) {
+        if (records++ == 0) {
+          Assert.assertEquals(21L, ((Number) retried.getCurrentValue().getProperties().get(MockGatewayServer.ID))
+            .longValue());
+        }
+      }
+      retried.close();
+      Assert.assertEquals(ROWS - 20, records);
+      // checkpoint of a completely read split is deleted
+      Assert.assertNull(store.read(taskName, MAX_AGE));
+    }
+  }
+
+  @Test
+  public void testExpiredCheckpointsDeleted() throws IOException {
+    File checkpointDirectory = temporaryFolder.newFolder();
+    SplitCheckpointStore store = new SplitCheckpointStore(new Path(checkpointDirectory.toURI()), new Configuration());
+    long expired = System.currentTimeMillis() - 2 * MAX_AGE;
+    store.write("expired", new SplitCheckpoint("service", ENTITY_SET, null, PAGE_SIZE, new PagePosition(null, 20),
+                                               expired));
+    Assert.assertNull(store.read("expired", MAX_AGE));
+    Assert.assertFalse(new File(checkpointDirectory, "expired.json").exists());
+
+    // checkpoints of runs that failed completely are deleted by the next run
+    store.write("failed", new SplitCheckpoint("service", ENTITY_SET, null, PAGE_SIZE, new PagePosition(null, 20),
+                                              System.currentTimeMillis()));
+    store.write("running", new SplitCheckpoint("service", ENTITY_SET, null, PAGE_SIZE, new PagePosition(null, 20),
+                                               System.currentTimeMillis()));
+    Assert.assertTrue(new File(checkpointDirectory, "failed.json").setLastModified(expired));
+    store.deleteExpired(MAX_AGE);
+    Assert.assertFalse(new File(checkpointDirectory, "failed.json").exists());
+    Assert.assertNotNull(store.read("running", MAX_AGE));
+  }
+
+  private static TaskAttemptContext createContext(SapODataConfig config, int attempt) {
+    Configuration conf = new Configuration();
+    conf.set(ODataEntryInputFormatProvider.PROPERTY_CONFIG_JSON, new Gson().toJson(config));
+    return new TaskAttemptContextImpl(conf, TaskAttemptID.forName(String.format(TASK_ATTEMPT, attempt)),
+                                      new CounterReporter());
+  }
+
+  /**
+   * Reporter of counters which are not published anywhere.
+   */
+  private static final class CounterReporter extends StatusReporter {
+
+    @Override
+    public Counter getCounter(Enum<?> name) {
+      return new GenericCounter();
+    }
+
+    @Override
+    public Counter getCounter(String group, String name) {
+      return new GenericCounter();
+    }
+
+    @Override
+    public void progress() {
+      // no-op
+    }
+
+    @Override
+    public float getProgress() {
+      return 0;
+    }
+
+    @Override
+    public void setStatus(String status) {
+      // no-op
+    }
+  }
+}
@@ -19,7 +19,9 @@ package io.cdap.plugin.sap;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.sap.odata.ODataEntity;
+import io.cdap.plugin.sap.transformer.FieldConversionException;
 import io.cdap.plugin.sap.transformer.ODataEntryToRecordTransformer;
+import io.cdap.plugin.sap.transformer.RecordODataEntity;
 import org.apache.olingo.client.api.domain.ClientLink;
 import org.apache.olingo.client.api.domain.ClientLinkType;
 import org.apache.olingo.client.core.domain.ClientEntityImpl;
@@ -655,6 +657,39 @@ public class ODataEntryToRecordTransformerTest {
   }
 
 
+  @Test
+  public void testTransformBatch() {
+    Schema schema = Schema.recordOf("schema",
+                                    Schema.Field.of("int32", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("string", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    StructuredRecord converted = StructuredRecord.builder(schema).set("int32", 2).set("string", "Converted").build();
+    List<ODataEntity> entities = Arrays.asList(
+      ODataEntityBuilder.builder().setInt32("int32", 1).setString("string", "First").build(),
+      new RecordODataEntity(converted),
+      ODataEntityBuilder.builder().setInt32("int32", 3).build());
+
+    ODataEntryToRecordTransformer transformer = new ODataEntryToRecordTransformer(schema);
+    List<StructuredRecord> transformed = transformer.transformBatch(entities);
+
+    Assert.assertEquals(3, transformed.size());
+    Assert.assertEquals(1, (int) transformed.get(0).get("int32"));
+    Assert.assertEquals("First", transformed.get(0).get("string"));
+    Assert.assertSame(converted, transformed.get(1));
+    Assert.assertEquals(3, (int) transformed.get(2).get("int32"));
+    Assert.assertNull(transformed.get(2).get("string"));
+  }
+
+  @Test
+  public void testTransformBatchInvalidValue() {
+    Schema schema = Schema.recordOf("schema", Schema.Field.of("int32", Schema.of(Schema.Type.INT)));
+    List<ODataEntity> entities = Arrays.asList(
+      ODataEntityBuilder.builder().setInt32("int32", 1).build(),
+      ODataEntityBuilder.builder().setString("int32", "Two").build());
+
+    thrown.expect(FieldConversionException.class);
+    new ODataEntryToRecordTransformer(schema).transformBatch(entities);
+  }
+
   private GeospatialCollection geospatialCollection(Geospatial.Dimension dimension) {
     SRID srid = SRID.valueOf("4326");
 
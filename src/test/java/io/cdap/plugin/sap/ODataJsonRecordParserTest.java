@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.sap.odata.EntityType;
+import io.cdap.plugin.sap.odata.JsonPageParser;
+import io.cdap.plugin.sap.odata.PropertyMetadata;
+import io.cdap.plugin.sap.transformer.ODataJsonRecordParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * {@link ODataJsonRecordParser} test.
+ */
+public class ODataJsonRecordParserTest {
+
+  private static final EntityType ENTITY_TYPE = new EntityType("AllDataTypes", Arrays.asList(
+    new PropertyMetadata("Binary", "Binary", true, null, null, null),
+    new PropertyMetadata("Boolean", "Boolean", true, null, null, null),
+    new PropertyMetadata("Date", "Date", true, null, null, null),
+    new PropertyMetadata("DateTimeOffset", "DateTimeOffset", true, null, null, null),
+    new PropertyMetadata("Decimal", "Decimal", true, 10, 2, null),
+    new PropertyMetadata("Double", "Double", true, null, null, null),
+    new PropertyMetadata("Int32", "Int32", true, null, null, null),
+    new PropertyMetadata("Int64", "Int64", true, null, null, null),
+    new PropertyMetadata("String", "String", true, null, null, null),
+    new PropertyMetadata("TimeOfDay", "TimeOfDay", true, null, null, null),
+    new PropertyMetadata("Location", "GeographyPoint", true, null, null, null)));
+
+  private static final Schema SCHEMA = Schema.recordOf(
+    "output",
+    Schema.Field.of("Binary", Schema.nullableOf(Schema.of(Schema.Type.BYTES))),
+    Schema.Field.of("Boolean", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN))),
+    Schema.Field.of("Date", Schema.nullableOf(Schema.of(Schema.LogicalType.TIMESTAMP_MICROS))),
+    Schema.Field.of("DateTimeOffset", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("Decimal", Schema.nullableOf(Schema.decimalOf(10, 2))),
+    Schema.Field.of("Double", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+    Schema.Field.of("Int32", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+    Schema.Field.of("Int64", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+    Schema.Field.of("String", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("TimeOfDay", Schema.nullableOf(Schema.of(Schema.LogicalType.TIME_MICROS))));
+
+  @Test
+  public void testParsePrimitiveTypes() throws IOException {
+    String json = "{\"@odata.context\":\"$metadata#AllDataTypes\",\"value\":["
+      + "{\"@odata.etag\":\"W/\\\"1\\\"\",\"Binary\":\"c29tZSBieXRlcw==\",\"Boolean\":true,\"Date\":\"2019-10-12\","
+      + "\"DateTimeOffset\":\"2002-10-10T17:00:01+01:00\",\"Decimal\":12.3,\"Double\":\"INF\",\"Int32\":42,"
+      + "\"Int64\":\"9223372036854775807\",\"String\":\"Some String\",\"TimeOfDay\":\"10:11:12.123456\","
+      + "\"Nav@odata.navigationLink\":\"AllDataTypes(1)/Nav\"},"
+      + "{\"Binary\":null,\"Boolean\":null,\"Date\":null,\"DateTimeOffset\":null,\"Decimal\":null,\"Double\":null,"
+      + "\"Int32\":null,\"Int64\":null,\"String\":null,\"TimeOfDay\":null,\"Unknown\":{\"nested\":[1,2]}}"
+      + "],\"@odata.nextLink\":\"AllDataTypes?$skiptoken=2\"}";
+
+    try (JsonPageParser.JsonPage<StructuredRecord> page = parse(json)) {
+      Assert.assertTrue(page.hasNext());
+      StructuredRecord record = page.next();
+      Assert.assertArrayEquals("some bytes".getBytes(StandardCharsets.UTF_8), record.get("Binary"));
+      Assert.assertEquals(true, record.get("Boolean"));
+      Assert.assertEquals(LocalDate.of(2019, 10, 12).atStartOfDay().toInstant(ZoneOffset.UTC),
+                          record.getTimestamp("Date").toInstant());
+      Assert.assertEquals("2002-10-10T17:00:01+01:00", record.get("DateTimeOffset"));
+      Assert.assertEquals(new BigDecimal("12.30"), record.getDecimal("Decimal"));
+      Assert.assertEquals(Double.POSITIVE_INFINITY, record.<Double>get("Double"), 0);
+      Assert.assertEquals(42, (int) record.get("Int32"));
+      Assert.assertEquals(Long.MAX_VALUE, (long) record.get("Int64"));
+      Assert.assertEquals("Some String", record.get("String"));
+      Assert.assertEquals(LocalTime.of(10, 11, 12, 123456000), record.getTime("TimeOfDay"));
+
+      Assert.assertTrue(page.hasNext());
+      record = page.next();
+      for (Schema.Field field : SCHEMA.getFields()) {
+        Assert.assertNull(record.get(field.getName()));
+      }
+
+      Assert.assertFalse(page.hasNext());
+      Assert.assertEquals("AllDataTypes?$skiptoken=2", page.getNextLink());
+    }
+  }
+
+  @Test
+  public void testNextLinkBeforeValue() throws IOException {
+    String json = "{\"@odata.nextLink\":\"AllDataTypes?$skiptoken=1\",\"value\":[{\"Int32\":1}]}";
+    try (JsonPageParser.JsonPage<StructuredRecord> page = parse(json)) {
+      Assert.assertEquals(1, (int) page.next().get("Int32"));
+      Assert.assertFalse(page.hasNext());
+      Assert.assertEquals("AllDataTypes?$skiptoken=1", page.getNextLink());
+    }
+  }
+
+  @Test
+  public void testStringDictionary() throws IOException {
+    String json = "{\"value\":[{\"String\":\"EUR\"},{\"String\":\"EUR\"}]}";
+    ODataJsonRecordParser parser = new ODataJsonRecordParser(SCHEMA, ENTITY_TYPE, 10);
+    try (JsonPageParser.JsonPage<StructuredRecord> page =
+           parser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+      String first = page.next().get("String");
+      String second = page.next().get("String");
+      Assert.assertEquals("EUR", first);
+      Assert.assertSame(first, second);
+    }
+  }
+
+  @Test
+  public void testLastPage() throws IOException {
+    try (JsonPageParser.JsonPage<StructuredRecord> page = parse("{\"value\":[]}")) {
+      Assert.assertFalse(page.hasNext());
+      Assert.assertNull(page.getNextLink());
+    }
+  }
+
+  @Test(expected = UnexpectedFormatException.class)
+  public void testDecimalPrecisionExceeded() throws IOException {
+    try (JsonPageParser.JsonPage<StructuredRecord> page = parse("{\"value\":[{\"Decimal\":1234567890.1}]}")) {
+      page.next();
+    }
+  }
+
+  @Test
+  public void testParseTypedDateTimeOffset() throws IOException {
+    Schema schema = Schema.recordOf("output", Schema.Field.of("DateTimeOffset",
+                                                              SapODataConstants.DateTimeOffset.SCHEMA));
+    String json = "{\"value\":[{\"DateTimeOffset\":\"2002-10-10T17:00:01.5-05:30\"}]}";
+    try (JsonPageParser.JsonPage<StructuredRecord> page = new ODataJsonRecordParser(schema, ENTITY_TYPE)
+      .parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+      StructuredRecord dateTimeOffset = page.next().get("DateTimeOffset");
+      Assert.assertEquals(OffsetDateTime.parse("2002-10-10T22:30:01.5Z").toInstant(),
+                          dateTimeOffset.getTimestamp(SapODataConstants.DateTimeOffset.TIMESTAMP_FIELD_NAME)
+                            .toInstant());
+      Assert.assertEquals(-330, (int) dateTimeOffset.get(SapODataConstants.DateTimeOffset.OFFSET_MINUTES_FIELD_NAME));
+    }
+  }
+
+  @Test
+  public void testIsSupported() {
+    Assert.assertTrue(ODataJsonRecordParser.isSupported(SCHEMA, ENTITY_TYPE));
+
+    Schema geospatialSchema = Schema.recordOf("output", Schema.Field.of("Location", SapODataConstants.Point.SCHEMA));
+    Assert.assertFalse(ODataJsonRecordParser.isSupported(geospatialSchema, ENTITY_TYPE));
+
+    Schema wktSchema = Schema.recordOf("output", Schema.Field.of("Location", Schema.of(Schema.Type.STRING)));
+    Assert.assertFalse(ODataJsonRecordParser.isSupported(wktSchema, ENTITY_TYPE));
+  }
+
+  private JsonPageParser.JsonPage<StructuredRecord> parse(String json) throws IOException {
+    return new ODataJsonRecordParser(SCHEMA, ENTITY_TYPE)
+      .parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+}
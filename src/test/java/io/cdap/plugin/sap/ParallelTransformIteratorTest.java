@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.sap.odata.ODataEntity;
+import io.cdap.plugin.sap.odata.PagingEntityIterator;
+import io.cdap.plugin.sap.odata.TransferStatistics;
+import io.cdap.plugin.sap.odata.exception.ODataException;
+import io.cdap.plugin.sap.transformer.ODataEntryToRecordTransformer;
+import io.cdap.plugin.sap.transformer.ParallelTransformIterator;
+import io.cdap.plugin.sap.transformer.RecordODataEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * {@link ParallelTransformIterator} test.
+ */
+public class ParallelTransformIteratorTest {
+
+  private static final Schema SCHEMA = Schema.recordOf(
+    "output",
+    Schema.Field.of("Id", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("Name", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+  @Test
+  public void testOrderAndPagePositions() {
+    int pageCount = 7;
+    int pageSize = 100;
+    Pages pages = new Pages(pageCount, pageSize, -1, -1);
+    try (ParallelTransformIterator iterator = new ParallelTransformIterator(
+      pages, () -> new ODataEntryToRecordTransformer(SCHEMA), 4, 30)) {
+      for (int i = 0; i < pageCount * pageSize; i++) {
+        Assert.assertTrue(iterator.hasNext());
+        ODataEntity entity = iterator.next();
+        Assert.assertTrue(entity instanceof RecordODataEntity);
+        Assert.assertEquals(i, (int) ((RecordODataEntity) entity).getRecord().get("Id"));
+        // batches do not span pages
+        Assert.assertEquals(i / pageSize * pageSize, iterator.getPagePosition().getOffset());
+      }
+      Assert.assertFalse(iterator.hasNext());
+    }
+  }
+
+  @Test
+  public void testUnconvertibleEntity() {
+    Pages pages = new Pages(2, 10, 13, -1);
+    try (ParallelTransformIterator iterator = new ParallelTransformIterator(
+      pages, () -> new ODataEntryToRecordTransformer(SCHEMA), 2, 4)) {
+      for (int i = 0; i < 20; i++) {
+        ODataEntity entity = iterator.next();
+        // entities which cannot be converted are left for the transform stage
+        Assert.assertEquals(i != 13, entity instanceof RecordODataEntity);
+      }
+      Assert.assertFalse(iterator.hasNext());
+    }
+  }
+
+  @Test
+  public void testPageReadFailure() {
+    Pages pages = new Pages(3, 10, -1, 2);
+    try (ParallelTransformIterator iterator = new ParallelTransformIterator(
+      pages, () -> new ODataEntryToRecordTransformer(SCHEMA), 2, 4)) {
+      // entities of the pages read before the failure are returned
+      for (int i = 0; i < 20; i++) {
+        Assert.assertEquals(i, (int) ((RecordODataEntity) iterator.next()).getRecord().get("Id"));
+      }
+      for (int i = 0; i < 2; i++) {
+        try {
+          iterator.hasNext();
+          Assert.fail("Page read failure was not propagated.");
+        } catch (ODataException e) {
+          Assert.assertEquals("Page 2 cannot be read.", e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Pages of entities with sequential ids.
+   */
+  private static class Pages extends PagingEntityIterator<ODataEntity> {
+
+    private final int pageCount;
+    private final int pageSize;
+    private final int invalidId;
+    private final int failedPage;
+    private int page;
+
+    /**
+     * @param invalidId  id of the entity which has a name which cannot be converted, {@code -1} if there is none.
+     * @param failedPage index of the page which cannot be read, {@code -1} if there is none.
+     */
+    private Pages(int pageCount, int pageSize, int invalidId, int failedPage) {
+      super(new TransferStatistics());
+      this.pageCount = pageCount;
+      this.pageSize = pageSize;
+      this.invalidId = invalidId;
+      this.failedPage = failedPage;
+    }
+
+    @Nullable
+    @Override
+    protected Iterator<ODataEntity> nextPage() {
+      if (page == pageCount) {
+        return null;
+      }
+      if (page == failedPage) {
+        throw new ODataException(String.format("Page %d cannot be read.", page));
+      }
+      markPage("Entities?$skiptoken=" + page);
+      List<ODataEntity> entities = new ArrayList<>();
+      for (int id = page * pageSize; id < (page + 1) * pageSize; id++) {
+        Object name = id == invalidId ? new Object() : "Name " + id;
+        entities.add(new ODataEntity(ImmutableMap.of("Id", id, "Name", name)));
+      }
+      page++;
+      return entities.iterator();
+    }
+  }
+}
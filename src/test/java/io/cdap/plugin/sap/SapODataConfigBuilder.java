@@ -23,10 +23,44 @@ public final class SapODataConfigBuilder {
 
   private String referenceName;
   private String url;
+  private String sapClients;
+  private String originField;
   private String resourcePath;
+  private String entitySetField;
   private String query;
+  private String filters;
+  private String groupBy;
+  private String aggregates;
+  private Integer maxRecords;
+  private String limitMode;
+  private Integer pageSize;
+  private Boolean directJsonParsing;
+  private Boolean typedDateTimeOffset;
+  private String geospatialFormat;
+  private Integer stringDictionarySize;
+  private Integer transformThreads;
+  private String errorHandling;
+  private String validationMode;
+  private String splitMode;
+  private String splitProperty;
+  private String splitInterval;
+  private String splitStart;
+  private String splitEnd;
+  private Integer splitCount;
+  private String splitValues;
+  private String statisticsDirectory;
+  private Integer targetSplitDuration;
+  private Integer statisticsMaxAge;
+  private String checkpointDirectory;
+  private Boolean resumeFailedSplits;
   private String user;
   private String password;
+  private String authenticationType;
+  private String tokenUrl;
+  private String clientId;
+  private String clientSecret;
+  private String scope;
+  private String samlAssertion;
   private String schema;
 
   private SapODataConfigBuilder() {
@@ -40,10 +74,44 @@ public final class SapODataConfigBuilder {
     return builder()
       .setReferenceName(original.getReferenceName())
       .setUrl(original.getUrl())
+      .setSapClients(original.getSapClients())
+      .setOriginField(original.getOriginField())
       .setResourcePath(original.getResourcePath())
+      .setEntitySetField(original.getEntitySetField())
       .setQuery(original.getQuery())
+      .setFilters(original.getFilters())
+      .setGroupBy(original.getGroupBy())
+      .setAggregates(original.getAggregates())
+      .setMaxRecords(original.getMaxRecords() == 0 ? null : original.getMaxRecords())
+      .setLimitMode(original.getLimitMode().getValue())
+      .setPageSize(original.getPageSize() == 0 ? null : original.getPageSize())
+      .setDirectJsonParsing(original.isDirectJsonParsing())
+      .setTypedDateTimeOffset(original.isTypedDateTimeOffset())
+      .setGeospatialFormat(original.getGeospatialFormat().getValue())
+      .setStringDictionarySize(original.getStringDictionarySize() == 0 ? null : original.getStringDictionarySize())
+      .setTransformThreads(original.getTransformThreads())
+      .setErrorHandling(original.getErrorHandling().getValue())
+      .setValidationMode(original.getValidationMode().getValue())
+      .setSplitMode(original.getSplitMode().getValue())
+      .setSplitProperty(original.getSplitProperty())
+      .setSplitInterval(original.getSplitInterval().getValue())
+      .setSplitStart(original.getSplitStart() == null ? null : original.getSplitStart().toString())
+      .setSplitEnd(original.getSplitEnd() == null ? null : original.getSplitEnd().toString())
+      .setSplitCount(original.getSplitCount())
+      .setSplitValues(String.join(",", original.getSplitValues()))
+      .setStatisticsDirectory(original.getStatisticsDirectory())
+      .setTargetSplitDuration(original.getTargetSplitDuration())
+      .setStatisticsMaxAge(original.getStatisticsMaxAge())
+      .setCheckpointDirectory(original.getCheckpointDirectory())
+      .setResumeFailedSplits(original.isResumeFailedSplits())
       .setUser(original.getUser())
       .setPassword(original.getPassword())
+      .setAuthenticationType(original.getAuthenticationType().getValue())
+      .setTokenUrl(original.getTokenUrl())
+      .setClientId(original.getClientId())
+      .setClientSecret(original.getClientSecret())
+      .setScope(original.getScope())
+      .setSamlAssertion(original.getSamlAssertion())
       .setSchema(original.getSchema());
   }
 
@@ -62,11 +130,151 @@ public final class SapODataConfigBuilder {
     return this;
   }
 
+  public SapODataConfigBuilder setSapClients(String sapClients) {
+    this.sapClients = sapClients;
+    return this;
+  }
+
+  public SapODataConfigBuilder setOriginField(String originField) {
+    this.originField = originField;
+    return this;
+  }
+
+  public SapODataConfigBuilder setEntitySetField(String entitySetField) {
+    this.entitySetField = entitySetField;
+    return this;
+  }
+
+  public SapODataConfigBuilder setFilters(String filters) {
+    this.filters = filters;
+    return this;
+  }
+
+  public SapODataConfigBuilder setGroupBy(String groupBy) {
+    this.groupBy = groupBy;
+    return this;
+  }
+
+  public SapODataConfigBuilder setAggregates(String aggregates) {
+    this.aggregates = aggregates;
+    return this;
+  }
+
+  public SapODataConfigBuilder setMaxRecords(Integer maxRecords) {
+    this.maxRecords = maxRecords;
+    return this;
+  }
+
+  public SapODataConfigBuilder setLimitMode(String limitMode) {
+    this.limitMode = limitMode;
+    return this;
+  }
+
   public SapODataConfigBuilder setQuery(String query) {
     this.query = query;
     return this;
   }
 
+  public SapODataConfigBuilder setPageSize(Integer pageSize) {
+    this.pageSize = pageSize;
+    return this;
+  }
+
+  public SapODataConfigBuilder setDirectJsonParsing(Boolean directJsonParsing) {
+    this.directJsonParsing = directJsonParsing;
+    return this;
+  }
+
+  public SapODataConfigBuilder setTypedDateTimeOffset(Boolean typedDateTimeOffset) {
+    this.typedDateTimeOffset = typedDateTimeOffset;
+    return this;
+  }
+
+  public SapODataConfigBuilder setGeospatialFormat(String geospatialFormat) {
+    this.geospatialFormat = geospatialFormat;
+    return this;
+  }
+
+  public SapODataConfigBuilder setStringDictionarySize(Integer stringDictionarySize) {
+    this.stringDictionarySize = stringDictionarySize;
+    return this;
+  }
+
+  public SapODataConfigBuilder setTransformThreads(Integer transformThreads) {
+    this.transformThreads = transformThreads;
+    return this;
+  }
+
+  public SapODataConfigBuilder setErrorHandling(String errorHandling) {
+    this.errorHandling = errorHandling;
+    return this;
+  }
+
+  public SapODataConfigBuilder setValidationMode(String validationMode) {
+    this.validationMode = validationMode;
+    return this;
+  }
+
+  public SapODataConfigBuilder setSplitMode(String splitMode) {
+    this.splitMode = splitMode;
+    return this;
+  }
+
+  public SapODataConfigBuilder setSplitProperty(String splitProperty) {
+    this.splitProperty = splitProperty;
+    return this;
+  }
+
+  public SapODataConfigBuilder setSplitInterval(String splitInterval) {
+    this.splitInterval = splitInterval;
+    return this;
+  }
+
+  public SapODataConfigBuilder setSplitStart(String splitStart) {
+    this.splitStart = splitStart;
+    return this;
+  }
+
+  public SapODataConfigBuilder setSplitEnd(String splitEnd) {
+    this.splitEnd = splitEnd;
+    return this;
+  }
+
+  public SapODataConfigBuilder setSplitCount(Integer splitCount) {
+    this.splitCount = splitCount;
+    return this;
+  }
+
+  public SapODataConfigBuilder setSplitValues(String splitValues) {
+    this.splitValues = splitValues;
+    return this;
+  }
+
+  public SapODataConfigBuilder setStatisticsDirectory(String statisticsDirectory) {
+    this.statisticsDirectory = statisticsDirectory;
+    return this;
+  }
+
+  public SapODataConfigBuilder setTargetSplitDuration(Integer targetSplitDuration) {
+    this.targetSplitDuration = targetSplitDuration;
+    return this;
+  }
+
+  public SapODataConfigBuilder setStatisticsMaxAge(Integer statisticsMaxAge) {
+    this.statisticsMaxAge = statisticsMaxAge;
+    return this;
+  }
+
+  public SapODataConfigBuilder setCheckpointDirectory(String checkpointDirectory) {
+    this.checkpointDirectory = checkpointDirectory;
+    return this;
+  }
+
+  public SapODataConfigBuilder setResumeFailedSplits(Boolean resumeFailedSplits) {
+    this.resumeFailedSplits = resumeFailedSplits;
+    return this;
+  }
+
   public SapODataConfigBuilder setUser(String user) {
     this.user = user;
     return this;
@@ -77,12 +285,48 @@ public final class SapODataConfigBuilder {
     return this;
   }
 
+  public SapODataConfigBuilder setAuthenticationType(String authenticationType) {
+    this.authenticationType = authenticationType;
+    return this;
+  }
+
+  public SapODataConfigBuilder setTokenUrl(String tokenUrl) {
+    this.tokenUrl = tokenUrl;
+    return this;
+  }
+
+  public SapODataConfigBuilder setClientId(String clientId) {
+    this.clientId = clientId;
+    return this;
+  }
+
+  public SapODataConfigBuilder setClientSecret(String clientSecret) {
+    this.clientSecret = clientSecret;
+    return this;
+  }
+
+  public SapODataConfigBuilder setScope(String scope) {
+    this.scope = scope;
+    return this;
+  }
+
+  public SapODataConfigBuilder setSamlAssertion(String samlAssertion) {
+    this.samlAssertion = samlAssertion;
+    return this;
+  }
+
   public SapODataConfigBuilder setSchema(String schema) {
     this.schema = schema;
     return this;
   }
 
   public SapODataConfig build() {
-    return new SapODataConfig(referenceName, url, resourcePath, query, user, password, schema);
+    return new SapODataConfig(referenceName, url, sapClients, originField, resourcePath, entitySetField, query,
+                              filters, groupBy, aggregates, maxRecords, limitMode, pageSize, directJsonParsing,
+                              typedDateTimeOffset, geospatialFormat, stringDictionarySize, transformThreads,
+                              errorHandling, validationMode, splitMode, splitProperty, splitInterval, splitStart,
+                              splitEnd, splitCount, splitValues, statisticsDirectory, targetSplitDuration,
+                              statisticsMaxAge, checkpointDirectory, resumeFailedSplits, user, password,
+                              authenticationType, tokenUrl, clientId, clientSecret, scope, samlAssertion, schema);
   }
 }
@@ -288,4 +288,249 @@ public class SapODataConfigTest {
 
     Assert.assertEquals("$top=2&$select=By?yerName,Surnam?", query);
   }
+
+  @Test
+  public void testValidateOAuth2ClientIdMissing() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setAuthenticationType(AuthenticationType.OAUTH2_CLIENT_CREDENTIALS.getValue())
+        .setTokenUrl("https://tenant.authentication.eu10.hana.ondemand.com/oauth/token")
+        .setClientSecret("secret")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Client ID must be specified for OAuth 2.0 authentication", validationFailure.getMessage());
+      Assert.assertEquals(1, validationFailure.getCauses().size());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.OAUTH2_CLIENT_ID, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+      Assert.assertEquals(MOCK_STAGE_NAME, cause.getAttribute(STAGE));
+    }
+  }
+
+  @Test
+  public void testValidateAuthenticationTypeInvalid() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setAuthenticationType("kerberos")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Unsupported authentication type: 'kerberos'.", validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.AUTHENTICATION_TYPE, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateSplitWithTop() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setSplitMode(SplitMode.TIME.getValue())
+        .setSplitProperty("CreatedAt")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Query options '$top' and '$skip' can not be used with splits",
+                          validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.QUERY, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateSplitStartAfterEnd() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setQuery(null)
+        .setSplitMode(SplitMode.TIME.getValue())
+        .setSplitProperty("CreatedAt")
+        .setSplitStart("2019-02-01")
+        .setSplitEnd("2019-01-01")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Split start must be before split end", validationFailure.getMessage());
+      Assert.assertEquals(2, validationFailure.getCauses().size());
+    }
+  }
+
+  @Test
+  public void testValidateSchemaWithMultipleEntitySets() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setResourcePath("SalesOrderCollection, BusinessPartnerCollection")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Schema can not be specified when multiple entity sets are read",
+                          validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.SCHEMA, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateInvalidSapClient() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setSapClients("100, 20")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Invalid SAP client '20'", validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.SAP_CLIENTS, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateInvalidErrorHandling() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setErrorHandling("ignore")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Unsupported error handling: 'ignore'.", validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.ERROR_HANDLING, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateInvalidGeospatialFormat() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setGeospatialFormat("geojson")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Unsupported geospatial format: 'geojson'.", validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.GEOSPATIAL_FORMAT, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateInvalidFilters() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setFilters("CompanyCode eq 1000;CompanyCode in 1000")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Unsupported operator 'in' of filter condition 'CompanyCode in 1000'.",
+                          validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.FILTERS, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateAggregationWithSplits() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setQuery(null)
+        .setGroupBy("CompanyCode")
+        .setAggregates("Amount with sum as TotalAmount")
+        .setSplitMode("key")
+        .setSplitProperty("Id")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Aggregation can not be used with splits", validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.SPLIT_MODE, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateSampleWithoutMaxRecords() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setLimitMode("sample")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Maximum number of records must be specified to read a sample",
+                          validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.MAX_RECORDS, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateMaxRecordsWithSplits() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setQuery(null)
+        .setMaxRecords(100)
+        .setSplitMode("key")
+        .setSplitProperty("Id")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Maximum number of records can not be used with splits", validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.MAX_RECORDS, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateResumeWithoutCheckpointDirectory() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setResumeFailedSplits(true)
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Checkpoint directory must be specified to resume failed splits",
+                          validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.CHECKPOINT_DIRECTORY, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
+
+  @Test
+  public void testValidateCheckpointDirectoryWithoutResume() {
+    try {
+      SapODataConfigBuilder.builder(VALID_CONFIG)
+        .setCheckpointDirectory("/tmp/sap-checkpoints")
+        .build()
+        .validate(new MockFailureCollector(MOCK_STAGE_NAME));
+    } catch (ValidationException e) {
+      Assert.assertEquals(1, e.getFailures().size());
+      ValidationFailure validationFailure = e.getFailures().get(0);
+      Assert.assertEquals("Checkpoint directory is used only if resuming failed splits is enabled",
+                          validationFailure.getMessage());
+      ValidationFailure.Cause cause = validationFailure.getCauses().get(0);
+      Assert.assertEquals(SapODataConstants.CHECKPOINT_DIRECTORY, cause.getAttribute(CauseAttributes.STAGE_CONFIG));
+    }
+  }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap;
+
+import io.cdap.plugin.sap.transformer.StringDictionary;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@link StringDictionary} test.
+ */
+public class StringDictionaryTest {
+
+  @Test
+  public void testCanonicalize() {
+    StringDictionary dictionary = new StringDictionary(2);
+    String eur = new String("EUR");
+    Assert.assertSame(eur, dictionary.canonicalize(eur));
+    Assert.assertSame(eur, dictionary.canonicalize(new String("EUR")));
+
+    String usd = new String("USD");
+    Assert.assertSame(usd, dictionary.canonicalize(usd));
+    Assert.assertSame(usd, dictionary.canonicalize(new String("USD")));
+    Assert.assertFalse(dictionary.isEvicted());
+  }
+
+  @Test
+  public void testEvict() {
+    StringDictionary dictionary = new StringDictionary(2);
+    dictionary.canonicalize("EUR");
+    dictionary.canonicalize("USD");
+    String jpy = new String("JPY");
+    Assert.assertSame(jpy, dictionary.canonicalize(jpy));
+    Assert.assertTrue(dictionary.isEvicted());
+
+    // values are passed through once the dictionary is evicted
+    String eur = new String("EUR");
+    Assert.assertSame(eur, dictionary.canonicalize(eur));
+  }
+}
@@ -25,6 +25,7 @@ import io.cdap.cdap.datapipeline.SmartWorkflow;
 import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.mock.batch.MockSink;
 import io.cdap.cdap.etl.mock.test.HydratorTestBase;
+import io.cdap.cdap.etl.mock.transform.FlattenErrorTransform;
 import io.cdap.cdap.etl.proto.v2.ETLBatchConfig;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 import io.cdap.cdap.etl.proto.v2.ETLStage;
@@ -53,6 +54,7 @@ import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 public abstract class BaseSapODataSourceETLTest extends HydratorTestBase {
 
@@ -81,6 +83,15 @@ public abstract class BaseSapODataSourceETLTest extends HydratorTestBase {
   }
 
   public List<StructuredRecord> getPipelineResults(Map<String, String> sourceProperties) throws Exception {
+    return getPipelineResults(sourceProperties, null);
+  }
+
+  /**
+   * @param errors list to add the error records of the source to, as flattened by {@link FlattenErrorTransform}, or
+   *               {@code null} if error records are not collected.
+   */
+  public List<StructuredRecord> getPipelineResults(Map<String, String> sourceProperties,
+                                                   @Nullable List<StructuredRecord> errors) throws Exception {
     Map<String, String> allProperties = new ImmutableMap.Builder<String, String>()
       .put(Constants.Reference.REFERENCE_NAME, name.getMethodName())
       .putAll(sourceProperties)
@@ -92,11 +103,21 @@ public abstract class BaseSapODataSourceETLTest extends HydratorTestBase {
     String outputDatasetName = "output-batchsourcetest_" + name.getMethodName();
     ETLStage sink = new ETLStage("sink", MockSink.getPlugin(outputDatasetName));
 
-    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+    ETLBatchConfig.Builder etlConfigBuilder = ETLBatchConfig.builder()
       .addStage(source)
       .addStage(sink)
-      .addConnection(source.getName(), sink.getName())
-      .build();
+      .addConnection(source.getName(), sink.getName());
+    String errorDatasetName = "errors-batchsourcetest_" + name.getMethodName();
+    if (errors != null) {
+      ETLStage errorTransform = new ETLStage("flattenErrors", FlattenErrorTransform.getPlugin());
+      ETLStage errorSink = new ETLStage("errorSink", MockSink.getPlugin(errorDatasetName));
+      etlConfigBuilder
+        .addStage(errorTransform)
+        .addStage(errorSink)
+        .addConnection(source.getName(), errorTransform.getName())
+        .addConnection(errorTransform.getName(), errorSink.getName());
+    }
+    ETLBatchConfig etlConfig = etlConfigBuilder.build();
 
     ApplicationId pipelineId = NamespaceId.DEFAULT.app("Sap_" + name.getMethodName());
     ApplicationManager appManager = deployApplication(pipelineId, new AppRequest<>(APP_ARTIFACT, etlConfig));
@@ -104,6 +125,10 @@ public abstract class BaseSapODataSourceETLTest extends HydratorTestBase {
     WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
     workflowManager.startAndWaitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
 
+    if (errors != null) {
+      DataSetManager<Table> errorManager = getDataset(errorDatasetName);
+      errors.addAll(MockSink.readOutput(errorManager));
+    }
     DataSetManager<Table> outputManager = getDataset(outputDatasetName);
     return MockSink.readOutput(outputManager);
   }
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.etl;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.sap.ErrorHandling;
+import io.cdap.plugin.sap.SapODataConstants;
+import io.cdap.plugin.sap.mock.MockGatewayServer;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Runs the SAP OData source against generated entity sets of {@link MockGatewayServer}.
+ */
+public class SapODataMockGatewayETLTest extends BaseSapODataSourceETLTest {
+
+  private static final String ENTITY_SET = "Items";
+  private static final long ROWS = 1000;
+  private static final String OTHER_ENTITY_SET = "OtherItems";
+  private static final long OTHER_ROWS = 300;
+
+  @Test
+  public void testOData2Source() throws Exception {
+    Assert.assertEquals(ROWS, readEntitySet(ODataVersion.V2, null).size());
+  }
+
+  @Test
+  public void testOData4Source() throws Exception {
+    Assert.assertEquals(ROWS, readEntitySet(ODataVersion.V4, null).size());
+  }
+
+  @Test
+  public void testOData2SourceKeyFilter() throws Exception {
+    List<StructuredRecord> records = readEntitySet(ODataVersion.V2, "$filter=Id gt 100L and Id le 200L&$select=Id");
+    Assert.assertEquals(100, records.size());
+    for (StructuredRecord record : records) {
+      Long id = record.get(MockGatewayServer.ID);
+      Assert.assertTrue(id > 100 && id <= 200);
+    }
+  }
+
+  @Test
+  public void testOData4SourceKeyFilter() throws Exception {
+    List<StructuredRecord> records = readEntitySet(ODataVersion.V4, "$filter=Id gt 100 and Id le 200&$select=Id");
+    Assert.assertEquals(100, records.size());
+    for (StructuredRecord record : records) {
+      Long id = record.get(MockGatewayServer.ID);
+      Assert.assertTrue(id > 100 && id <= 200);
+    }
+  }
+
+  @Test
+  public void testOData4SourceDirectJsonParsing() throws Exception {
+    List<StructuredRecord> expected = readEntitySet(ODataVersion.V4, null);
+    List<StructuredRecord> actual = readEntitySet(ODataVersion.V4, null, true);
+    Assert.assertEquals(ROWS, actual.size());
+    expected.sort(Comparator.comparing(r -> r.<Long>get(MockGatewayServer.ID)));
+    actual.sort(Comparator.comparing(r -> r.<Long>get(MockGatewayServer.ID)));
+    for (int i = 0; i < expected.size(); i++) {
+      for (Schema.Field field : expected.get(i).getSchema().getFields()) {
+        Object expectedValue = expected.get(i).get(field.getName());
+        Object actualValue = actual.get(i).get(field.getName());
+        if (expectedValue instanceof byte[]) {
+          Assert.assertArrayEquals((byte[]) expectedValue, (byte[]) actualValue);
+        } else {
+          Assert.assertEquals(expectedValue, actualValue);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMultipleEntitySets() throws Exception {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4)
+      .addEntitySet(ENTITY_SET, ROWS)
+      .addEntitySet(OTHER_ENTITY_SET, OTHER_ROWS)
+      .build()) {
+      List<StructuredRecord> records = getPipelineResults(ImmutableMap.of(
+        SapODataConstants.ODATA_SERVICE_URL, server.getServiceUrl(),
+        SapODataConstants.RESOURCE_PATH, ENTITY_SET + "," + OTHER_ENTITY_SET,
+        SapODataConstants.QUERY, "$select=Id,Name"));
+      Map<String, Long> counts = records.stream()
+        .collect(Collectors.groupingBy(r -> r.<String>get("entitySet"), Collectors.counting()));
+      Assert.assertEquals(ImmutableMap.of(ENTITY_SET, ROWS, OTHER_ENTITY_SET, OTHER_ROWS), counts);
+      for (StructuredRecord record : records) {
+        Assert.assertEquals(record.<String>get("entitySet"), record.getSchema().getRecordName());
+        Assert.assertEquals(3, record.getSchema().getFields().size());
+      }
+    }
+  }
+
+  @Test
+  public void testMultipleServices() throws Exception {
+    try (MockGatewayServer first = MockGatewayServer.builder(ODataVersion.V2).addEntitySet(ENTITY_SET, ROWS).build();
+         MockGatewayServer second = MockGatewayServer.builder(ODataVersion.V2)
+           .addEntitySet(ENTITY_SET, OTHER_ROWS)
+           .build()) {
+      List<StructuredRecord> records = getPipelineResults(ImmutableMap.of(
+        SapODataConstants.ODATA_SERVICE_URL, first.getServiceUrl() + "," + second.getServiceUrl(),
+        SapODataConstants.SAP_CLIENTS, "100,200",
+        SapODataConstants.RESOURCE_PATH, ENTITY_SET,
+        SapODataConstants.QUERY, "$select=Id,Name"));
+      Map<String, Long> counts = records.stream()
+        .collect(Collectors.groupingBy(r -> r.<String>get("origin"), Collectors.counting()));
+      Map<String, Long> expected = ImmutableMap.of(
+        first.getServiceUrl() + "?sap-client=100", ROWS, first.getServiceUrl() + "?sap-client=200", ROWS,
+        second.getServiceUrl() + "?sap-client=100", OTHER_ROWS, second.getServiceUrl() + "?sap-client=200", OTHER_ROWS);
+      Assert.assertEquals(expected, counts);
+    }
+  }
+
+  @Test
+  public void testSkipConversionErrors() throws Exception {
+    List<StructuredRecord> records = readAmounts(ErrorHandling.SKIP, null);
+    Assert.assertEquals(1, records.size());
+    Assert.assertEquals(12L, (long) records.get(0).<Long>get(MockGatewayServer.ID));
+  }
+
+  @Test
+  public void testSendConversionErrorsToError() throws Exception {
+    List<StructuredRecord> errors = new ArrayList<>();
+    List<StructuredRecord> records = readAmounts(ErrorHandling.SEND_TO_ERROR, errors);
+    Assert.assertEquals(1, records.size());
+    Assert.assertEquals(12L, (long) records.get(0).<Long>get(MockGatewayServer.ID));
+    Assert.assertEquals(1, errors.size());
+    StructuredRecord error = errors.get(0);
+    Assert.assertEquals(ENTITY_SET, error.get(SapODataConstants.ErrorRecord.ENTITY_SET_FIELD_NAME));
+    Assert.assertEquals("Id=13", error.get(SapODataConstants.ErrorRecord.KEY_FIELD_NAME));
+    Assert.assertEquals(MockGatewayServer.AMOUNT, error.get(SapODataConstants.ErrorRecord.FIELD_FIELD_NAME));
+    Assert.assertEquals("1029.47", error.get(SapODataConstants.ErrorRecord.VALUE_FIELD_NAME));
+  }
+
+  /**
+   * Reads the amounts 950.28 and 1029.47 into a decimal field with precision 5, which the second does not fit.
+   */
+  private List<StructuredRecord> readAmounts(ErrorHandling errorHandling, @Nullable List<StructuredRecord> errors)
+    throws Exception {
+    Schema schema = Schema.recordOf("output",
+                                    Schema.Field.of(MockGatewayServer.ID, Schema.of(Schema.Type.LONG)),
+                                    Schema.Field.of(MockGatewayServer.AMOUNT, Schema.decimalOf(5, 2)));
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, ROWS).build()) {
+      return getPipelineResults(ImmutableMap.of(
+        SapODataConstants.ODATA_SERVICE_URL, server.getServiceUrl(),
+        SapODataConstants.RESOURCE_PATH, ENTITY_SET,
+        SapODataConstants.QUERY, "$filter=Id ge 12 and Id le 13&$select=Id,Amount",
+        SapODataConstants.SCHEMA, schema.toString(),
+        SapODataConstants.ERROR_HANDLING, errorHandling.getValue()), errors);
+    }
+  }
+
+  private List<StructuredRecord> readEntitySet(ODataVersion version, String query) throws Exception {
+    return readEntitySet(version, query, false);
+  }
+
+  private List<StructuredRecord> readEntitySet(ODataVersion version, String query, boolean directJsonParsing)
+    throws Exception {
+    try (MockGatewayServer server = MockGatewayServer.builder(version).addEntitySet(ENTITY_SET, ROWS).build()) {
+      ImmutableMap.Builder<String, String> properties = new ImmutableMap.Builder<String, String>()
+        .put(SapODataConstants.ODATA_SERVICE_URL, server.getServiceUrl())
+        .put(SapODataConstants.RESOURCE_PATH, ENTITY_SET)
+        .put(SapODataConstants.DIRECT_JSON_PARSING, String.valueOf(directJsonParsing));
+      if (query != null) {
+        properties.put(SapODataConstants.QUERY, query);
+      }
+      return getPipelineResults(properties.build());
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.etl;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.plugin.sap.SapODataConstants;
+import io.cdap.plugin.sap.mock.MockGatewayServer;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput harness which runs the real pipeline with the SAP OData source against a
+ * {@link MockGatewayServer}. Excluded from the regular build, run it explicitly:
+ * <pre>
+ *   mvn test -Dtest=SapODataSourceThroughputTestRun -Dsap.mock.rows=1000000 -Dsap.mock.pageSize=5000 \
+ *     -Dsap.mock.latencyMillis=50 -Dsap.mock.faultRate=0.0
+ * </pre>
+ */
+public class SapODataSourceThroughputTestRun extends BaseSapODataSourceETLTest {
+
+  private static final String ENTITY_SET = "Items";
+
+  private static final long ROWS = Long.getLong("sap.mock.rows", 100000L);
+  private static final int SERVER_PAGE_SIZE = Integer.getInteger("sap.mock.pageSize", 0);
+  private static final long PAGE_LATENCY_MILLIS = Long.getLong("sap.mock.latencyMillis", 0L);
+  private static final double FAULT_RATE = Double.parseDouble(System.getProperty("sap.mock.faultRate", "0"));
+
+  @Test
+  public void testOData2Throughput() throws Exception {
+    runThroughputTest(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4Throughput() throws Exception {
+    runThroughputTest(ODataVersion.V4);
+  }
+
+  private void runThroughputTest(ODataVersion version) throws Exception {
+    try (MockGatewayServer server = MockGatewayServer.builder(version)
+      .addEntitySet(ENTITY_SET, ROWS)
+      .setServerPageSize(SERVER_PAGE_SIZE)
+      .setPageLatencyMillis(PAGE_LATENCY_MILLIS)
+      .setFaultRate(FAULT_RATE)
+      .build()) {
+      Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+        .put(SapODataConstants.ODATA_SERVICE_URL, server.getServiceUrl())
+        .put(SapODataConstants.RESOURCE_PATH, ENTITY_SET)
+        .build();
+
+      long start = System.nanoTime();
+      List<StructuredRecord> records = getPipelineResults(properties);
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      System.out.println(String.format("OData %s: %d records in %d ms (%.1f records/s), %d page requests, " +
+                                         "%d failed requests", version, records.size(), elapsedMillis,
+                                       records.size() * 1000.0 / Math.max(1, elapsedMillis),
+                                       server.getPageRequests(), server.getFailedRequests()));
+      Assert.assertEquals(ROWS, records.size());
+    }
+  }
+}
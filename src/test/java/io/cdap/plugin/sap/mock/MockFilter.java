@@ -0,0 +1,402 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.mock;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * Minimal OData '$filter' expression evaluator used by {@link MockGatewayServer}. Supports comparisons of a property
+ * against a literal ('eq', 'ne', 'gt', 'ge', 'lt', 'le') combined with 'and', 'or' and parentheses. Supported
+ * literals are numbers, quoted strings, OData V2 'datetime'/'datetimeoffset' literals and OData V4 date and
+ * date-time-offset literals.
+ */
+public final class MockFilter {
+
+  private static final MockFilter MATCH_ALL = new MockFilter(null);
+
+  private final Node root;
+
+  private MockFilter(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Parses the given '$filter' expression.
+   *
+   * @param expression filter expression, {@code null} or empty to match every entity.
+   * @return parsed filter.
+   * @throws IllegalArgumentException if the expression cannot be parsed.
+   */
+  public static MockFilter parse(String expression) {
+    if (expression == null || expression.trim().isEmpty()) {
+      return MATCH_ALL;
+    }
+    Parser parser = new Parser(tokenize(expression));
+    Node node = parser.parseOr();
+    if (parser.hasNext()) {
+      throw new IllegalArgumentException("Unexpected token '" + parser.peek() + "' in filter: " + expression);
+    }
+    return new MockFilter(node);
+  }
+
+  /**
+   * @param values property value accessor of a single entity.
+   * @return {@code true} if the entity satisfies the filter.
+   */
+  public boolean test(PropertyValues values) {
+    return root == null || root.test(values);
+  }
+
+  /**
+   * Narrows the index range of candidate entities using top-level conjunctions on properties whose values are
+   * non-decreasing with the entity index.
+   *
+   * @param from      first candidate index (inclusive).
+   * @param to        last candidate index (exclusive).
+   * @param monotonic returns the value accessor of a monotonic property or {@code null} for other properties.
+   * @return narrowed {@code [from, to)} range.
+   */
+  public long[] narrow(long from, long to, MonotonicProperties monotonic) {
+    long[] range = {from, to};
+    for (Node conjunct : conjuncts()) {
+      if (!(conjunct instanceof Comparison)) {
+        continue;
+      }
+      Comparison comparison = (Comparison) conjunct;
+      IndexedValue values = monotonic.get(comparison.property);
+      if (values == null || comparison.operator.equals("ne")) {
+        continue;
+      }
+      switch (comparison.operator) {
+        case "eq":
+          range[0] = Math.max(range[0], firstIndex(range[0], range[1], i -> comparison.compareAt(values, i) >= 0));
+          range[1] = Math.min(range[1], firstIndex(range[0], range[1], i -> comparison.compareAt(values, i) > 0));
+          break;
+        case "ge":
+          range[0] = Math.max(range[0], firstIndex(range[0], range[1], i -> comparison.compareAt(values, i) >= 0));
+          break;
+        case "gt":
+          range[0] = Math.max(range[0], firstIndex(range[0], range[1], i -> comparison.compareAt(values, i) > 0));
+          break;
+        case "le":
+          range[1] = Math.min(range[1], firstIndex(range[0], range[1], i -> comparison.compareAt(values, i) > 0));
+          break;
+        case "lt":
+          range[1] = Math.min(range[1], firstIndex(range[0], range[1], i -> comparison.compareAt(values, i) >= 0));
+          break;
+      }
+      if (range[1] < range[0]) {
+        range[1] = range[0];
+      }
+    }
+    return range;
+  }
+
+  /**
+   * @param monotonic returns the value accessor of a monotonic property or {@code null} for other properties.
+   * @return {@code true} if the whole filter is expressed by {@link #narrow}, so every index of the narrowed range
+   * matches the filter.
+   */
+  public boolean isFullyNarrowed(MonotonicProperties monotonic) {
+    for (Node conjunct : conjuncts()) {
+      if (!(conjunct instanceof Comparison)) {
+        return false;
+      }
+      Comparison comparison = (Comparison) conjunct;
+      if (comparison.operator.equals("ne") || monotonic.get(comparison.property) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private List<Node> conjuncts() {
+    if (root == null) {
+      return Collections.emptyList();
+    }
+    if (root instanceof Junction && ((Junction) root).and) {
+      return ((Junction) root).children;
+    }
+    return Collections.singletonList(root);
+  }
+
+  /**
+   * Binary search of the first index in {@code [from, to)} for which the monotonic predicate holds.
+   */
+  private static long firstIndex(long from, long to, LongPredicate predicate) {
+    long low = from;
+    long high = to;
+    while (low < high) {
+      long mid = low + (high - low) / 2;
+      if (predicate.test(mid)) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Compares property value with a parsed literal.
+   */
+  static int compare(Object value, Object literal) {
+    if (value instanceof LocalDate && literal instanceof Instant) {
+      return ((LocalDate) value).atStartOfDay().toInstant(ZoneOffset.UTC).compareTo((Instant) literal);
+    }
+    if (value instanceof Number && literal instanceof BigDecimal) {
+      return new BigDecimal(value.toString()).compareTo((BigDecimal) literal);
+    }
+    if (value instanceof String && literal instanceof String) {
+      return ((String) value).compareTo((String) literal);
+    }
+    throw new IllegalArgumentException(String.format("Cannot compare '%s' with literal '%s'", value, literal));
+  }
+
+  /**
+   * Provides property values of a single entity.
+   */
+  public interface PropertyValues {
+    Object get(String property);
+  }
+
+  /**
+   * Provides value accessors of properties which are non-decreasing with the entity index.
+   */
+  public interface MonotonicProperties {
+    IndexedValue get(String property);
+  }
+
+  /**
+   * Property value accessor by entity index.
+   */
+  public interface IndexedValue {
+    Object valueAt(long index);
+  }
+
+  private interface Node {
+    boolean test(PropertyValues values);
+  }
+
+  private static final class Junction implements Node {
+    private final boolean and;
+    private final List<Node> children;
+
+    private Junction(boolean and, List<Node> children) {
+      this.and = and;
+      this.children = children;
+    }
+
+    @Override
+    public boolean test(PropertyValues values) {
+      for (Node child : children) {
+        boolean result = child.test(values);
+        if (and && !result) {
+          return false;
+        }
+        if (!and && result) {
+          return true;
+        }
+      }
+      return and;
+    }
+  }
+
+  private static final class Comparison implements Node {
+    private final String property;
+    private final String operator;
+    private final Object literal;
+
+    private Comparison(String property, String operator, Object literal) {
+      this.property = property;
+      this.operator = operator;
+      this.literal = literal;
+    }
+
+    private int compareAt(IndexedValue values, long index) {
+      return compare(values.valueAt(index), literal);
+    }
+
+    @Override
+    public boolean test(PropertyValues values) {
+      int result = compare(values.get(property), literal);
+      switch (operator) {
+        case "eq":
+          return result == 0;
+        case "ne":
+          return result != 0;
+        case "gt":
+          return result > 0;
+        case "ge":
+          return result >= 0;
+        case "lt":
+          return result < 0;
+        case "le":
+          return result <= 0;
+        default:
+          throw new IllegalArgumentException("Unsupported operator: " + operator);
+      }
+    }
+  }
+
+  private static final class Parser {
+    private final List<String> tokens;
+    private int position;
+
+    private Parser(List<String> tokens) {
+      this.tokens = tokens;
+    }
+
+    private boolean hasNext() {
+      return position < tokens.size();
+    }
+
+    private String peek() {
+      return tokens.get(position);
+    }
+
+    private String next() {
+      if (!hasNext()) {
+        throw new IllegalArgumentException("Unexpected end of filter expression");
+      }
+      return tokens.get(position++);
+    }
+
+    private Node parseOr() {
+      return parseJunction(false, "or", Parser::parseAnd);
+    }
+
+    private Node parseAnd() {
+      return parseJunction(true, "and", Parser::parsePrimary);
+    }
+
+    private Node parseJunction(boolean and, String keyword, Function<Parser, Node> operand) {
+      List<Node> children = new ArrayList<>();
+      children.add(operand.apply(this));
+      while (hasNext() && peek().equalsIgnoreCase(keyword)) {
+        next();
+        children.add(operand.apply(this));
+      }
+      if (children.size() == 1) {
+        return children.get(0);
+      }
+      // flatten nested junctions of the same kind to keep top-level conjunctions narrowable
+      List<Node> flattened = new ArrayList<>();
+      for (Node child : children) {
+        if (child instanceof Junction && ((Junction) child).and == and) {
+          flattened.addAll(((Junction) child).children);
+        } else {
+          flattened.add(child);
+        }
+      }
+      return new Junction(and, flattened);
+    }
+
+    private Node parsePrimary() {
+      String token = next();
+      if (token.equals("(")) {
+        Node node = parseOr();
+        String closing = next();
+        if (!closing.equals(")")) {
+          throw new IllegalArgumentException("Expected ')' but found '" + closing + "'");
+        }
+        return node;
+      }
+      String operator = next().toLowerCase(Locale.ROOT);
+      Object literal = parseLiteral(next());
+      return new Comparison(token, operator, literal);
+    }
+  }
+
+  private static List<String> tokenize(String expression) {
+    List<String> tokens = new ArrayList<>();
+    int i = 0;
+    while (i < expression.length()) {
+      char c = expression.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '(' || c == ')') {
+        tokens.add(String.valueOf(c));
+        i++;
+      } else {
+        int start = i;
+        while (i < expression.length() && !Character.isWhitespace(expression.charAt(i))
+          && expression.charAt(i) != '(' && expression.charAt(i) != ')') {
+          if (expression.charAt(i) == '\'') {
+            // quoted part, '' is an escaped quote
+            i++;
+            while (i < expression.length()) {
+              if (expression.charAt(i) == '\'') {
+                if (i + 1 < expression.length() && expression.charAt(i + 1) == '\'') {
+                  i += 2;
+                  continue;
+                }
+                break;
+              }
+              i++;
+            }
+          }
+          i++;
+        }
+        tokens.add(expression.substring(start, Math.min(i, expression.length())));
+      }
+    }
+    return tokens;
+  }
+
+  private static Object parseLiteral(String token) {
+    int quote = token.indexOf('\'');
+    if (quote >= 0) {
+      String prefix = token.substring(0, quote).toLowerCase(Locale.ROOT);
+      String content = token.substring(quote + 1, token.length() - 1).replace("''", "'");
+      switch (prefix) {
+        case "":
+          return content;
+        case "datetime":
+          return LocalDateTime.parse(content).toInstant(ZoneOffset.UTC);
+        case "datetimeoffset":
+          return OffsetDateTime.parse(content).toInstant();
+        default:
+          throw new IllegalArgumentException("Unsupported literal: " + token);
+      }
+    }
+    if (token.matches("\\d{4}-\\d{2}-\\d{2}")) {
+      return LocalDate.parse(token).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+    if (token.matches("\\d{4}-\\d{2}-\\d{2}T.*")) {
+      return OffsetDateTime.parse(token).toInstant();
+    }
+    // strip OData V2 type suffixes such as 'L' (Int64), 'M' (Decimal), 'd' (Double) and 'f' (Single)
+    String number = token.replaceAll("[LlMmDdFf]$", "");
+    try {
+      return new BigDecimal(number);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Unsupported literal: " + token, e);
+    }
+  }
+}
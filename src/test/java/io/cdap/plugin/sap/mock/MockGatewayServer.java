@@ -0,0 +1,849 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.mock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.cdap.plugin.sap.odata.ODataVersion;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * Embeddable SAP Gateway stand-in for end-to-end and throughput tests. Entities are generated on the fly from their
+ * index, so entity sets of millions of rows cost no memory. OData V2 services are served as Atom XML and OData V4
+ * services as JSON.
+ * <p>
+ * Supported features: '$metadata', service document, '/$count', '$inlinecount=allpages' (V2), '$count=true' (V4),
+ * '$skip', '$top', '$select', '$orderby' on a monotonic property, '$filter' (see {@link MockFilter}), server-driven
+ * paging with '$skiptoken' next links, 'Prefer: odata.maxpagesize' (V4), injected per-page latency and fault rate,
+ * basic authentication with SAP session cookies and CSRF tokens, gzip response compression.
+ * <p>
+ * Every generated entity is of the same type with the following properties:
+ * <ul>
+ *   <li>'Id' - 'Edm.Int64' key, equals to the entity index plus one</li>
+ *   <li>'Name' - 'Edm.String'</li>
+ *   <li>'CompanyCode' - 'Edm.String' with a skewed distribution of four values</li>
+ *   <li>'Currency' - 'Edm.String' with three values</li>
+ *   <li>'Amount' - 'Edm.Decimal' with precision 15 and scale 2</li>
+ *   <li>'PostingDate' - 'Edm.DateTime' (V2) or 'Edm.Date' (V4), non-decreasing with the key and spread over three
+ *   years starting on 2018-01-01</li>
+ * </ul>
+ */
+public class MockGatewayServer implements Closeable {
+
+  public static final String SERVICE_PATH = "/sap/opu/odata/SAP/ZMOCK_SRV";
+  public static final String TOKEN_PATH = "/oauth/token";
+  public static final String NAMESPACE = "ZMOCK_SRV";
+  public static final String ENTITY_TYPE = "Item";
+
+  public static final String ID = "Id";
+  public static final String NAME = "Name";
+  public static final String COMPANY_CODE = "CompanyCode";
+  public static final String CURRENCY = "Currency";
+  public static final String AMOUNT = "Amount";
+  public static final String POSTING_DATE = "PostingDate";
+
+  public static final List<String> PROPERTIES = Collections.unmodifiableList(
+    Arrays.asList(ID, NAME, COMPANY_CODE, CURRENCY, AMOUNT, POSTING_DATE));
+  public static final List<String> COMPANY_CODES = Collections.unmodifiableList(
+    Arrays.asList("1000", "2000", "3000", "4000"));
+  public static final List<String> CURRENCIES = Collections.unmodifiableList(Arrays.asList("EUR", "USD", "JPY"));
+  public static final LocalDate FIRST_POSTING_DATE = LocalDate.of(2018, 1, 1);
+  public static final int POSTING_DAYS = 1096;
+
+  private static final String SKIP = "$skip";
+  private static final String TOP = "$top";
+  private static final String SKIP_TOKEN = "$skiptoken";
+  private static final String FILTER = "$filter";
+  private static final String SELECT = "$select";
+  private static final String ORDER_BY = "$orderby";
+  private static final String COUNT_SEGMENT = "/$count";
+  private static final String MAX_PAGE_SIZE_PREFERENCE = "odata.maxpagesize=";
+  private static final String SESSION_COOKIE = "SAP_SESSIONID_MCK_100";
+  private static final String CSRF_TOKEN_HEADER = "X-CSRF-Token";
+
+  private final ODataVersion version;
+  private final Map<String, Long> entitySets;
+  private final int serverPageSize;
+  private final long pageLatencyMillis;
+  private final double faultRate;
+  private final Random random;
+  private final String username;
+  private final String password;
+  private final boolean compression;
+  private final boolean oAuth2;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private final AtomicLong pageRequests = new AtomicLong();
+  private final AtomicLong failedRequests = new AtomicLong();
+  private final AtomicLong servedEntities = new AtomicLong();
+  private final Queue<String> requestedUris = new ConcurrentLinkedQueue<>();
+  private final AtomicLong logons = new AtomicLong();
+  private final AtomicLong metadataRequests = new AtomicLong();
+  private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+  private final AtomicLong tokenRequests = new AtomicLong();
+  private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+
+  private MockGatewayServer(ODataVersion version, Map<String, Long> entitySets, int serverPageSize,
+                            long pageLatencyMillis, double faultRate, long seed, int threads,
+                            String username, String password, boolean compression, boolean oAuth2)
+    throws IOException {
+    this.version = version;
+    this.entitySets = entitySets;
+    this.serverPageSize = serverPageSize;
+    this.pageLatencyMillis = pageLatencyMillis;
+    this.faultRate = faultRate;
+    this.random = new Random(seed);
+    this.username = username;
+    this.password = password;
+    this.compression = compression;
+    this.oAuth2 = oAuth2;
+    this.executor = Executors.newFixedThreadPool(threads);
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.createContext(SERVICE_PATH, this::handle);
+    this.server.createContext(TOKEN_PATH, this::handleTokenRequest);
+    this.server.setExecutor(executor);
+    this.server.start();
+  }
+
+  public static Builder builder(ODataVersion version) {
+    return new Builder(version);
+  }
+
+  /**
+   * @return root URL of the mock OData service.
+   */
+  public String getServiceUrl() {
+    return "http://localhost:" + server.getAddress().getPort() + SERVICE_PATH;
+  }
+
+  /**
+   * @return number of entity set requests, including '$count' requests and failed ones.
+   */
+  public long getPageRequests() {
+    return pageRequests.get();
+  }
+
+  /**
+   * @return number of entity set requests which were failed by the injected fault rate.
+   */
+  public long getFailedRequests() {
+    return failedRequests.get();
+  }
+
+  /**
+   * @return total number of entities served.
+   */
+  public long getServedEntities() {
+    return servedEntities.get();
+  }
+
+  /**
+   * @return request URIs (path and raw query) of all entity set requests, in order of arrival.
+   */
+  public List<String> getRequestedUris() {
+    return Arrays.asList(requestedUris.toArray(new String[0]));
+  }
+
+  /**
+   * @return number of '$metadata' requests.
+   */
+  public long getMetadataRequests() {
+    return metadataRequests.get();
+  }
+
+  /**
+   * @return number of requests authenticated with credentials rather than with a session cookie.
+   */
+  public long getLogons() {
+    return logons.get();
+  }
+
+  /**
+   * Expires all sessions, so that requests with session cookies are rejected with '401 Unauthorized'.
+   */
+  public void expireSessions() {
+    sessions.clear();
+  }
+
+  /**
+   * @return URL of the OAuth 2.0 token endpoint, which issues a new access token on every request.
+   */
+  public String getTokenUrl() {
+    return "http://localhost:" + server.getAddress().getPort() + TOKEN_PATH;
+  }
+
+  /**
+   * @return number of access tokens issued.
+   */
+  public long getTokenRequests() {
+    return tokenRequests.get();
+  }
+
+  /**
+   * Revokes all access tokens, so that requests with these tokens are rejected with '401 Unauthorized'.
+   */
+  public void revokeTokens() {
+    tokens.clear();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Generates value of the given property for the entity with the given index.
+   *
+   * @param property name of the property.
+   * @param index    zero-based entity index.
+   * @param rowCount number of entities in the entity set.
+   * @return generated value.
+   */
+  public static Object valueAt(String property, long index, long rowCount) {
+    long id = index + 1;
+    switch (property) {
+      case ID:
+        return id;
+      case NAME:
+        return "Item " + id;
+      case COMPANY_CODE:
+        // 50%, 30%, 10% and 10% of the entities
+        int bucket = (int) (id % 10);
+        return COMPANY_CODES.get(bucket < 5 ? 0 : bucket < 8 ? 1 : bucket < 9 ? 2 : 3);
+      case CURRENCY:
+        return CURRENCIES.get((int) (id % CURRENCIES.size()));
+      case AMOUNT:
+        return BigDecimal.valueOf(id * 7919L % 10000000L, 2);
+      case POSTING_DATE:
+        return FIRST_POSTING_DATE.plusDays(index * POSTING_DAYS / rowCount);
+      default:
+        throw new IllegalArgumentException("Unknown property: " + property);
+    }
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (!authenticate(exchange)) {
+        exchange.getResponseHeaders().add(HttpHeaders.WWW_AUTHENTICATE,
+                                          oAuth2 ? "Bearer error=\"invalid_token\"" : "Basic realm=\"SAP NetWeaver\"");
+        send(exchange, 401, "text/plain", "Logon failed");
+        return;
+      }
+      String resource = exchange.getRequestURI().getPath().substring(SERVICE_PATH.length()).replaceAll("^/+", "");
+      Map<String, String> options = parseQuery(exchange.getRequestURI().getRawQuery());
+      if (resource.isEmpty()) {
+        serveServiceDocument(exchange);
+      } else if (resource.equals("$metadata")) {
+        metadataRequests.incrementAndGet();
+        serveMetadata(exchange);
+      } else {
+        boolean countOnly = resource.endsWith(COUNT_SEGMENT);
+        String entitySetName = countOnly ? resource.substring(0, resource.length() - COUNT_SEGMENT.length())
+          : resource;
+        Long rowCount = entitySets.get(entitySetName);
+        if (rowCount == null) {
+          send(exchange, 404, "text/plain", "Resource not found for segment '" + entitySetName + "'");
+        } else {
+          serveEntitySet(exchange, entitySetName, rowCount, options, countOnly);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      send(exchange, 400, "text/plain", e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleTokenRequest(HttpExchange exchange) throws IOException {
+    try {
+      String token = "token" + tokenRequests.incrementAndGet();
+      tokens.add(token);
+      send(exchange, 200, "application/json",
+           "{\"access_token\":\"" + token + "\",\"token_type\":\"bearer\",\"expires_in\":3600}");
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Accepts either a valid session cookie or valid basic authentication credentials. A new session is created on
+   * every logon. If OAuth 2.0 is required, accepts only access tokens issued and not revoked.
+   */
+  private boolean authenticate(HttpExchange exchange) {
+    if (oAuth2) {
+      String authorization = exchange.getRequestHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+      return authorization != null && authorization.startsWith("Bearer ")
+        && tokens.contains(authorization.substring("Bearer ".length()));
+    }
+    if (username == null) {
+      return true;
+    }
+    List<String> cookieHeaders = exchange.getRequestHeaders().get(HttpHeaders.COOKIE);
+    if (cookieHeaders != null) {
+      for (String header : cookieHeaders) {
+        for (String cookie : header.split(";")) {
+          String[] parts = cookie.trim().split("=", 2);
+          if (parts.length == 2 && parts[0].equals(SESSION_COOKIE) && sessions.contains(parts[1])) {
+            return true;
+          }
+        }
+      }
+    }
+    String authorization = exchange.getRequestHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+    String credentials = username + ":" + password;
+    String expected = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    if (!expected.equals(authorization)) {
+      return false;
+    }
+    logons.incrementAndGet();
+    String sessionId = UUID.randomUUID().toString();
+    sessions.add(sessionId);
+    exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + sessionId + "; path=/; HttpOnly");
+    if ("Fetch".equalsIgnoreCase(exchange.getRequestHeaders().getFirst(CSRF_TOKEN_HEADER))) {
+      exchange.getResponseHeaders().add(CSRF_TOKEN_HEADER, UUID.randomUUID().toString());
+    }
+    return true;
+  }
+
+  private void serveEntitySet(HttpExchange exchange, String entitySetName, long rowCount, Map<String, String> options,
+                              boolean countOnly) throws IOException {
+    pageRequests.incrementAndGet();
+    requestedUris.add(exchange.getRequestURI().toString());
+    if (pageLatencyMillis > 0) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(pageLatencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    boolean fail;
+    synchronized (random) {
+      fail = faultRate > 0 && random.nextDouble() < faultRate;
+    }
+    if (fail) {
+      failedRequests.incrementAndGet();
+      send(exchange, 503, "text/plain", "Injected fault");
+      return;
+    }
+
+    Query query = new Query(rowCount, options);
+    if (countOnly) {
+      send(exchange, 200, "text/plain", Long.toString(query.count()));
+      return;
+    }
+
+    long skip = options.containsKey(SKIP_TOKEN) ? Long.parseLong(options.get(SKIP_TOKEN))
+      : options.containsKey(SKIP) ? Long.parseLong(options.get(SKIP)) : 0;
+    long top = options.containsKey(TOP) ? Long.parseLong(options.get(TOP)) : Long.MAX_VALUE;
+    int pageSize = getPageSize(exchange);
+    long pageLimit = pageSize > 0 ? Math.min(top, pageSize) : top;
+    boolean inlineCount = version == ODataVersion.V2 ? "allpages".equals(options.get("$inlinecount"))
+      : "true".equals(options.get("$count"));
+    Long count = inlineCount ? query.count() : null;
+    List<String> select = options.containsKey(SELECT) ? Arrays.asList(options.get(SELECT).split(",")) : PROPERTIES;
+
+    PrimitiveIterator.OfLong matches = new MatchIterator(query, skip);
+    String contentType = version == ODataVersion.V2 ? "application/atom+xml;type=feed;charset=utf-8"
+      : "application/json;odata.metadata=minimal;charset=utf-8";
+    exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, contentType);
+    if (pageSize > 0 && pageSize != serverPageSize) {
+      exchange.getResponseHeaders().add("Preference-Applied", MAX_PAGE_SIZE_PREFERENCE + pageSize);
+    }
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(openResponseBody(exchange, 200, 0),
+                                                                   StandardCharsets.UTF_8))) {
+      String entitySetUrl = getServiceUrl() + "/" + entitySetName;
+      writeFeedStart(writer, entitySetName, entitySetUrl, count);
+      long written = 0;
+      while (written < pageLimit && matches.hasNext()) {
+        writeEntity(writer, entitySetName, entitySetUrl, matches.nextLong(), rowCount, select, written == 0);
+        written++;
+      }
+      servedEntities.addAndGet(written);
+      String nextLink = null;
+      if (written == pageLimit && pageLimit < top && matches.hasNext()) {
+        Map<String, String> nextOptions = new LinkedHashMap<>(options);
+        nextOptions.remove(SKIP);
+        nextOptions.put(SKIP_TOKEN, Long.toString(skip + written));
+        if (top != Long.MAX_VALUE) {
+          nextOptions.put(TOP, Long.toString(top - written));
+        }
+        nextLink = entitySetUrl + "?" + toQuery(nextOptions);
+      }
+      writeFeedEnd(writer, nextLink);
+    }
+  }
+
+  private int getPageSize(HttpExchange exchange) {
+    int pageSize = serverPageSize;
+    String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+    if (version == ODataVersion.V4 && prefer != null && prefer.contains(MAX_PAGE_SIZE_PREFERENCE)) {
+      String value = prefer.substring(prefer.indexOf(MAX_PAGE_SIZE_PREFERENCE) + MAX_PAGE_SIZE_PREFERENCE.length())
+        .split("[,;\\s]")[0];
+      int preferred = Integer.parseInt(value);
+      pageSize = pageSize > 0 ? Math.min(pageSize, preferred) : preferred;
+    }
+    return pageSize;
+  }
+
+  private void writeFeedStart(Writer writer, String entitySetName, String entitySetUrl, Long count)
+    throws IOException {
+    if (version == ODataVersion.V2) {
+      writer.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>");
+      writer.write("<feed xmlns=\"http://www.w3.org/2005/Atom\" " +
+                     "xmlns:m=\"http://schemas.microsoft.com/ado/2007/08/dataservices/metadata\" " +
+                     "xmlns:d=\"http://schemas.microsoft.com/ado/2007/08/dataservices\" " +
+                     "xml:base=\"" + getServiceUrl() + "/\">");
+      writer.write("<id>" + entitySetUrl + "</id><title type=\"text\">" + entitySetName + "</title>");
+      writer.write("<updated>2019-08-26T16:43:55Z</updated><author><name/></author>");
+      writer.write("<link href=\"" + entitySetName + "\" rel=\"self\" title=\"" + entitySetName + "\"/>");
+      if (count != null) {
+        writer.write("<m:count>" + count + "</m:count>");
+      }
+    } else {
+      writer.write("{\"@odata.context\":\"" + getServiceUrl() + "/$metadata#" + entitySetName + "\"");
+      if (count != null) {
+        writer.write(",\"@odata.count\":" + count);
+      }
+      writer.write(",\"value\":[");
+    }
+  }
+
+  private void writeFeedEnd(Writer writer, String nextLink) throws IOException {
+    if (version == ODataVersion.V2) {
+      if (nextLink != null) {
+        writer.write("<link href=\"" + escapeXml(nextLink) + "\" rel=\"next\"/>");
+      }
+      writer.write("</feed>");
+    } else {
+      writer.write("]");
+      if (nextLink != null) {
+        writer.write(",\"@odata.nextLink\":\"" + escapeJson(nextLink) + "\"");
+      }
+      writer.write("}");
+    }
+  }
+
+  private void writeEntity(Writer writer, String entitySetName, String entitySetUrl, long index, long rowCount,
+                           List<String> select, boolean first) throws IOException {
+    if (version == ODataVersion.V2) {
+      String key = entitySetName + "(" + (index + 1) + "L)";
+      writer.write("<entry><id>" + getServiceUrl() + "/" + key + "</id><title type=\"text\">" + key + "</title>");
+      writer.write("<updated>2019-08-26T16:43:55Z</updated>");
+      writer.write("<category term=\"" + NAMESPACE + "." + ENTITY_TYPE +
+                     "\" scheme=\"http://schemas.microsoft.com/ado/2007/08/dataservices/scheme\"/>");
+      writer.write("<link href=\"" + key + "\" rel=\"self\" title=\"" + ENTITY_TYPE + "\"/>");
+      writer.write("<content type=\"application/xml\"><m:properties>");
+      for (String property : select) {
+        writer.write("<d:" + property + ">" + escapeXml(formatV2(valueAt(property, index, rowCount))) + "</d:" +
+                       property + ">");
+      }
+      writer.write("</m:properties></content></entry>");
+    } else {
+      writer.write(first ? "{" : ",{");
+      boolean firstProperty = true;
+      for (String property : select) {
+        if (!firstProperty) {
+          writer.write(",");
+        }
+        firstProperty = false;
+        Object value = valueAt(property, index, rowCount);
+        String typeAnnotation = getV4TypeAnnotation(value);
+        if (typeAnnotation != null) {
+          writer.write("\"" + property + "@odata.type\":\"#" + typeAnnotation + "\",");
+        }
+        writer.write("\"" + property + "\":\"" + escapeJson(value.toString()) + "\"");
+      }
+      writer.write("}");
+    }
+  }
+
+  private static String formatV2(Object value) {
+    if (value instanceof LocalDate) {
+      return value + "T00:00:00";
+    }
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).toPlainString();
+    }
+    return value.toString();
+  }
+
+  /**
+   * Values are written as JSON strings with type annotations for non-string types, the same way as in
+   * 'odata4/AllDataTypes.json' test resource.
+   */
+  private static String getV4TypeAnnotation(Object value) {
+    if (value instanceof Long) {
+      return "Int64";
+    }
+    if (value instanceof BigDecimal) {
+      return "Decimal";
+    }
+    if (value instanceof LocalDate) {
+      return "Date";
+    }
+    return null;
+  }
+
+  private void serveServiceDocument(HttpExchange exchange) throws IOException {
+    StringBuilder document = new StringBuilder();
+    if (version == ODataVersion.V2) {
+      document.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>")
+        .append("<app:service xmlns:app=\"http://www.w3.org/2007/app\" xmlns:atom=\"http://www.w3.org/2005/Atom\" ")
+        .append("xml:base=\"").append(getServiceUrl()).append("/\"><app:workspace>")
+        .append("<atom:title type=\"text\">Data</atom:title>");
+      for (String entitySetName : entitySets.keySet()) {
+        document.append("<app:collection href=\"").append(entitySetName).append("\"><atom:title type=\"text\">")
+          .append(entitySetName).append("</atom:title></app:collection>");
+      }
+      document.append("</app:workspace></app:service>");
+      send(exchange, 200, "application/atomsvc+xml;charset=utf-8", document.toString());
+    } else {
+      document.append("{\"@odata.context\":\"").append(getServiceUrl()).append("/$metadata\",\"value\":[");
+      boolean first = true;
+      for (String entitySetName : entitySets.keySet()) {
+        document.append(first ? "" : ",").append("{\"name\":\"").append(entitySetName)
+          .append("\",\"kind\":\"EntitySet\",\"url\":\"").append(entitySetName).append("\"}");
+        first = false;
+      }
+      document.append("]}");
+      send(exchange, 200, "application/json;odata.metadata=minimal;charset=utf-8", document.toString());
+    }
+  }
+
+  private void serveMetadata(HttpExchange exchange) throws IOException {
+    StringBuilder metadata = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>");
+    if (version == ODataVersion.V2) {
+      metadata.append("<edmx:Edmx Version=\"1.0\" xmlns:edmx=\"http://schemas.microsoft.com/ado/2007/06/edmx\" ")
+        .append("xmlns:m=\"http://schemas.microsoft.com/ado/2007/08/dataservices/metadata\">")
+        .append("<edmx:DataServices m:DataServiceVersion=\"2.0\">")
+        .append("<Schema Namespace=\"").append(NAMESPACE)
+        .append("\" xmlns=\"http://schemas.microsoft.com/ado/2008/09/edm\">");
+    } else {
+      metadata.append("<edmx:Edmx Version=\"4.0\" xmlns:edmx=\"http://docs.oasis-open.org/odata/ns/edmx\">")
+        .append("<edmx:DataServices>")
+        .append("<Schema Namespace=\"").append(NAMESPACE)
+        .append("\" xmlns=\"http://docs.oasis-open.org/odata/ns/edm\">");
+    }
+    metadata.append("<EntityType Name=\"").append(ENTITY_TYPE).append("\">")
+      .append("<Key><PropertyRef Name=\"").append(ID).append("\"/></Key>")
+      .append("<Property Name=\"").append(ID).append("\" Type=\"Edm.Int64\" Nullable=\"false\"/>")
+      .append("<Property Name=\"").append(NAME)
+      .append("\" Type=\"Edm.String\" Nullable=\"false\" MaxLength=\"40\"/>")
+      .append("<Property Name=\"").append(COMPANY_CODE)
+      .append("\" Type=\"Edm.String\" Nullable=\"false\" MaxLength=\"4\"/>")
+      .append("<Property Name=\"").append(CURRENCY)
+      .append("\" Type=\"Edm.String\" Nullable=\"false\" MaxLength=\"5\"/>")
+      .append("<Property Name=\"").append(AMOUNT)
+      .append("\" Type=\"Edm.Decimal\" Nullable=\"false\" Precision=\"15\" Scale=\"2\"/>")
+      .append("<Property Name=\"").append(POSTING_DATE).append("\" Type=\"")
+      .append(version == ODataVersion.V2 ? "Edm.DateTime" : "Edm.Date").append("\" Nullable=\"false\"/>")
+      .append("</EntityType>");
+    if (version == ODataVersion.V2) {
+      metadata.append("<EntityContainer Name=\"").append(NAMESPACE)
+        .append("_Entities\" m:IsDefaultEntityContainer=\"true\">");
+    } else {
+      metadata.append("<EntityContainer Name=\"").append(NAMESPACE).append("_Entities\">");
+    }
+    for (String entitySetName : entitySets.keySet()) {
+      metadata.append("<EntitySet Name=\"").append(entitySetName).append("\" EntityType=\"").append(NAMESPACE)
+        .append(".").append(ENTITY_TYPE).append("\"/>");
+    }
+    metadata.append("</EntityContainer></Schema></edmx:DataServices></edmx:Edmx>");
+    send(exchange, 200, "application/xml;charset=utf-8", metadata.toString());
+  }
+
+  private void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, contentType);
+    try (OutputStream outputStream = openResponseBody(exchange, status, bytes.length)) {
+      outputStream.write(bytes);
+    }
+  }
+
+  /**
+   * Sends response headers and returns response body stream, gzip-compressed if compression is enabled and the client
+   * accepts it.
+   *
+   * @param length response body length, zero if unknown.
+   */
+  private OutputStream openResponseBody(HttpExchange exchange, int status, long length) throws IOException {
+    String acceptEncoding = exchange.getRequestHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+    if (compression && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+      exchange.getResponseHeaders().add(HttpHeaders.CONTENT_ENCODING, "gzip");
+      exchange.sendResponseHeaders(status, 0);
+      return new GZIPOutputStream(exchange.getResponseBody());
+    }
+    exchange.sendResponseHeaders(status, length);
+    return exchange.getResponseBody();
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+    Map<String, String> options = new LinkedHashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return options;
+    }
+    for (String option : rawQuery.split("&")) {
+      int separator = option.indexOf('=');
+      String name = separator < 0 ? option : option.substring(0, separator);
+      String value = separator < 0 ? "" : option.substring(separator + 1);
+      options.put(URLDecoder.decode(name, StandardCharsets.UTF_8.name()),
+                  URLDecoder.decode(value, StandardCharsets.UTF_8.name()));
+    }
+    return options;
+  }
+
+  private static String toQuery(Map<String, String> options) throws UnsupportedEncodingException {
+    StringBuilder query = new StringBuilder();
+    for (Map.Entry<String, String> option : options.entrySet()) {
+      if (query.length() > 0) {
+        query.append('&');
+      }
+      query.append(option.getKey()).append('=')
+        .append(URLEncoder.encode(option.getValue(), StandardCharsets.UTF_8.name()).replace("+", "%20"));
+    }
+    return query.toString();
+  }
+
+  private static String escapeXml(String value) {
+    return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+  }
+
+  private static String escapeJson(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /**
+   * Entity set query with a parsed filter, narrowed index range and order.
+   */
+  private static final class Query {
+    private final long rowCount;
+    private final MockFilter filter;
+    private final boolean narrowed;
+    private final boolean descending;
+    private final long from;
+    private final long to;
+
+    private Query(long rowCount, Map<String, String> options) {
+      this.rowCount = rowCount;
+      this.filter = MockFilter.parse(options.get(FILTER));
+      MockFilter.MonotonicProperties monotonic = property -> {
+        if (ID.equals(property) || POSTING_DATE.equals(property)) {
+          return index -> valueAt(property, index, rowCount);
+        }
+        return null;
+      };
+      long[] range = filter.narrow(0, rowCount, monotonic);
+      this.from = range[0];
+      this.to = range[1];
+      this.narrowed = filter.isFullyNarrowed(monotonic);
+      String orderBy = options.get(ORDER_BY);
+      // only the first ordering property is considered and it must be monotonic, any other order is ignored
+      String[] firstOrder = orderBy == null ? new String[0] : orderBy.split(",")[0].trim().split("\\s+");
+      this.descending = firstOrder.length == 2 && monotonic.get(firstOrder[0]) != null
+        && firstOrder[1].equalsIgnoreCase("desc");
+    }
+
+    private boolean matches(long index) {
+      return narrowed || filter.test(property -> valueAt(property, index, rowCount));
+    }
+
+    private long count() {
+      if (narrowed) {
+        return Math.max(0, to - from);
+      }
+      long count = 0;
+      for (long index = from; index < to; index++) {
+        if (matches(index)) {
+          count++;
+        }
+      }
+      return count;
+    }
+  }
+
+  /**
+   * Iterates over indexes of the entities matching the query, in query order.
+   */
+  private static final class MatchIterator implements PrimitiveIterator.OfLong {
+    private final Query query;
+    private long cursor;
+    private long next = -1;
+
+    private MatchIterator(Query query, long skip) {
+      this.query = query;
+      if (query.narrowed) {
+        this.cursor = query.descending ? query.to - 1 - skip : query.from + skip;
+      } else {
+        this.cursor = query.descending ? query.to - 1 : query.from;
+        for (long skipped = 0; skipped < skip && advance(); skipped++) {
+          next = -1;
+        }
+      }
+    }
+
+    private boolean advance() {
+      while (next < 0 && cursor >= query.from && cursor < query.to) {
+        if (query.matches(cursor)) {
+          next = cursor;
+        }
+        cursor += query.descending ? -1 : 1;
+      }
+      return next >= 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return advance();
+    }
+
+    @Override
+    public long nextLong() {
+      if (!advance()) {
+        throw new NoSuchElementException();
+      }
+      long result = next;
+      next = -1;
+      return result;
+    }
+  }
+
+  /**
+   * Builder of {@link MockGatewayServer}.
+   */
+  public static final class Builder {
+    private final ODataVersion version;
+    private final Map<String, Long> entitySets = new LinkedHashMap<>();
+    private int serverPageSize;
+    private long pageLatencyMillis;
+    private double faultRate;
+    private long seed = 42;
+    private int threads = 8;
+    private String username;
+    private String password;
+    private boolean compression;
+    private boolean oAuth2;
+
+    private Builder(ODataVersion version) {
+      this.version = version;
+    }
+
+    public Builder addEntitySet(String name, long rowCount) {
+      entitySets.put(name, rowCount);
+      return this;
+    }
+
+    /**
+     * @param serverPageSize maximum number of entities per response, a '$skiptoken' next link is returned if there
+     *                       are more entities. Zero disables server-driven paging.
+     */
+    public Builder setServerPageSize(int serverPageSize) {
+      this.serverPageSize = serverPageSize;
+      return this;
+    }
+
+    public Builder setPageLatencyMillis(long pageLatencyMillis) {
+      this.pageLatencyMillis = pageLatencyMillis;
+      return this;
+    }
+
+    /**
+     * @param faultRate probability in range [0, 1] of an entity set request to fail with '503 Service Unavailable'.
+     */
+    public Builder setFaultRate(double faultRate) {
+      this.faultRate = faultRate;
+      return this;
+    }
+
+    public Builder setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    public Builder setThreads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Requires basic authentication with the given credentials unless a valid session cookie is sent.
+     */
+    public Builder setCredentials(String username, String password) {
+      this.username = username;
+      this.password = password;
+      return this;
+    }
+
+    /**
+     * @param compression {@code true} to compress responses with gzip if the client sends 'Accept-Encoding: gzip'.
+     */
+    public Builder setCompression(boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /**
+     * Requires OAuth 2.0 access tokens issued by the token endpoint of the server, see {@link #getTokenUrl()}.
+     */
+    public Builder setOAuth2(boolean oAuth2) {
+      this.oAuth2 = oAuth2;
+      return this;
+    }
+
+    /**
+     * Creates and starts the server on a random port.
+     */
+    public MockGatewayServer build() throws IOException {
+      return new MockGatewayServer(version, new LinkedHashMap<>(entitySets), serverPageSize, pageLatencyMillis,
+                                   faultRate, seed, threads, username, password, compression, oAuth2);
+    }
+  }
+}
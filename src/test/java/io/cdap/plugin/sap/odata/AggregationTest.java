@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests of {@link Aggregation}.
+ */
+public class AggregationTest {
+
+  private static final EntityType ENTITY_TYPE = new EntityType("Item", Arrays.asList(
+    new PropertyMetadata("Id", "Int64", false, null, null, null),
+    new PropertyMetadata("CompanyCode", "String", false, null, null,
+                         ImmutableMap.of(Aggregation.SAP_AGGREGATION_ROLE, "dimension")),
+    new PropertyMetadata("Quantity", "Int32", true, null, null,
+                         ImmutableMap.of(Aggregation.SAP_AGGREGATION_ROLE, "measure")),
+    new PropertyMetadata("Amount", "Decimal", true, 15, 2,
+                         ImmutableMap.of(Aggregation.SAP_AGGREGATION_ROLE, "measure")),
+    new PropertyMetadata("Stream", "Stream", true, null, null, null)), Collections.singletonList("Id"));
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testOData4Apply() {
+    Aggregation aggregation = Aggregation.parse(
+      "CompanyCode", "Amount with sum as TotalAmount, Quantity with average as AverageQuantity, count as Items");
+    aggregation.validate(ODataVersion.V4, ENTITY_TYPE);
+    Assert.assertEquals("sap-client=100&$apply=filter(Quantity gt 0)/groupby((CompanyCode),aggregate("
+                          + "Amount with sum as TotalAmount,Quantity with average as AverageQuantity,"
+                          + "$count as Items))",
+                        aggregation.apply(ODataVersion.V4, "sap-client=100&$filter=Quantity gt 0"));
+  }
+
+  @Test
+  public void testOData4ApplyWithoutGroupBy() {
+    Assert.assertEquals("$apply=aggregate(Amount with max as Amount)",
+                        Aggregation.parse(null, "Amount with max").apply(ODataVersion.V4, null));
+    Assert.assertEquals("$apply=groupby((CompanyCode))",
+                        Aggregation.parse("CompanyCode", null).apply(ODataVersion.V4, null));
+  }
+
+  @Test
+  public void testOData2Select() {
+    Aggregation aggregation = Aggregation.parse("CompanyCode", "Amount, Quantity");
+    aggregation.validate(ODataVersion.V2, ENTITY_TYPE);
+    Assert.assertEquals("$filter=Quantity gt 0&$select=CompanyCode,Amount,Quantity",
+                        aggregation.apply(ODataVersion.V2, "$filter=Quantity gt 0"));
+  }
+
+  @Test
+  public void testOutputType() {
+    EntityType outputType = Aggregation.parse("CompanyCode", "Quantity with sum as TotalQuantity,"
+      + "Quantity with average as AverageQuantity,Amount with sum as TotalAmount,count as Items")
+      .getOutputType(ODataVersion.V4, ENTITY_TYPE);
+    Assert.assertEquals(Collections.singletonList("CompanyCode"), outputType.getKeyPropertyNames());
+    List<String> properties = outputType.getProperties().stream()
+      .map(p -> p.getName() + ":" + p.getEdmTypeName())
+      .collect(Collectors.toList());
+    Assert.assertEquals(Arrays.asList("CompanyCode:String", "TotalQuantity:Int64", "AverageQuantity:Double",
+                                      "TotalAmount:Decimal", "Items:Int64"), properties);
+    Assert.assertSame(ENTITY_TYPE, Aggregation.parse(null, " ").getOutputType(ODataVersion.V4, ENTITY_TYPE));
+  }
+
+  @Test
+  public void testDecimalOutputType() {
+    List<PropertyMetadata> properties = Aggregation.parse(
+      null, "Amount with sum as TotalAmount,Amount with average as AverageAmount,Amount with max as MaxAmount")
+      .getOutputType(ODataVersion.V4, ENTITY_TYPE).getProperties();
+    // sums exceed the precision of the summed values
+    Assert.assertEquals("Decimal", properties.get(0).getEdmTypeName());
+    Assert.assertEquals(Integer.valueOf(38), properties.get(0).getPrecision());
+    Assert.assertEquals(Integer.valueOf(2), properties.get(0).getScale());
+    // averages exceed the scale of the averaged values
+    Assert.assertEquals("Double", properties.get(1).getEdmTypeName());
+    Assert.assertNull(properties.get(1).getPrecision());
+    Assert.assertNull(properties.get(1).getScale());
+    Assert.assertEquals("Decimal", properties.get(2).getEdmTypeName());
+    Assert.assertEquals(Integer.valueOf(15), properties.get(2).getPrecision());
+    Assert.assertEquals(Integer.valueOf(2), properties.get(2).getScale());
+  }
+
+  @Test
+  public void testMalformedAggregate() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Invalid aggregate 'sum(Amount)'");
+    Aggregation.parse(null, "sum(Amount)");
+  }
+
+  @Test
+  public void testUnsupportedMethod() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Unsupported aggregation method 'median'");
+    Aggregation.parse(null, "Amount with median as MedianAmount");
+  }
+
+  @Test
+  public void testDuplicateAlias() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Alias 'CompanyCode' of aggregate 'count as CompanyCode' is already used");
+    Aggregation.parse("CompanyCode", "count as CompanyCode");
+  }
+
+  @Test
+  public void testMissingProperty() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Aggregation property 'Plant' does not exist in entity type 'Item'.");
+    Aggregation.parse("Plant", null).validate(ODataVersion.V4, ENTITY_TYPE);
+  }
+
+  @Test
+  public void testUnsupportedType() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Property 'CompanyCode' of type 'Edm.String' can not be aggregated with 'sum'.");
+    Aggregation.parse(null, "CompanyCode with sum as Total").validate(ODataVersion.V4, ENTITY_TYPE);
+  }
+
+  @Test
+  public void testOData2Count() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Aggregation method 'count' is not supported by OData V2 services.");
+    Aggregation.parse("CompanyCode", "count as Items").validate(ODataVersion.V2, ENTITY_TYPE);
+  }
+
+  @Test
+  public void testOData2NotMeasure() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Property 'Id' is not a measure of entity type 'Item'");
+    Aggregation.parse("CompanyCode", "Id").validate(ODataVersion.V2, ENTITY_TYPE);
+  }
+
+  @Test
+  public void testOData2Method() {
+    // the service would sum the measure regardless of the method
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Aggregation method 'max' of property 'Amount' is not supported by OData V2 services");
+    Aggregation.parse("CompanyCode", "Amount with max").validate(ODataVersion.V2, ENTITY_TYPE);
+  }
+
+  @Test
+  public void testOData4WithoutMethod() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Aggregation method of property 'Amount' must be specified for OData V4 services");
+    Aggregation.parse("CompanyCode", "Amount").validate(ODataVersion.V4, ENTITY_TYPE);
+  }
+}
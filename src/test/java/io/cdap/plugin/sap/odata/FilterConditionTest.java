@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests of {@link FilterCondition}.
+ */
+public class FilterConditionTest {
+
+  private static final EntityType ENTITY_TYPE = new EntityType("Item", Arrays.asList(
+    new PropertyMetadata("Name", "String", true, null, null, null),
+    new PropertyMetadata("Id", "Int64", false, null, null, null),
+    new PropertyMetadata("Count", "Int16", true, null, null, null),
+    new PropertyMetadata("Price", "Decimal", true, 10, 2, null),
+    new PropertyMetadata("Active", "Boolean", true, null, null, null),
+    new PropertyMetadata("Created", "DateTimeOffset", true, null, null, null),
+    new PropertyMetadata("Stream", "Stream", true, null, null, null)));
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testOData2Filter() {
+    List<FilterCondition> conditions = FilterCondition.parseAll(
+      "Name eq O'Neil Ltd; Id GE 10;Price lt 9.90; Active eq true; Created gt 2019-01-01T10:00:00+02:00");
+    Assert.assertEquals("Name eq 'O''Neil Ltd' and Id ge 10L and Price lt 9.90M and Active eq true and "
+                          + "Created gt datetimeoffset'2019-01-01T08:00:00Z'",
+                        FilterCondition.toFilter(conditions, ODataVersion.V2, ENTITY_TYPE));
+  }
+
+  @Test
+  public void testOData4Filter() {
+    List<FilterCondition> conditions = FilterCondition.parseAll(
+      "Name eq O'Neil Ltd; Id GE 10;Price lt 9.90; Active eq true; Created gt 2019-01-01T10:00:00+02:00");
+    Assert.assertEquals("Name eq 'O''Neil Ltd' and Id ge 10 and Price lt 9.90 and Active eq true and "
+                          + "Created gt 2019-01-01T08:00:00Z",
+                        FilterCondition.toFilter(conditions, ODataVersion.V4, ENTITY_TYPE));
+  }
+
+  @Test
+  public void testNull() {
+    Assert.assertEquals("Name ne null",
+                        FilterCondition.parse("Name ne null").toExpression(ODataVersion.V2, ENTITY_TYPE));
+  }
+
+  @Test
+  public void testNoConditions() {
+    Assert.assertEquals(Collections.emptyList(), FilterCondition.parseAll(" ; "));
+    Assert.assertNull(FilterCondition.toFilter(Collections.emptyList(), ODataVersion.V4, ENTITY_TYPE));
+  }
+
+  @Test
+  public void testMalformedCondition() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Invalid filter condition 'Name eq'");
+    FilterCondition.parse("Name eq");
+  }
+
+  @Test
+  public void testUnsupportedOperator() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Unsupported operator 'like'");
+    FilterCondition.parse("Name like A%");
+  }
+
+  @Test
+  public void testNullComparison() {
+    thrown.expect(IllegalArgumentException.class);
+    FilterCondition.parse("Count gt null");
+  }
+
+  @Test
+  public void testInvalidValue() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Value '40000' of filter property 'Count' is not a valid 'Edm.Int16'.");
+    FilterCondition.parse("Count eq 40000").toExpression(ODataVersion.V4, ENTITY_TYPE);
+  }
+
+  @Test
+  public void testMissingProperty() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Filter property 'Missing' does not exist in entity type 'Item'.");
+    FilterCondition.parse("Missing eq 1").toExpression(ODataVersion.V4, ENTITY_TYPE);
+  }
+
+  @Test
+  public void testUnsupportedType() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("can not be filtered");
+    FilterCondition.parse("Stream eq 1").toExpression(ODataVersion.V4, ENTITY_TYPE);
+  }
+}
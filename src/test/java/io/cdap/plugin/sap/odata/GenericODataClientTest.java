@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.odata;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import io.cdap.plugin.sap.mock.MockGatewayServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Tests of {@link GenericODataClient} session handling, compression and paging against {@link MockGatewayServer}.
+ */
+public class GenericODataClientTest {
+
+  private static final String ENTITY_SET = "Items";
+  private static final String USER = "admin";
+  private static final String PASSWORD = "secret";
+
+  @Test
+  public void testOData2SessionReused() throws IOException {
+    testSessionReused(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4SessionReused() throws IOException {
+    testSessionReused(ODataVersion.V4);
+  }
+
+  @Test
+  public void testOData2SessionExpired() throws IOException {
+    testSessionExpired(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4SessionExpired() throws IOException {
+    testSessionExpired(ODataVersion.V4);
+  }
+
+  private void testSessionReused(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = startServer(version)) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), USER, PASSWORD);
+      client.getEntitySetType(ENTITY_SET);
+      for (int i = 0; i < 3; i++) {
+        Assert.assertEquals(10, Iterators.size(client.queryEntitySet(ENTITY_SET, null)));
+      }
+      Assert.assertEquals(1, server.getLogons());
+    }
+  }
+
+  private void testSessionExpired(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = startServer(version)) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), USER, PASSWORD);
+      Assert.assertEquals(10, Iterators.size(client.queryEntitySet(ENTITY_SET, null)));
+      server.expireSessions();
+      Assert.assertEquals(10, Iterators.size(client.queryEntitySet(ENTITY_SET, null)));
+      Assert.assertEquals(10, Iterators.size(client.queryEntitySet(ENTITY_SET, null)));
+      Assert.assertEquals(2, server.getLogons());
+    }
+  }
+
+  @Test
+  public void testOData2TokenRevoked() throws IOException {
+    testTokenRevoked(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4TokenRevoked() throws IOException {
+    testTokenRevoked(ODataVersion.V4);
+  }
+
+  private void testTokenRevoked(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version)
+      .addEntitySet(ENTITY_SET, 10)
+      .setOAuth2(true)
+      .build()) {
+      OAuth2Credentials credentials = OAuth2Credentials.clientCredentials(server.getTokenUrl(), "client", "secret",
+                                                                          null);
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null, credentials);
+      Assert.assertEquals(10, Iterators.size(client.queryEntitySet(ENTITY_SET, null)));
+      server.revokeTokens();
+      // the rejected request is retried once with a new token
+      Assert.assertEquals(10, Iterators.size(client.queryEntitySet(ENTITY_SET, null)));
+      Assert.assertEquals(2, server.getTokenRequests());
+    }
+  }
+
+  @Test
+  public void testOData2Compression() throws IOException {
+    testCompression(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4Compression() throws IOException {
+    testCompression(ODataVersion.V4);
+  }
+
+  private void testCompression(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version)
+      .addEntitySet(ENTITY_SET, 1000)
+      .setCompression(true)
+      .build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      Assert.assertEquals(1000, Iterators.size(client.queryEntitySet(ENTITY_SET, null)));
+      TransferStatistics statistics = client.getTransferStatistics();
+      Assert.assertTrue(statistics.getCompressedBytes() > 0);
+      // generated entities are highly repetitive
+      Assert.assertTrue(statistics.getUncompressedBytes() > 3 * statistics.getCompressedBytes());
+    }
+  }
+
+  @Test
+  public void testOData2ClientDrivenPaging() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V2).addEntitySet(ENTITY_SET, 1000).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      Assert.assertEquals(1000, Iterators.size(client.queryEntitySet(ENTITY_SET, null, 100)));
+      // the last page is empty
+      Assert.assertEquals(11, server.getPageRequests());
+    }
+  }
+
+  @Test
+  public void testOData2ClientDrivenPagingWithinRange() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V2).addEntitySet(ENTITY_SET, 1000).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<ODataEntity> entities = Lists.newArrayList(client.queryEntitySet(ENTITY_SET, "$skip=50&$top=250", 100));
+      Assert.assertEquals(250, entities.size());
+      Assert.assertEquals(51L, entities.get(0).getProperties().get(MockGatewayServer.ID));
+      Assert.assertEquals(300L, entities.get(249).getProperties().get(MockGatewayServer.ID));
+      Assert.assertEquals(3, server.getPageRequests());
+    }
+  }
+
+  @Test
+  public void testOData2ServerDrivenPaging() throws IOException {
+    testServerDrivenPaging(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4ServerDrivenPaging() throws IOException {
+    testServerDrivenPaging(ODataVersion.V4);
+  }
+
+  @Test
+  public void testOData4MaxPageSize() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, 1000).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      Assert.assertEquals(1000, Iterators.size(client.queryEntitySet(ENTITY_SET, null, 100)));
+      Assert.assertEquals(10, server.getPageRequests());
+    }
+  }
+
+  private void testServerDrivenPaging(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version)
+      .addEntitySet(ENTITY_SET, 1000)
+      .setServerPageSize(100)
+      .build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      Assert.assertEquals(1000, Iterators.size(client.queryEntitySet(ENTITY_SET, null)));
+      Assert.assertEquals(10, server.getPageRequests());
+    }
+  }
+
+  @Test
+  public void testOData2ResumeClientDrivenPaging() throws IOException {
+    testResume(ODataVersion.V2, 0, 100);
+  }
+
+  @Test
+  public void testOData2ResumeServerDrivenPaging() throws IOException {
+    testResume(ODataVersion.V2, 100, 0);
+  }
+
+  @Test
+  public void testOData4ResumeServerDrivenPaging() throws IOException {
+    testResume(ODataVersion.V4, 100, 0);
+  }
+
+  private void testResume(ODataVersion version, int serverPageSize, int pageSize) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version)
+      .addEntitySet(ENTITY_SET, 1000)
+      .setServerPageSize(serverPageSize)
+      .build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      PagingEntityIterator<ODataEntity> interrupted = client.queryEntitySet(ENTITY_SET, null, pageSize);
+      for (int i = 0; i < 250; i++) {
+        interrupted.next();
+      }
+      PagePosition position = interrupted.getPagePosition();
+      Assert.assertNotNull(position);
+      Assert.assertEquals(200, position.getOffset());
+
+      // the third page is read again
+      List<ODataEntity> entities = Lists.newArrayList(client.queryEntitySet(ENTITY_SET, null, pageSize, position));
+      Assert.assertEquals(800, entities.size());
+      Assert.assertEquals(201L, ((Number) entities.get(0).getProperties().get(MockGatewayServer.ID)).longValue());
+    }
+  }
+
+  @Test
+  public void testOData2EntitySetNames() throws IOException {
+    testEntitySetNames(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4EntitySetNames() throws IOException {
+    testEntitySetNames(ODataVersion.V4);
+  }
+
+  private void testEntitySetNames(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version)
+      .addEntitySet(ENTITY_SET, 10)
+      .addEntitySet("OtherItems", 10)
+      .build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      Assert.assertEquals(ImmutableSet.of(ENTITY_SET, "OtherItems"), client.getEntitySetNames());
+      Assert.assertEquals(0, server.getMetadataRequests());
+    }
+  }
+
+  private MockGatewayServer startServer(ODataVersion version) throws IOException {
+    return MockGatewayServer.builder(version)
+      .addEntitySet(ENTITY_SET, 10)
+      .setCredentials(USER, PASSWORD)
+      .build();
+  }
+}
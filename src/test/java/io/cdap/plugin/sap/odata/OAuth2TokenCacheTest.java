@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.odata;
+
+import io.cdap.plugin.sap.odata.exception.ODataException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests of {@link OAuth2TokenCache}.
+ */
+public class OAuth2TokenCacheTest {
+
+  private static final OAuth2Credentials CREDENTIALS = OAuth2Credentials.clientCredentials(
+    "https://tenant.authentication.eu10.hana.ondemand.com/oauth/token", "client", "secret", null);
+  private static final long LIFETIME_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  @Test
+  public void testTokenShared() {
+    AtomicInteger requests = new AtomicInteger();
+    OAuth2TokenCache cache = new OAuth2TokenCache(
+      credentials -> new OAuth2TokenCache.Token("token" + requests.incrementAndGet(), LIFETIME_MILLIS), () -> 0L);
+
+    Assert.assertEquals("token1", cache.getAccessToken(CREDENTIALS));
+    Assert.assertEquals("token1", cache.getAccessToken(OAuth2Credentials.clientCredentials(
+      CREDENTIALS.getTokenUrl(), CREDENTIALS.getClientId(), CREDENTIALS.getClientSecret(), null)));
+    Assert.assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void testTokenRefreshedAhead() throws InterruptedException {
+    AtomicLong clock = new AtomicLong();
+    AtomicInteger requests = new AtomicInteger();
+    CountDownLatch refreshed = new CountDownLatch(1);
+    OAuth2TokenCache cache = new OAuth2TokenCache(credentials -> {
+      int request = requests.incrementAndGet();
+      if (request == 2) {
+        refreshed.countDown();
+      }
+      return new OAuth2TokenCache.Token("token" + request, LIFETIME_MILLIS);
+    }, clock::get);
+
+    Assert.assertEquals("token1", cache.getAccessToken(CREDENTIALS));
+    // past the refresh point, the current token is served while a new one is fetched in the background
+    clock.set((long) (LIFETIME_MILLIS * OAuth2TokenCache.REFRESH_RATIO));
+    Assert.assertEquals("token1", cache.getAccessToken(CREDENTIALS));
+    Assert.assertTrue(refreshed.await(10, TimeUnit.SECONDS));
+    waitForToken(cache, "token2");
+    Assert.assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testExpiredTokenFetchedSynchronously() {
+    AtomicLong clock = new AtomicLong();
+    AtomicInteger requests = new AtomicInteger();
+    OAuth2TokenCache cache = new OAuth2TokenCache(
+      credentials -> new OAuth2TokenCache.Token("token" + requests.incrementAndGet(), LIFETIME_MILLIS), clock::get);
+
+    Assert.assertEquals("token1", cache.getAccessToken(CREDENTIALS));
+    clock.set(LIFETIME_MILLIS);
+    Assert.assertEquals("token2", cache.getAccessToken(CREDENTIALS));
+  }
+
+  @Test
+  public void testInvalidate() {
+    AtomicInteger requests = new AtomicInteger();
+    OAuth2TokenCache cache = new OAuth2TokenCache(
+      credentials -> new OAuth2TokenCache.Token("token" + requests.incrementAndGet(), LIFETIME_MILLIS), () -> 0L);
+
+    Assert.assertEquals("token1", cache.getAccessToken(CREDENTIALS));
+    cache.invalidate(CREDENTIALS);
+    Assert.assertEquals("token2", cache.getAccessToken(CREDENTIALS));
+  }
+
+  @Test
+  public void testParseToken() {
+    OAuth2TokenCache.Token token = OAuth2TokenCache.parseToken(
+      "{\"access_token\":\"eyJhbGciOiJSUzI1NiJ9\",\"token_type\":\"bearer\",\"expires_in\":43199}");
+    Assert.assertEquals("eyJhbGciOiJSUzI1NiJ9", token.getValue());
+    Assert.assertEquals(TimeUnit.SECONDS.toMillis(43199), token.getLifetimeMillis());
+
+    token = OAuth2TokenCache.parseToken("{\"access_token\":\"eyJhbGciOiJSUzI1NiJ9\"}");
+    Assert.assertEquals(TimeUnit.SECONDS.toMillis(OAuth2TokenCache.DEFAULT_LIFETIME_SECONDS),
+                        token.getLifetimeMillis());
+  }
+
+  @Test(expected = ODataException.class)
+  public void testParseTokenMissing() {
+    OAuth2TokenCache.parseToken("{\"error\":\"invalid_client\"}");
+  }
+
+  private void waitForToken(OAuth2TokenCache cache, String expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!expected.equals(cache.getAccessToken(CREDENTIALS)) && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    Assert.assertEquals(expected, cache.getAccessToken(CREDENTIALS));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.odata;
+
+import io.cdap.plugin.sap.mock.MockGatewayServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests of {@link SamplingIterator} against {@link MockGatewayServer}.
+ */
+public class SamplingIteratorTest {
+
+  private static final String ENTITY_SET = "Items";
+  private static final long ROWS = 1000;
+
+  @Test
+  public void testOData2Sample() throws IOException {
+    testSample(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4Sample() throws IOException {
+    testSample(ODataVersion.V4);
+  }
+
+  private void testSample(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<Long> ids = readIds(new SamplingIterator(client, ENTITY_SET, null, 0, 100, new Random(42)));
+
+      Assert.assertEquals(100, ids.size());
+      Assert.assertEquals(100, new HashSet<>(ids).size());
+      // every stratum of 100 entities holds a window of 10 entities
+      for (long stratum = 0; stratum < SamplingIterator.MAX_WINDOWS; stratum++) {
+        long first = stratum * 100 + 1;
+        Assert.assertEquals(10, ids.stream().filter(id -> id >= first && id < first + 100).count());
+      }
+    }
+  }
+
+  @Test
+  public void testSampleOfFilteredEntities() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<Long> ids = readIds(new SamplingIterator(client, ENTITY_SET, "$filter=Id gt 500&$top=5", 0, 20,
+                                                    new Random(42)));
+
+      Assert.assertEquals(20, ids.size());
+      Assert.assertTrue(ids.stream().allMatch(id -> id > 500));
+    }
+  }
+
+  @Test
+  public void testSampleLargerThanEntitySet() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, 50).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<Long> ids = readIds(new SamplingIterator(client, ENTITY_SET, null, 0, 100, new Random(42)));
+
+      Assert.assertEquals(50, ids.size());
+    }
+  }
+
+  private static List<Long> readIds(SamplingIterator iterator) {
+    List<Long> ids = new ArrayList<>();
+    while (iterator.hasNext()) {
+      ids.add((Long) iterator.next().getProperties().get(MockGatewayServer.ID));
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import com.google.common.collect.Iterators;
+import io.cdap.plugin.sap.mock.MockGatewayServer;
+import io.cdap.plugin.sap.odata.GenericODataClient;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.QueryOptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests of {@link CategorySplitPlanner} against {@link MockGatewayServer}.
+ */
+public class CategorySplitPlannerTest {
+
+  private static final String ENTITY_SET = "Items";
+  private static final long ROWS = 1000;
+
+  @Test
+  public void testOData2DiscoveredValues() throws IOException {
+    testDiscoveredValues(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4DiscoveredValues() throws IOException {
+    testDiscoveredValues(ODataVersion.V4);
+  }
+
+  @Test
+  public void testConfiguredValues() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<String> filters = new CategorySplitPlanner(client, ENTITY_SET, null, MockGatewayServer.COMPANY_CODE,
+                                                      Arrays.asList("1000", "2000"), 4).plan();
+      Assert.assertEquals(Arrays.asList("CompanyCode eq '1000'", "CompanyCode eq '2000'",
+                                        "CompanyCode ne '1000' and CompanyCode ne '2000'"), filters);
+      assertRows(client, filters, Arrays.asList(500L, 300L, 200L));
+    }
+  }
+
+  @Test
+  public void testConfiguredValueWithoutEntities() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<String> filters = new CategorySplitPlanner(client, ENTITY_SET, null, MockGatewayServer.COMPANY_CODE,
+                                                      Arrays.asList("1000", "9000"), 4).plan();
+      // '9000' has no entities yet, entities added with it later are read by the split of other values
+      Assert.assertEquals(Arrays.asList("CompanyCode eq '1000'", "CompanyCode ne '1000'"), filters);
+      assertRows(client, filters, Arrays.asList(500L, 500L));
+    }
+  }
+
+  private void testDiscoveredValues(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<String> filters = new CategorySplitPlanner(client, ENTITY_SET, null, MockGatewayServer.COMPANY_CODE,
+                                                      Collections.emptyList(), 2).plan();
+      // company codes hold 50%, 30%, 10% and 10% of the entities
+      Assert.assertEquals(Arrays.asList(
+        "CompanyCode eq '1000'",
+        "CompanyCode eq '2000' or CompanyCode eq '3000' or CompanyCode eq '4000'",
+        "CompanyCode ne '1000' and CompanyCode ne '2000' and CompanyCode ne '3000' and CompanyCode ne '4000'"),
+                          filters);
+      assertRows(client, filters, Arrays.asList(500L, 500L, 0L));
+    }
+  }
+
+  private static void assertRows(GenericODataClient client, List<String> filters, List<Long> expected) {
+    for (int i = 0; i < filters.size(); i++) {
+      String query = QueryOptions.parse(null).addFilter(filters.get(i)).toString();
+      Assert.assertEquals((long) expected.get(i), Iterators.size(client.queryEntitySet(ENTITY_SET, query)));
+    }
+  }
+}
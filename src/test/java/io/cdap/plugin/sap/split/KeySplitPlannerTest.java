@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.split;
+
+import com.google.common.collect.Iterators;
+import io.cdap.plugin.sap.mock.MockGatewayServer;
+import io.cdap.plugin.sap.odata.GenericODataClient;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.QueryOptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests of {@link KeySplitPlanner} against {@link MockGatewayServer}.
+ */
+public class KeySplitPlannerTest {
+
+  private static final String ENTITY_SET = "Items";
+  private static final long ROWS = 1000;
+  // keys of the selected entities are clustered at both ends of the key range
+  private static final String SKEWED_QUERY = "$filter=Id le 100 or Id gt 900";
+
+  @Test
+  public void testOData2SkewedKeys() throws IOException {
+    testSkewedKeys(ODataVersion.V2, Arrays.asList("Id lt 51L", "Id ge 51L and Id lt 901L",
+                                                  "Id ge 901L and Id lt 951L", "Id ge 951L"));
+  }
+
+  @Test
+  public void testOData4SkewedKeys() throws IOException {
+    testSkewedKeys(ODataVersion.V4, Arrays.asList("Id lt 51", "Id ge 51 and Id lt 901", "Id ge 901 and Id lt 951",
+                                                  "Id ge 951"));
+  }
+
+  @Test
+  public void testSingleSplit() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      Assert.assertEquals(Collections.emptyList(),
+                          new KeySplitPlanner(client, ENTITY_SET, "$filter=Id eq 1", MockGatewayServer.ID, 4).plan());
+    }
+  }
+
+  private void testSkewedKeys(ODataVersion version, List<String> expected) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<String> filters = new KeySplitPlanner(client, ENTITY_SET, SKEWED_QUERY, MockGatewayServer.ID, 4).plan();
+      Assert.assertEquals(expected, filters);
+      for (String filter : filters) {
+        String query = QueryOptions.parse(SKEWED_QUERY).addFilter(filter).toString();
+        Assert.assertEquals(50, Iterators.size(client.queryEntitySet(ENTITY_SET, query)));
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.sap.split;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of {@link StatisticsSplitPlanner} and {@link SplitStatisticsStore}.
+ */
+public class StatisticsSplitPlannerTest {
+
+  private static final long MAX_AGE = TimeUnit.HOURS.toMillis(1);
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testMergeSplits() {
+    List<SplitStatistics> statistics = Arrays.asList(split("a", 0, 4, "A", 100), split("a", 1, 4, "B", 200),
+                                                     split("a", 2, 4, "C", 300), split("a", 3, 4, "D", 50));
+    StatisticsSplitPlanner planner = new StatisticsSplitPlanner(statistics, 300);
+    Assert.assertTrue(planner.isReusable());
+    Assert.assertEquals(3, planner.getSplitCount());
+    Assert.assertEquals(Arrays.asList("(A) or (B)", "C", "D"), planner.plan());
+  }
+
+  @Test
+  public void testSplitExceedsTarget() {
+    List<SplitStatistics> statistics = Arrays.asList(split("a", 0, 2, "A", 100), split("a", 1, 2, "B", 1000));
+    StatisticsSplitPlanner planner = new StatisticsSplitPlanner(statistics, 300);
+    Assert.assertFalse(planner.isReusable());
+    Assert.assertEquals(4, planner.getSplitCount());
+  }
+
+  @Test
+  public void testWholeEntitySet() {
+    StatisticsSplitPlanner planner = new StatisticsSplitPlanner(Collections.singletonList(split("a", 0, 1, null, 100)),
+                                                                300);
+    Assert.assertEquals(Collections.emptyList(), planner.plan());
+  }
+
+  @Test
+  public void testStoreReadsLatestCompleteRun() throws IOException {
+    SplitStatisticsStore store = new SplitStatisticsStore(new Path(temporaryFolder.newFolder().toURI()),
+                                                          new Configuration());
+    Assert.assertNull(store.readLatest(MAX_AGE));
+
+    store.write(split("complete", 1, 2, "B", 200));
+    store.write(split("complete", 0, 2, "A", 100));
+    // retried split replaces the statistics of the failed attempt
+    store.write(split("complete", 0, 2, "A", 150));
+    // run which is still in progress or failed
+    store.write(split("incomplete", 0, 3, "C", 300));
+
+    List<SplitStatistics> latest = store.readLatest(MAX_AGE);
+    Assert.assertNotNull(latest);
+    Assert.assertEquals(2, latest.size());
+    Assert.assertEquals("A", latest.get(0).getFilter());
+    Assert.assertEquals(150, latest.get(0).getDurationMillis());
+    Assert.assertEquals("B", latest.get(1).getFilter());
+  }
+
+  private static SplitStatistics split(String planId, int index, int count, String filter,
+                                       long durationMillis) {
+    return new SplitStatistics(planId, index, count, filter, System.currentTimeMillis(), 10, 1000, 1, 5,
+                               durationMillis);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.sap.split;
+
+import com.google.common.collect.Iterators;
+import io.cdap.plugin.sap.mock.MockGatewayServer;
+import io.cdap.plugin.sap.odata.GenericODataClient;
+import io.cdap.plugin.sap.odata.ODataVersion;
+import io.cdap.plugin.sap.odata.QueryOptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Tests of {@link TimeSplitPlanner} against {@link MockGatewayServer}.
+ */
+public class TimeSplitPlannerTest {
+
+  private static final String ENTITY_SET = "Items";
+  private static final long ROWS = 1000;
+
+  @Test
+  public void testOData2ObservedBounds() throws IOException {
+    testObservedBounds(ODataVersion.V2);
+  }
+
+  @Test
+  public void testOData4ObservedBounds() throws IOException {
+    testObservedBounds(ODataVersion.V4);
+  }
+
+  @Test
+  public void testOData2ConfiguredBounds() throws IOException {
+    testConfiguredBounds(ODataVersion.V2, Arrays.asList(
+      "PostingDate ge datetime'2019-01-15T00:00:00' and PostingDate lt datetime'2019-02-01T00:00:00'",
+      "PostingDate ge datetime'2019-02-01T00:00:00' and PostingDate lt datetime'2019-03-01T00:00:00'"));
+  }
+
+  @Test
+  public void testOData4ConfiguredBounds() throws IOException {
+    testConfiguredBounds(ODataVersion.V4, Arrays.asList(
+      "PostingDate ge 2019-01-15 and PostingDate lt 2019-02-01",
+      "PostingDate ge 2019-02-01 and PostingDate lt 2019-03-01"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotDateProperty() throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(ODataVersion.V4).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      new TimeSplitPlanner(client, ENTITY_SET, null, MockGatewayServer.NAME, TimeInterval.DAY, null, null).plan();
+    }
+  }
+
+  @Test
+  public void testDateTimeOffsetBoundIsUtc() {
+    // 2019-03-01T02:00:00+05:00 is 2019-02-28T21:00:00Z, which the UTC range filters place on the 28th
+    Calendar offsetValue = Calendar.getInstance(TimeZone.getTimeZone("GMT+05:00"));
+    offsetValue.clear();
+    offsetValue.set(2019, Calendar.MARCH, 1, 2, 0, 0);
+    Assert.assertEquals(LocalDate.of(2019, 2, 28),
+                        TimeSplitPlanner.toLocalDate(MockGatewayServer.POSTING_DATE, "DateTimeOffset", offsetValue));
+    // dates keep their calendar fields regardless of the time zone they were parsed in
+    Assert.assertEquals(LocalDate.of(2019, 3, 1),
+                        TimeSplitPlanner.toLocalDate(MockGatewayServer.POSTING_DATE, "Date", offsetValue));
+  }
+
+  private void testObservedBounds(ODataVersion version) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<String> filters = new TimeSplitPlanner(client, ENTITY_SET, null, MockGatewayServer.POSTING_DATE,
+                                                  TimeInterval.MONTH, null, null).plan();
+      // posting dates are spread over three years
+      Assert.assertEquals(36, filters.size());
+      long rows = 0;
+      for (String filter : filters) {
+        String query = QueryOptions.parse(null).addFilter(filter).toString();
+        rows += Iterators.size(client.queryEntitySet(ENTITY_SET, query));
+      }
+      Assert.assertEquals(ROWS, rows);
+    }
+  }
+
+  private void testConfiguredBounds(ODataVersion version, List<String> expected) throws IOException {
+    try (MockGatewayServer server = MockGatewayServer.builder(version).addEntitySet(ENTITY_SET, ROWS).build()) {
+      GenericODataClient client = new GenericODataClient(server.getServiceUrl(), null, null);
+      List<String> filters = new TimeSplitPlanner(client, ENTITY_SET, null, MockGatewayServer.POSTING_DATE,
+                                                  TimeInterval.MONTH, LocalDate.of(2019, 1, 15),
+                                                  LocalDate.of(2019, 3, 1)).plan();
+      Assert.assertEquals(expected, filters);
+    }
+  }
+}